@@ -1,6 +1,7 @@
 package io.quantumdb.cli.commands;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
 
@@ -33,42 +34,42 @@ public class Changelog extends Command {
 			boolean printShort = getArgument(arguments, "short", Boolean.class, () -> false);
 
 			Config config = Config.load();
-			Backend backend = config.getBackend();
-
-			State state = loadState(backend);
-			Set<Version> activeVersions = Sets.newHashSet(state.getRefLog().getVersions());
-			io.quantumdb.core.versioning.Changelog changelog = state.getChangelog();
-
-			ChangeSet changeset = null;
-			List<Version> versions = Lists.newArrayList(changelog.getRoot());
-
-			boolean print = from == null;
-			while (!versions.isEmpty()) {
-				Version version = versions.remove(0);
-				ChangeSet currentChangeset = version.getChangeSet();
-
-				if (currentChangeset.getId().equals(from)) {
-					print = true;
-				}
-
-				if (!currentChangeset.equals(changeset) && print) {
-					print(writer, currentChangeset, activeVersions, printShort);
-					limit--;
-				}
-
-				if (currentChangeset.getId().equals(until) || limit <= 0) {
-					print = false;
+			try (Backend backend = config.getBackend()) {
+				State state = loadState(backend);
+				Set<Version> activeVersions = Sets.newHashSet(state.getRefLog().getVersions());
+				io.quantumdb.core.versioning.Changelog changelog = state.getChangelog();
+
+				ChangeSet changeset = null;
+				List<Version> versions = Lists.newArrayList(changelog.getRoot());
+
+				boolean print = from == null;
+				while (!versions.isEmpty()) {
+					Version version = versions.remove(0);
+					ChangeSet currentChangeset = version.getChangeSet();
+
+					if (currentChangeset.getId().equals(from)) {
+						print = true;
+					}
+
+					if (!currentChangeset.equals(changeset) && print) {
+						print(writer, currentChangeset, activeVersions, printShort);
+						limit--;
+					}
+
+					if (currentChangeset.getId().equals(until) || limit <= 0) {
+						print = false;
+					}
+
+					changeset = currentChangeset;
+					if (version.getChild() != null) {
+						versions.add(version.getChild());
+					}
 				}
 
-				changeset = currentChangeset;
-				if (version.getChild() != null) {
-					versions.add(version.getChild());
-				}
+				persistChanges(backend, state);
 			}
-
-			persistChanges(backend, state);
 		}
-		catch (IOException | CliException e) {
+		catch (IOException | CliException | SQLException e) {
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
 	}
@@ -6,6 +6,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
 
 import io.quantumdb.cli.utils.CliException;
@@ -34,51 +35,52 @@ public class Cleanup extends Command {
 	public void perform(CliWriter writer, List<String> arguments) {
 		try {
 			Config config = Config.load();
-			Backend backend = config.getBackend();
-			writer.write("Scanning database...");
+			try (Backend backend = config.getBackend()) {
+				writer.write("Scanning database...");
 
-			State state = loadState(backend);
-			Changelog changelog = state.getChangelog();
+				State state = loadState(backend);
+				Changelog changelog = state.getChangelog();
 
-			Version last = changelog.getVersion(state.getRefLog().getVersions().toArray(new Version[0])[0].getId());
-			writer.write(last.getId());
-			ChangeSet changeSet = new ChangeSet("cleanup_" + RandomHasher.generateHash(), "QuantumDB");
-			Operation operation = cleanupTables();
-			changelog.addChangeSet(last, changeSet, operation);
+				Version last = changelog.getVersion(state.getRefLog().getVersions().toArray(new Version[0])[0].getId());
+				writer.write(last.getId());
+				ChangeSet changeSet = new ChangeSet("cleanup_" + RandomHasher.generateHash(), "QuantumDB");
+				Operation operation = cleanupTables();
+				changelog.addChangeSet(last, changeSet, operation);
 
-			String outputFile = null;
-			boolean printDryRun = false;
-			boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
-			if (isDryRun) {
-				outputFile = getArgument(arguments, "output-file", String.class, () -> null);
-				if (outputFile == null) {
-					Path path = Files.createTempFile("cleanup", ".sql");
-					outputFile = path.toFile().getAbsolutePath();
-					printDryRun = true;
-				}
-				else if (new File(outputFile).exists()) {
-					new File(outputFile).delete();
-				}
+				String outputFile = null;
+				boolean printDryRun = false;
+				boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
+				if (isDryRun) {
+					outputFile = getArgument(arguments, "output-file", String.class, () -> null);
+					if (outputFile == null) {
+						Path path = Files.createTempFile("cleanup", ".sql");
+						outputFile = path.toFile().getAbsolutePath();
+						printDryRun = true;
+					}
+					else if (new File(outputFile).exists()) {
+						new File(outputFile).delete();
+					}
 
-				config.enableDryRun(outputFile);
-			}
+					config.enableDryRun(outputFile);
+				}
 
-			writer.write("Renaming all tables back to their original name.");
+				writer.write("Renaming all tables back to their original name.");
 
-			Migrator migrator = new Migrator(backend);
-			migrator.migrate(state, last.getId(), changelog.getLastAdded().getId());
+				Migrator migrator = new Migrator(backend);
+				migrator.migrate(state, last.getId(), changelog.getLastAdded().getId());
 
-			if (isDryRun) {
-				if (printDryRun) {
-					System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+				if (isDryRun) {
+					if (printDryRun) {
+						System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+					}
+				}
+				else {
+					state = loadState(backend);
+					writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 				}
-			}
-			else {
-				state = loadState(backend);
-				writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 			}
 		}
-		catch (MigrationException | IOException | CliException e) {
+		catch (MigrationException | IOException | CliException | SQLException e) {
 			log.error(e.getMessage(), e);
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
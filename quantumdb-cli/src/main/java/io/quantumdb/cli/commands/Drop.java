@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.quantumdb.cli.utils.CliException;
 import io.quantumdb.cli.utils.CliWriter;
@@ -29,74 +30,86 @@ public class Drop extends Command {
 	public void perform(CliWriter writer, List<String> arguments) {
 		try {
 			Config config = Config.load();
-			Backend backend = config.getBackend();
-			writer.write("Scanning database...");
+			try (Backend backend = config.getBackend()) {
+				writer.write("Scanning database...");
 
-			State state = loadState(backend);
-			Changelog changelog = state.getChangelog();
+				State state = loadState(backend);
+				Changelog changelog = state.getChangelog();
 
-			String changeSetId = arguments.remove(0);
-			Version version = changelog.getRoot();
-			while (!version.getChangeSet().getId().equals(changeSetId)) {
-				version = version.getChild();
-				if (version == null) {
-					throw new IllegalArgumentException("Please specify a valid Changeset ID to drop!");
+				String changeSetId = arguments.remove(0);
+				Version version = changelog.getRoot();
+				while (!version.getChangeSet().getId().equals(changeSetId)) {
+					version = version.getChild();
+					if (version == null) {
+						throw new IllegalArgumentException("Please specify a valid Changeset ID to drop!");
+					}
 				}
-			}
-			version = version.getChangeSet().getVersion();
+				version = version.getChangeSet().getVersion();
 
-			String outputFile = null;
-			boolean printDryRun = false;
-			boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
-			if (isDryRun) {
-				outputFile = getArgument(arguments, "output-file", String.class, () -> null);
-				if (outputFile == null) {
-					Path path = Files.createTempFile("drop", ".sql");
-					outputFile = path.toFile().getAbsolutePath();
-					printDryRun = true;
-				}
-				else if (new File(outputFile).exists()) {
-					new File(outputFile).delete();
-				}
+				String outputFile = null;
+				boolean printDryRun = false;
+				boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
+				if (isDryRun) {
+					outputFile = getArgument(arguments, "output-file", String.class, () -> null);
+					if (outputFile == null) {
+						Path path = Files.createTempFile("drop", ".sql");
+						outputFile = path.toFile().getAbsolutePath();
+						printDryRun = true;
+					}
+					else if (new File(outputFile).exists()) {
+						new File(outputFile).delete();
+					}
 
-				config.enableDryRun(outputFile);
-			}
+					config.enableDryRun(outputFile);
+				}
 
-			if (!isDryRun) {
-				writer.write("Checking how many clients are still connected to: " + version.getChangeSet().getId());
-				int count = backend.countClientsConnectedToVersion(version);
+				long waitSeconds = getArgument(arguments, "wait", Long.class, () -> 0L);
+				if (!isDryRun) {
+					writer.write("Checking how many clients are still connected to: " + version.getChangeSet().getId());
+					if (waitSeconds > 0 && backend.countClientsConnectedToVersion(version) > 0) {
+						writer.indent(1)
+								.write("Waiting up to " + waitSeconds + " seconds for clients to stop using this version...")
+								.indent(-1);
+						backend.waitUntilDrained(version, waitSeconds, TimeUnit.SECONDS);
+					}
+					int count = backend.countClientsConnectedToVersion(version);
 
-				if (count > 0) {
-					writer.indent(1)
-							.write("There are still " + count + " clients using this version.", Context.FAILURE)
-							.indent(-1);
-					return;
-				}
-				else {
-					writer.indent(1)
-							.write("0 clients are using this version of the database schema.")
-							.indent(-1);
+					if (count > 0) {
+						writer.indent(1)
+								.write("There are still " + count + " clients using this version.", Context.FAILURE)
+								.indent(-1);
+						return;
+					}
+					else {
+						writer.indent(1)
+								.write("0 clients are using this version of the database schema.")
+								.indent(-1);
+					}
 				}
-			}
 
-			writer.write("Dropping database schema version: " + version.getChangeSet().getId() + "...");
+				writer.write("Dropping database schema version: " + version.getChangeSet().getId() + "...");
 
-			backend.getMigrator().drop(state, version, null);
+				backend.getMigrator().drop(state, version, null);
 
-			if (isDryRun) {
-				if (printDryRun) {
-					System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+				if (isDryRun) {
+					if (printDryRun) {
+						System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+					}
+				}
+				else {
+					state = loadState(backend);
+					writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 				}
-			}
-			else {
-				state = loadState(backend);
-				writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 			}
 		}
 		catch (MigrationException | IOException | CliException | SQLException e) {
 			log.error(e.getMessage(), e);
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			writer.write("Interrupted while waiting for clients to stop using the version.", Context.FAILURE);
+		}
 	}
 
 }
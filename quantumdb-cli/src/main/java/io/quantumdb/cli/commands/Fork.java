@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -30,57 +31,58 @@ public class Fork extends Command {
 	public void perform(CliWriter writer, List<String> arguments) {
 		try {
 			Config config = Config.load();
-			Backend backend = config.getBackend();
-			writer.write("Scanning database...");
+			try (Backend backend = config.getBackend()) {
+				writer.write("Scanning database...");
 
-			State state = loadState(backend);
-			Changelog changelog = state.getChangelog();
+				State state = loadState(backend);
+				Changelog changelog = state.getChangelog();
 
-			Version from = getOriginVersion(arguments, state, changelog);
+				Version from = getOriginVersion(arguments, state, changelog);
 
-			String toChangeSet = arguments.remove(0);
-			Version version = changelog.getRoot();
-			while (!version.getChangeSet().getId().equals(toChangeSet)) {
-				version = version.getChild();
-				if (version == null) {
-					throw new IllegalArgumentException("Please specify a valid Changeset ID to fork to!");
-				}
-			}
-			Version to = version.getChangeSet().getVersion();
-
-			String outputFile = null;
-			boolean printDryRun = false;
-			boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
-			if (isDryRun) {
-				outputFile = getArgument(arguments, "output-file", String.class, () -> null);
-				if (outputFile == null) {
-					Path path = Files.createTempFile("fork", ".sql");
-					outputFile = path.toFile().getAbsolutePath();
-					printDryRun = true;
+				String toChangeSet = arguments.remove(0);
+				Version version = changelog.getRoot();
+				while (!version.getChangeSet().getId().equals(toChangeSet)) {
+					version = version.getChild();
+					if (version == null) {
+						throw new IllegalArgumentException("Please specify a valid Changeset ID to fork to!");
+					}
 				}
-				else if (new File(outputFile).exists()) {
-					new File(outputFile).delete();
+				Version to = version.getChangeSet().getVersion();
+
+				String outputFile = null;
+				boolean printDryRun = false;
+				boolean isDryRun = getArgument(arguments, "dry-run", Boolean.class, () -> false);
+				if (isDryRun) {
+					outputFile = getArgument(arguments, "output-file", String.class, () -> null);
+					if (outputFile == null) {
+						Path path = Files.createTempFile("fork", ".sql");
+						outputFile = path.toFile().getAbsolutePath();
+						printDryRun = true;
+					}
+					else if (new File(outputFile).exists()) {
+						new File(outputFile).delete();
+					}
+
+					config.enableDryRun(outputFile);
 				}
 
-				config.enableDryRun(outputFile);
-			}
-
-			writer.write("Forking database from: " + from.getId() + " to: " + to.getId() + "...");
+				writer.write("Forking database from: " + from.getId() + " to: " + to.getId() + "...");
 
-			Migrator migrator = new Migrator(backend);
-			migrator.migrate(state, from.getId(), to.getId());
+				Migrator migrator = new Migrator(backend);
+				migrator.migrate(state, from.getId(), to.getId());
 
-			if (isDryRun) {
-				if (printDryRun) {
-					System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+				if (isDryRun) {
+					if (printDryRun) {
+						System.out.println(String.join("\n", Files.readAllLines(new File(outputFile).toPath())));
+					}
+				}
+				else {
+					state = loadState(backend);
+					writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 				}
-			}
-			else {
-				state = loadState(backend);
-				writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 			}
 		}
-		catch (MigrationException | IOException | CliException e) {
+		catch (MigrationException | IOException | CliException | SQLException e) {
 			log.error(e.getMessage(), e);
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
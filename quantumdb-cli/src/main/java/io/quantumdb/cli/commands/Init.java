@@ -32,41 +32,43 @@ public class Init extends Command {
 				String catalogName = getArgument(arguments, "database", String.class);
 				String user = getArgument(arguments, "username", String.class);
 				String pass = getArgument(arguments, "password", String.class, null);
+				boolean versionSchemas = getArgument(arguments, "version-schemas", Boolean.class, () -> false);
 
 				config.setUrl("jdbc:postgresql://" + hosts + "/" + catalogName + "?targetServerType=primary");
 				config.setCatalog(catalogName);
 				config.setUser(user);
 				config.setPassword(pass);
 				config.setDriver("org.postgresql.Driver");
+				config.setVersionSchemasEnabled(versionSchemas);
 			}
 
-			Backend backend = config.getBackend();
+			try (Backend backend = config.getBackend()) {
+				writer.write("Scanning database...");
+				State state = loadState(backend);
+				Catalog catalog = state.getCatalog();
+				Changelog changelog = state.getChangelog();
 
-			writer.write("Scanning database...");
-			State state = loadState(backend);
-			Catalog catalog = state.getCatalog();
-			Changelog changelog = state.getChangelog();
+				writer.indent(1);
+				writer.write("Vendor: " + getDatabaseVendor(backend));
+				writer.write("Found: " + catalog.getTables().size() + " tables");
+				writer.write("Found: " + catalog.getForeignKeys().size() + " foreign keys");
+				writer.write("Found: " + catalog.getSequences().size() + " sequences");
 
-			writer.indent(1);
-			writer.write("Vendor: " + getDatabaseVendor(backend));
-			writer.write("Found: " + catalog.getTables().size() + " tables");
-			writer.write("Found: " + catalog.getForeignKeys().size() + " foreign keys");
-			writer.write("Found: " + catalog.getSequences().size() + " sequences");
+				// Register pre-existing tables in current version.
+				if (state.getRefLog().getVersions().isEmpty()) {
+					state.getRefLog().bootstrap(catalog, changelog.getRoot());
+				}
 
-			// Register pre-existing tables in current version.
-			if (state.getRefLog().getVersions().isEmpty()) {
-				state.getRefLog().bootstrap(catalog, changelog.getRoot());
-			}
-
-			writer.indent(-1);
-			writer.write("Persisting current state to database...");
-			persistChanges(backend, state);
+				writer.indent(-1);
+				writer.write("Persisting current state to database...");
+				persistChanges(backend, state);
 
-			writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
+				writeDatabaseState(writer, state.getRefLog(), state.getChangelog());
 
-			config.persist();
+				config.persist();
+			}
 		}
-		catch (IOException | CliException e) {
+		catch (IOException | CliException | SQLException e) {
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
 	}
@@ -23,9 +23,7 @@ public class Nuke extends Command {
 	public void perform(CliWriter writer, List<String> arguments) throws IOException {
 		Config config = Config.load();
 
-		Backend backend = config.getBackend();
-
-		try {
+		try (Backend backend = config.getBackend()) {
 			try (Connection connection = backend.connect()) {
 				QuantumTables.dropEverything(connection, "public");
 			}
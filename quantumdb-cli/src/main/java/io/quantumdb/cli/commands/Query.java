@@ -7,6 +7,7 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,7 @@ import com.google.common.collect.Maps;
 import io.quantumdb.cli.utils.CliException;
 import io.quantumdb.cli.utils.CliWriter;
 import io.quantumdb.cli.utils.CliWriter.Context;
+import io.quantumdb.core.backends.Backend;
 import io.quantumdb.core.backends.Config;
 import io.quantumdb.core.versioning.State;
 import io.quantumdb.core.versioning.Version;
@@ -184,8 +186,12 @@ public class Query extends Command {
 		return url.replace("jdbc:", "jdbc:quantumdb:") + "&version=" + versionId;
 	}
 
-	private Version getVersionId(List<String> arguments, Config config) {
-		State state = loadState(config.getBackend());
+	private Version getVersionId(List<String> arguments, Config config) throws SQLException {
+		State state;
+		try (Backend backend = config.getBackend()) {
+			state = loadState(backend);
+		}
+
 		String changeSetId = getArgument(arguments, "version", String.class, () -> {
 			List<Version> versions = Lists.newArrayList(state.getRefLog().getVersions());
 			if (versions.isEmpty()) {
@@ -1,6 +1,7 @@
 package io.quantumdb.cli.commands;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.List;
 
 import io.quantumdb.cli.utils.CliException;
@@ -23,13 +24,13 @@ public class Status extends Command {
 	public void perform(CliWriter writer, List<String> arguments) {
 		try {
 			Config config = Config.load();
-			Backend backend = config.getBackend();
-
-			State state = loadState(backend);
-			RefLog refLog = state.getRefLog();
-			writeDatabaseState(writer, refLog, state.getChangelog());
+			try (Backend backend = config.getBackend()) {
+				State state = loadState(backend);
+				RefLog refLog = state.getRefLog();
+				writeDatabaseState(writer, refLog, state.getChangelog());
+			}
 		}
-		catch (IOException | CliException e) {
+		catch (IOException | CliException | SQLException e) {
 			log.error(e.getMessage(), e);
 			writer.write(e.getMessage(), Context.FAILURE);
 		}
@@ -13,6 +13,7 @@ import lombok.Data;
 public class XmlQuery implements XmlOperation<DataOperation> {
 
 	static final String TAG = "sql";
+	static final int DEFAULT_CHUNK_SIZE = 10_000;
 
 	static XmlOperation convert(XmlElement element) {
 		checkArgument(element.getTag().equals(TAG));
@@ -26,6 +27,12 @@ public class XmlQuery implements XmlOperation<DataOperation> {
 						.findFirst()
 						.orElseThrow(() -> new RuntimeException("No query specified!"))));
 
+		operation.setChunkTableName(element.getAttributes().remove("chunkTableName"));
+		operation.setChunkKey(element.getAttributes().remove("chunkKey"));
+		Optional.ofNullable(element.getAttributes().remove("chunkSize"))
+				.map(Integer::parseInt)
+				.ifPresent(operation::setChunkSize);
+
 		if (!element.getAttributes().keySet().isEmpty()) {
 			throw new IllegalArgumentException("Attributes: " + element.getAttributes().keySet() + " is/are not valid!");
 		}
@@ -34,10 +41,17 @@ public class XmlQuery implements XmlOperation<DataOperation> {
 	}
 
 	private String query;
+	private String chunkTableName;
+	private String chunkKey;
+	private Integer chunkSize;
 
 	@Override
 	public DataOperation toOperation() {
-		return SchemaOperations.execute(query);
+		DataOperation operation = SchemaOperations.execute(query);
+		if (chunkTableName != null || chunkKey != null || chunkSize != null) {
+			operation.chunkedBy(chunkTableName, chunkKey, Optional.ofNullable(chunkSize).orElse(DEFAULT_CHUNK_SIZE));
+		}
+		return operation;
 	}
 
 }
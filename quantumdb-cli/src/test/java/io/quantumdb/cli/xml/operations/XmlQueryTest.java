@@ -1,6 +1,7 @@
 package io.quantumdb.cli.xml.operations;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -32,9 +33,22 @@ public class XmlQueryTest {
 		Operation operation = version.getOperation();
 		assertTrue(operation instanceof DataOperation);
 		assertEquals("INSERT VALUES (\"user1\", 1, \"Nick\") INTO table1;", ((DataOperation) operation).getQuery());
+		assertFalse(((DataOperation) operation).isChunked());
 
 		version = version.getChild();
 		assertNull(version);
 	}
 
+	@Test
+	public void testChunkedQuery() throws IOException {
+		this.changelog = new ChangelogLoader().load(this.changelog,
+				"src/test/resources/operations/ChunkedQueryChangelog.xml");
+
+		DataOperation operation = (DataOperation) this.changelog.getRoot().getChild().getOperation();
+		assertTrue(operation.isChunked());
+		assertEquals("users", operation.getChunkTableName());
+		assertEquals("id", operation.getChunkKey());
+		assertEquals(500, operation.getChunkSize());
+	}
+
 }
@@ -0,0 +1,133 @@
+package io.quantumdb.client;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+import io.quantumdb.query.rewriter.QueryRewriter;
+import io.quantumdb.query.rewriter.QueryTemplate;
+
+/**
+ * An immutable mapping of table names to ref IDs for one particular version of the database schema, as loaded at a
+ * particular generation of the QuantumDB meta-info tables. Instances are shared between all sessions using the same
+ * version, so they must never be modified after construction.
+ *
+ * Since a mapping never changes, the outcome of rewriting a query with it doesn't either. Rewritten queries are
+ * therefore cached (bounded, least recently used entries are evicted first), so that applications repeatedly issuing
+ * the same queries only pay for rewriting them once. Mappings which map every table onto itself skip rewriting. The
+ * parsed templates of queries are shared by all mappings, so rewriting a known query for another version only needs
+ * to splice in the ref IDs of that version.
+ */
+public class TableMapping {
+
+	private static final int REWRITE_CACHE_SIZE = 10_000;
+
+	private static final Cache<String, QueryTemplate> TEMPLATES = CacheBuilder.newBuilder()
+			.maximumSize(REWRITE_CACHE_SIZE)
+			.build();
+
+	private final String version;
+	private final Long generation;
+	private final Map<String, String> tableMapping;
+	private final QueryRewriter queryRewriter;
+	private final boolean identity;
+	private final Cache<String, String> rewrittenQueries;
+
+	public TableMapping(String version, Long generation, Map<String, String> tableMapping) {
+		this(version, generation, tableMapping, new PostgresqlQueryRewriter());
+	}
+
+	public TableMapping(String version, Long generation, Map<String, String> tableMapping,
+			QueryRewriter queryRewriter) {
+
+		this.version = version;
+		this.generation = generation;
+		this.tableMapping = Collections.unmodifiableMap(new HashMap<>(tableMapping));
+		this.queryRewriter = queryRewriter;
+		this.queryRewriter.setTableMapping(this.tableMapping);
+		this.identity = this.tableMapping.entrySet().stream()
+				.allMatch(entry -> entry.getKey().equals(entry.getValue()));
+
+		this.rewrittenQueries = CacheBuilder.newBuilder()
+				.maximumSize(REWRITE_CACHE_SIZE)
+				.recordStats()
+				.build();
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The generation of the QuantumDB meta-info tables this mapping was loaded at, or NULL if unknown.
+	 */
+	public Long getGeneration() {
+		return generation;
+	}
+
+	public Map<String, String> getTableMapping() {
+		return tableMapping;
+	}
+
+	/**
+	 * @return True if this mapping maps every table onto itself, meaning queries need not be rewritten.
+	 */
+	public boolean isIdentity() {
+		return identity;
+	}
+
+	/**
+	 * Rewrites the specified query to refer to the tables of this version.
+	 *
+	 * @param query The query to rewrite.
+	 * @return The rewritten query.
+	 * @throws SQLException In case the query could not be rewritten.
+	 * @throws IllegalArgumentException When the specified 'query' is NULL.
+	 */
+	public String rewrite(String query) throws SQLException {
+		if (query == null) {
+			throw new IllegalArgumentException("You must specify specify a 'query'.");
+		}
+		if (identity) {
+			return query;
+		}
+
+		long start = System.nanoTime();
+		String rewrittenQuery = rewrittenQueries.getIfPresent(query);
+		boolean cached = rewrittenQuery != null;
+		if (!cached) {
+			QueryTemplate template = TEMPLATES.getIfPresent(query);
+			if (template == null) {
+				template = QueryTemplate.parse(query);
+				TEMPLATES.put(query, template);
+			}
+			rewrittenQuery = queryRewriter.rewrite(template);
+			rewrittenQueries.put(query, rewrittenQuery);
+		}
+		onRewrite(System.nanoTime() - start, cached);
+		return rewrittenQuery;
+	}
+
+	/**
+	 * Called after a query has been rewritten, for instance to record metrics.
+	 *
+	 * @param nanos The time it took to rewrite the query.
+	 * @param cached True if the rewritten query was retrieved from the cache of rewritten queries.
+	 */
+	protected void onRewrite(long nanos, boolean cached) {
+		// No-op by default.
+	}
+
+	/**
+	 * @return The hit and miss statistics of the cache of rewritten queries.
+	 */
+	public CacheStats getRewriteCacheStats() {
+		return rewrittenQueries.stats();
+	}
+
+}
@@ -0,0 +1,87 @@
+package io.quantumdb.client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * A cache of the {@link TableMapping}s of a single database, shared by all sessions to that database. Each cached
+ * mapping is tagged with the generation of the QuantumDB meta-info tables it was loaded at. Clients only need to look
+ * up the current generation (see {@link VersionProtocol#selectGeneration(String)}) to decide whether a cached mapping
+ * can be used, and only (re)load the mapping itself when the generation has changed since it was cached. How the
+ * generation and the mappings are loaded is up to the client, so this cache can be used by blocking and non-blocking
+ * clients alike.
+ *
+ * Cached mappings are handed out as references, which are atomically updated when the mapping is reloaded. This
+ * allows open sessions to pick up changes to their version (for instance when tables are renamed during a cleanup)
+ * without having to reconnect.
+ *
+ * @param <M> The type of the cached mappings.
+ */
+public class TableMappingCache<M extends TableMapping> {
+
+	private final ConcurrentMap<String, AtomicReference<M>> mappings;
+
+	public TableMappingCache() {
+		this.mappings = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Retrieves the cached mapping for the specified version, without checking whether it's stale.
+	 *
+	 * @param version The version for which to retrieve the mapping.
+	 * @return A reference to the cached mapping, or NULL if the mapping is not cached.
+	 */
+	public AtomicReference<M> getCached(String version) {
+		return mappings.get(version);
+	}
+
+	/**
+	 * Retrieves the cached mapping for the specified version, if it was loaded at the specified generation.
+	 *
+	 * @param version The version for which to retrieve the mapping.
+	 * @param generation The current generation of the meta-info tables, or NULL if it's unknown.
+	 * @return A reference to the cached mapping, or NULL if the mapping is not cached, or might be stale.
+	 */
+	public AtomicReference<M> getCurrent(String version, Long generation) {
+		AtomicReference<M> cached = mappings.get(version);
+		if (cached != null && generation != null && generation.equals(cached.get().getGeneration())) {
+			return cached;
+		}
+		return null;
+	}
+
+	/**
+	 * Stores a freshly loaded mapping, updating the reference handed out for its version (if any). Mappings of an
+	 * unknown generation are not cached, since there's no way to tell when they become stale.
+	 *
+	 * @param mapping The loaded mapping.
+	 * @return A reference to the mapping.
+	 */
+	public AtomicReference<M> put(M mapping) {
+		if (mapping.getGeneration() == null) {
+			return new AtomicReference<>(mapping);
+		}
+
+		AtomicReference<M> reference = mappings.computeIfAbsent(mapping.getVersion(),
+				key -> new AtomicReference<>(mapping));
+
+		reference.set(mapping);
+		return reference;
+	}
+
+	/**
+	 * @param generation The current generation of the meta-info tables, or NULL if it's unknown.
+	 * @return The versions whose cached mappings were not loaded at the specified generation.
+	 */
+	public List<String> getStaleVersions(Long generation) {
+		return mappings.entrySet().stream()
+				.filter(entry -> generation == null || !generation.equals(entry.getValue().get().getGeneration()))
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+	}
+
+}
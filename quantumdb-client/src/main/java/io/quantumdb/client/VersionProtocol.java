@@ -0,0 +1,72 @@
+package io.quantumdb.client;
+
+/**
+ * The protocol with which clients (the JDBC driver and the R2DBC adapter) load the table mapping of a version from the
+ * QuantumDB meta-info tables, check whether a loaded mapping is still current, and register which version a session
+ * is using. Since the clients use different placeholders for query parameters ("?" for JDBC, "$1" for R2DBC), the
+ * placeholders are passed in.
+ */
+public final class VersionProtocol {
+
+	/**
+	 * The name of the entry in "quantumdb.config" which holds the generation of the meta-info tables. The generation
+	 * is incremented whenever the state is persisted, so cached table mappings can be checked for staleness with a
+	 * single primary key lookup.
+	 */
+	public static final String GENERATION_KEY = "state_generation";
+
+	/**
+	 * The first key of the advisory locks which sessions hold for the version they're using.
+	 */
+	public static final int VERSION_LOCK_NAMESPACE = 0x51444256;
+
+	private VersionProtocol() {
+		// Prevent instantiation.
+	}
+
+	/**
+	 * @param placeholder The placeholder of the parameter which is bound to {@link #GENERATION_KEY}.
+	 * @return A query selecting the "value" of the generation.
+	 */
+	public static String selectGeneration(String placeholder) {
+		return "SELECT value FROM quantumdb.config WHERE name = " + placeholder + ";";
+	}
+
+	/**
+	 * @param value The "value" of the generation, as selected by {@link #selectGeneration(String)}.
+	 * @return The generation.
+	 */
+	public static long parseGeneration(String value) {
+		return Long.parseLong(value);
+	}
+
+	/**
+	 * @param placeholder The placeholder of the parameter which is bound to the version.
+	 * @return A query selecting the "ref_id" and "table_name" of every table in the version.
+	 */
+	public static String selectTableMapping(String placeholder) {
+		return new StringBuilder()
+				.append("SELECT ref_id, table_name ")
+				.append("FROM quantumdb.ref_versions ")
+				.append("WHERE version_id = " + placeholder + ";")
+				.toString();
+	}
+
+	/**
+	 * @param version The version to create the key for.
+	 * @return The second key of the advisory lock which sessions hold for the specified version.
+	 */
+	public static int getVersionLockKey(String version) {
+		return version.hashCode();
+	}
+
+	/**
+	 * @param version The version to create the key for.
+	 * @return The second key of the advisory lock which sessions hold for the specified version, as it is reported
+	 * in the (unsigned) "objid" column of "pg_locks".
+	 */
+	public static long getVersionLockObjectId(String version) {
+		return getVersionLockKey(version) & 0xFFFFFFFFL;
+	}
+
+}
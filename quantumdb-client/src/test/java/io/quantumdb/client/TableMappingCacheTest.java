@@ -0,0 +1,57 @@
+package io.quantumdb.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableMappingCacheTest {
+
+	private TableMappingCache<TableMapping> cache;
+
+	@Before
+	public void setUp() {
+		this.cache = new TableMappingCache<>();
+	}
+
+	private TableMapping mapping(String version, Long generation) {
+		return new TableMapping(version, generation, Collections.singletonMap("users", "users_" + version));
+	}
+
+	@Test
+	public void testThatMappingsAreOnlyCurrentAtTheirGeneration() {
+		AtomicReference<TableMapping> reference = cache.put(mapping("v1", 1L));
+
+		assertSame(reference, cache.getCurrent("v1", 1L));
+		assertNull(cache.getCurrent("v1", 2L));
+		assertNull(cache.getCurrent("v1", null));
+		assertNull(cache.getCurrent("v2", 1L));
+	}
+
+	@Test
+	public void testThatReloadedMappingsUpdateTheHandedOutReference() {
+		AtomicReference<TableMapping> reference = cache.put(mapping("v1", 1L));
+		assertEquals(Collections.singletonList("v1"), cache.getStaleVersions(2L));
+
+		TableMapping reloaded = mapping("v1", 2L);
+		assertSame(reference, cache.put(reloaded));
+		assertSame(reloaded, reference.get());
+		assertEquals(Collections.emptyList(), cache.getStaleVersions(2L));
+	}
+
+	@Test
+	public void testThatMappingsOfUnknownGenerationAreNotCached() {
+		AtomicReference<TableMapping> first = cache.put(mapping("v1", null));
+		AtomicReference<TableMapping> second = cache.put(mapping("v1", null));
+
+		assertNotSame(first, second);
+		assertNull(cache.getCached("v1"));
+	}
+
+}
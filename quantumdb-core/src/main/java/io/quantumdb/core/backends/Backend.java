@@ -2,12 +2,15 @@ package io.quantumdb.core.backends;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import io.quantumdb.core.migration.Migrator.Stage;
 import io.quantumdb.core.versioning.State;
 import io.quantumdb.core.versioning.Version;
 
-public interface Backend {
+public interface Backend extends AutoCloseable {
 
 	/**
 	 * Loads the current state of the database schema and its evolution from the database.
@@ -54,4 +57,49 @@ public interface Backend {
 	// TODO Move to the migrator.
 	int countClientsConnectedToVersion(Version version) throws SQLException;
 
+	/**
+	 * Counts the clients which are currently connected to each of the specified versions.
+	 *
+	 * @param versions The versions for which to count the connected clients.
+	 * @return The number of connected clients per specified version.
+	 *
+	 * @throws SQLException In case the database could not be reached, or queried correctly.
+	 */
+	Map<Version, Integer> countClientsPerVersion(Collection<Version> versions) throws SQLException;
+
+	/**
+	 * Waits until no clients are connected to the specified version anymore, or the timeout expires.
+	 *
+	 * @param version The version which should no longer be in use.
+	 * @param timeout The maximum amount of time to wait.
+	 * @param unit The unit of the timeout.
+	 * @return True if no clients are connected to the version anymore, or false if the timeout expired.
+	 *
+	 * @throws SQLException In case the database could not be reached, or queried correctly.
+	 * @throws InterruptedException In case the thread was interrupted while waiting.
+	 */
+	default boolean waitUntilDrained(Version version, long timeout, TimeUnit unit)
+			throws SQLException, InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (countClientsConnectedToVersion(version) > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)));
+		}
+		return true;
+	}
+
+	/**
+	 * Releases any resources held by this backend, like pooled connections to the database.
+	 *
+	 * @throws SQLException In case the resources could not be released.
+	 */
+	@Override
+	default void close() throws SQLException {
+		// Nothing to release.
+	}
+
 }
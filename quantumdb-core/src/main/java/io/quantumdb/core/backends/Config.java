@@ -8,6 +8,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +26,46 @@ public class Config {
 	private static final String DRIVER = "driver";
 	private static final String DRY_RUN = "dryRun";
 	private static final String OUTPUT_FILE = "outputFile";
+	private static final String VERSION_SCHEMAS = "versionSchemas";
+	private static final String CONNECTION_POOL_SIZE = "connectionPoolSize";
+	private static final String CONNECTION_POOL_WARM_UP = "connectionPoolWarmUp";
+	private static final String SESSION_INITIALIZATION = "sessionInitialization";
+
+	private static final String DDL_LOCK_TIMEOUT = "ddlLockTimeout";
+	private static final String DDL_MAXIMUM_RETRIES = "ddlMaximumRetries";
+
+	private static final String INDEX_BUILD_CONNECTIONS = "indexBuildConnections";
+	private static final String INDEX_MAINTENANCE_WORK_MEM = "indexMaintenanceWorkMem";
+	private static final String INDEX_MAX_PARALLEL_WORKERS = "indexMaxParallelWorkers";
+
+	private static final String BACKFILL_SYNCHRONOUS_COMMIT = "backfillSynchronousCommit";
+	private static final String BACKFILL_WORK_MEM = "backfillWorkMem";
+	private static final String BACKFILL_MAINTENANCE_WORK_MEM = "backfillMaintenanceWorkMem";
+	private static final String BACKFILL_STATEMENT_TIMEOUT = "backfillStatementTimeout";
+	private static final String BACKFILL_IDLE_IN_TRANSACTION_TIMEOUT = "backfillIdleInTransactionTimeout";
+	private static final String BACKFILL_APPLICATION_NAME = "backfillApplicationName";
+
+	private static final String COST_BASED_PLANNING = "costBasedPlanning";
+	private static final String DRY_RUN_CALIBRATION_ROWS = "dryRunCalibrationRows";
+	private static final String LAZY_FOREIGN_KEY_MIRRORING = "lazyForeignKeyMirroring";
+	private static final String STAGE_FUSION = "stageFusion";
+	private static final String DATA_CHUNK_DELAY = "dataChunkDelay";
+
+	private static final String GHOST_TABLE_ANALYZE = "ghostTableAnalyze";
+	private static final String GHOST_TABLE_VACUUM = "ghostTableVacuum";
+	private static final String GHOST_TABLE_MAINTENANCE_CONNECTIONS = "ghostTableMaintenanceConnections";
+	private static final String GHOST_TABLE_MAINTENANCE_COST_DELAY = "ghostTableMaintenanceCostDelay";
+
+	private static final int DEFAULT_CONNECTION_POOL_SIZE = 4;
+	private static final long DEFAULT_DDL_LOCK_TIMEOUT_MILLIS = 2_000;
+	private static final int DEFAULT_DDL_MAXIMUM_RETRIES = 10;
+	private static final int DEFAULT_INDEX_BUILD_CONNECTIONS = 2;
+	private static final String DEFAULT_BACKFILL_APPLICATION_NAME = "quantumdb-backfill";
+	private static final int DEFAULT_GHOST_TABLE_MAINTENANCE_CONNECTIONS = 2;
+	private static final long DEFAULT_DATA_CHUNK_DELAY_MILLIS = 50;
+
+	private static final Pattern MEMORY_SETTING = Pattern.compile("[0-9]+\\s*(kB|MB|GB|TB)?");
+	private static final Pattern APPLICATION_NAME = Pattern.compile("[A-Za-z0-9 _.:/-]{1,63}");
 
 	private static final String FILE = ".quantumdb";
 
@@ -98,6 +139,386 @@ public class Config {
 		return this;
 	}
 
+	/**
+	 * When enabled, every active version gets its own schema containing a view per table of that version, which
+	 * allows clients to use a version by only setting their "search_path", instead of rewriting their queries.
+	 */
+	public Config setVersionSchemasEnabled(boolean enabled) {
+		persistentProperties.setProperty(VERSION_SCHEMAS, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isVersionSchemasEnabled() {
+		return Boolean.toString(true).equalsIgnoreCase(persistentProperties.getProperty(VERSION_SCHEMAS));
+	}
+
+	/**
+	 * Sets the maximum number of idle connections the backend keeps around for reuse. When 0, every connection to the
+	 * database is opened and closed when used.
+	 */
+	public Config setConnectionPoolSize(int size) {
+		checkArgument(size >= 0, "The size of the connection pool cannot be negative.");
+		persistentProperties.setProperty(CONNECTION_POOL_SIZE, Integer.toString(size));
+		return this;
+	}
+
+	public int getConnectionPoolSize() {
+		String size = persistentProperties.getProperty(CONNECTION_POOL_SIZE);
+		return size == null ? DEFAULT_CONNECTION_POOL_SIZE : Integer.parseInt(size);
+	}
+
+	/**
+	 * Sets the number of connections the backend opens up front, when it first connects to the database.
+	 */
+	public Config setConnectionPoolWarmUp(int connections) {
+		checkArgument(connections >= 0, "The number of connections to warm up cannot be negative.");
+		persistentProperties.setProperty(CONNECTION_POOL_WARM_UP, Integer.toString(connections));
+		return this;
+	}
+
+	public int getConnectionPoolWarmUp() {
+		String connections = persistentProperties.getProperty(CONNECTION_POOL_WARM_UP);
+		return connections == null ? 0 : Integer.parseInt(connections);
+	}
+
+	/**
+	 * Sets additional SQL statement(s) to execute whenever the backend opens a connection, or reuses a connection from
+	 * its connection pool. Can be NULL.
+	 */
+	public Config setSessionInitialization(String sql) {
+		if (sql == null) {
+			persistentProperties.remove(SESSION_INITIALIZATION);
+		}
+		else {
+			persistentProperties.setProperty(SESSION_INITIALIZATION, sql);
+		}
+		return this;
+	}
+
+	public String getSessionInitialization() {
+		return persistentProperties.getProperty(SESSION_INITIALIZATION);
+	}
+
+	/**
+	 * Sets how long DDL statements may wait for a lock, before they are aborted and retried. When 0, DDL statements
+	 * wait indefinitely.
+	 */
+	public Config setDdlLockTimeoutMillis(long millis) {
+		checkArgument(millis >= 0, "The lock timeout cannot be negative.");
+		persistentProperties.setProperty(DDL_LOCK_TIMEOUT, Long.toString(millis));
+		return this;
+	}
+
+	public long getDdlLockTimeoutMillis() {
+		String millis = persistentProperties.getProperty(DDL_LOCK_TIMEOUT);
+		return millis == null ? DEFAULT_DDL_LOCK_TIMEOUT_MILLIS : Long.parseLong(millis);
+	}
+
+	/**
+	 * Sets how many times DDL statements which timed out while waiting for a lock are retried, before giving up.
+	 */
+	public Config setDdlMaximumRetries(int retries) {
+		checkArgument(retries >= 0, "The number of retries cannot be negative.");
+		persistentProperties.setProperty(DDL_MAXIMUM_RETRIES, Integer.toString(retries));
+		return this;
+	}
+
+	public int getDdlMaximumRetries() {
+		String retries = persistentProperties.getProperty(DDL_MAXIMUM_RETRIES);
+		return retries == null ? DEFAULT_DDL_MAXIMUM_RETRIES : Integer.parseInt(retries);
+	}
+
+	/**
+	 * Sets the number of connections used to build the indexes of ghost tables in parallel. The indexes of a single
+	 * table are always built one after another.
+	 */
+	public Config setIndexBuildConnections(int connections) {
+		checkArgument(connections > 0, "The number of index build connections must be positive.");
+		persistentProperties.setProperty(INDEX_BUILD_CONNECTIONS, Integer.toString(connections));
+		return this;
+	}
+
+	public int getIndexBuildConnections() {
+		String connections = persistentProperties.getProperty(INDEX_BUILD_CONNECTIONS);
+		return connections == null ? DEFAULT_INDEX_BUILD_CONNECTIONS : Integer.parseInt(connections);
+	}
+
+	/**
+	 * Sets the "maintenance_work_mem" (for instance "512MB") of the sessions building indexes. When NULL, the
+	 * "maintenance_work_mem" of the backfill is used (see {@link #setBackfillMaintenanceWorkMem(String)}).
+	 */
+	public Config setIndexMaintenanceWorkMem(String memory) {
+		return setMemory(INDEX_MAINTENANCE_WORK_MEM, memory);
+	}
+
+	public String getIndexMaintenanceWorkMem() {
+		return persistentProperties.getProperty(INDEX_MAINTENANCE_WORK_MEM);
+	}
+
+	/**
+	 * Sets the "max_parallel_maintenance_workers" of the sessions building indexes. When NULL, the server's default is
+	 * used.
+	 */
+	public Config setIndexMaxParallelWorkers(Integer workers) {
+		if (workers == null) {
+			persistentProperties.remove(INDEX_MAX_PARALLEL_WORKERS);
+		}
+		else {
+			checkArgument(workers >= 0, "The number of parallel workers cannot be negative.");
+			persistentProperties.setProperty(INDEX_MAX_PARALLEL_WORKERS, Integer.toString(workers));
+		}
+		return this;
+	}
+
+	public Integer getIndexMaxParallelWorkers() {
+		String workers = persistentProperties.getProperty(INDEX_MAX_PARALLEL_WORKERS);
+		return workers == null ? null : Integer.parseInt(workers);
+	}
+
+	/**
+	 * Sets whether the sessions copying data into ghost tables wait for their commits to be flushed to disk. This is
+	 * disabled by default: ghost tables can always be rebuilt, and the state of a migration is persisted with a
+	 * synchronous commit, which flushes all preceding asynchronous commits as well.
+	 */
+	public Config setBackfillSynchronousCommit(boolean enabled) {
+		persistentProperties.setProperty(BACKFILL_SYNCHRONOUS_COMMIT, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isBackfillSynchronousCommit() {
+		return Boolean.toString(true).equalsIgnoreCase(persistentProperties.getProperty(BACKFILL_SYNCHRONOUS_COMMIT));
+	}
+
+	/**
+	 * Sets the "work_mem" (for instance "64MB") of the sessions copying data into ghost tables. When NULL, the server's
+	 * default is used.
+	 */
+	public Config setBackfillWorkMem(String memory) {
+		return setMemory(BACKFILL_WORK_MEM, memory);
+	}
+
+	public String getBackfillWorkMem() {
+		return persistentProperties.getProperty(BACKFILL_WORK_MEM);
+	}
+
+	/**
+	 * Sets the "maintenance_work_mem" (for instance "512MB") of the sessions copying data into ghost tables, and
+	 * building their indexes. When NULL, the server's default is used.
+	 */
+	public Config setBackfillMaintenanceWorkMem(String memory) {
+		return setMemory(BACKFILL_MAINTENANCE_WORK_MEM, memory);
+	}
+
+	public String getBackfillMaintenanceWorkMem() {
+		return persistentProperties.getProperty(BACKFILL_MAINTENANCE_WORK_MEM);
+	}
+
+	/**
+	 * Sets the "statement_timeout" of the sessions copying data into ghost tables. This does not apply to index builds,
+	 * as an aborted concurrent index build leaves an invalid index behind. When NULL, the server's default is used.
+	 */
+	public Config setBackfillStatementTimeoutMillis(Long millis) {
+		return setMillis(BACKFILL_STATEMENT_TIMEOUT, millis);
+	}
+
+	public Long getBackfillStatementTimeoutMillis() {
+		String millis = persistentProperties.getProperty(BACKFILL_STATEMENT_TIMEOUT);
+		return millis == null ? null : Long.parseLong(millis);
+	}
+
+	/**
+	 * Sets the "idle_in_transaction_session_timeout" of the sessions copying data into ghost tables. When NULL, the
+	 * server's default is used.
+	 */
+	public Config setBackfillIdleInTransactionTimeoutMillis(Long millis) {
+		return setMillis(BACKFILL_IDLE_IN_TRANSACTION_TIMEOUT, millis);
+	}
+
+	public Long getBackfillIdleInTransactionTimeoutMillis() {
+		String millis = persistentProperties.getProperty(BACKFILL_IDLE_IN_TRANSACTION_TIMEOUT);
+		return millis == null ? null : Long.parseLong(millis);
+	}
+
+	/**
+	 * Sets the "application_name" of the sessions copying data into ghost tables, so they can be told apart in
+	 * "pg_stat_activity". When NULL, the application name is left as is.
+	 */
+	public Config setBackfillApplicationName(String applicationName) {
+		if (applicationName == null) {
+			persistentProperties.setProperty(BACKFILL_APPLICATION_NAME, "");
+		}
+		else {
+			checkArgument(APPLICATION_NAME.matcher(applicationName).matches(),
+					"Not a valid application name: " + applicationName);
+			persistentProperties.setProperty(BACKFILL_APPLICATION_NAME, applicationName);
+		}
+		return this;
+	}
+
+	public String getBackfillApplicationName() {
+		String applicationName = persistentProperties.getProperty(BACKFILL_APPLICATION_NAME);
+		if (applicationName == null) {
+			return DEFAULT_BACKFILL_APPLICATION_NAME;
+		}
+		return applicationName.isEmpty() ? null : applicationName;
+	}
+
+	/**
+	 * Sets whether the migration planner uses the database's table statistics to estimate the cost of every step, and
+	 * to decide where to break cycles of foreign keys. This is enabled by default.
+	 */
+	public Config setCostBasedPlanningEnabled(boolean enabled) {
+		persistentProperties.setProperty(COST_BASED_PLANNING, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isCostBasedPlanningEnabled() {
+		return !Boolean.toString(false).equalsIgnoreCase(persistentProperties.getProperty(COST_BASED_PLANNING));
+	}
+
+	/**
+	 * Sets the number of rows of the largest table which are copied (in a transaction which is rolled back) during a
+	 * dry run, to calibrate the estimated duration of the migration. When 0 (the default), no rows are copied.
+	 */
+	public Config setDryRunCalibrationRows(int rows) {
+		checkArgument(rows >= 0, "The number of calibration rows cannot be negative.");
+		persistentProperties.setProperty(DRY_RUN_CALIBRATION_ROWS, Integer.toString(rows));
+		return this;
+	}
+
+	public int getDryRunCalibrationRows() {
+		String rows = persistentProperties.getProperty(DRY_RUN_CALIBRATION_ROWS);
+		return rows == null ? 0 : Integer.parseInt(rows);
+	}
+
+	/**
+	 * Sets whether tables which refer to a table that is changed are left in place, instead of being mirrored as well.
+	 * Their foreign keys are re-pointed to the ghost table instead: added as NOT VALID once the ghost table has been
+	 * filled, and then validated without blocking writes. Referencing tables are then only copied when their own
+	 * structure changes. This is disabled by default.
+	 */
+	public Config setLazyForeignKeyMirroringEnabled(boolean enabled) {
+		persistentProperties.setProperty(LAZY_FOREIGN_KEY_MIRRORING, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isLazyForeignKeyMirroringEnabled() {
+		return Boolean.toString(true).equalsIgnoreCase(persistentProperties.getProperty(LAZY_FOREIGN_KEY_MIRRORING));
+	}
+
+	/**
+	 * Sets whether schema changes which are separated by data changes are applied in a single fork, copying every
+	 * affected table only once. The data changes are then applied to the ghost tables before the new version becomes
+	 * active, which is only done when the schema changes following them do not depend on the data they modify. This is
+	 * disabled by default.
+	 */
+	public Config setStageFusionEnabled(boolean enabled) {
+		persistentProperties.setProperty(STAGE_FUSION, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isStageFusionEnabled() {
+		return Boolean.toString(true).equalsIgnoreCase(persistentProperties.getProperty(STAGE_FUSION));
+	}
+
+	/**
+	 * Sets how long to pause between the chunks of a chunked data change, to leave room for regular traffic and to
+	 * let replicas keep up. Defaults to 50 ms.
+	 */
+	public Config setDataChunkDelayMillis(long millis) {
+		checkArgument(millis >= 0, "The delay cannot be negative.");
+		persistentProperties.setProperty(DATA_CHUNK_DELAY, Long.toString(millis));
+		return this;
+	}
+
+	public long getDataChunkDelayMillis() {
+		String millis = persistentProperties.getProperty(DATA_CHUNK_DELAY);
+		return millis == null ? DEFAULT_DATA_CHUNK_DELAY_MILLIS : Long.parseLong(millis);
+	}
+
+	/**
+	 * Sets whether ghost tables are analyzed after they have been filled, before the new version becomes active, so
+	 * that queries against the new version are planned with up-to-date statistics. This is enabled by default.
+	 */
+	public Config setGhostTableAnalyzeEnabled(boolean enabled) {
+		persistentProperties.setProperty(GHOST_TABLE_ANALYZE, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isGhostTableAnalyzeEnabled() {
+		return !Boolean.toString(false).equalsIgnoreCase(persistentProperties.getProperty(GHOST_TABLE_ANALYZE));
+	}
+
+	/**
+	 * Sets whether ghost tables are vacuumed (with FREEZE and ANALYZE) after they have been filled, before the new
+	 * version becomes active. This sets their visibility map, and avoids anti-wraparound vacuums of all copied rows
+	 * later on, at the cost of a longer migration. This is disabled by default.
+	 */
+	public Config setGhostTableVacuumEnabled(boolean enabled) {
+		persistentProperties.setProperty(GHOST_TABLE_VACUUM, Boolean.toString(enabled));
+		return this;
+	}
+
+	public boolean isGhostTableVacuumEnabled() {
+		return Boolean.toString(true).equalsIgnoreCase(persistentProperties.getProperty(GHOST_TABLE_VACUUM));
+	}
+
+	/**
+	 * Sets the number of connections used to analyze or vacuum ghost tables in parallel.
+	 */
+	public Config setGhostTableMaintenanceConnections(int connections) {
+		checkArgument(connections > 0, "The number of maintenance connections must be positive.");
+		persistentProperties.setProperty(GHOST_TABLE_MAINTENANCE_CONNECTIONS, Integer.toString(connections));
+		return this;
+	}
+
+	public int getGhostTableMaintenanceConnections() {
+		String connections = persistentProperties.getProperty(GHOST_TABLE_MAINTENANCE_CONNECTIONS);
+		return connections == null ? DEFAULT_GHOST_TABLE_MAINTENANCE_CONNECTIONS : Integer.parseInt(connections);
+	}
+
+	/**
+	 * Sets the "vacuum_cost_delay" (in milliseconds) of the sessions analyzing or vacuuming ghost tables, to throttle
+	 * the I/O they cause. When NULL, the server's default is used (which does not throttle manual vacuums).
+	 */
+	public Config setGhostTableMaintenanceCostDelayMillis(Integer millis) {
+		if (millis == null) {
+			persistentProperties.remove(GHOST_TABLE_MAINTENANCE_COST_DELAY);
+		}
+		else {
+			checkArgument(millis >= 0 && millis <= 100, "The cost delay must be between 0 and 100 ms.");
+			persistentProperties.setProperty(GHOST_TABLE_MAINTENANCE_COST_DELAY, Integer.toString(millis));
+		}
+		return this;
+	}
+
+	public Integer getGhostTableMaintenanceCostDelayMillis() {
+		String millis = persistentProperties.getProperty(GHOST_TABLE_MAINTENANCE_COST_DELAY);
+		return millis == null ? null : Integer.parseInt(millis);
+	}
+
+	private Config setMemory(String key, String memory) {
+		if (memory == null) {
+			persistentProperties.remove(key);
+		}
+		else {
+			checkArgument(MEMORY_SETTING.matcher(memory).matches(), "Not a valid amount of memory: " + memory);
+			persistentProperties.setProperty(key, memory);
+		}
+		return this;
+	}
+
+	private Config setMillis(String key, Long millis) {
+		if (millis == null) {
+			persistentProperties.remove(key);
+		}
+		else {
+			checkArgument(millis >= 0, "A timeout cannot be negative.");
+			persistentProperties.setProperty(key, Long.toString(millis));
+		}
+		return this;
+	}
+
 	public Config enableDryRun(String outputFile) {
 		transientProperties.setProperty(DRY_RUN, Boolean.toString(true));
 		transientProperties.setProperty(OUTPUT_FILE, outputFile);
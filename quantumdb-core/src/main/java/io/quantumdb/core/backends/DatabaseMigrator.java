@@ -41,4 +41,12 @@ public interface DatabaseMigrator {
 	 */
 	void drop(State state, Version version, Stage stage) throws MigrationException;
 
+	/**
+	 * @return True if consecutive schema changes which are separated by data changes may be applied as a single
+	 * schema change, in which case the data changes are applied as part of {@link #applySchemaChanges}.
+	 */
+	default boolean isStageFusionEnabled() {
+		return false;
+	}
+
 }
@@ -1,9 +1,11 @@
 package io.quantumdb.core.backends.planner;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -43,12 +45,25 @@ public class Graph {
 		return graph;
 	}
 
-	private final Catalog catalog;
 	private final Map<String, TableNode> nodes;
 
+	/**
+	 * For every table, the tables which refer to it with a not nullable foreign key.
+	 */
+	private final Map<String, Set<String>> incomingForeignKeys;
+
 	public Graph(Catalog catalog) {
-		this.catalog = catalog;
 		this.nodes = Maps.newHashMap();
+		this.incomingForeignKeys = Maps.newHashMap();
+
+		for (Table table : catalog.getTables()) {
+			for (ForeignKey foreignKey : table.getForeignKeys()) {
+				if (foreignKey.isNotNullable()) {
+					incomingForeignKeys.computeIfAbsent(foreignKey.getReferredTableName(), key -> Sets.newHashSet())
+							.add(foreignKey.getReferencingTableName());
+				}
+			}
+		}
 	}
 
 	public Set<String> getRefIds() {
@@ -80,12 +95,12 @@ public class Graph {
 	}
 
 	public Optional<GraphResult> leastOutgoingForeignKeys(Set<String> refIds) {
-		Map<String, Long> outgoingForeignKeys = nodes.entrySet().stream()
-				.filter(entry -> refIds.contains(entry.getKey()))
-				.collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue().getForeignKeys().stream()
+		Map<String, Long> outgoingForeignKeys = refIds.stream()
+				.filter(nodes::containsKey)
+				.collect(Collectors.toMap(Function.identity(), refId -> nodes.get(refId).getForeignKeys().stream()
 						.filter(foreignKey -> !foreignKey.isSelfReferencing())
-						.filter(foreignKey -> refIds.contains(foreignKey.getReferredTableName()))
-						.map(ForeignKey::getReferredTable)
+						.map(ForeignKey::getReferredTableName)
+						.filter(refIds::contains)
 						.distinct()
 						.count()));
 
@@ -105,26 +120,20 @@ public class Graph {
 	}
 
 	public Optional<GraphResult> mostIncomingForeignKeys(Set<String> refIds) {
-		Map<String, Long> incomingForeignKeys = nodes.entrySet().stream()
-				.filter(entry -> refIds.contains(entry.getKey()))
-				.collect(Collectors.toMap(Entry::getKey, entry -> {
-					String tableName = entry.getKey();
-					return catalog.getForeignKeys().stream()
-							.filter(foreignKey -> foreignKey.getReferredTableName().equals(tableName))
-							.filter(ForeignKey::isNotNullable)
-							.map(ForeignKey::getReferencingTableName)
-							.distinct()
-							.count();
-				}));
-
-		if (incomingForeignKeys.isEmpty()) {
+		Map<String, Long> incomingForeignKeyCounts = refIds.stream()
+				.filter(nodes::containsKey)
+				.collect(Collectors.toMap(Function.identity(), refId -> (long) incomingForeignKeys
+						.getOrDefault(refId, Collections.emptySet())
+						.size()));
+
+		if (incomingForeignKeyCounts.isEmpty()) {
 			return Optional.of(new GraphResult(0, refIds));
 		}
 
-		long maximum = incomingForeignKeys.values().stream()
+		long maximum = incomingForeignKeyCounts.values().stream()
 				.reduce(0L, Math::max);
 
-		Set<String> tableNames = incomingForeignKeys.entrySet().stream()
+		Set<String> tableNames = incomingForeignKeyCounts.entrySet().stream()
 				.filter(entry -> entry.getValue() == maximum)
 				.map(Entry::getKey)
 				.collect(Collectors.toSet());
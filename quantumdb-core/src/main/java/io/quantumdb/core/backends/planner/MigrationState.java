@@ -22,9 +22,16 @@ public class MigrationState {
 	private final Catalog catalog;
 	private final Multimap<String, String> migratedColumns;
 
+	// The progress of every table is tracked as columns are migrated, rather than recomputed for every table on every
+	// query, as the planner queries the partially migrated tables after every step it adds.
+	private final Set<String> partiallyMigratedTables;
+	private final Set<String> migratedTables;
+
 	public MigrationState(Catalog catalog) {
 		this.catalog = catalog;
 		this.migratedColumns = HashMultimap.create();
+		this.partiallyMigratedTables = Sets.newHashSet();
+		this.migratedTables = Sets.newHashSet();
 	}
 
 	public Progress getProgress(String tableName) {
@@ -46,18 +53,24 @@ public class MigrationState {
 
 	public void markColumnsAsMigrated(String tableName, Set<String> columns) {
 		migratedColumns.putAll(tableName, columns);
+
+		partiallyMigratedTables.remove(tableName);
+		migratedTables.remove(tableName);
+		Progress progress = getProgress(tableName);
+		if (progress == Progress.PARTIALLY) {
+			partiallyMigratedTables.add(tableName);
+		}
+		else if (progress == Progress.DONE) {
+			migratedTables.add(tableName);
+		}
 	}
 
 	public Set<String> getPartiallyMigratedTables() {
-		return migratedColumns.keySet().stream()
-				.filter(tableName -> getProgress(tableName) == Progress.PARTIALLY)
-				.collect(Collectors.toSet());
+		return Sets.newHashSet(partiallyMigratedTables);
 	}
 
 	public Set<String> getMigratedTables() {
-		return migratedColumns.keySet().stream()
-				.filter(tableName -> getProgress(tableName) == Progress.DONE)
-				.collect(Collectors.toSet());
+		return Sets.newHashSet(migratedTables);
 	}
 
 	public Set<String> getYetToBeMigratedColumns(String tableName) {
@@ -3,21 +3,33 @@ package io.quantumdb.core.backends.planner;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.quantumdb.core.backends.planner.Operation.Type;
 import io.quantumdb.core.schema.definitions.Table;
 import io.quantumdb.core.schema.definitions.View;
 import io.quantumdb.core.versioning.RefLog;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 
 @Data
 public class Plan {
@@ -27,9 +39,17 @@ public class Plan {
 		private final MigrationState state;
 		private final List<Step> steps;
 
+		// Indexes of the steps added so far, so that these can be found without scanning all steps.
+		private final Map<String, Step> firstCopies;
+		private final Map<String, Step> lastCopies;
+		private final List<Step> nullRecordSteps;
+
 		private Builder(MigrationState state) {
 			this.state = state;
 			this.steps = Lists.newArrayList();
+			this.firstCopies = Maps.newHashMap();
+			this.lastCopies = Maps.newHashMap();
+			this.nullRecordSteps = Lists.newArrayList();
 		}
 
 		public ImmutableList<Step> getSteps() {
@@ -43,23 +63,22 @@ public class Plan {
 			LinkedHashSet<String> filtered = Sets.newLinkedHashSet(Sets.intersection(columns, toDo));
 
 			if (filtered.isEmpty()) {
-				for (int i = steps.size() - 1; i >= 0; i--) {
-					Step step = steps.get(i);
-					Operation operation = step.getOperation();
-					if (operation.getTables().equals(Sets.newHashSet(table)) && operation.getType() == Type.COPY) {
-						return step;
-					}
+				Step step = lastCopies.get(table.getName());
+				if (step != null) {
+					return step;
 				}
 			}
 
 			Step step = new Step(new Operation(table, filtered, Type.COPY));
 			state.markColumnsAsMigrated(table.getName(), filtered);
 			steps.add(step);
+			firstCopies.putIfAbsent(table.getName(), step);
+			lastCopies.put(table.getName(), step);
 			return step;
 		}
 
 		public Step addNullRecord(Set<Table> tables) {
-			for (Step step : steps) {
+			for (Step step : nullRecordSteps) {
 				Operation operation = step.getOperation();
 				if (operation.getTables().equals(tables) && operation.getType() == Type.ADD_NULL) {
 					return step;
@@ -67,11 +86,12 @@ public class Plan {
 			}
 			Step step = new Step(new Operation(tables, Type.ADD_NULL));
 			steps.add(0, step);
+			nullRecordSteps.add(step);
 			return step;
 		}
 
 		public Step dropNullRecord(Set<Table> tables) {
-			for (Step step : steps) {
+			for (Step step : nullRecordSteps) {
 				Operation operation = step.getOperation();
 				if (operation.getTables().equals(tables) && operation.getType() == Type.DROP_NULL) {
 					return step;
@@ -79,16 +99,12 @@ public class Plan {
 			}
 			Step step = new Step(new Operation(tables, Type.DROP_NULL));
 			steps.add(step);
+			nullRecordSteps.add(step);
 			return step;
 		}
 
 		public Optional<Step> findFirstCopy(Table table) {
-			return steps.stream()
-					.filter(step -> {
-						Operation operation = step.getOperation();
-						return operation.getTables().contains(table) && operation.getType() == Type.COPY;
-					})
-					.findFirst();
+			return Optional.ofNullable(firstCopies.get(table.getName()));
 		}
 
 		public Plan build(RefLog refLog, Set<Table> ghostTables, Set<View> views) {
@@ -106,21 +122,138 @@ public class Plan {
 	private final ImmutableSet<Table> ghostTables;
 	private final ImmutableSet<View> views;
 
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Map<Step, Long> criticalPaths;
+
+	// The steps are tracked by identity, as the hash code of a step is derived from its (mutable) operation.
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Map<Step, Integer> positions;
+
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Map<Step, List<Step>> dependents;
+
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Map<Step, Integer> pendingDependencies;
+
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final NavigableSet<Step> executableSteps;
+
 	public Plan(List<Step> steps, RefLog refLog, Set<Table> ghostTables, Set<View> views) {
 		this.steps = ImmutableList.copyOf(steps);
 		this.refLog = refLog;
 		this.ghostTables = ImmutableSet.copyOf(ghostTables);
 		this.views = ImmutableSet.copyOf(views);
+
+		this.positions = new IdentityHashMap<>();
+		this.dependents = new IdentityHashMap<>();
+		this.steps.forEach(step -> positions.putIfAbsent(step, positions.size()));
+		for (Step step : positions.keySet()) {
+			for (Step dependency : step.getDependencies()) {
+				dependents.computeIfAbsent(dependency, key -> Lists.newArrayList()).add(step);
+			}
+		}
+
+		this.criticalPaths = calculateCriticalPaths(positions.keySet(), dependents);
+		this.executableSteps = new TreeSet<>(Comparator.<Step>comparingLong(this::getCriticalPath).reversed()
+				.thenComparing(positions::get));
+
+		this.pendingDependencies = new IdentityHashMap<>();
+		for (Step step : positions.keySet()) {
+			int pending = (int) step.getDependencies().stream()
+					.filter(dependency -> !dependency.isExecuted())
+					.count();
+
+			pendingDependencies.put(step, pending);
+			if (pending == 0 && !step.isExecuted()) {
+				executableSteps.add(step);
+			}
+		}
+
+		Set<Step> observed = Sets.newIdentityHashSet();
+		observed.addAll(positions.keySet());
+		observed.addAll(dependents.keySet());
+		observed.forEach(step -> step.addExecutionListener(this::onExecuted));
 	}
 
 	public ImmutableList<Step> getSteps() {
 		return steps;
 	}
 
-	public Optional<Step> nextStep() {
-		return steps.stream()
-				.filter(Step::canBeExecuted)
-				.findFirst();
+	/**
+	 * @return The next step which can be executed. When multiple steps can be executed, the step with the longest
+	 * critical path (the most expensive chain of steps which have to be executed after it) is returned first. When
+	 * there are no cost estimates, this is the first executable step in the plan.
+	 */
+	public synchronized Optional<Step> nextStep() {
+		if (executableSteps.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(executableSteps.first());
+	}
+
+	/**
+	 * Updates the set of executable steps when a step has been executed, by decrementing the number of pending
+	 * dependencies of the steps which depend on it.
+	 */
+	private synchronized void onExecuted(Step step) {
+		if (positions.containsKey(step)) {
+			executableSteps.remove(step);
+		}
+
+		for (Step dependent : dependents.getOrDefault(step, Collections.emptyList())) {
+			int pending = pendingDependencies.merge(dependent, -1, Integer::sum);
+			if (pending == 0 && !dependent.isExecuted()) {
+				executableSteps.add(dependent);
+			}
+		}
+	}
+
+	/**
+	 * @param step The step of this plan.
+	 * @return The estimated cost of the specified step, plus the most expensive chain of steps depending on it.
+	 */
+	public long getCriticalPath(Step step) {
+		return criticalPaths.getOrDefault(step, step.getEstimatedCost());
+	}
+
+	/**
+	 * Calculates the critical path of every step, visiting the steps in reverse topological order (every step after all
+	 * steps which depend on it), so that deep chains of steps do not require deep recursion.
+	 */
+	private static Map<Step, Long> calculateCriticalPaths(Set<Step> steps, Map<Step, List<Step>> dependents) {
+		Map<Step, Integer> remainingDependents = new IdentityHashMap<>();
+		Deque<Step> queue = new ArrayDeque<>();
+		for (Step step : steps) {
+			int count = dependents.getOrDefault(step, Collections.emptyList()).size();
+			remainingDependents.put(step, count);
+			if (count == 0) {
+				queue.add(step);
+			}
+		}
+
+		Map<Step, Long> criticalPaths = new IdentityHashMap<>();
+		while (!queue.isEmpty()) {
+			Step step = queue.poll();
+
+			long longest = 0;
+			for (Step dependent : dependents.getOrDefault(step, Collections.emptyList())) {
+				longest = Math.max(longest, criticalPaths.getOrDefault(dependent, dependent.getEstimatedCost()));
+			}
+			criticalPaths.put(step, step.getEstimatedCost() + longest);
+
+			for (Step dependency : step.getDependencies()) {
+				Integer remaining = remainingDependents.computeIfPresent(dependency, (key, count) -> count - 1);
+				if (remaining != null && remaining == 0) {
+					queue.add(dependency);
+				}
+			}
+		}
+		return criticalPaths;
 	}
 
 	public boolean isExecuted() {
@@ -0,0 +1,23 @@
+package io.quantumdb.core.backends.planner;
+
+import java.util.Optional;
+
+/**
+ * Provides the planner statistics of existing tables, so that a {@link MigrationPlanner} can estimate how expensive
+ * copying a table is.
+ */
+@FunctionalInterface
+public interface StatisticsProvider {
+
+	/**
+	 * A provider which knows nothing about any table.
+	 */
+	StatisticsProvider NONE = refId -> Optional.empty();
+
+	/**
+	 * @param refId The ref ID of the table.
+	 * @return The statistics of the table, or an empty Optional if they are unknown.
+	 */
+	Optional<TableStatistics> getStatistics(String refId);
+
+}
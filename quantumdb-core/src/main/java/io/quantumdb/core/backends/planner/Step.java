@@ -1,13 +1,16 @@
 package io.quantumdb.core.backends.planner;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import io.quantumdb.core.backends.planner.Operation.Type;
 import io.quantumdb.core.schema.definitions.Table;
@@ -42,11 +45,26 @@ public class Step {
 
 	private final AtomicBoolean executed;
 	private final Set<Step> dependsOn;
+	private final List<Consumer<Step>> executionListeners;
+	private volatile long estimatedCost;
 
 	Step(Operation operation) {
 		this.operation = operation;
 		this.executed = new AtomicBoolean(false);
 		this.dependsOn = Sets.newHashSet();
+		this.executionListeners = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * @return The estimated cost of executing this step, in bytes written. This is 0 when unknown.
+	 */
+	public long getEstimatedCost() {
+		return estimatedCost;
+	}
+
+	public void setEstimatedCost(long estimatedCost) {
+		Preconditions.checkArgument(estimatedCost >= 0, "The estimated cost cannot be negative.");
+		this.estimatedCost = estimatedCost;
 	}
 
 	public Set<Step> getDependencies() {
@@ -54,28 +72,45 @@ public class Step {
 	}
 
 	public void makeDependentOn(Step other) {
-		Preconditions.checkArgument(!other.getTransitiveDependencies().contains(this), "This would cause a cycle!");
+		Preconditions.checkArgument(!other.dependsTransitivelyOn(this), "This would cause a cycle!");
 		dependsOn.add(other);
 	}
 
 	public Set<Step> getTransitiveDependencies() {
 		Set<Step> dependencies = Sets.newHashSet();
 
-		List<Step> queue = Lists.newLinkedList(dependsOn);
+		Deque<Step> queue = new ArrayDeque<>(dependsOn);
 		while (!queue.isEmpty()) {
-			Step removed = queue.remove(0);
-			dependencies.add(removed);
-
-			removed.getDependencies().forEach(dependency -> {
-				if (!queue.contains(dependency) && !dependencies.contains(dependency)) {
-					queue.add(dependency);
-				}
-			});
+			Step removed = queue.poll();
+			if (dependencies.add(removed)) {
+				queue.addAll(removed.dependsOn);
+			}
 		}
 
 		return dependencies;
 	}
 
+	/**
+	 * Like {@link #getTransitiveDependencies()}, but stops traversing the dependencies as soon as the specified step is
+	 * found, and compares steps by identity rather than by their operations (which is far more expensive).
+	 */
+	private boolean dependsTransitivelyOn(Step other) {
+		Set<Step> visited = Sets.newIdentityHashSet();
+
+		Deque<Step> queue = new ArrayDeque<>(dependsOn);
+		while (!queue.isEmpty()) {
+			Step removed = queue.poll();
+			if (removed == other) {
+				return true;
+			}
+			if (visited.add(removed)) {
+				queue.addAll(removed.dependsOn);
+			}
+		}
+
+		return false;
+	}
+
 	public void removeDependencyOn(Step other) {
 		dependsOn.remove(other);
 	}
@@ -93,6 +128,15 @@ public class Step {
 		if (!executed.compareAndSet(false, true)) {
 			throw new IllegalStateException("Step was already marked as executed!");
 		}
+		executionListeners.forEach(listener -> listener.accept(this));
+	}
+
+	/**
+	 * Registers a listener which is notified when this step is marked as executed. This allows a {@link Plan} to keep
+	 * track of which steps can be executed, without inspecting every step whenever the next step is requested.
+	 */
+	void addExecutionListener(Consumer<Step> listener) {
+		executionListeners.add(listener);
 	}
 
 	@Override
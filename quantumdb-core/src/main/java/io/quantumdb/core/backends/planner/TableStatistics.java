@@ -0,0 +1,61 @@
+package io.quantumdb.core.backends.planner;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.Data;
+
+/**
+ * The (estimated) size of a table, as known by the database's planner statistics.
+ */
+@Data
+public class TableStatistics {
+
+	/**
+	 * The estimated overhead (in bytes) of every row: its tuple header, line pointer and alignment padding.
+	 */
+	public static final int ROW_OVERHEAD = 28;
+
+	/**
+	 * The width (in bytes) assumed for columns for which no statistics are available.
+	 */
+	public static final int DEFAULT_COLUMN_WIDTH = 8;
+
+	private final long rows;
+	private final long pages;
+	private final ImmutableMap<String, Integer> columnWidths;
+
+	public TableStatistics(long rows, long pages, Map<String, Integer> columnWidths) {
+		this.rows = Math.max(0, rows);
+		this.pages = Math.max(0, pages);
+		this.columnWidths = ImmutableMap.copyOf(columnWidths);
+	}
+
+	/**
+	 * @return The average width (in bytes) of a row, including its overhead.
+	 */
+	public long getAverageRowWidth() {
+		return ROW_OVERHEAD + columnWidths.values().stream().mapToLong(Integer::longValue).sum();
+	}
+
+	/**
+	 * @return The estimated number of bytes occupied by all rows of the table.
+	 */
+	public long getBytes() {
+		return rows * getAverageRowWidth();
+	}
+
+	/**
+	 * @param columns The columns to copy.
+	 * @return The estimated number of bytes written when copying the specified columns of every row.
+	 */
+	public long getBytes(Collection<String> columns) {
+		long width = ROW_OVERHEAD;
+		for (String column : columns) {
+			width += columnWidths.getOrDefault(column, DEFAULT_COLUMN_WIDTH);
+		}
+		return rows * width;
+	}
+
+}
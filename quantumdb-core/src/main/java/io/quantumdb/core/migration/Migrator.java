@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkState;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
@@ -88,6 +89,9 @@ public class Migrator {
 
 		DatabaseMigrator migrator = backend.getMigrator();
 		List<Stage> stages = VersionTraverser.verifyPathAndState(state, from, to);
+		if (migrator.isStageFusionEnabled()) {
+			stages = StageFusion.fuse(stages);
+		}
 
 		Version intermediate = null;
 		for (Stage stage : stages) {
@@ -117,6 +121,36 @@ public class Migrator {
 		migrator.drop(state, version, null);
 	}
 
+	/**
+	 * Waits until no clients are using the specified version anymore, and then drops it.
+	 *
+	 * @param versionId The id of the version to drop.
+	 * @param timeout The maximum amount of time to wait for clients to stop using the version.
+	 * @param unit The unit of the timeout.
+	 * @throws MigrationException In case clients are still using the version when the timeout expires, or the
+	 * version could not be dropped.
+	 */
+	public void drop(String versionId, long timeout, TimeUnit unit) throws MigrationException {
+		State state = loadState();
+		Version version = state.getChangelog().getVersion(versionId);
+
+		try {
+			if (!backend.waitUntilDrained(version, timeout, unit)) {
+				int count = backend.countClientsConnectedToVersion(version);
+				throw new MigrationException("There are still " + count + " clients using version: " + versionId);
+			}
+		}
+		catch (SQLException e) {
+			throw new MigrationException("Could not determine which clients are using version: " + versionId, e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MigrationException("Interrupted while waiting for clients to stop using version: " + versionId, e);
+		}
+
+		backend.getMigrator().drop(state, version, null);
+	}
+
 	private State loadState() throws MigrationException {
 		try {
 			return backend.loadState();
@@ -0,0 +1,167 @@
+package io.quantumdb.core.migration;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import io.quantumdb.core.migration.Migrator.Stage;
+import io.quantumdb.core.schema.operations.AddColumn;
+import io.quantumdb.core.schema.operations.AddForeignKey;
+import io.quantumdb.core.schema.operations.AlterColumn;
+import io.quantumdb.core.schema.operations.CopyTable;
+import io.quantumdb.core.schema.operations.CreateIndex;
+import io.quantumdb.core.schema.operations.CreateTable;
+import io.quantumdb.core.schema.operations.CreateView;
+import io.quantumdb.core.schema.operations.DataOperation;
+import io.quantumdb.core.schema.operations.DropColumn;
+import io.quantumdb.core.schema.operations.DropForeignKey;
+import io.quantumdb.core.schema.operations.DropIndex;
+import io.quantumdb.core.schema.operations.DropTable;
+import io.quantumdb.core.schema.operations.DropView;
+import io.quantumdb.core.schema.operations.Operation;
+import io.quantumdb.core.schema.operations.Operation.Type;
+import io.quantumdb.core.schema.operations.RenameTable;
+import io.quantumdb.core.versioning.Version;
+import io.quantumdb.query.rewriter.QueryTemplate;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fuses consecutive schema (DDL) stages which are separated by data (DML) stages into a single schema stage, so that
+ * the affected tables are copied into ghost tables once, instead of once per schema stage. The data changes are then
+ * applied to the ghost tables of the last version of the fused stage, before that version becomes active.
+ *
+ * A data stage is only fused when none of the schema changes which follow it (within the fused stage) depend on the
+ * contents of the tables its queries refer to: those changes must have the same outcome whether they are applied
+ * before or after the data changes. Adding non-unique indexes and views qualifies, but for instance adding a foreign
+ * key, or a NOT NULL constraint, to a table which the data changes are meant to clean up does not. Adding a column only
+ * qualifies when the data changes don't refer to its table, since it changes the shape of that table for positional
+ * statements such as "INSERT INTO ... SELECT *" or "INSERT INTO ... VALUES (...)" without a column list.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class StageFusion {
+
+	/**
+	 * @param stages The stages to fuse, in order of execution.
+	 * @return The stages to execute. Fused stages are schema stages which contain the versions of the data stages
+	 * they span as well.
+	 */
+	static List<Stage> fuse(List<Stage> stages) {
+		List<Stage> fused = Lists.newArrayList();
+		int index = 0;
+		while (index < stages.size()) {
+			Stage stage = stages.get(index++);
+			if (stage.getType() != Type.DDL) {
+				fused.add(stage);
+				continue;
+			}
+
+			Stage current = new Stage(Type.DDL, Lists.newArrayList(stage.getVersions()), stage.getParent());
+			List<Stage> dataStages = Lists.newArrayList();
+			while (index + 1 < stages.size() && stages.get(index).getType() == Type.DML) {
+				Stage dataStage = stages.get(index);
+				Stage schemaStage = stages.get(index + 1);
+
+				List<Stage> candidates = Lists.newArrayList(dataStages);
+				candidates.add(dataStage);
+				if (!candidates.stream().allMatch(candidate -> canBeAppliedBefore(candidate, schemaStage))) {
+					break;
+				}
+
+				log.info("Fusing data changes: {} with schema changes: {}", dataStage.getVersions(),
+						schemaStage.getVersions());
+
+				dataStages.add(dataStage);
+				dataStage.getVersions().forEach(current::addVersion);
+				schemaStage.getVersions().forEach(current::addVersion);
+				index += 2;
+			}
+			fused.add(current);
+		}
+		return fused;
+	}
+
+	/**
+	 * @return True if the schema changes of the specified schema stage have the same outcome, regardless of whether
+	 * they are applied before or after the data changes of the specified data stage.
+	 */
+	static boolean canBeAppliedBefore(Stage dataStage, Stage schemaStage) {
+		Set<String> tableNames = Sets.newHashSet();
+		for (Version version : dataStage.getVersions()) {
+			DataOperation operation = (DataOperation) version.getOperation();
+			Set<String> referredTableNames = QueryTemplate.parse(operation.getQuery()).getTableNames();
+			if (referredTableNames.isEmpty()) {
+				// The query might still modify tables, for instance by calling a function.
+				return false;
+			}
+			referredTableNames.forEach(tableName -> tableNames.add(tableName.toLowerCase(Locale.ROOT)));
+			if (operation.isChunked()) {
+				tableNames.add(operation.getChunkTableName().toLowerCase(Locale.ROOT));
+			}
+		}
+
+		for (Version version : schemaStage.getVersions()) {
+			Optional<Set<String>> affectedTableNames = getContentDependentTableNames(version.getOperation());
+			if (!affectedTableNames.isPresent()) {
+				return false;
+			}
+
+			boolean conflicting = affectedTableNames.get().stream()
+					.map(tableName -> tableName.toLowerCase(Locale.ROOT))
+					.anyMatch(tableNames::contains);
+
+			if (conflicting) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The names of the tables whose contents determine the outcome of the specified schema operation, or an
+	 * empty Optional if this cannot be determined.
+	 */
+	private static Optional<Set<String>> getContentDependentTableNames(Operation operation) {
+		if (operation instanceof CreateTable || operation instanceof DropIndex
+				|| operation instanceof DropForeignKey || operation instanceof CreateView
+				|| operation instanceof DropView) {
+			return Optional.of(Sets.newHashSet());
+		}
+		else if (operation instanceof CreateIndex) {
+			CreateIndex createIndex = (CreateIndex) operation;
+			return Optional.of(createIndex.isUnique() ? Sets.newHashSet(createIndex.getTableName()) : Sets.newHashSet());
+		}
+		else if (operation instanceof AddForeignKey) {
+			AddForeignKey addForeignKey = (AddForeignKey) operation;
+			return Optional.of(Sets.newHashSet(addForeignKey.getReferringTableName(),
+					addForeignKey.getReferencedTableName()));
+		}
+		else if (operation instanceof AddColumn) {
+			return Optional.of(Sets.newHashSet(((AddColumn) operation).getTableName()));
+		}
+		else if (operation instanceof AlterColumn) {
+			return Optional.of(Sets.newHashSet(((AlterColumn) operation).getTableName()));
+		}
+		else if (operation instanceof DropColumn) {
+			return Optional.of(Sets.newHashSet(((DropColumn) operation).getTableName()));
+		}
+		else if (operation instanceof DropTable) {
+			return Optional.of(Sets.newHashSet(((DropTable) operation).getTableName()));
+		}
+		else if (operation instanceof RenameTable) {
+			RenameTable renameTable = (RenameTable) operation;
+			return Optional.of(Sets.newHashSet(renameTable.getTableName(), renameTable.getNewTableName()));
+		}
+		else if (operation instanceof CopyTable) {
+			CopyTable copyTable = (CopyTable) operation;
+			return Optional.of(Sets.newHashSet(copyTable.getSourceTableName(), copyTable.getTargetTableName()));
+		}
+		return Optional.empty();
+	}
+
+}
@@ -7,15 +7,21 @@ import io.quantumdb.core.versioning.RefLog;
 import io.quantumdb.core.versioning.RefLog.TableRef;
 import io.quantumdb.core.versioning.Version;
 import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
 
-@NoArgsConstructor(access = AccessLevel.PACKAGE)
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
 class AddForeignKeyMigrator implements SchemaOperationMigrator<AddForeignKey> {
 
+	private final boolean lazyForeignKeyMirroring;
+
+	AddForeignKeyMigrator() {
+		this(false);
+	}
+
 	@Override
 	public void migrate(Catalog catalog, RefLog refLog, Version version, AddForeignKey operation) {
 		String tableName = operation.getReferringTableName();
-		TransitiveTableMirrorer.mirror(catalog, refLog, version, false, tableName);
+		TransitiveTableMirrorer.mirror(catalog, refLog, version, false, lazyForeignKeyMirroring, tableName);
 
 		TableRef tableRef = refLog.getTableRef(version, tableName);
 		Table table = catalog.getTable(tableRef.getRefId());
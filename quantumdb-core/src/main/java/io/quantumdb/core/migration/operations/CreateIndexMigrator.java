@@ -8,15 +8,21 @@ import io.quantumdb.core.versioning.RefLog;
 import io.quantumdb.core.versioning.RefLog.TableRef;
 import io.quantumdb.core.versioning.Version;
 import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
 
-@NoArgsConstructor(access = AccessLevel.PACKAGE)
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
 class CreateIndexMigrator implements SchemaOperationMigrator<CreateIndex> {
 
+	private final boolean lazyForeignKeyMirroring;
+
+	CreateIndexMigrator() {
+		this(false);
+	}
+
 	@Override
 	public void migrate(Catalog catalog, RefLog refLog, Version version, CreateIndex operation) {
 		String tableName = operation.getTableName();
-		TransitiveTableMirrorer.mirror(catalog, refLog, version, false, tableName);
+		TransitiveTableMirrorer.mirror(catalog, refLog, version, false, lazyForeignKeyMirroring, tableName);
 
 		TableRef tableRef = refLog.getTableRef(version, tableName);
 		String refId = tableRef.getRefId();
@@ -32,20 +32,27 @@ public class SchemaOperationsMigrator {
 	private final Map<Class<? extends SchemaOperation>, SchemaOperationMigrator<?>> migrators;
 
 	public SchemaOperationsMigrator(Catalog catalog, RefLog refLog) {
+		this(catalog, refLog, false);
+	}
+
+	/**
+	 * @param lazyForeignKeyMirroring When true, tables which refer to a changed table are not mirrored along with it.
+	 */
+	public SchemaOperationsMigrator(Catalog catalog, RefLog refLog, boolean lazyForeignKeyMirroring) {
 		this.catalog = catalog;
 		this.refLog = refLog;
 
 		this.migrators = ImmutableMap.<Class<? extends SchemaOperation>, SchemaOperationMigrator<?>>builder()
-				.put(AddColumn.class, new AddColumnMigrator())
-				.put(AddForeignKey.class, new AddForeignKeyMigrator())
-				.put(AlterColumn.class, new AlterColumnMigrator())
+				.put(AddColumn.class, new AddColumnMigrator(lazyForeignKeyMirroring))
+				.put(AddForeignKey.class, new AddForeignKeyMigrator(lazyForeignKeyMirroring))
+				.put(AlterColumn.class, new AlterColumnMigrator(lazyForeignKeyMirroring))
 				.put(CopyTable.class, new CopyTableMigrator())
-				.put(CreateIndex.class, new CreateIndexMigrator())
+				.put(CreateIndex.class, new CreateIndexMigrator(lazyForeignKeyMirroring))
 				.put(CreateTable.class, new CreateTableMigrator())
-				.put(DropIndex.class, new DropIndexMigrator())
+				.put(DropIndex.class, new DropIndexMigrator(lazyForeignKeyMirroring))
 				.put(DropTable.class, new DropTableMigrator())
-				.put(DropColumn.class, new DropColumnMigrator())
-				.put(DropForeignKey.class, new DropForeignKeyMigrator())
+				.put(DropColumn.class, new DropColumnMigrator(lazyForeignKeyMirroring))
+				.put(DropForeignKey.class, new DropForeignKeyMigrator(lazyForeignKeyMirroring))
 				.put(RenameTable.class, new RenameTableMigrator())
 				.put(CleanupTables.class, new CleanupTablesMigrator())
 				.put(CreateView.class, new CreateViewMigrator())
@@ -1,11 +1,16 @@
 package io.quantumdb.core.migration.operations;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import io.quantumdb.core.schema.definitions.Catalog;
 import io.quantumdb.core.schema.definitions.ForeignKey;
@@ -21,10 +26,31 @@ import lombok.NoArgsConstructor;
 class TransitiveTableMirrorer {
 
 	static Set<String> mirror(Catalog catalog, RefLog refLog, Version version, boolean cleanup, String... tableNames) {
+		return mirror(catalog, refLog, version, cleanup, false, tableNames);
+	}
+
+	/**
+	 * Mirrors the specified tables, and (unless lazy) all tables which transitively refer to them.
+	 *
+	 * @param lazy When true, tables which refer to the mirrored tables are left in place. Their foreign keys are
+	 * re-pointed to the ghost tables when the migration is executed.
+	 * @return The names of the mirrored tables.
+	 */
+	static Set<String> mirror(Catalog catalog, RefLog refLog, Version version, boolean cleanup, boolean lazy,
+			String... tableNames) {
+
 		refLog.fork(version);
 		Version parentVersion = version.getParent();
 		Set<String> mirrored = Sets.newHashSet();
 
+		// Look ups in the RefLog and Catalog scan all tables, so these are indexed once up front. Ghost tables are
+		// created without foreign keys, so the index of referencing tables remains valid while mirroring.
+		Map<String, TableRef> tableRefsById = indexById(refLog.getTableRefs());
+		Set<String> refIds = Sets.newHashSet(tableRefsById.keySet());
+		Multimap<String, String> referencingRefIds = HashMultimap.create();
+		catalog.getForeignKeys().forEach(foreignKey -> referencingRefIds.put(foreignKey.getReferredTableName(),
+				foreignKey.getReferencingTableName()));
+
 		List<TableRef> tablesToMirror = Arrays.stream(tableNames)
 				.map(tableName -> refLog.getTableRef(parentVersion, tableName))
 				.collect(Collectors.toList());
@@ -40,34 +66,50 @@ class TransitiveTableMirrorer {
 				newRefId = tableRef.getName();
 			}
 			else {
-				newRefId = RandomHasher.generateRefId(refLog);
+				newRefId = RandomHasher.generateRefId(refIds);
 			}
+			refIds.add(newRefId);
+
 			Table table = catalog.getTable(tableRef.getRefId());
 			tableRef.ghost(newRefId, version);
 			catalog.addTable(table.copy().rename(newRefId));
 
 			mirrored.add(tableRef.getName());
 
+			if (lazy) {
+				continue;
+			}
+
 			// Traverse incoming foreign keys
-			Set<String> referencingRefIds = catalog.getTablesReferencingTable(tableRef.getRefId());
-			tablesToMirror.addAll(referencingRefIds.stream()
-					.map(refLog::getTableRefById)
+			tablesToMirror.addAll(referencingRefIds.get(tableRef.getRefId()).stream()
+					.map(refId -> getTableRefById(refLog, tableRefsById, refId))
 					.collect(Collectors.toList()));
 		}
 
 		// Copying foreign keys for each affected table.
+		Map<String, TableRef> parentTableRefs = indexByName(refLog.getTableRefs(parentVersion));
+		Map<String, TableRef> tableRefs = indexByName(refLog.getTableRefs(version));
+		Set<String> parentRefIds = parentTableRefs.values().stream()
+				.map(TableRef::getRefId)
+				.collect(Collectors.toSet());
+
 		for(String tableName : mirrored) {
-			String oldRefId = refLog.getTableRef(parentVersion, tableName).getRefId();
-			String newRefId = refLog.getTableRef(version, tableName).getRefId();
+			String oldRefId = getTableRef(refLog, parentTableRefs, parentVersion, tableName).getRefId();
+			String newRefId = getTableRef(refLog, tableRefs, version, tableName).getRefId();
 
 			Table oldTable = catalog.getTable(oldRefId);
 			Table newTable = catalog.getTable(newRefId);
 
 			List<ForeignKey> outgoingForeignKeys = Lists.newArrayList(oldTable.getForeignKeys());
 			for (ForeignKey foreignKey : outgoingForeignKeys) {
+				// A table which was left in place by a lazy mirror also refers to the table it was re-pointed from.
 				String oldReferredRefId = foreignKey.getReferredTableName();
-				String oldReferredTableName = refLog.getTableRefById(oldReferredRefId).getName();
-				String newReferredRefId = refLog.getTableRef(version, oldReferredTableName).getRefId();
+				if (!parentRefIds.contains(oldReferredRefId)) {
+					continue;
+				}
+
+				String oldReferredTableName = getTableRefById(refLog, tableRefsById, oldReferredRefId).getName();
+				String newReferredRefId = getTableRef(refLog, tableRefs, version, oldReferredTableName).getRefId();
 
 				Table newReferredTable = catalog.getTable(newReferredRefId);
 				newTable.addForeignKey(foreignKey.getReferencingColumns())
@@ -81,4 +123,26 @@ class TransitiveTableMirrorer {
 		return mirrored;
 	}
 
+	private static TableRef getTableRef(RefLog refLog, Map<String, TableRef> tableRefsByName, Version version,
+			String tableName) {
+
+		TableRef tableRef = tableRefsByName.get(tableName);
+		return tableRef != null ? tableRef : refLog.getTableRef(version, tableName);
+	}
+
+	private static TableRef getTableRefById(RefLog refLog, Map<String, TableRef> tableRefsById, String refId) {
+		TableRef tableRef = tableRefsById.get(refId);
+		return tableRef != null ? tableRef : refLog.getTableRefById(refId);
+	}
+
+	private static Map<String, TableRef> indexById(Collection<TableRef> tableRefs) {
+		return tableRefs.stream()
+				.collect(Collectors.toMap(TableRef::getRefId, Function.identity(), (left, right) -> left));
+	}
+
+	private static Map<String, TableRef> indexByName(Collection<TableRef> tableRefs) {
+		return tableRefs.stream()
+				.collect(Collectors.toMap(TableRef::getName, Function.identity(), (left, right) -> left));
+	}
+
 }
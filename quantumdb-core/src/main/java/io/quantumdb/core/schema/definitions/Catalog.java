@@ -4,13 +4,18 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.experimental.Accessors;
 
 @Data
@@ -22,6 +27,13 @@ public class Catalog implements Copyable<Catalog> {
 	private final Collection<View> views;
 	private final Collection<Sequence> sequences;
 
+	/**
+	 * Index of the tables by name, to look up tables in constant time while planning migrations of large schemas.
+	 */
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Map<String, Table> tablesByName;
+
 	public Catalog(String name) {
 		checkArgument(!Strings.isNullOrEmpty(name), "You must specify a 'name'");
 
@@ -29,6 +41,7 @@ public class Catalog implements Copyable<Catalog> {
 		this.tables = Sets.newTreeSet(Comparator.comparing(Table::getName));
 		this.views = Sets.newTreeSet(Comparator.comparing(View::getName));
 		this.sequences = Sets.newTreeSet(Comparator.comparing(Sequence::getName));
+		this.tablesByName = Maps.newHashMap();
 	}
 
 	public Catalog addTable(Table table) {
@@ -38,7 +51,7 @@ public class Catalog implements Copyable<Catalog> {
 		checkArgument(!table.getColumns().isEmpty(), "Table: '" + table.getName() + "' doesn't contain any columns.");
 		checkArgument(!table.getPrimaryKeyColumns().isEmpty(), "Table: '" + table.getName() + "' has no primary key columns.");
 
-		tables.add(table);
+		attachTable(table);
 		table.setParent(this);
 		return this;
 	}
@@ -46,31 +59,44 @@ public class Catalog implements Copyable<Catalog> {
 	public boolean containsTable(String tableName) {
 		checkArgument(!Strings.isNullOrEmpty(tableName), "You must specify a 'tableName'");
 
-		return tables.stream()
-				.anyMatch(t -> t.getName().equals(tableName));
+		return tablesByName.containsKey(tableName);
 	}
 
 	public Table getTable(String tableName) {
 		checkArgument(!Strings.isNullOrEmpty(tableName), "You must specify a 'tableName'");
 
-		return tables.stream()
-				.filter(t -> t.getName().equals(tableName))
-				.findFirst()
-				.orElseThrow(() -> new IllegalStateException(
-						"Catalog: " + name + " does not contain a table: " + tableName));
+		Table table = tablesByName.get(tableName);
+		if (table == null) {
+			throw new IllegalStateException("Catalog: " + name + " does not contain a table: " + tableName);
+		}
+		return table;
 	}
 
 	public Table removeTable(String tableName) {
 		Table table = getTable(tableName);
 		table.canBeDropped();
 
-		tables.remove(table);
+		detachTable(table);
 		table.setParent(null);
 		table.dropOutgoingForeignKeys();
 
 		return table;
 	}
 
+	/**
+	 * Adds the table to the (sorted) set of tables, and to the index of tables by name. Tables are detached before, and
+	 * attached again after they are renamed.
+	 */
+	void attachTable(Table table) {
+		tables.add(table);
+		tablesByName.put(table.getName(), table);
+	}
+
+	void detachTable(Table table) {
+		tables.remove(table);
+		tablesByName.remove(table.getName());
+	}
+
 	public Catalog addView(View view) {
 		checkArgument(view != null, "You must specify a 'view'.");
 		checkArgument(!containsTable(view.getName()), "Catalog: '" + name + "' already contains a table: '" + view.getName() + "'.");
@@ -111,8 +111,11 @@ public class ForeignKey {
 	}
 
 	public void drop() {
+		// A column can be part of several foreign keys while a table's foreign keys are being re-pointed.
 		referencingColumns.stream()
-				.forEach(column -> referencingTable.getColumn(column).setOutgoingForeignKey(null));
+				.map(referencingTable::getColumn)
+				.filter(column -> column.getOutgoingForeignKey() == this)
+				.forEach(column -> column.setOutgoingForeignKey(null));
 
 		referredColumns.stream()
 				.forEach(column -> referredTable.getColumn(column).getIncomingForeignKeys().clear());
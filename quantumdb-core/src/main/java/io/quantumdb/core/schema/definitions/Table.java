@@ -233,12 +233,17 @@ public class Table implements Copyable<Table>, Comparable<Table> {
 
 	public Table rename(String newName) {
 		checkArgument(!Strings.isNullOrEmpty(newName), "You must specify a 'name'.");
-		if (parent != null) {
-			checkState(!parent.containsTable(newName),
-					"Catalog: " + parent.getName() + " already contains table with name: " + newName);
+		if (parent == null) {
+			this.name = newName;
+			return this;
 		}
 
+		checkState(!parent.containsTable(newName),
+				"Catalog: " + parent.getName() + " already contains table with name: " + newName);
+
+		parent.detachTable(this);
 		this.name = newName;
+		parent.attachTable(this);
 		return this;
 	}
 
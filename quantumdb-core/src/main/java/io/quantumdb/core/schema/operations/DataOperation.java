@@ -3,18 +3,53 @@ package io.quantumdb.core.schema.operations;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.base.Strings;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 
 @Data
+@Setter(AccessLevel.NONE)
 public class DataOperation implements Operation {
 
 	private final String query;
 
+	private String chunkTableName;
+	private String chunkKey;
+	private int chunkSize;
+
 	DataOperation(String query) {
 		checkArgument(!Strings.isNullOrEmpty(query), "You must specify a 'query'.");
 		this.query = query;
 	}
 
+	/**
+	 * Executes the query in chunks, each committed in its own transaction, instead of in a single transaction. The
+	 * query is executed once for every range of the specified (integer) key column, and must contain two parameter
+	 * placeholders ('?') which are bound to the lower (inclusive) and upper (exclusive) bound of that range. For
+	 * example: "UPDATE users SET name = 'Unknown' WHERE name IS NULL AND id >= ? AND id < ?".
+	 *
+	 * @param tableName The table whose key range is divided into chunks.
+	 * @param key The integer column of that table whose values are divided into chunks.
+	 * @param chunkSize The number of key values in every chunk.
+	 * @return This DataOperation.
+	 */
+	public DataOperation chunkedBy(String tableName, String key, int chunkSize) {
+		checkArgument(!Strings.isNullOrEmpty(tableName), "You must specify a 'tableName'.");
+		checkArgument(!Strings.isNullOrEmpty(key), "You must specify a 'key'.");
+		checkArgument(chunkSize > 0, "The 'chunkSize' must be positive.");
+		checkArgument(query.chars().filter(c -> c == '?').count() == 2,
+				"A chunked query must contain two '?' placeholders for the bounds of every chunk.");
+
+		this.chunkTableName = tableName;
+		this.chunkKey = key;
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	public boolean isChunked() {
+		return chunkKey != null;
+	}
+
 	@Override
 	public Type getType() {
 		return Type.DML;
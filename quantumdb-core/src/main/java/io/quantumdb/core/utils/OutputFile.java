@@ -17,4 +17,11 @@ public class OutputFile {
 		}
 	}
 
+	@SneakyThrows
+	public static void write(String outputFile, String content) {
+		try (FileWriter writer = new FileWriter(new File(outputFile), false)) {
+			writer.append(content).append('\n');
+		}
+	}
+
 }
@@ -37,6 +37,17 @@ public class RandomHasher {
 				.map(TableRef::getRefId)
 				.collect(Collectors.toSet());
 
+		return generateRefId(refIds);
+	}
+
+	/**
+	 * @param refIds The table IDs which are already in use. Callers generating many IDs can collect these once, and
+	 * add every generated ID to it, rather than collecting them from the RefLog for every generated ID.
+	 * @return A new table ID which is not in the specified set of table IDs.
+	 */
+	public static String generateRefId(Set<String> refIds) {
+		checkArgument(refIds != null, "You must specify a set of 'refIds'.");
+
 		String hash = "table_" + generateHash();
 		while (refIds.contains(hash)) {
 			hash = "table_" + generateHash();
@@ -8,6 +8,7 @@ import java.sql.Statement;
 import java.util.List;
 
 import com.google.common.collect.Lists;
+import io.quantumdb.client.VersionProtocol;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -15,6 +16,12 @@ public class QuantumTables {
 
 	private static final String VERSION_KEY = "meta_info_version";
 
+	/**
+	 * A transaction-local setting which records that the generation was already bumped by the current transaction, so
+	 * that persisting the state (which modifies the meta-info tables with many statements) bumps it only once.
+	 */
+	private static final String GENERATION_BUMPED_SETTING = "quantumdb.state_generation_bumped";
+
 	private static final List<String> CHANGES = Lists.newArrayList(
 			// Creates the "config" table to store persistent configuration and meta info in.
 			"CREATE TABLE quantumdb.config (name VARCHAR(255) NOT NULL, value VARCHAR(255) NOT NULL, PRIMARY KEY (name));",
@@ -67,7 +74,26 @@ public class QuantumTables {
 
 			// Creates the "active_versions" table which describes which versions are active at this time.
 			"CREATE TABLE quantumdb.active_versions (version_id VARCHAR(10), PRIMARY KEY (version_id));",
-			"ALTER TABLE quantumdb.active_versions ADD CONSTRAINT active_versions_version_id FOREIGN KEY (version_id) REFERENCES quantumdb.changelog (version_id) ON DELETE CASCADE;"
+			"ALTER TABLE quantumdb.active_versions ADD CONSTRAINT active_versions_version_id FOREIGN KEY (version_id) REFERENCES quantumdb.changelog (version_id) ON DELETE CASCADE;",
+
+			// Tracks the "generation" of the meta-info tables, which is bumped once by every transaction modifying any of them.
+			"INSERT INTO quantumdb.config (name, value) VALUES ('" + VersionProtocol.GENERATION_KEY + "', '0');",
+			"CREATE FUNCTION quantumdb.bump_state_generation() RETURNS TRIGGER AS $$ BEGIN IF current_setting('" + GENERATION_BUMPED_SETTING + "', true) IS DISTINCT FROM 'true' THEN UPDATE quantumdb.config SET value = CAST(CAST(value AS BIGINT) + 1 AS VARCHAR) WHERE name = '" + VersionProtocol.GENERATION_KEY + "'; PERFORM set_config('" + GENERATION_BUMPED_SETTING + "', 'true', true); END IF; RETURN NULL; END; $$ LANGUAGE plpgsql;",
+			"CREATE TRIGGER changelog_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.changelog FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER changesets_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.changesets FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER refs_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.refs FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER ref_versions_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.ref_versions FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER table_columns_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.table_columns FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER column_mappings_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.column_mappings FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER synchronizers_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.synchronizers FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER synchronizer_columns_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.synchronizer_columns FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+			"CREATE TRIGGER active_versions_generation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON quantumdb.active_versions FOR EACH STATEMENT EXECUTE PROCEDURE quantumdb.bump_state_generation();",
+
+			// Creates the "state_snapshot" table which stores a compact copy of all meta-info tables at a certain generation.
+			"CREATE TABLE quantumdb.state_snapshot (id INT NOT NULL, generation BIGINT NOT NULL, format INT NOT NULL, data BYTEA NOT NULL, PRIMARY KEY (id));",
+
+			// Allows looking up all tables of a single version without scanning the entire "ref_versions" table.
+			"CREATE INDEX ref_versions_version_id_idx ON quantumdb.ref_versions (version_id);"
 	);
 
 	public static int prepare(Connection connection) throws SQLException {
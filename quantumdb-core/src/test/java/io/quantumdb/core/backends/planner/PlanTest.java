@@ -0,0 +1,80 @@
+package io.quantumdb.core.backends.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.TestTypes.bigint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Table;
+import org.junit.Test;
+
+public class PlanTest {
+
+	@Test
+	public void testThatStepsAreExecutedInOrderWithoutEstimates() {
+		Step first = copy("a");
+		Step second = copy("b");
+		Step third = copy("c", first);
+		Plan plan = new Plan(Lists.newArrayList(first, second, third), null, Sets.newHashSet(), Sets.newHashSet());
+
+		assertEquals(Lists.newArrayList(first, second, third), execute(plan));
+	}
+
+	@Test
+	public void testThatStepsOnTheLongestCriticalPathAreExecutedFirst() {
+		Step small = copy("small");
+		Step large = copy("large");
+		Step dependent = copy("dependent", small);
+		small.setEstimatedCost(10);
+		large.setEstimatedCost(100);
+		dependent.setEstimatedCost(1_000);
+
+		Plan plan = new Plan(Lists.newArrayList(large, small, dependent), null, Sets.newHashSet(), Sets.newHashSet());
+
+		assertEquals(1_010, plan.getCriticalPath(small));
+		assertEquals(100, plan.getCriticalPath(large));
+		assertEquals(Lists.newArrayList(small, dependent, large), execute(plan));
+	}
+
+	@Test
+	public void testThatStepsExecutedOutOfOrderReleaseTheirDependents() {
+		Step first = copy("a");
+		Step second = copy("b");
+		Step dependent = copy("c", second);
+		Plan plan = new Plan(Lists.newArrayList(first, second, dependent), null, Sets.newHashSet(), Sets.newHashSet());
+
+		second.markAsExecuted();
+		assertEquals(first, plan.nextStep().get());
+
+		first.markAsExecuted();
+		assertEquals(dependent, plan.nextStep().get());
+
+		dependent.markAsExecuted();
+		assertFalse(plan.nextStep().isPresent());
+		assertTrue(plan.isExecuted());
+	}
+
+	private static List<Step> execute(Plan plan) {
+		List<Step> executed = Lists.newArrayList();
+		while (plan.nextStep().isPresent()) {
+			Step step = plan.nextStep().get();
+			step.markAsExecuted();
+			executed.add(step);
+		}
+		assertFalse(plan.nextStep().isPresent());
+		return executed;
+	}
+
+	private static Step copy(String tableName, Step... dependencies) {
+		Table table = new Table(tableName)
+				.addColumn(new Column("id", bigint(), PRIMARY_KEY));
+		return Step.copy(table, Sets.newLinkedHashSet(Lists.newArrayList("id")), dependencies);
+	}
+
+}
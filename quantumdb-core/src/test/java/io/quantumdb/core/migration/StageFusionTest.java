@@ -0,0 +1,124 @@
+package io.quantumdb.core.migration;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.AUTO_INCREMENT;
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.TestTypes.bigint;
+import static io.quantumdb.core.schema.definitions.TestTypes.varchar;
+import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
+import static io.quantumdb.core.schema.operations.SchemaOperations.alterColumn;
+import static io.quantumdb.core.schema.operations.SchemaOperations.createIndex;
+import static io.quantumdb.core.schema.operations.SchemaOperations.execute;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import io.quantumdb.core.migration.Migrator.Stage;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.schema.operations.Operation;
+import io.quantumdb.core.schema.operations.Operation.Type;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.State;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StageFusionTest {
+
+	private Changelog changelog;
+	private State state;
+
+	@Before
+	public void setUp() {
+		Catalog catalog = new Catalog("test-db")
+				.addTable(new Table("users")
+						.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+						.addColumn(new Column("name", varchar(255))))
+				.addTable(new Table("addresses")
+						.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+						.addColumn(new Column("city", varchar(255))));
+
+		changelog = new Changelog();
+		state = new State(catalog, RefLog.init(catalog, changelog.getRoot()), changelog);
+	}
+
+	private List<Stage> fuse(Operation... operations) {
+		for (int i = 0; i < operations.length; i++) {
+			changelog.addChangeSet("change-" + i, "Michael de Jong", operations[i]);
+		}
+		List<Stage> stages = VersionTraverser.verifyPathAndState(state, changelog.getRoot(), changelog.getLastAdded());
+		return StageFusion.fuse(stages);
+	}
+
+	@Test
+	public void testThatIndependentSchemaChangesAreFused() {
+		List<Stage> stages = fuse(
+				addColumn("users", "email", varchar(255)),
+				execute("UPDATE users SET name = 'Unknown' WHERE name IS NULL;"),
+				addColumn("addresses", "country", varchar(255)),
+				execute("DELETE FROM addresses WHERE city IS NULL;"),
+				createIndex("users", false, "email"));
+
+		assertEquals(1, stages.size());
+
+		Stage stage = stages.get(0);
+		assertEquals(Type.DDL, stage.getType());
+		assertEquals(changelog.getRoot(), stage.getParent());
+		assertEquals(changelog.getLastAdded(), stage.getLast());
+		assertEquals(5, stage.getVersions().size());
+	}
+
+	@Test
+	public void testThatSchemaChangesDependingOnModifiedDataAreNotFused() {
+		List<Stage> stages = fuse(
+				addColumn("users", "email", varchar(255)),
+				execute("UPDATE users SET name = 'Unknown' WHERE name IS NULL;"),
+				alterColumn("users", "name").addHint(NOT_NULL));
+
+		assertEquals(3, stages.size());
+		assertEquals(Type.DDL, stages.get(0).getType());
+		assertEquals(Type.DML, stages.get(1).getType());
+		assertEquals(Type.DDL, stages.get(2).getType());
+	}
+
+	@Test
+	public void testThatColumnsAddedToModifiedTablesAreNotFused() {
+		List<Stage> stages = fuse(
+				addColumn("users", "email", varchar(255)),
+				execute("INSERT INTO users SELECT * FROM users WHERE name IS NULL;"),
+				addColumn("users", "phone", varchar(255)));
+
+		assertEquals(3, stages.size());
+		assertEquals(Type.DDL, stages.get(0).getType());
+		assertEquals(Type.DML, stages.get(1).getType());
+		assertEquals(Type.DDL, stages.get(2).getType());
+	}
+
+	@Test
+	public void testThatDataChangesAreCheckedAgainstAllLaterSchemaChanges() {
+		List<Stage> stages = fuse(
+				addColumn("users", "email", varchar(255)),
+				execute("UPDATE users SET name = 'Unknown' WHERE name IS NULL;"),
+				addColumn("addresses", "country", varchar(255)),
+				execute("DELETE FROM addresses WHERE city IS NULL;"),
+				createIndex("users", true, "name"));
+
+		assertEquals(3, stages.size());
+		assertEquals(3, stages.get(0).getVersions().size());
+		assertEquals(Type.DML, stages.get(1).getType());
+		assertEquals(Type.DDL, stages.get(2).getType());
+	}
+
+	@Test
+	public void testThatDataChangesWithoutTablesAreNotFused() {
+		List<Stage> stages = fuse(
+				addColumn("users", "email", varchar(255)),
+				execute("SELECT refresh_caches();"),
+				addColumn("users", "phone", varchar(255)));
+
+		assertEquals(3, stages.size());
+	}
+
+}
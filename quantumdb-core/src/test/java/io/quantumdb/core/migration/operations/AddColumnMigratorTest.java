@@ -8,6 +8,7 @@ import static io.quantumdb.core.schema.definitions.TestTypes.date;
 import static io.quantumdb.core.schema.definitions.TestTypes.integer;
 import static io.quantumdb.core.schema.definitions.TestTypes.varchar;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import io.quantumdb.core.schema.definitions.Catalog;
 import io.quantumdb.core.schema.definitions.Column;
@@ -80,6 +81,48 @@ public class AddColumnMigratorTest {
  		assertEquals(expectedGhostTable, ghostTable);
 	}
 
+	@Test
+	public void testExpandMirrorsReferencingTables() {
+		addOrdersTable();
+
+		AddColumn operation = SchemaOperations.addColumn("users", "date_of_birth", date(), "NULL");
+		changelog.addChangeSet("Michael de Jong", "Added 'date_of_birth' column to 'users' table.", operation);
+		migrator.migrate(catalog, refLog, changelog.getLastAdded(), operation);
+
+		TableRef ordersRef = refLog.getTableRef(changelog.getLastAdded(), "orders");
+		Table ghostTable = getGhostTable(catalog.getTable("users"));
+
+		assertNotEquals("orders", ordersRef.getRefId());
+		assertEquals(ghostTable.getName(), catalog.getTable(ordersRef.getRefId()).getForeignKeys().get(0)
+				.getReferredTableName());
+	}
+
+	@Test
+	public void testExpandWithLazyForeignKeyMirroringLeavesReferencingTablesInPlace() {
+		addOrdersTable();
+
+		AddColumn operation = SchemaOperations.addColumn("users", "date_of_birth", date(), "NULL");
+		changelog.addChangeSet("Michael de Jong", "Added 'date_of_birth' column to 'users' table.", operation);
+		new AddColumnMigrator(true).migrate(catalog, refLog, changelog.getLastAdded(), operation);
+
+		TableRef ordersRef = refLog.getTableRef(changelog.getLastAdded(), "orders");
+
+		assertEquals("orders", ordersRef.getRefId());
+		assertEquals("users", catalog.getTable("orders").getForeignKeys().get(0).getReferredTableName());
+		assertEquals(3, catalog.getTables().size());
+	}
+
+	private void addOrdersTable() {
+		Table orders = new Table("orders")
+				.addColumn(new Column("id", integer(), PRIMARY_KEY, NOT_NULL, AUTO_INCREMENT))
+				.addColumn(new Column("user_id", integer(), NOT_NULL));
+
+		catalog.addTable(orders);
+		orders.addForeignKey("user_id").referencing(catalog.getTable("users"), "id");
+
+		this.refLog = RefLog.init(catalog, changelog.getRoot());
+	}
+
 	private Table getGhostTable(Table table) {
 		TableRef tableRef = refLog.getTableRef(changelog.getLastAdded(), table.getName());
 		String refId = tableRef.getRefId();
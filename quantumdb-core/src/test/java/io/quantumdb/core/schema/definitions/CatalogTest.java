@@ -47,6 +47,21 @@ public class CatalogTest {
 		assertEquals(catalog, table.getParent());
 	}
 
+	@Test
+	public void testThatRenamedTableCanBeRetrievedByItsNewName() {
+		Table table = new Table("users")
+				.addColumn(new Column("id", bigint(), PRIMARY_KEY, AUTO_INCREMENT));
+
+		Catalog catalog = new Catalog("test-db")
+				.addTable(table);
+
+		table.rename("customers");
+
+		assertFalse(catalog.containsTable("users"));
+		assertTrue(catalog.containsTable("customers"));
+		assertEquals(table, catalog.getTable("customers"));
+	}
+
 	@Test
 	public void testThatContainsTableMethodReturnsTrueWhenTableExists() {
 		Table table = new Table("users")
@@ -0,0 +1,237 @@
+package io.quantumdb.driver;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A small pool of physical connections to a PostgreSQL database. Physical connections are not bound to any particular
+ * version of the database schema, so a single pool can serve connections for every version. Idle connections are
+ * handed out most recently used first, so that surplus connections remain idle for as long as possible.
+ */
+@Slf4j
+class ConnectionPool {
+
+	private static final long VALIDATION_INTERVAL_MILLIS = 30_000;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+	private static final String APPLICATION_NAME = "QuantumDB driver";
+
+	/**
+	 * A physical connection, together with the version it was last used for, and the settings it was opened with.
+	 */
+	static class PhysicalConnection {
+
+		private final Connection connection;
+		private final boolean searchPathRouting;
+		private final StatementCache statementCache;
+		private final boolean readOnly;
+		private final int transactionIsolation;
+		private final int holdability;
+		private final int networkTimeout;
+		private String version;
+		private long lastReleased;
+
+		private PhysicalConnection(Connection connection, boolean searchPathRouting, int statementCacheSize)
+				throws SQLException {
+
+			this.connection = connection;
+			this.searchPathRouting = searchPathRouting;
+			this.statementCache = StatementCache.create(statementCacheSize);
+			this.readOnly = connection.isReadOnly();
+			this.transactionIsolation = connection.getTransactionIsolation();
+			this.holdability = connection.getHoldability();
+			this.networkTimeout = connection.getNetworkTimeout();
+			this.lastReleased = System.currentTimeMillis();
+		}
+
+		Connection getConnection() {
+			return connection;
+		}
+
+		StatementCache getStatementCache() {
+			return statementCache;
+		}
+
+		/**
+		 * Tags the physical connection with the version it's used for, so that it's possible to determine which
+		 * versions are still in use by looking at the advisory locks and "application_name" of the connections to the
+		 * database (see {@link VersionLock}). When routing through the "search_path", this also points the
+		 * "search_path" at the schema of the version.
+		 */
+		void bindTo(String applicationName, String version) throws SQLException {
+			if (Objects.equals(version, this.version)) {
+				return;
+			}
+			if (searchPathRouting) {
+				SearchPath.apply(connection, version);
+			}
+			VersionLock.switchVersion(connection, this.version, version);
+			if (version == null) {
+				connection.setClientInfo("ApplicationName", applicationName == null ? APPLICATION_NAME : applicationName);
+			}
+			else {
+				connection.setClientInfo("ApplicationName", Driver.createApplicationName(applicationName, version));
+			}
+			this.version = version;
+		}
+
+		/**
+		 * Restores the settings the physical connection was opened with, so that changes made while it was leased
+		 * don't leak into the next lease. Resetting the session's settings also resets its "search_path" and
+		 * "application_name", so the connection is left unbound from any version, as an idle connection should be:
+		 * idle connections must not be counted as clients of the version they were last used for.
+		 */
+		void reset() throws SQLException {
+			if (connection.isReadOnly() != readOnly) {
+				connection.setReadOnly(readOnly);
+			}
+			if (connection.getTransactionIsolation() != transactionIsolation) {
+				connection.setTransactionIsolation(transactionIsolation);
+			}
+			if (connection.getHoldability() != holdability) {
+				connection.setHoldability(holdability);
+			}
+			if (connection.getNetworkTimeout() != networkTimeout) {
+				connection.setNetworkTimeout(Runnable::run, networkTimeout);
+			}
+
+			VersionLock.switchVersion(connection, version, null);
+			version = null;
+
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("RESET ALL;");
+			}
+			connection.setClientInfo("ApplicationName", APPLICATION_NAME);
+		}
+
+	}
+
+	private final String url;
+	private final Properties info;
+	private final long connectionTimeoutMillis;
+	private final boolean searchPathRouting;
+	private final int statementCacheSize;
+	private final Semaphore permits;
+	private final Deque<PhysicalConnection> idle;
+	private volatile boolean closed;
+
+	ConnectionPool(String url, Properties info, int maximumPoolSize, long connectionTimeoutMillis) {
+		this.url = url;
+		this.info = info;
+		this.connectionTimeoutMillis = connectionTimeoutMillis;
+		this.searchPathRouting = SearchPath.isEnabled(url);
+		this.statementCacheSize = StatementCache.parseSize(url);
+		this.permits = new Semaphore(maximumPoolSize, true);
+		this.idle = new ConcurrentLinkedDeque<>();
+	}
+
+	PhysicalConnection lease() throws SQLException {
+		if (closed) {
+			throw new SQLException("The connection pool has been closed.");
+		}
+
+		try {
+			if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("Timed out after " + connectionTimeoutMillis
+						+ " ms while waiting for a connection to become available.");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection to become available.", e);
+		}
+
+		try {
+			PhysicalConnection physicalConnection;
+			while ((physicalConnection = idle.pollFirst()) != null) {
+				if (isUsable(physicalConnection)) {
+					return physicalConnection;
+				}
+				closeQuietly(physicalConnection);
+			}
+			Connection connection = connect();
+			try {
+				return new PhysicalConnection(connection, searchPathRouting, statementCacheSize);
+			}
+			catch (SQLException | RuntimeException e) {
+				connection.close();
+				throw e;
+			}
+		}
+		catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	void release(PhysicalConnection physicalConnection) {
+		try {
+			Connection connection = physicalConnection.getConnection();
+			if (closed || connection.isClosed()) {
+				closeQuietly(physicalConnection);
+				return;
+			}
+
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			physicalConnection.reset();
+			connection.clearWarnings();
+
+			physicalConnection.lastReleased = System.currentTimeMillis();
+			idle.offerFirst(physicalConnection);
+		}
+		catch (SQLException e) {
+			log.warn("Could not reset connection, discarding it.", e);
+			closeQuietly(physicalConnection);
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+	Connection connect() throws SQLException {
+		return DriverManager.getConnection(url, info);
+	}
+
+	void close() {
+		closed = true;
+		PhysicalConnection physicalConnection;
+		while ((physicalConnection = idle.pollFirst()) != null) {
+			closeQuietly(physicalConnection);
+		}
+	}
+
+	private boolean isUsable(PhysicalConnection physicalConnection) throws SQLException {
+		Connection connection = physicalConnection.getConnection();
+		if (connection.isClosed()) {
+			return false;
+		}
+		long idleMillis = System.currentTimeMillis() - physicalConnection.lastReleased;
+		return idleMillis < VALIDATION_INTERVAL_MILLIS || connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+	}
+
+	private void closeQuietly(PhysicalConnection physicalConnection) {
+		if (physicalConnection.statementCache != null) {
+			physicalConnection.statementCache.clear();
+		}
+		try {
+			physicalConnection.getConnection().close();
+		}
+		catch (SQLException e) {
+			log.debug("Could not close connection.", e);
+		}
+	}
+
+}
@@ -8,9 +8,6 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.util.Properties;
 import java.util.logging.Logger;
 
-import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
-import io.quantumdb.query.rewriter.QueryRewriter;
-
 public class Driver implements java.sql.Driver {
 
 	static {
@@ -34,7 +31,7 @@ public class Driver implements java.sql.Driver {
 		if (!url.startsWith("jdbc:quantumdb:")) {
 			return null;
 		}
-		url = url.substring(0, 4) + ":" + url.substring(15, url.length());
+		url = toDelegateUrl(url);
 
 		try {
 			Class.forName("org.postgresql.Driver");
@@ -45,22 +42,32 @@ public class Driver implements java.sql.Driver {
 
 		String version = parseVersion(url);
 		if (version != null) {
-			String applicationName = info.getProperty("ApplicationName");
-			if (applicationName != null && !applicationName.equals("")) {
-				applicationName += " - " + version;
-			}
-			else {
-				applicationName = "QuantumDB driver - " + version;
-			}
-			info.setProperty("ApplicationName", applicationName);
+			info.setProperty("ApplicationName", createApplicationName(info.getProperty("ApplicationName"), version));
 		}
 
 		this.delegate = DriverManager.getDriver(url);
 		Connection connection = delegate.connect(url, info);
-		QueryRewriter queryRewriter = new PostgresqlQueryRewriter();
-		this.transformer = new Transformer(connection, queryRewriter, version);
+		String databaseUrl = stripVersion(url);
+		VersionMappingCache cache = VersionMappingCache.getInstance();
+		ProxyConnection proxy;
+		if (SearchPath.isEnabled(url)) {
+			SearchPath.apply(connection, version);
+			proxy = new ProxyConnection(connection, databaseUrl, info, cache.get(connection, databaseUrl, null));
+			proxy.routeThroughSearchPath(version);
+		}
+		else {
+			proxy = new ProxyConnection(connection, databaseUrl, info, cache.get(connection, databaseUrl, version));
+			if (version != null && !version.isEmpty()) {
+				cache.listen(databaseUrl, url, info);
+			}
+		}
+
+		if (version != null && !version.isEmpty()) {
+			VersionLock.switchVersion(connection, null, version);
+		}
 
-		return new ProxyConnection(connection, transformer);
+		this.transformer = proxy.getTransformer();
+		return proxy;
 	}
 
 	@Override
@@ -97,8 +104,26 @@ public class Driver implements java.sql.Driver {
 		return transformer.getRefId(tableName);
 	}
 
-	private String parseVersion(String url) {
-		String[] lookups = new String[] { "?version=", "&version=" };
+	static String toDelegateUrl(String url) {
+		if (!url.startsWith("jdbc:quantumdb:")) {
+			return url;
+		}
+		return url.substring(0, 4) + ":" + url.substring(15, url.length());
+	}
+
+	static String createApplicationName(String applicationName, String version) {
+		if (applicationName != null && !applicationName.equals("")) {
+			return applicationName + " - " + version;
+		}
+		return "QuantumDB driver - " + version;
+	}
+
+	static String parseVersion(String url) {
+		return parseParameter(url, "version");
+	}
+
+	static String parseParameter(String url, String name) {
+		String[] lookups = new String[] { "?" + name + "=", "&" + name + "=" };
 
 		int index = -1;
 		for (String lookup : lookups) {
@@ -122,4 +147,8 @@ public class Driver implements java.sql.Driver {
 		return chunk.substring(0, end);
 	}
 
+	static String stripVersion(String url) {
+		return url.replaceAll("([?&])version=[^&]*&?", "$1").replaceAll("[?&]$", "");
+	}
+
 }
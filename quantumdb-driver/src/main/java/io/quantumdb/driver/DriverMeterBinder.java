@@ -0,0 +1,66 @@
+package io.quantumdb.driver;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the metrics of the QuantumDB driver through Micrometer. This requires "micrometer-core" to be on the
+ * classpath, which is an optional dependency of the driver. Usage:
+ *
+ * <pre>
+ *     new DriverMeterBinder().bindTo(meterRegistry);
+ * </pre>
+ */
+public class DriverMeterBinder implements MeterBinder {
+
+	private static final String PREFIX = "quantumdb.driver.";
+
+	private final DriverMetrics metrics;
+
+	public DriverMeterBinder() {
+		this(DriverMetrics.getInstance());
+	}
+
+	DriverMeterBinder(DriverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(PREFIX + "connections.opened", metrics, DriverMetrics::getOpenedConnections)
+				.description("The number of connections opened through the QuantumDB driver")
+				.register(registry);
+
+		FunctionTimer.builder(PREFIX + "rewrites", metrics.getRewriteHistogram(),
+				LatencyHistogram::getCount, LatencyHistogram::getTotalNanos, TimeUnit.NANOSECONDS)
+				.description("The time spent rewriting queries")
+				.register(registry);
+
+		FunctionCounter.builder(PREFIX + "rewrites.cache", metrics, DriverMetrics::getRewriteCacheHits)
+				.tag("result", "hit")
+				.register(registry);
+
+		FunctionCounter.builder(PREFIX + "rewrites.cache", metrics, DriverMetrics::getRewriteCacheMisses)
+				.tag("result", "miss")
+				.register(registry);
+
+		metrics.onVersion(version -> {
+			Gauge.builder(PREFIX + "connections.active", version, VersionMetrics::getActiveConnections)
+					.tag("version", version.getVersion())
+					.description("The number of open connections using a version")
+					.register(registry);
+
+			FunctionTimer.builder(PREFIX + "executions", version.getExecutionHistogram(),
+					LatencyHistogram::getCount, LatencyHistogram::getTotalNanos, TimeUnit.NANOSECONDS)
+					.tag("version", version.getVersion())
+					.description("The time spent executing statements using a version")
+					.register(registry);
+		});
+	}
+
+}
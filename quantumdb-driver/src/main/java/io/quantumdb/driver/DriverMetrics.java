@@ -0,0 +1,216 @@
+package io.quantumdb.driver;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects metrics about the overhead of the driver (rewriting queries), and about the traffic to each version of
+ * the database schema (connections and executed statements). All metrics are recorded using {@link LongAdder}s, so
+ * recording them doesn't introduce contention between connections.
+ *
+ * The metrics are exposed through JMX, unless the "quantumdb.jmx" system property is set to "false". They can also
+ * be exposed through Micrometer using {@link DriverMeterBinder}.
+ */
+@Slf4j
+class DriverMetrics implements DriverMetricsMXBean {
+
+	static final String UNVERSIONED = "unversioned";
+
+	private static final String DOMAIN = "io.quantumdb.driver";
+
+	private static final DriverMetrics INSTANCE = new DriverMetrics(!"false".equals(System.getProperty("quantumdb.jmx")));
+
+	static DriverMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * An execution of a statement, which is timed.
+	 */
+	interface Execution<T> {
+		T execute() throws SQLException;
+	}
+
+	private final boolean jmx;
+	private final LongAdder openedConnections;
+	private final LongAdder activeConnections;
+	private final LatencyHistogram rewrites;
+	private final LongAdder rewriteCacheHits;
+	private final LongAdder rewriteCacheMisses;
+	private final ConcurrentMap<String, VersionMetrics> versions;
+	private final List<Consumer<VersionMetrics>> versionListeners;
+
+	DriverMetrics(boolean jmx) {
+		this.jmx = jmx;
+		this.openedConnections = new LongAdder();
+		this.activeConnections = new LongAdder();
+		this.rewrites = new LatencyHistogram();
+		this.rewriteCacheHits = new LongAdder();
+		this.rewriteCacheMisses = new LongAdder();
+		this.versions = new ConcurrentHashMap<>();
+		this.versionListeners = new CopyOnWriteArrayList<>();
+
+		register("type=Driver", this);
+	}
+
+	void connectionOpened(String version) {
+		openedConnections.increment();
+		activeConnections.increment();
+		getVersionMetrics(version).connectionOpened();
+	}
+
+	void connectionSwitched(String from, String to) {
+		getVersionMetrics(from).connectionClosed();
+		getVersionMetrics(to).connectionOpened();
+	}
+
+	void connectionClosed(String version) {
+		activeConnections.decrement();
+		getVersionMetrics(version).connectionClosed();
+	}
+
+	/**
+	 * Records that a connection has started using another version for individual (hinted) statements, in addition to
+	 * its own version.
+	 */
+	void versionHinted(String version) {
+		getVersionMetrics(version).connectionOpened();
+	}
+
+	void versionUnhinted(String version) {
+		getVersionMetrics(version).connectionClosed();
+	}
+
+	void recordRewrite(long nanos, boolean cached) {
+		rewrites.record(nanos);
+		if (cached) {
+			rewriteCacheHits.increment();
+		}
+		else {
+			rewriteCacheMisses.increment();
+		}
+	}
+
+	<T> T measure(String version, Execution<T> execution) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return execution.execute();
+		}
+		finally {
+			getVersionMetrics(version).recordExecution(System.nanoTime() - start);
+		}
+	}
+
+	VersionMetrics getVersionMetrics(String version) {
+		String key = version == null || version.isEmpty() ? UNVERSIONED : version;
+		VersionMetrics metrics = versions.get(key);
+		if (metrics != null) {
+			return metrics;
+		}
+
+		VersionMetrics created = new VersionMetrics(key);
+		metrics = versions.putIfAbsent(key, created);
+		if (metrics != null) {
+			return metrics;
+		}
+
+		register("type=Version,version=" + ObjectName.quote(key), created);
+		versionListeners.forEach(listener -> listener.accept(created));
+		return created;
+	}
+
+	Collection<VersionMetrics> getAllVersionMetrics() {
+		return Collections.unmodifiableCollection(versions.values());
+	}
+
+	LatencyHistogram getRewriteHistogram() {
+		return rewrites;
+	}
+
+	/**
+	 * Registers a listener which is called for every version for which metrics are recorded, including the versions
+	 * for which metrics have already been recorded.
+	 */
+	void onVersion(Consumer<VersionMetrics> listener) {
+		versionListeners.add(listener);
+		versions.values().forEach(listener);
+	}
+
+	private void register(String properties, Object bean) {
+		if (!jmx) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(bean, name);
+			}
+		}
+		catch (JMException | RuntimeException e) {
+			log.warn("Could not register MBean for: {}", properties, e);
+		}
+	}
+
+	@Override
+	public long getOpenedConnections() {
+		return openedConnections.sum();
+	}
+
+	@Override
+	public long getActiveConnections() {
+		return activeConnections.sum();
+	}
+
+	@Override
+	public long getRewrites() {
+		return rewrites.getCount();
+	}
+
+	@Override
+	public double getMeanRewriteMicros() {
+		return rewrites.getMeanMicros();
+	}
+
+	@Override
+	public long get99thPercentileRewriteMicros() {
+		return rewrites.getPercentileMicros(99);
+	}
+
+	@Override
+	public long getRewriteCacheHits() {
+		return rewriteCacheHits.sum();
+	}
+
+	@Override
+	public long getRewriteCacheMisses() {
+		return rewriteCacheMisses.sum();
+	}
+
+	@Override
+	public double getRewriteCacheHitRatio() {
+		long hits = getRewriteCacheHits();
+		long total = hits + getRewriteCacheMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	@Override
+	public String[] getVersions() {
+		return versions.keySet().stream().sorted().toArray(String[]::new);
+	}
+
+}
@@ -0,0 +1,26 @@
+package io.quantumdb.driver;
+
+/**
+ * Driver-wide metrics of the QuantumDB driver, registered as "io.quantumdb.driver:type=Driver".
+ */
+public interface DriverMetricsMXBean {
+
+	long getOpenedConnections();
+
+	long getActiveConnections();
+
+	long getRewrites();
+
+	double getMeanRewriteMicros();
+
+	long get99thPercentileRewriteMicros();
+
+	long getRewriteCacheHits();
+
+	long getRewriteCacheMisses();
+
+	double getRewriteCacheHitRatio();
+
+	String[] getVersions();
+
+}
@@ -0,0 +1,75 @@
+package io.quantumdb.driver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies, using buckets with exponentially growing upper bounds: bucket N counts the
+ * latencies below 2^N microseconds. This is precise enough to tell apart sub-millisecond overhead from multi-second
+ * queries, while recording a latency only increments a few {@link LongAdder}s.
+ */
+class LatencyHistogram {
+
+	private static final int BUCKETS = 32;
+
+	private final LongAdder[] buckets;
+	private final LongAdder count;
+	private final LongAdder totalNanos;
+
+	LatencyHistogram() {
+		this.buckets = new LongAdder[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		this.count = new LongAdder();
+		this.totalNanos = new LongAdder();
+	}
+
+	void record(long nanos) {
+		long micros = Math.max(0, nanos) / 1_000;
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		buckets[bucket].increment();
+		count.increment();
+		totalNanos.add(nanos);
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	double getMeanMicros() {
+		long count = getCount();
+		return count == 0 ? 0 : getTotalNanos() / 1_000d / count;
+	}
+
+	/**
+	 * @param percentile The percentile to estimate, between 0 and 100.
+	 * @return The upper bound (in microseconds) of the bucket containing the specified percentile, or 0 if nothing
+	 * has been recorded yet.
+	 */
+	long getPercentileMicros(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long threshold = (long) Math.ceil(total * percentile / 100d);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= Math.max(1, threshold)) {
+				return 1L << i;
+			}
+		}
+		return 1L << (BUCKETS - 1);
+	}
+
+}
@@ -27,40 +27,65 @@ import io.quantumdb.query.rewriter.Experimental;
 @Experimental
 class MetaResultSet implements ResultSet {
 
+	private static final String TABLE_NAME = "TABLE_NAME";
+
 	private final ResultSet resultSet;
-	private final Map<String, String> tableMapping;
+	private final VersionMapping versionMapping;
+	private final int tableNameColumn;
+	private final boolean shared;
+
+	MetaResultSet(ResultSet resultSet, VersionMapping versionMapping) throws SQLException {
+		this(resultSet, versionMapping, false);
+	}
 
-	MetaResultSet(ResultSet resultSet, Transformer transformer) {
+	/**
+	 * @param shared True if the specified ResultSet is a cursor over cached rows, which must not be closed since that
+	 * would also discard the cached rows.
+	 */
+	MetaResultSet(ResultSet resultSet, VersionMapping versionMapping, boolean shared) throws SQLException {
 		this.resultSet = resultSet;
-		this.tableMapping = transformer.getTableMappings();
+		this.versionMapping = versionMapping;
+		this.tableNameColumn = findTableNameColumn(resultSet.getMetaData());
+		this.shared = shared;
 	}
 
-	@Override
-	public boolean next() throws SQLException {
-		while (true) {
-			if (!resultSet.next()) {
-				return false;
+	private static int findTableNameColumn(ResultSetMetaData metaData) throws SQLException {
+		for (int columnIndex = 1; columnIndex <= metaData.getColumnCount(); columnIndex++) {
+			if (TABLE_NAME.equalsIgnoreCase(metaData.getColumnName(columnIndex))) {
+				return columnIndex;
 			}
+		}
+		return -1;
+	}
 
-			String tableName = resultSet.getString("TABLE_NAME");
-			String refId = tableMapping.get(tableName);
+	private String toTableName(String refId) {
+		if (refId == null) {
+			return null;
+		}
+		String tableName = versionMapping.getTableName(refId);
+		return tableName != null ? tableName : refId;
+	}
 
-			if (refId == null) {
-				// Check if this is a target table and return true, or false otherwise.
-				if (tableMapping.values().contains(tableName)) {
-					return true;
-				}
-			}
-			else if (refId.equals(tableName)) {
-				// Self-referenced table mapping.
+	@Override
+	public boolean next() throws SQLException {
+		if (tableNameColumn == -1) {
+			return resultSet.next();
+		}
+
+		while (resultSet.next()) {
+			String tableName = resultSet.getString(tableNameColumn);
+			if (versionMapping.containsRefId(tableName)) {
 				return true;
 			}
 		}
+		return false;
 	}
 
 	@Override
 	public void close() throws SQLException {
-		resultSet.close();
+		if (!shared) {
+			resultSet.close();
+		}
 	}
 
 	@Override
@@ -71,13 +96,8 @@ class MetaResultSet implements ResultSet {
 	@Override
 	public String getString(int columnIndex) throws SQLException {
 		String result = resultSet.getString(columnIndex);
-		String columnName = getMetaData().getColumnName(columnIndex);
-		if ("TABLE_NAME".equalsIgnoreCase(columnName)) {
-			return tableMapping.entrySet().stream()
-					.filter(entry -> entry.getValue().equals(result))
-					.map(entry -> entry.getKey())
-					.findFirst()
-					.orElse(result);
+		if (columnIndex == tableNameColumn) {
+			return toTableName(result);
 		}
 		return result;
 	}
@@ -162,12 +182,8 @@ class MetaResultSet implements ResultSet {
 	@Override
 	public String getString(String columnLabel) throws SQLException {
 		String result = resultSet.getString(columnLabel);
-		if ("TABLE_NAME".equalsIgnoreCase(columnLabel)) {
-			return tableMapping.entrySet().stream()
-					.filter(entry -> entry.getValue().equals(result))
-					.map(entry -> entry.getKey())
-					.findFirst()
-					.orElse(result);
+		if (TABLE_NAME.equalsIgnoreCase(columnLabel)) {
+			return toTableName(result);
 		}
 		return result;
 	}
@@ -852,13 +868,8 @@ class MetaResultSet implements ResultSet {
 	@Override
 	public String getNString(int columnIndex) throws SQLException {
 		String result = resultSet.getString(columnIndex);
-		String columnName = getMetaData().getColumnName(columnIndex);
-		if ("TABLE_NAME".equalsIgnoreCase(columnName)) {
-			return tableMapping.entrySet().stream()
-					.filter(entry -> entry.getValue().equals(result))
-					.map(entry -> entry.getKey())
-					.findFirst()
-					.orElse(result);
+		if (columnIndex == tableNameColumn) {
+			return toTableName(result);
 		}
 		return result;
 	}
@@ -866,12 +877,8 @@ class MetaResultSet implements ResultSet {
 	@Override
 	public String getNString(String columnLabel) throws SQLException {
 		String result = resultSet.getString(columnLabel);
-		if ("TABLE_NAME".equalsIgnoreCase(columnLabel)) {
-			return tableMapping.entrySet().stream()
-					.filter(entry -> entry.getValue().equals(result))
-					.map(entry -> entry.getKey())
-					.findFirst()
-					.orElse(result);
+		if (TABLE_NAME.equalsIgnoreCase(columnLabel)) {
+			return toTableName(result);
 		}
 		return result;
 	}
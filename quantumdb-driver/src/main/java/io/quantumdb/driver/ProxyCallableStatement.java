@@ -29,6 +29,7 @@ public class ProxyCallableStatement implements CallableStatement {
 	private final ProxyConnection connection;
 	private final CallableStatement statement;
 	private final Transformer transformer;
+	private volatile boolean closed;
 
 	ProxyCallableStatement(ProxyConnection connection, CallableStatement statement, Transformer transformer) {
 		this.connection = connection;
@@ -38,983 +39,988 @@ public class ProxyCallableStatement implements CallableStatement {
 
 	@Override
 	public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
-		statement.registerOutParameter(parameterIndex, sqlType);
+		delegate().registerOutParameter(parameterIndex, sqlType);
 	}
 
 	@Override
 	public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
-		statement.registerOutParameter(parameterIndex, sqlType, scale);
+		delegate().registerOutParameter(parameterIndex, sqlType, scale);
 	}
 
 	@Override
 	public boolean wasNull() throws SQLException {
-		return statement.wasNull();
+		return delegate().wasNull();
 	}
 
 	@Override
 	public String getString(int parameterIndex) throws SQLException {
-		return statement.getString(parameterIndex);
+		return delegate().getString(parameterIndex);
 	}
 
 	@Override
 	public boolean getBoolean(int parameterIndex) throws SQLException {
-		return statement.getBoolean(parameterIndex);
+		return delegate().getBoolean(parameterIndex);
 	}
 
 	@Override
 	public byte getByte(int parameterIndex) throws SQLException {
-		return statement.getByte(parameterIndex);
+		return delegate().getByte(parameterIndex);
 	}
 
 	@Override
 	public short getShort(int parameterIndex) throws SQLException {
-		return statement.getShort(parameterIndex);
+		return delegate().getShort(parameterIndex);
 	}
 
 	@Override
 	public int getInt(int parameterIndex) throws SQLException {
-		return statement.getInt(parameterIndex);
+		return delegate().getInt(parameterIndex);
 	}
 
 	@Override
 	public long getLong(int parameterIndex) throws SQLException {
-		return statement.getLong(parameterIndex);
+		return delegate().getLong(parameterIndex);
 	}
 
 	@Override
 	public float getFloat(int parameterIndex) throws SQLException {
-		return statement.getFloat(parameterIndex);
+		return delegate().getFloat(parameterIndex);
 	}
 
 	@Override
 	public double getDouble(int parameterIndex) throws SQLException {
-		return statement.getDouble(parameterIndex);
+		return delegate().getDouble(parameterIndex);
 	}
 
 	@Override
 	@Deprecated
 	public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
-		return statement.getBigDecimal(parameterIndex, scale);
+		return delegate().getBigDecimal(parameterIndex, scale);
 	}
 
 	@Override
 	public byte[] getBytes(int parameterIndex) throws SQLException {
-		return statement.getBytes(parameterIndex);
+		return delegate().getBytes(parameterIndex);
 	}
 
 	@Override
 	public Date getDate(int parameterIndex) throws SQLException {
-		return statement.getDate(parameterIndex);
+		return delegate().getDate(parameterIndex);
 	}
 
 	@Override
 	public Time getTime(int parameterIndex) throws SQLException {
-		return statement.getTime(parameterIndex);
+		return delegate().getTime(parameterIndex);
 	}
 
 	@Override
 	public Timestamp getTimestamp(int parameterIndex) throws SQLException {
-		return statement.getTimestamp(parameterIndex);
+		return delegate().getTimestamp(parameterIndex);
 	}
 
 	@Override
 	public Object getObject(int parameterIndex) throws SQLException {
-		return statement.getObject(parameterIndex);
+		return delegate().getObject(parameterIndex);
 	}
 
 	@Override
 	public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
-		return statement.getBigDecimal(parameterIndex);
+		return delegate().getBigDecimal(parameterIndex);
 	}
 
 	@Override
 	public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
-		return statement.getObject(parameterIndex, map);
+		return delegate().getObject(parameterIndex, map);
 	}
 
 	@Override
 	public Ref getRef(int parameterIndex) throws SQLException {
-		return statement.getRef(parameterIndex);
+		return delegate().getRef(parameterIndex);
 	}
 
 	@Override
 	public Blob getBlob(int parameterIndex) throws SQLException {
-		return statement.getBlob(parameterIndex);
+		return delegate().getBlob(parameterIndex);
 	}
 
 	@Override
 	public Clob getClob(int parameterIndex) throws SQLException {
-		return statement.getClob(parameterIndex);
+		return delegate().getClob(parameterIndex);
 	}
 
 	@Override
 	public Array getArray(int parameterIndex) throws SQLException {
-		return statement.getArray(parameterIndex);
+		return delegate().getArray(parameterIndex);
 	}
 
 	@Override
 	public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
-		return statement.getDate(parameterIndex, cal);
+		return delegate().getDate(parameterIndex, cal);
 	}
 
 	@Override
 	public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
-		return statement.getTime(parameterIndex, cal);
+		return delegate().getTime(parameterIndex, cal);
 	}
 
 	@Override
 	public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
-		return statement.getTimestamp(parameterIndex, cal);
+		return delegate().getTimestamp(parameterIndex, cal);
 	}
 
 	@Override
 	public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
-		statement.registerOutParameter(parameterIndex, sqlType, typeName);
+		delegate().registerOutParameter(parameterIndex, sqlType, typeName);
 	}
 
 	@Override
 	public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
-		statement.registerOutParameter(parameterName, sqlType);
+		delegate().registerOutParameter(parameterName, sqlType);
 	}
 
 	@Override
 	public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
-		statement.registerOutParameter(parameterName, sqlType, scale);
+		delegate().registerOutParameter(parameterName, sqlType, scale);
 	}
 
 	@Override
 	public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
-		statement.registerOutParameter(parameterName, sqlType, typeName);
+		delegate().registerOutParameter(parameterName, sqlType, typeName);
 	}
 
 	@Override
 	public URL getURL(int parameterIndex) throws SQLException {
-		return statement.getURL(parameterIndex);
+		return delegate().getURL(parameterIndex);
 	}
 
 	@Override
 	public void setURL(String parameterName, URL val) throws SQLException {
-		statement.setURL(parameterName, val);
+		delegate().setURL(parameterName, val);
 	}
 
 	@Override
 	public void setNull(String parameterName, int sqlType) throws SQLException {
-		statement.setNull(parameterName, sqlType);
+		delegate().setNull(parameterName, sqlType);
 	}
 
 	@Override
 	public void setBoolean(String parameterName, boolean x) throws SQLException {
-		statement.setBoolean(parameterName, x);
+		delegate().setBoolean(parameterName, x);
 	}
 
 	@Override
 	public void setByte(String parameterName, byte x) throws SQLException {
-		statement.setByte(parameterName, x);
+		delegate().setByte(parameterName, x);
 	}
 
 	@Override
 	public void setShort(String parameterName, short x) throws SQLException {
-		statement.setShort(parameterName, x);
+		delegate().setShort(parameterName, x);
 	}
 
 	@Override
 	public void setInt(String parameterName, int x) throws SQLException {
-		statement.setInt(parameterName, x);
+		delegate().setInt(parameterName, x);
 	}
 
 	@Override
 	public void setLong(String parameterName, long x) throws SQLException {
-		statement.setLong(parameterName, x);
+		delegate().setLong(parameterName, x);
 	}
 
 	@Override
 	public void setFloat(String parameterName, float x) throws SQLException {
-		statement.setFloat(parameterName, x);
+		delegate().setFloat(parameterName, x);
 	}
 
 	@Override
 	public void setDouble(String parameterName, double x) throws SQLException {
-		statement.setDouble(parameterName, x);
+		delegate().setDouble(parameterName, x);
 	}
 
 	@Override
 	public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
-		statement.setBigDecimal(parameterName, x);
+		delegate().setBigDecimal(parameterName, x);
 	}
 
 	@Override
 	public void setString(String parameterName, String x) throws SQLException {
-		statement.setString(parameterName, x);
+		delegate().setString(parameterName, x);
 	}
 
 	@Override
 	public void setBytes(String parameterName, byte[] x) throws SQLException {
-		statement.setBytes(parameterName, x);
+		delegate().setBytes(parameterName, x);
 	}
 
 	@Override
 	public void setDate(String parameterName, Date x) throws SQLException {
-		statement.setDate(parameterName, x);
+		delegate().setDate(parameterName, x);
 	}
 
 	@Override
 	public void setTime(String parameterName, Time x) throws SQLException {
-		statement.setTime(parameterName, x);
+		delegate().setTime(parameterName, x);
 	}
 
 	@Override
 	public void setTimestamp(String parameterName, Timestamp x) throws SQLException {
-		statement.setTimestamp(parameterName, x);
+		delegate().setTimestamp(parameterName, x);
 	}
 
 	@Override
 	public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
-		statement.setAsciiStream(parameterName, x, length);
+		delegate().setAsciiStream(parameterName, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
-		statement.setBinaryStream(parameterName, x, length);
+		delegate().setBinaryStream(parameterName, x, length);
 	}
 
 	@Override
 	public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
-		statement.setObject(parameterName, x, targetSqlType, scale);
+		delegate().setObject(parameterName, x, targetSqlType, scale);
 	}
 
 	@Override
 	public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
-		statement.setObject(parameterName, x, targetSqlType);
+		delegate().setObject(parameterName, x, targetSqlType);
 	}
 
 	@Override
 	public void setObject(String parameterName, Object x) throws SQLException {
-		statement.setObject(parameterName, x);
+		delegate().setObject(parameterName, x);
 	}
 
 	@Override
 	public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
-		statement.setCharacterStream(parameterName, reader, length);
+		delegate().setCharacterStream(parameterName, reader, length);
 	}
 
 	@Override
 	public void setDate(String parameterName, Date x, Calendar cal) throws SQLException {
-		statement.setDate(parameterName, x, cal);
+		delegate().setDate(parameterName, x, cal);
 	}
 
 	@Override
 	public void setTime(String parameterName, Time x, Calendar cal) throws SQLException {
-		statement.setTime(parameterName, x, cal);
+		delegate().setTime(parameterName, x, cal);
 	}
 
 	@Override
 	public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException {
-		statement.setTimestamp(parameterName, x, cal);
+		delegate().setTimestamp(parameterName, x, cal);
 	}
 
 	@Override
 	public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
-		statement.setNull(parameterName, sqlType, typeName);
+		delegate().setNull(parameterName, sqlType, typeName);
 	}
 
 	@Override
 	public String getString(String parameterName) throws SQLException {
-		return statement.getString(parameterName);
+		return delegate().getString(parameterName);
 	}
 
 	@Override
 	public boolean getBoolean(String parameterName) throws SQLException {
-		return statement.getBoolean(parameterName);
+		return delegate().getBoolean(parameterName);
 	}
 
 	@Override
 	public byte getByte(String parameterName) throws SQLException {
-		return statement.getByte(parameterName);
+		return delegate().getByte(parameterName);
 	}
 
 	@Override
 	public short getShort(String parameterName) throws SQLException {
-		return statement.getShort(parameterName);
+		return delegate().getShort(parameterName);
 	}
 
 	@Override
 	public int getInt(String parameterName) throws SQLException {
-		return statement.getInt(parameterName);
+		return delegate().getInt(parameterName);
 	}
 
 	@Override
 	public long getLong(String parameterName) throws SQLException {
-		return statement.getLong(parameterName);
+		return delegate().getLong(parameterName);
 	}
 
 	@Override
 	public float getFloat(String parameterName) throws SQLException {
-		return statement.getFloat(parameterName);
+		return delegate().getFloat(parameterName);
 	}
 
 	@Override
 	public double getDouble(String parameterName) throws SQLException {
-		return statement.getDouble(parameterName);
+		return delegate().getDouble(parameterName);
 	}
 
 	@Override
 	public byte[] getBytes(String parameterName) throws SQLException {
-		return statement.getBytes(parameterName);
+		return delegate().getBytes(parameterName);
 	}
 
 	@Override
 	public Date getDate(String parameterName) throws SQLException {
-		return statement.getDate(parameterName);
+		return delegate().getDate(parameterName);
 	}
 
 	@Override
 	public Time getTime(String parameterName) throws SQLException {
-		return statement.getTime(parameterName);
+		return delegate().getTime(parameterName);
 	}
 
 	@Override
 	public Timestamp getTimestamp(String parameterName) throws SQLException {
-		return statement.getTimestamp(parameterName);
+		return delegate().getTimestamp(parameterName);
 	}
 
 	@Override
 	public Object getObject(String parameterName) throws SQLException {
-		return statement.getObject(parameterName);
+		return delegate().getObject(parameterName);
 	}
 
 	@Override
 	public BigDecimal getBigDecimal(String parameterName) throws SQLException {
-		return statement.getBigDecimal(parameterName);
+		return delegate().getBigDecimal(parameterName);
 	}
 
 	@Override
 	public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
-		return statement.getObject(parameterName, map);
+		return delegate().getObject(parameterName, map);
 	}
 
 	@Override
 	public Ref getRef(String parameterName) throws SQLException {
-		return statement.getRef(parameterName);
+		return delegate().getRef(parameterName);
 	}
 
 	@Override
 	public Blob getBlob(String parameterName) throws SQLException {
-		return statement.getBlob(parameterName);
+		return delegate().getBlob(parameterName);
 	}
 
 	@Override
 	public Clob getClob(String parameterName) throws SQLException {
-		return statement.getClob(parameterName);
+		return delegate().getClob(parameterName);
 	}
 
 	@Override
 	public Array getArray(String parameterName) throws SQLException {
-		return statement.getArray(parameterName);
+		return delegate().getArray(parameterName);
 	}
 
 	@Override
 	public Date getDate(String parameterName, Calendar cal) throws SQLException {
-		return statement.getDate(parameterName, cal);
+		return delegate().getDate(parameterName, cal);
 	}
 
 	@Override
 	public Time getTime(String parameterName, Calendar cal) throws SQLException {
-		return statement.getTime(parameterName, cal);
+		return delegate().getTime(parameterName, cal);
 	}
 
 	@Override
 	public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
-		return statement.getTimestamp(parameterName, cal);
+		return delegate().getTimestamp(parameterName, cal);
 	}
 
 	@Override
 	public URL getURL(String parameterName) throws SQLException {
-		return statement.getURL(parameterName);
+		return delegate().getURL(parameterName);
 	}
 
 	@Override
 	public RowId getRowId(int parameterIndex) throws SQLException {
-		return statement.getRowId(parameterIndex);
+		return delegate().getRowId(parameterIndex);
 	}
 
 	@Override
 	public RowId getRowId(String parameterName) throws SQLException {
-		return statement.getRowId(parameterName);
+		return delegate().getRowId(parameterName);
 	}
 
 	@Override
 	public void setRowId(String parameterName, RowId x) throws SQLException {
-		statement.setRowId(parameterName, x);
+		delegate().setRowId(parameterName, x);
 	}
 
 	@Override
 	public void setNString(String parameterName, String value) throws SQLException {
-		statement.setNString(parameterName, value);
+		delegate().setNString(parameterName, value);
 	}
 
 	@Override
 	public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
-		statement.setNCharacterStream(parameterName, value, length);
+		delegate().setNCharacterStream(parameterName, value, length);
 	}
 
 	@Override
 	public void setNClob(String parameterName, NClob value) throws SQLException {
-		statement.setNClob(parameterName, value);
+		delegate().setNClob(parameterName, value);
 	}
 
 	@Override
 	public void setClob(String parameterName, Reader reader, long length) throws SQLException {
-		statement.setClob(parameterName, reader, length);
+		delegate().setClob(parameterName, reader, length);
 	}
 
 	@Override
 	public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
-		statement.setBlob(parameterName, inputStream, length);
+		delegate().setBlob(parameterName, inputStream, length);
 	}
 
 	@Override
 	public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
-		statement.setNClob(parameterName, reader, length);
+		delegate().setNClob(parameterName, reader, length);
 	}
 
 	@Override
 	public NClob getNClob(int parameterIndex) throws SQLException {
-		return statement.getNClob(parameterIndex);
+		return delegate().getNClob(parameterIndex);
 	}
 
 	@Override
 	public NClob getNClob(String parameterName) throws SQLException {
-		return statement.getNClob(parameterName);
+		return delegate().getNClob(parameterName);
 	}
 
 	@Override
 	public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
-		statement.setSQLXML(parameterName, xmlObject);
+		delegate().setSQLXML(parameterName, xmlObject);
 	}
 
 	@Override
 	public SQLXML getSQLXML(int parameterIndex) throws SQLException {
-		return statement.getSQLXML(parameterIndex);
+		return delegate().getSQLXML(parameterIndex);
 	}
 
 	@Override
 	public SQLXML getSQLXML(String parameterName) throws SQLException {
-		return statement.getSQLXML(parameterName);
+		return delegate().getSQLXML(parameterName);
 	}
 
 	@Override
 	public String getNString(int parameterIndex) throws SQLException {
-		return statement.getNString(parameterIndex);
+		return delegate().getNString(parameterIndex);
 	}
 
 	@Override
 	public String getNString(String parameterName) throws SQLException {
-		return statement.getNString(parameterName);
+		return delegate().getNString(parameterName);
 	}
 
 	@Override
 	public Reader getNCharacterStream(int parameterIndex) throws SQLException {
-		return statement.getNCharacterStream(parameterIndex);
+		return delegate().getNCharacterStream(parameterIndex);
 	}
 
 	@Override
 	public Reader getNCharacterStream(String parameterName) throws SQLException {
-		return statement.getNCharacterStream(parameterName);
+		return delegate().getNCharacterStream(parameterName);
 	}
 
 	@Override
 	public Reader getCharacterStream(int parameterIndex) throws SQLException {
-		return statement.getCharacterStream(parameterIndex);
+		return delegate().getCharacterStream(parameterIndex);
 	}
 
 	@Override
 	public Reader getCharacterStream(String parameterName) throws SQLException {
-		return statement.getCharacterStream(parameterName);
+		return delegate().getCharacterStream(parameterName);
 	}
 
 	@Override
 	public void setBlob(String parameterName, Blob x) throws SQLException {
-		statement.setBlob(parameterName, x);
+		delegate().setBlob(parameterName, x);
 	}
 
 	@Override
 	public void setClob(String parameterName, Clob x) throws SQLException {
-		statement.setClob(parameterName, x);
+		delegate().setClob(parameterName, x);
 	}
 
 	@Override
 	public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
-		statement.setAsciiStream(parameterName, x, length);
+		delegate().setAsciiStream(parameterName, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
-		statement.setBinaryStream(parameterName, x, length);
+		delegate().setBinaryStream(parameterName, x, length);
 	}
 
 	@Override
 	public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
-		statement.setCharacterStream(parameterName, reader, length);
+		delegate().setCharacterStream(parameterName, reader, length);
 	}
 
 	@Override
 	public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
-		statement.setAsciiStream(parameterName, x);
+		delegate().setAsciiStream(parameterName, x);
 	}
 
 	@Override
 	public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
-		statement.setBinaryStream(parameterName, x);
+		delegate().setBinaryStream(parameterName, x);
 	}
 
 	@Override
 	public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
-		statement.setCharacterStream(parameterName, reader);
+		delegate().setCharacterStream(parameterName, reader);
 	}
 
 	@Override
 	public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
-		statement.setNCharacterStream(parameterName, value);
+		delegate().setNCharacterStream(parameterName, value);
 	}
 
 	@Override
 	public void setClob(String parameterName, Reader reader) throws SQLException {
-		statement.setClob(parameterName, reader);
+		delegate().setClob(parameterName, reader);
 	}
 
 	@Override
 	public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
-		statement.setBlob(parameterName, inputStream);
+		delegate().setBlob(parameterName, inputStream);
 	}
 
 	@Override
 	public void setNClob(String parameterName, Reader reader) throws SQLException {
-		statement.setNClob(parameterName, reader);
+		delegate().setNClob(parameterName, reader);
 	}
 
 	@Override
 	public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
-		return statement.getObject(parameterIndex, type);
+		return delegate().getObject(parameterIndex, type);
 	}
 
 	@Override
 	public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
-		return statement.getObject(parameterName, type);
+		return delegate().getObject(parameterName, type);
 	}
 
 	@Override
 	public ResultSet executeQuery() throws SQLException {
-		return statement.executeQuery();
+		return connection.measure(() -> delegate().executeQuery());
 	}
 
 	@Override
 	public int executeUpdate() throws SQLException {
-		return statement.executeUpdate();
+		return connection.measure(() -> delegate().executeUpdate());
 	}
 
 	@Override
 	public void setNull(int parameterIndex, int sqlType) throws SQLException {
-		statement.setNull(parameterIndex, sqlType);
+		delegate().setNull(parameterIndex, sqlType);
 	}
 
 	@Override
 	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-		statement.setBoolean(parameterIndex, x);
+		delegate().setBoolean(parameterIndex, x);
 	}
 
 	@Override
 	public void setByte(int parameterIndex, byte x) throws SQLException {
-		statement.setByte(parameterIndex, x);
+		delegate().setByte(parameterIndex, x);
 	}
 
 	@Override
 	public void setShort(int parameterIndex, short x) throws SQLException {
-		statement.setShort(parameterIndex, x);
+		delegate().setShort(parameterIndex, x);
 	}
 
 	@Override
 	public void setInt(int parameterIndex, int x) throws SQLException {
-		statement.setInt(parameterIndex, x);
+		delegate().setInt(parameterIndex, x);
 	}
 
 	@Override
 	public void setLong(int parameterIndex, long x) throws SQLException {
-		statement.setLong(parameterIndex, x);
+		delegate().setLong(parameterIndex, x);
 	}
 
 	@Override
 	public void setFloat(int parameterIndex, float x) throws SQLException {
-		statement.setFloat(parameterIndex, x);
+		delegate().setFloat(parameterIndex, x);
 	}
 
 	@Override
 	public void setDouble(int parameterIndex, double x) throws SQLException {
-		statement.setDouble(parameterIndex, x);
+		delegate().setDouble(parameterIndex, x);
 	}
 
 	@Override
 	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-		statement.setBigDecimal(parameterIndex, x);
+		delegate().setBigDecimal(parameterIndex, x);
 	}
 
 	@Override
 	public void setString(int parameterIndex, String x) throws SQLException {
-		statement.setString(parameterIndex, x);
+		delegate().setString(parameterIndex, x);
 	}
 
 	@Override
 	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
-		statement.setBytes(parameterIndex, x);
+		delegate().setBytes(parameterIndex, x);
 	}
 
 	@Override
 	public void setDate(int parameterIndex, Date x) throws SQLException {
-		statement.setDate(parameterIndex, x);
+		delegate().setDate(parameterIndex, x);
 	}
 
 	@Override
 	public void setTime(int parameterIndex, Time x) throws SQLException {
-		statement.setTime(parameterIndex, x);
+		delegate().setTime(parameterIndex, x);
 	}
 
 	@Override
 	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-		statement.setTimestamp(parameterIndex, x);
+		delegate().setTimestamp(parameterIndex, x);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x, length);
+		delegate().setAsciiStream(parameterIndex, x, length);
 	}
 
 	@Override
 	@Deprecated
 	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setUnicodeStream(parameterIndex, x, length);
+		delegate().setUnicodeStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x, length);
+		delegate().setBinaryStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void clearParameters() throws SQLException {
-		statement.clearParameters();
+		delegate().clearParameters();
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
-		statement.setObject(parameterIndex, x, targetSqlType);
+		delegate().setObject(parameterIndex, x, targetSqlType);
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x) throws SQLException {
-		statement.setObject(parameterIndex, x);
+		delegate().setObject(parameterIndex, x);
 	}
 
 	@Override
 	public boolean execute() throws SQLException {
-		return statement.execute();
+		return connection.measure(() -> delegate().execute());
 	}
 
 	@Override
 	public void addBatch() throws SQLException {
-		statement.addBatch();
+		delegate().addBatch();
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader, length);
+		delegate().setCharacterStream(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setRef(int parameterIndex, Ref x) throws SQLException {
-		statement.setRef(parameterIndex, x);
+		delegate().setRef(parameterIndex, x);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, Blob x) throws SQLException {
-		statement.setBlob(parameterIndex, x);
+		delegate().setBlob(parameterIndex, x);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Clob x) throws SQLException {
-		statement.setClob(parameterIndex, x);
+		delegate().setClob(parameterIndex, x);
 	}
 
 	@Override
 	public void setArray(int parameterIndex, Array x) throws SQLException {
-		statement.setArray(parameterIndex, x);
+		delegate().setArray(parameterIndex, x);
 	}
 
 	@Override
 	public ResultSetMetaData getMetaData() throws SQLException {
-		return statement.getMetaData();
+		return delegate().getMetaData();
 	}
 
 	@Override
 	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
-		statement.setDate(parameterIndex, x, cal);
+		delegate().setDate(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
-		statement.setTime(parameterIndex, x, cal);
+		delegate().setTime(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
-		statement.setTimestamp(parameterIndex, x, cal);
+		delegate().setTimestamp(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
-		statement.setNull(parameterIndex, sqlType, typeName);
+		delegate().setNull(parameterIndex, sqlType, typeName);
 	}
 
 	@Override
 	public void setURL(int parameterIndex, URL x) throws SQLException {
-		statement.setURL(parameterIndex, x);
+		delegate().setURL(parameterIndex, x);
 	}
 
 	@Override
 	public ParameterMetaData getParameterMetaData() throws SQLException {
-		return statement.getParameterMetaData();
+		return delegate().getParameterMetaData();
 	}
 
 	@Override
 	public void setRowId(int parameterIndex, RowId x) throws SQLException {
-		statement.setRowId(parameterIndex, x);
+		delegate().setRowId(parameterIndex, x);
 	}
 
 	@Override
 	public void setNString(int parameterIndex, String value) throws SQLException {
-		statement.setNString(parameterIndex, value);
+		delegate().setNString(parameterIndex, value);
 	}
 
 	@Override
 	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
-		statement.setNCharacterStream(parameterIndex, value, length);
+		delegate().setNCharacterStream(parameterIndex, value, length);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, NClob value) throws SQLException {
-		statement.setNClob(parameterIndex, value);
+		delegate().setNClob(parameterIndex, value);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setClob(parameterIndex, reader, length);
+		delegate().setClob(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
-		statement.setBlob(parameterIndex, inputStream, length);
+		delegate().setBlob(parameterIndex, inputStream, length);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setNClob(parameterIndex, reader, length);
+		delegate().setNClob(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
-		statement.setSQLXML(parameterIndex, xmlObject);
+		delegate().setSQLXML(parameterIndex, xmlObject);
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
-		statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		delegate().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x, length);
+		delegate().setAsciiStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x, length);
+		delegate().setBinaryStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader, length);
+		delegate().setCharacterStream(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x);
+		delegate().setAsciiStream(parameterIndex, x);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x);
+		delegate().setBinaryStream(parameterIndex, x);
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader);
+		delegate().setCharacterStream(parameterIndex, reader);
 	}
 
 	@Override
 	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
-		statement.setNCharacterStream(parameterIndex, value);
+		delegate().setNCharacterStream(parameterIndex, value);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Reader reader) throws SQLException {
-		statement.setClob(parameterIndex, reader);
+		delegate().setClob(parameterIndex, reader);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
-		statement.setBlob(parameterIndex, inputStream);
+		delegate().setBlob(parameterIndex, inputStream);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
-		statement.setNClob(parameterIndex, reader);
+		delegate().setNClob(parameterIndex, reader);
 	}
 
 	@Override
 	public ResultSet executeQuery(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeQuery(transformedSql);
+		return connection.measure(() -> delegate().executeQuery(transformedSql));
 	}
 
 	@Override
 	public int executeUpdate(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql));
 	}
 
 	@Override
 	public void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		connection.untrack(this);
 		statement.close();
 	}
 
 	@Override
 	public int getMaxFieldSize() throws SQLException {
-		return statement.getMaxFieldSize();
+		return delegate().getMaxFieldSize();
 	}
 
 	@Override
 	public void setMaxFieldSize(int max) throws SQLException {
-		statement.setMaxFieldSize(max);
+		delegate().setMaxFieldSize(max);
 	}
 
 	@Override
 	public int getMaxRows() throws SQLException {
-		return statement.getMaxRows();
+		return delegate().getMaxRows();
 	}
 
 	@Override
 	public void setMaxRows(int max) throws SQLException {
-		statement.setMaxRows(max);
+		delegate().setMaxRows(max);
 	}
 
 	@Override
 	public void setEscapeProcessing(boolean enable) throws SQLException {
-		statement.setEscapeProcessing(enable);
+		delegate().setEscapeProcessing(enable);
 	}
 
 	@Override
 	public int getQueryTimeout() throws SQLException {
-		return statement.getQueryTimeout();
+		return delegate().getQueryTimeout();
 	}
 
 	@Override
 	public void setQueryTimeout(int seconds) throws SQLException {
-		statement.setQueryTimeout(seconds);
+		delegate().setQueryTimeout(seconds);
 	}
 
 	@Override
 	public void cancel() throws SQLException {
-		statement.cancel();
+		delegate().cancel();
 	}
 
 	@Override
 	public SQLWarning getWarnings() throws SQLException {
-		return statement.getWarnings();
+		return delegate().getWarnings();
 	}
 
 	@Override
 	public void clearWarnings() throws SQLException {
-		statement.clearWarnings();
+		delegate().clearWarnings();
 	}
 
 	@Override
 	public void setCursorName(String name) throws SQLException {
-		statement.setCursorName(name);
+		delegate().setCursorName(name);
 	}
 
 	@Override
 	public boolean execute(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql);
+		return connection.measure(() -> delegate().execute(transformedSql));
 	}
 
 	@Override
 	public ResultSet getResultSet() throws SQLException {
-		return statement.getResultSet();
+		return delegate().getResultSet();
 	}
 
 	@Override
 	public int getUpdateCount() throws SQLException {
-		return statement.getUpdateCount();
+		return delegate().getUpdateCount();
 	}
 
 	@Override
 	public boolean getMoreResults() throws SQLException {
-		return statement.getMoreResults();
+		return delegate().getMoreResults();
 	}
 
 	@Override
 	public void setFetchDirection(int direction) throws SQLException {
-		statement.setFetchDirection(direction);
+		delegate().setFetchDirection(direction);
 	}
 
 	@Override
 	public int getFetchDirection() throws SQLException {
-		return statement.getFetchDirection();
+		return delegate().getFetchDirection();
 	}
 
 	@Override
 	public void setFetchSize(int rows) throws SQLException {
-		statement.setFetchSize(rows);
+		delegate().setFetchSize(rows);
 	}
 
 	@Override
 	public int getFetchSize() throws SQLException {
-		return statement.getFetchSize();
+		return delegate().getFetchSize();
 	}
 
 	@Override
 	public int getResultSetConcurrency() throws SQLException {
-		return statement.getResultSetConcurrency();
+		return delegate().getResultSetConcurrency();
 	}
 
 	@Override
 	public int getResultSetType() throws SQLException {
-		return statement.getResultSetType();
+		return delegate().getResultSetType();
 	}
 
 	@Override
 	public void addBatch(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		statement.addBatch(transformedSql);
+		delegate().addBatch(transformedSql);
 	}
 
 	@Override
 	public void clearBatch() throws SQLException {
-		statement.clearBatch();
+		delegate().clearBatch();
 	}
 
 	@Override
 	public int[] executeBatch() throws SQLException {
-		return statement.executeBatch();
+		return connection.measure(() -> delegate().executeBatch());
 	}
 
 	@Override
@@ -1024,87 +1030,95 @@ public class ProxyCallableStatement implements CallableStatement {
 
 	@Override
 	public boolean getMoreResults(int current) throws SQLException {
-		return statement.getMoreResults(current);
+		return delegate().getMoreResults(current);
 	}
 
 	@Override
 	public ResultSet getGeneratedKeys() throws SQLException {
-		return statement.getGeneratedKeys();
+		return delegate().getGeneratedKeys();
 	}
 
 	@Override
 	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnNames);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnNames));
 	}
 
 	@Override
 	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().execute(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().execute(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public boolean execute(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnNames);
+		return connection.measure(() -> delegate().execute(transformedSql, columnNames));
 	}
 
 	@Override
 	public int getResultSetHoldability() throws SQLException {
-		return statement.getResultSetHoldability();
+		return delegate().getResultSetHoldability();
 	}
 
 	@Override
 	public boolean isClosed() throws SQLException {
-		return statement.isClosed();
+		return closed || statement.isClosed();
 	}
 
 	@Override
 	public void setPoolable(boolean poolable) throws SQLException {
-		statement.setPoolable(poolable);
+		delegate().setPoolable(poolable);
 	}
 
 	@Override
 	public boolean isPoolable() throws SQLException {
-		return statement.isPoolable();
+		return delegate().isPoolable();
 	}
 
 	@Override
 	public void closeOnCompletion() throws SQLException {
-		statement.closeOnCompletion();
+		delegate().closeOnCompletion();
 	}
 
 	@Override
 	public boolean isCloseOnCompletion() throws SQLException {
-		return statement.isCloseOnCompletion();
+		return delegate().isCloseOnCompletion();
 	}
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
-		return statement.unwrap(iface);
+		return delegate().unwrap(iface);
 	}
 
 	@Override
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
-		return statement.isWrapperFor(iface);
+		return delegate().isWrapperFor(iface);
 	}
+
+	private CallableStatement delegate() throws SQLException {
+		if (closed || connection.isReleased()) {
+			throw new SQLException("This statement has already been closed.");
+		}
+		return statement;
+	}
+
 }
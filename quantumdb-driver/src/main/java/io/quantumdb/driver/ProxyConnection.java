@@ -17,123 +17,378 @@ import java.sql.Statement;
 import java.sql.Struct;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class ProxyConnection implements Connection {
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+
+public class ProxyConnection implements Connection, QuantumConnection {
+
+	/**
+	 * Returns a physical connection to the pool it was leased from, when the ProxyConnection using it is closed.
+	 */
+	interface Lease {
+		void release() throws SQLException;
+
+		void bindTo(String version) throws SQLException;
+
+		/**
+		 * @return The cache of prepared statements of the physical connection, or NULL if caching is disabled.
+		 */
+		StatementCache getStatementCache();
+	}
 
 	private final Connection connection;
+	private final String databaseUrl;
+	private final Properties info;
 	private final Transformer transformer;
+	private final Lease lease;
+	private final boolean metadataCaching;
+	private final StatementCache statementCache;
+	private final Set<String> hintedVersions;
+	private final Set<Statement> statements;
+	private volatile boolean released;
+	private volatile boolean searchPathRouting;
+	private volatile String routedVersion;
+
+	ProxyConnection(Connection connection, String databaseUrl, Properties info,
+			AtomicReference<VersionMapping> versionMapping) {
+
+		this(connection, databaseUrl, info, versionMapping, null);
+	}
+
+	ProxyConnection(Connection connection, String databaseUrl, Properties info,
+			AtomicReference<VersionMapping> versionMapping, Lease lease) {
 
-	ProxyConnection(Connection connection, Transformer transformer) {
 		this.connection = connection;
-		this.transformer = transformer;
+		this.databaseUrl = databaseUrl;
+		this.info = info;
+		this.transformer = new Transformer(versionMapping, this::resolveVersion, this::resolveHintedVersion);
+		this.hintedVersions = ConcurrentHashMap.newKeySet();
+		this.statements = ConcurrentHashMap.newKeySet();
+		this.lease = lease;
+		this.metadataCaching = Boolean.parseBoolean(Driver.parseParameter(databaseUrl, "metadataCache"));
+		this.statementCache = lease != null
+				? lease.getStatementCache()
+				: StatementCache.create(StatementCache.parseSize(databaseUrl));
+		DriverMetrics.getInstance().connectionOpened(transformer.getVersion());
+	}
+
+	Transformer getTransformer() {
+		return transformer;
+	}
+
+	/**
+	 * Marks this connection as being routed to the specified version through its "search_path", instead of by
+	 * rewriting its queries. See {@link SearchPath}.
+	 */
+	void routeThroughSearchPath(String version) {
+		String previousVersion = getSchemaVersion();
+		this.searchPathRouting = true;
+		this.routedVersion = version;
+		DriverMetrics.getInstance().connectionSwitched(previousVersion, version);
+	}
+
+	/**
+	 * Executes a statement, recording how long it took as traffic to the current version of this connection.
+	 */
+	<T> T measure(DriverMetrics.Execution<T> execution) throws SQLException {
+		return DriverMetrics.getInstance().measure(getSchemaVersion(), execution);
+	}
+
+	@Override
+	public String getSchemaVersion() {
+		return searchPathRouting ? routedVersion : transformer.getVersion();
+	}
+
+	@Override
+	public void setSchemaVersion(String version) throws SQLException {
+		if (version == null || version.isEmpty()) {
+			throw new SQLException("You must specify a 'version'.");
+		}
+		String previousVersion = getSchemaVersion();
+		if (version.equals(previousVersion)) {
+			return;
+		}
+
+		if (searchPathRouting) {
+			if (isTransactionOpen()) {
+				throw new SQLException("Cannot switch to version: " + version + " while a transaction is open.");
+			}
+			if (lease == null) {
+				SearchPath.apply(delegate(), version);
+			}
+			routedVersion = version;
+		}
+		else {
+			transformer.setVersion(version);
+		}
+
+		if (lease != null) {
+			lease.bindTo(version);
+		}
+		else {
+			VersionLock.switchVersion(delegate(), previousVersion, version);
+			connection.setClientInfo("ApplicationName", Driver.createApplicationName(null, version));
+		}
+		DriverMetrics.getInstance().connectionSwitched(previousVersion, version);
+	}
+
+	/**
+	 * Looks up the shared mapping of the specified version. Switching versions is only allowed in between
+	 * transactions, since a transaction spanning multiple versions might read or write a mix of the tables of both.
+	 */
+	private AtomicReference<VersionMapping> resolveVersion(String version) throws SQLException {
+		if (isTransactionOpen()) {
+			throw new SQLException("Cannot switch to version: " + version + " while a transaction is open.");
+		}
+
+		VersionMappingCache cache = VersionMappingCache.getInstance();
+		AtomicReference<VersionMapping> versionMapping = cache.get(delegate(), databaseUrl, version);
+		cache.listen(databaseUrl, databaseUrl, info);
+		return versionMapping;
+	}
+
+	/**
+	 * Looks up the shared mapping of a version which is used by a single (hinted) statement. Unlike switching
+	 * versions, this is allowed within transactions, and only requires a round trip the first time this connection
+	 * uses the version: the mapping is normally served from the cache (which is kept up-to-date by a listener), and the
+	 * connection registers itself as a client of the version (see {@link VersionLock}) until it's closed.
+	 */
+	private AtomicReference<VersionMapping> resolveHintedVersion(String version) throws SQLException {
+		VersionMappingCache cache = VersionMappingCache.getInstance();
+		AtomicReference<VersionMapping> versionMapping = cache.getCached(databaseUrl, version);
+		if (versionMapping == null) {
+			versionMapping = cache.get(delegate(), databaseUrl, version);
+			cache.listen(databaseUrl, databaseUrl, info);
+		}
+
+		if (hintedVersions.add(version)) {
+			VersionLock.switchVersion(delegate(), null, version);
+			DriverMetrics.getInstance().versionHinted(version);
+		}
+		return versionMapping;
+	}
+
+	/**
+	 * Releases the locks of the versions used by hinted statements. Sessions of connections which are not pooled end
+	 * when the connection is closed, which releases those locks as well.
+	 */
+	private void releaseHintedVersions() throws SQLException {
+		try {
+			if (lease != null && !hintedVersions.isEmpty() && !connection.isClosed()) {
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+				}
+				for (String version : hintedVersions) {
+					VersionLock.switchVersion(connection, version, null);
+				}
+			}
+		}
+		finally {
+			hintedVersions.forEach(DriverMetrics.getInstance()::versionUnhinted);
+			hintedVersions.clear();
+		}
+	}
+
+	/**
+	 * @return True if this connection has been closed, and its physical connection may be in use by another caller.
+	 */
+	boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Keeps track of a statement handed out by this connection, so that it can be closed along with this connection.
+	 */
+	private <T extends Statement> T track(T statement) {
+		statements.add(statement);
+		return statement;
+	}
+
+	/**
+	 * Called when a statement handed out by this connection is closed.
+	 */
+	void untrack(Statement statement) {
+		statements.remove(statement);
+	}
+
+	/**
+	 * Closes the statements handed out by this connection which are still open. Statements which can be reused are
+	 * returned to the statement cache, before the physical connection is released to the pool.
+	 */
+	private void closeStatements() throws SQLException {
+		SQLException exception = null;
+		for (Statement statement : statements) {
+			try {
+				statement.close();
+			}
+			catch (SQLException e) {
+				if (exception == null) {
+					exception = e;
+				}
+				else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+		statements.clear();
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private boolean isTransactionOpen() throws SQLException {
+		Connection connection = delegate();
+		if (connection.isWrapperFor(BaseConnection.class)) {
+			TransactionState state = connection.unwrap(BaseConnection.class).getTransactionState();
+			return state != TransactionState.IDLE;
+		}
+		return !connection.getAutoCommit();
 	}
 
 	@Override
 	public Statement createStatement() throws SQLException {
-		return new ProxyStatement(this, connection.createStatement(), transformer);
+		return track(new ProxyStatement(this, delegate().createStatement(), transformer));
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement statement = connection.prepareStatement(transformedSql);
-		return new ProxyPreparedStatement(this, statement, transformer);
+		if (statementCache == null) {
+			PreparedStatement statement = delegate().prepareStatement(transformedSql);
+			return track(new ProxyPreparedStatement(this, statement, transformer));
+		}
+
+		Connection connection = delegate();
+		String key = StatementCache.createKey(getSchemaVersion(), transformedSql);
+		PreparedStatement statement = statementCache.take(key);
+		if (statement == null) {
+			statement = connection.prepareStatement(transformedSql);
+		}
+		return track(new ProxyPreparedStatement(this, statement, transformer, statementCache, key));
 	}
 
 	@Override
 	public CallableStatement prepareCall(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		CallableStatement statement = connection.prepareCall(transformedSql);
-		return new ProxyCallableStatement(this, statement, transformer);
+		CallableStatement statement = delegate().prepareCall(transformedSql);
+		return track(new ProxyCallableStatement(this, statement, transformer));
 	}
 
 	@Override
 	public String nativeSQL(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return connection.nativeSQL(transformedSql);
+		return delegate().nativeSQL(transformedSql);
 	}
 
 	@Override
 	public void setAutoCommit(boolean autoCommit) throws SQLException {
-		connection.setAutoCommit(autoCommit);
+		delegate().setAutoCommit(autoCommit);
 	}
 
 	@Override
 	public boolean getAutoCommit() throws SQLException {
-		return connection.getAutoCommit();
+		return delegate().getAutoCommit();
 	}
 
 	@Override
 	public void commit() throws SQLException {
-		connection.commit();
+		delegate().commit();
 	}
 
 	@Override
 	public void rollback() throws SQLException {
-		connection.rollback();
+		delegate().rollback();
 	}
 
 	@Override
 	public void close() throws SQLException {
-		connection.close();
+		if (released) {
+			return;
+		}
+		released = true;
+		DriverMetrics.getInstance().connectionClosed(getSchemaVersion());
+
+		try {
+			closeStatements();
+		}
+		finally {
+			try {
+				releaseHintedVersions();
+			}
+			finally {
+				if (lease == null) {
+					if (statementCache != null) {
+						statementCache.clear();
+					}
+					connection.close();
+				}
+				else {
+					lease.release();
+				}
+			}
+		}
 	}
 
 	@Override
 	public boolean isClosed() throws SQLException {
-		return connection.isClosed();
+		return released || connection.isClosed();
 	}
 
 	@Override
 	// TODO: See if we need to adopt this for core...
 	public DatabaseMetaData getMetaData() throws SQLException {
-		return new ProxyDatabaseMetaData(this, connection.getMetaData(), transformer);
+		return new ProxyDatabaseMetaData(this, delegate().getMetaData(), transformer, metadataCaching);
 	}
 
 	@Override
 	public void setReadOnly(boolean readOnly) throws SQLException {
-		connection.setReadOnly(readOnly);
+		delegate().setReadOnly(readOnly);
 	}
 
 	@Override
 	public boolean isReadOnly() throws SQLException {
-		return connection.isReadOnly();
+		return delegate().isReadOnly();
 	}
 
 	@Override
 	public void setCatalog(String catalog) throws SQLException {
-		connection.setCatalog(catalog);
+		delegate().setCatalog(catalog);
 	}
 
 	@Override
 	public String getCatalog() throws SQLException {
-		return connection.getCatalog();
+		return delegate().getCatalog();
 	}
 
 	@Override
 	public void setTransactionIsolation(int level) throws SQLException {
-		connection.setTransactionIsolation(level);
+		delegate().setTransactionIsolation(level);
 	}
 
 	@Override
 	public int getTransactionIsolation() throws SQLException {
-		return connection.getTransactionIsolation();
+		return delegate().getTransactionIsolation();
 	}
 
 	@Override
 	public SQLWarning getWarnings() throws SQLException {
-		return connection.getWarnings();
+		return delegate().getWarnings();
 	}
 
 	@Override
 	public void clearWarnings() throws SQLException {
-		connection.clearWarnings();
+		delegate().clearWarnings();
 	}
 
 	@Override
 	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
-		Statement statement = connection.createStatement(resultSetType, resultSetConcurrency);
-		return new ProxyStatement(this, statement, transformer);
+		Statement statement = delegate().createStatement(resultSetType, resultSetConcurrency);
+		return track(new ProxyStatement(this, statement, transformer));
 	}
 
 	@Override
@@ -141,63 +396,63 @@ public class ProxyConnection implements Connection {
 			throws SQLException {
 
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement statement = connection.prepareStatement(transformedSql, resultSetType, resultSetConcurrency);
-		return new ProxyPreparedStatement(this, statement, transformer);
+		PreparedStatement statement = delegate().prepareStatement(transformedSql, resultSetType, resultSetConcurrency);
+		return track(new ProxyPreparedStatement(this, statement, transformer));
 	}
 
 	@Override
 	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		CallableStatement statement = connection.prepareCall(transformedSql, resultSetType, resultSetConcurrency);
-		return new ProxyCallableStatement(this, statement, transformer);
+		CallableStatement statement = delegate().prepareCall(transformedSql, resultSetType, resultSetConcurrency);
+		return track(new ProxyCallableStatement(this, statement, transformer));
 	}
 
 	@Override
 	public Map<String, Class<?>> getTypeMap() throws SQLException {
-		return connection.getTypeMap();
+		return delegate().getTypeMap();
 	}
 
 	@Override
 	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
-		connection.setTypeMap(map);
+		delegate().setTypeMap(map);
 	}
 
 	@Override
 	public void setHoldability(int holdability) throws SQLException {
-		connection.setHoldability(holdability);
+		delegate().setHoldability(holdability);
 	}
 
 	@Override
 	public int getHoldability() throws SQLException {
-		return connection.getHoldability();
+		return delegate().getHoldability();
 	}
 
 	@Override
 	public Savepoint setSavepoint() throws SQLException {
-		return connection.setSavepoint();
+		return delegate().setSavepoint();
 	}
 
 	@Override
 	public Savepoint setSavepoint(String name) throws SQLException {
-		return connection.setSavepoint(name);
+		return delegate().setSavepoint(name);
 	}
 
 	@Override
 	public void rollback(Savepoint savepoint) throws SQLException {
-		connection.rollback(savepoint);
+		delegate().rollback(savepoint);
 	}
 
 	@Override
 	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
-		connection.releaseSavepoint(savepoint);
+		delegate().releaseSavepoint(savepoint);
 	}
 
 	@Override
 	public Statement createStatement(int resultSetType, int resultSetConcurrency,
 			int resultSetHoldability) throws SQLException {
 
-		Statement statement = connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
-		return new ProxyStatement(this, statement, transformer);
+		Statement statement = delegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+		return track(new ProxyStatement(this, statement, transformer));
 	}
 
 	@Override
@@ -205,10 +460,10 @@ public class ProxyConnection implements Connection {
 			int resultSetHoldability) throws SQLException {
 
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement statement = connection.prepareStatement(transformedSql, resultSetType, resultSetConcurrency,
+		PreparedStatement statement = delegate().prepareStatement(transformedSql, resultSetType, resultSetConcurrency,
 				resultSetHoldability);
 
-		return new ProxyPreparedStatement(this, statement, transformer);
+		return track(new ProxyPreparedStatement(this, statement, transformer));
 	}
 
 	@Override
@@ -216,121 +471,137 @@ public class ProxyConnection implements Connection {
 			int resultSetHoldability) throws SQLException {
 
 		String transformedSql = transformer.rewriteQuery(sql);
-		CallableStatement transformedStatement = connection.prepareCall(transformedSql, resultSetType,
+		CallableStatement transformedStatement = delegate().prepareCall(transformedSql, resultSetType,
 				resultSetConcurrency, resultSetHoldability);
 
-		return new ProxyCallableStatement(this, transformedStatement, transformer);
+		return track(new ProxyCallableStatement(this, transformedStatement, transformer));
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement transformedStatement = connection.prepareStatement(transformedSql, autoGeneratedKeys);
-		return new ProxyPreparedStatement(this, transformedStatement, transformer);
+		PreparedStatement transformedStatement = delegate().prepareStatement(transformedSql, autoGeneratedKeys);
+		return track(new ProxyPreparedStatement(this, transformedStatement, transformer));
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement transformedStatement = connection.prepareStatement(transformedSql, columnIndexes);
-		return new ProxyPreparedStatement(this, transformedStatement, transformer);
+		PreparedStatement transformedStatement = delegate().prepareStatement(transformedSql, columnIndexes);
+		return track(new ProxyPreparedStatement(this, transformedStatement, transformer));
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		PreparedStatement transformedStatement = connection.prepareStatement(transformedSql, columnNames);
-		return new ProxyPreparedStatement(this, transformedStatement, transformer);
+		PreparedStatement transformedStatement = delegate().prepareStatement(transformedSql, columnNames);
+		return track(new ProxyPreparedStatement(this, transformedStatement, transformer));
 	}
 
 	@Override
 	public Clob createClob() throws SQLException {
-		return connection.createClob();
+		return delegate().createClob();
 	}
 
 	@Override
 	public Blob createBlob() throws SQLException {
-		return connection.createBlob();
+		return delegate().createBlob();
 	}
 
 	@Override
 	public NClob createNClob() throws SQLException {
-		return connection.createNClob();
+		return delegate().createNClob();
 	}
 
 	@Override
 	public SQLXML createSQLXML() throws SQLException {
-		return connection.createSQLXML();
+		return delegate().createSQLXML();
 	}
 
 	@Override
 	public boolean isValid(int timeout) throws SQLException {
-		return connection.isValid(timeout);
+		return !released && connection.isValid(timeout);
 	}
 
 	@Override
 	public void setClientInfo(String name, String value) throws SQLClientInfoException {
+		if (released) {
+			throw new SQLClientInfoException("This connection has already been closed.", null);
+		}
 		connection.setClientInfo(name, value);
 	}
 
 	@Override
 	public void setClientInfo(Properties properties) throws SQLClientInfoException {
+		if (released) {
+			throw new SQLClientInfoException("This connection has already been closed.", null);
+		}
 		connection.setClientInfo(properties);
 	}
 
 	@Override
 	public String getClientInfo(String name) throws SQLException {
-		return connection.getClientInfo(name);
+		return delegate().getClientInfo(name);
 	}
 
 	@Override
 	public Properties getClientInfo() throws SQLException {
-		return connection.getClientInfo();
+		return delegate().getClientInfo();
 	}
 
 	@Override
 	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
-		return connection.createArrayOf(typeName, elements);
+		return delegate().createArrayOf(typeName, elements);
 	}
 
 	@Override
 	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
-		return connection.createStruct(typeName, attributes);
+		return delegate().createStruct(typeName, attributes);
 	}
 
 	@Override
 	public void setSchema(String schema) throws SQLException {
-		connection.setSchema(schema);
+		delegate().setSchema(schema);
 	}
 
 	@Override
 	public String getSchema() throws SQLException {
-		return connection.getSchema();
+		return delegate().getSchema();
 	}
 
 	@Override
 	public void abort(Executor executor) throws SQLException {
-		connection.abort(executor);
+		delegate().abort(executor);
 	}
 
 	@Override
 	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-		connection.setNetworkTimeout(executor, milliseconds);
+		delegate().setNetworkTimeout(executor, milliseconds);
 	}
 
 	@Override
 	public int getNetworkTimeout() throws SQLException {
-		return connection.getNetworkTimeout();
+		return delegate().getNetworkTimeout();
 	}
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
-		return connection.unwrap(iface);
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return delegate().unwrap(iface);
 	}
 
 	@Override
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
-		return connection.isWrapperFor(iface);
+		return iface.isInstance(this) || delegate().isWrapperFor(iface);
+	}
+
+	private Connection delegate() throws SQLException {
+		if (released) {
+			throw new SQLException("This connection has already been closed.");
+		}
+		return connection;
 	}
 
 }
@@ -5,17 +5,22 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.RowIdLifetime;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 public class ProxyDatabaseMetaData implements DatabaseMetaData {
 
 	private final ProxyConnection parent;
 	private final DatabaseMetaData metaData;
 	private final Transformer transformer;
+	private final boolean caching;
+
+	ProxyDatabaseMetaData(ProxyConnection parent, DatabaseMetaData metaData, Transformer transformer,
+			boolean caching) {
 
-	ProxyDatabaseMetaData(ProxyConnection parent, DatabaseMetaData metaData, Transformer transformer) {
 		this.parent = parent;
 		this.metaData = metaData;
 		this.transformer = transformer;
+		this.caching = caching;
 	}
 
 	@Override
@@ -648,12 +653,14 @@ public class ProxyDatabaseMetaData implements DatabaseMetaData {
 	public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern,
 			String columnNamePattern) throws SQLException {
 
-		if (tableNamePattern != null && !tableNamePattern.isEmpty()) {
-			tableNamePattern = transformer.getRefId(tableNamePattern);
+		VersionMapping versionMapping = transformer.getVersionMapping();
+		if (versionMapping.getVersion() == null) {
+			return metaData.getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
 		}
 
-		ResultSet columns = metaData.getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
-		return new MetaResultSet(columns, transformer);
+		String refIdPattern = toRefId(versionMapping, tableNamePattern);
+		return query(versionMapping, () -> metaData.getColumns(catalog, schemaPattern, refIdPattern, columnNamePattern),
+				"getColumns", catalog, schemaPattern, refIdPattern, columnNamePattern);
 	}
 
 	@Override
@@ -684,7 +691,14 @@ public class ProxyDatabaseMetaData implements DatabaseMetaData {
 
 	@Override
 	public ResultSet getPrimaryKeys(String catalog, String schema, String table) throws SQLException {
-		return metaData.getPrimaryKeys(catalog, schema, table);
+		VersionMapping versionMapping = transformer.getVersionMapping();
+		if (versionMapping.getVersion() == null) {
+			return metaData.getPrimaryKeys(catalog, schema, table);
+		}
+
+		String refId = toRefId(versionMapping, table);
+		return query(versionMapping, () -> metaData.getPrimaryKeys(catalog, schema, refId),
+				"getPrimaryKeys", catalog, schema, refId);
 	}
 
 	@Override
@@ -713,7 +727,14 @@ public class ProxyDatabaseMetaData implements DatabaseMetaData {
 	public ResultSet getIndexInfo(String catalog, String schema, String table, boolean unique,
 			boolean approximate) throws SQLException {
 
-		return metaData.getIndexInfo(catalog, schema, table, unique, approximate);
+		VersionMapping versionMapping = transformer.getVersionMapping();
+		if (versionMapping.getVersion() == null) {
+			return metaData.getIndexInfo(catalog, schema, table, unique, approximate);
+		}
+
+		String refId = toRefId(versionMapping, table);
+		return query(versionMapping, () -> metaData.getIndexInfo(catalog, schema, refId, unique, approximate),
+				"getIndexInfo", catalog, schema, refId, unique, approximate);
 	}
 
 	@Override
@@ -930,4 +951,26 @@ public class ProxyDatabaseMetaData implements DatabaseMetaData {
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
 		return metaData.isWrapperFor(iface);
 	}
+	private String toRefId(VersionMapping versionMapping, String tableName) {
+		if (tableName == null || tableName.isEmpty()) {
+			return tableName;
+		}
+		String refId = versionMapping.getTableMapping().get(tableName);
+		return refId != null ? refId : tableName;
+	}
+
+	/**
+	 * Queries the metadata (from the per-version cache if caching is enabled), and maps the physical table names in
+	 * the results back onto the table names of the version.
+	 */
+	private ResultSet query(VersionMapping versionMapping, VersionMapping.MetadataLoader loader, Object... key)
+			throws SQLException {
+
+		if (caching) {
+			ResultSet resultSet = versionMapping.getMetadata(Arrays.deepToString(key), loader);
+			return new MetaResultSet(resultSet, versionMapping, true);
+		}
+		return new MetaResultSet(loader.load(), versionMapping);
+	}
+
 }
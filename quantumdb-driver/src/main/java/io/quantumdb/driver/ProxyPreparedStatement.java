@@ -28,426 +28,485 @@ public class ProxyPreparedStatement implements PreparedStatement {
 	private final ProxyConnection connection;
 	private final PreparedStatement statement;
 	private final Transformer transformer;
+	private final StatementCache cache;
+	private final String cacheKey;
+	private volatile boolean closed;
+	private boolean modified;
 
 	ProxyPreparedStatement(ProxyConnection connection, PreparedStatement statement, Transformer transformer) {
+		this(connection, statement, transformer, null, null);
+	}
+
+	/**
+	 * Creates a handle to a statement which is returned to the specified cache when the handle is closed, unless any
+	 * of the statement's settings (which can't be reset to their defaults) were modified through the handle.
+	 */
+	ProxyPreparedStatement(ProxyConnection connection, PreparedStatement statement, Transformer transformer,
+			StatementCache cache, String cacheKey) {
+
 		this.connection = connection;
 		this.statement = statement;
 		this.transformer = transformer;
+		this.cache = cache;
+		this.cacheKey = cacheKey;
+	}
+
+	private PreparedStatement delegate() throws SQLException {
+		if (closed || connection.isReleased()) {
+			throw new SQLException("This statement has already been closed.");
+		}
+		return statement;
+	}
+
+	private PreparedStatement modify() throws SQLException {
+		modified = true;
+		return delegate();
 	}
 
 	@Override
 	public ResultSet executeQuery() throws SQLException {
-		return statement.executeQuery();
+		return connection.measure(() -> delegate().executeQuery());
 	}
 
 	@Override
 	public int executeUpdate() throws SQLException {
-		return statement.executeUpdate();
+		return connection.measure(() -> delegate().executeUpdate());
 	}
 
 	@Override
 	public void setNull(int parameterIndex, int sqlType) throws SQLException {
-		statement.setNull(parameterIndex, sqlType);
+		delegate().setNull(parameterIndex, sqlType);
 	}
 
 	@Override
 	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-		statement.setBoolean(parameterIndex, x);
+		delegate().setBoolean(parameterIndex, x);
 	}
 
 	@Override
 	public void setByte(int parameterIndex, byte x) throws SQLException {
-		statement.setByte(parameterIndex, x);
+		delegate().setByte(parameterIndex, x);
 	}
 
 	@Override
 	public void setShort(int parameterIndex, short x) throws SQLException {
-		statement.setShort(parameterIndex, x);
+		delegate().setShort(parameterIndex, x);
 	}
 
 	@Override
 	public void setInt(int parameterIndex, int x) throws SQLException {
-		statement.setInt(parameterIndex, x);
+		delegate().setInt(parameterIndex, x);
 	}
 
 	@Override
 	public void setLong(int parameterIndex, long x) throws SQLException {
-		statement.setLong(parameterIndex, x);
+		delegate().setLong(parameterIndex, x);
 	}
 
 	@Override
 	public void setFloat(int parameterIndex, float x) throws SQLException {
-		statement.setFloat(parameterIndex, x);
+		delegate().setFloat(parameterIndex, x);
 	}
 
 	@Override
 	public void setDouble(int parameterIndex, double x) throws SQLException {
-		statement.setDouble(parameterIndex, x);
+		delegate().setDouble(parameterIndex, x);
 	}
 
 	@Override
 	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-		statement.setBigDecimal(parameterIndex, x);
+		delegate().setBigDecimal(parameterIndex, x);
 	}
 
 	@Override
 	public void setString(int parameterIndex, String x) throws SQLException {
-		statement.setString(parameterIndex, x);
+		delegate().setString(parameterIndex, x);
 	}
 
 	@Override
 	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
-		statement.setBytes(parameterIndex, x);
+		delegate().setBytes(parameterIndex, x);
 	}
 
 	@Override
 	public void setDate(int parameterIndex, Date x) throws SQLException {
-		statement.setDate(parameterIndex, x);
+		delegate().setDate(parameterIndex, x);
 	}
 
 	@Override
 	public void setTime(int parameterIndex, Time x) throws SQLException {
-		statement.setTime(parameterIndex, x);
+		delegate().setTime(parameterIndex, x);
 	}
 
 	@Override
 	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-		statement.setTimestamp(parameterIndex, x);
+		delegate().setTimestamp(parameterIndex, x);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x, length);
+		delegate().setAsciiStream(parameterIndex, x, length);
 	}
 
 	@Override
 	@Deprecated
 	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setUnicodeStream(parameterIndex, x, length);
+		delegate().setUnicodeStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x, length);
+		delegate().setBinaryStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void clearParameters() throws SQLException {
-		statement.clearParameters();
+		delegate().clearParameters();
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
-		statement.setObject(parameterIndex, x, targetSqlType);
+		delegate().setObject(parameterIndex, x, targetSqlType);
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x) throws SQLException {
-		statement.setObject(parameterIndex, x);
+		delegate().setObject(parameterIndex, x);
 	}
 
 	@Override
 	public boolean execute() throws SQLException {
-		return statement.execute();
+		return connection.measure(() -> delegate().execute());
 	}
 
 	@Override
 	public void addBatch() throws SQLException {
-		statement.addBatch();
+		delegate().addBatch();
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader, length);
+		delegate().setCharacterStream(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setRef(int parameterIndex, Ref x) throws SQLException {
-		statement.setRef(parameterIndex, x);
+		delegate().setRef(parameterIndex, x);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, Blob x) throws SQLException {
-		statement.setBlob(parameterIndex, x);
+		delegate().setBlob(parameterIndex, x);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Clob x) throws SQLException {
-		statement.setClob(parameterIndex, x);
+		delegate().setClob(parameterIndex, x);
 	}
 
 	@Override
 	public void setArray(int parameterIndex, Array x) throws SQLException {
-		statement.setArray(parameterIndex, x);
+		delegate().setArray(parameterIndex, x);
 	}
 
 	@Override
 	public ResultSetMetaData getMetaData() throws SQLException {
-		return statement.getMetaData();
+		return delegate().getMetaData();
 	}
 
 	@Override
 	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
-		statement.setDate(parameterIndex, x, cal);
+		delegate().setDate(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
-		statement.setTime(parameterIndex, x, cal);
+		delegate().setTime(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
-		statement.setTimestamp(parameterIndex, x, cal);
+		delegate().setTimestamp(parameterIndex, x, cal);
 	}
 
 	@Override
 	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
-		statement.setNull(parameterIndex, sqlType, typeName);
+		delegate().setNull(parameterIndex, sqlType, typeName);
 	}
 
 	@Override
 	public void setURL(int parameterIndex, URL x) throws SQLException {
-		statement.setURL(parameterIndex, x);
+		delegate().setURL(parameterIndex, x);
 	}
 
 	@Override
 	public ParameterMetaData getParameterMetaData() throws SQLException {
-		return statement.getParameterMetaData();
+		return delegate().getParameterMetaData();
 	}
 
 	@Override
 	public void setRowId(int parameterIndex, RowId x) throws SQLException {
-		statement.setRowId(parameterIndex, x);
+		delegate().setRowId(parameterIndex, x);
 	}
 
 	@Override
 	public void setNString(int parameterIndex, String value) throws SQLException {
-		statement.setNString(parameterIndex, value);
+		delegate().setNString(parameterIndex, value);
 	}
 
 	@Override
 	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
-		statement.setNCharacterStream(parameterIndex, value, length);
+		delegate().setNCharacterStream(parameterIndex, value, length);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, NClob value) throws SQLException {
-		statement.setNClob(parameterIndex, value);
+		delegate().setNClob(parameterIndex, value);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setClob(parameterIndex, reader, length);
+		delegate().setClob(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
-		statement.setBlob(parameterIndex, inputStream, length);
+		delegate().setBlob(parameterIndex, inputStream, length);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setNClob(parameterIndex, reader, length);
+		delegate().setNClob(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
-		statement.setSQLXML(parameterIndex, xmlObject);
+		delegate().setSQLXML(parameterIndex, xmlObject);
 	}
 
 	@Override
 	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
-		statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		delegate().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x, length);
+		delegate().setAsciiStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x, length);
+		delegate().setBinaryStream(parameterIndex, x, length);
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader, length);
+		delegate().setCharacterStream(parameterIndex, reader, length);
 	}
 
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
-		statement.setAsciiStream(parameterIndex, x);
+		delegate().setAsciiStream(parameterIndex, x);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
-		statement.setBinaryStream(parameterIndex, x);
+		delegate().setBinaryStream(parameterIndex, x);
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
-		statement.setCharacterStream(parameterIndex, reader);
+		delegate().setCharacterStream(parameterIndex, reader);
 	}
 
 	@Override
 	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
-		statement.setNCharacterStream(parameterIndex, value);
+		delegate().setNCharacterStream(parameterIndex, value);
 	}
 
 	@Override
 	public void setClob(int parameterIndex, Reader reader) throws SQLException {
-		statement.setClob(parameterIndex, reader);
+		delegate().setClob(parameterIndex, reader);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
-		statement.setBlob(parameterIndex, inputStream);
+		delegate().setBlob(parameterIndex, inputStream);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
-		statement.setNClob(parameterIndex, reader);
+		delegate().setNClob(parameterIndex, reader);
 	}
 
 	@Override
 	public ResultSet executeQuery(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeQuery(transformedSql);
+		return connection.measure(() -> delegate().executeQuery(transformedSql));
 	}
 
 	@Override
 	public int executeUpdate(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql));
 	}
 
 	@Override
 	public void close() throws SQLException {
-		statement.close();
+		if (closed) {
+			return;
+		}
+		closed = true;
+		connection.untrack(this);
+
+		if (cache == null || modified || !reset()) {
+			statement.close();
+			return;
+		}
+		cache.put(cacheKey, statement);
+	}
+
+	/**
+	 * Clears the parameters, batch, warnings and current results of the statement, so it can be reused.
+	 *
+	 * @return True if the statement could be reset, or false otherwise.
+	 */
+	private boolean reset() {
+		try {
+			ResultSet resultSet = statement.getResultSet();
+			if (resultSet != null) {
+				resultSet.close();
+			}
+			statement.clearParameters();
+			statement.clearBatch();
+			statement.clearWarnings();
+			return !statement.isClosed();
+		}
+		catch (SQLException e) {
+			return false;
+		}
 	}
 
 	@Override
 	public int getMaxFieldSize() throws SQLException {
-		return statement.getMaxFieldSize();
+		return delegate().getMaxFieldSize();
 	}
 
 	@Override
 	public void setMaxFieldSize(int max) throws SQLException {
-		statement.setMaxFieldSize(max);
+		modify().setMaxFieldSize(max);
 	}
 
 	@Override
 	public int getMaxRows() throws SQLException {
-		return statement.getMaxRows();
+		return delegate().getMaxRows();
 	}
 
 	@Override
 	public void setMaxRows(int max) throws SQLException {
-		statement.setMaxRows(max);
+		modify().setMaxRows(max);
 	}
 
 	@Override
 	public void setEscapeProcessing(boolean enable) throws SQLException {
-		statement.setEscapeProcessing(enable);
+		modify().setEscapeProcessing(enable);
 	}
 
 	@Override
 	public int getQueryTimeout() throws SQLException {
-		return statement.getQueryTimeout();
+		return delegate().getQueryTimeout();
 	}
 
 	@Override
 	public void setQueryTimeout(int seconds) throws SQLException {
-		statement.setQueryTimeout(seconds);
+		modify().setQueryTimeout(seconds);
 	}
 
 	@Override
 	public void cancel() throws SQLException {
-		statement.cancel();
+		delegate().cancel();
 	}
 
 	@Override
 	public SQLWarning getWarnings() throws SQLException {
-		return statement.getWarnings();
+		return delegate().getWarnings();
 	}
 
 	@Override
 	public void clearWarnings() throws SQLException {
-		statement.clearWarnings();
+		delegate().clearWarnings();
 	}
 
 	@Override
 	public void setCursorName(String name) throws SQLException {
-		statement.setCursorName(name);
+		modify().setCursorName(name);
 	}
 
 	@Override
 	public boolean execute(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql);
+		return connection.measure(() -> delegate().execute(transformedSql));
 	}
 
 	@Override
 	public ResultSet getResultSet() throws SQLException {
-		return statement.getResultSet();
+		return delegate().getResultSet();
 	}
 
 	@Override
 	public int getUpdateCount() throws SQLException {
-		return statement.getUpdateCount();
+		return delegate().getUpdateCount();
 	}
 
 	@Override
 	public boolean getMoreResults() throws SQLException {
-		return statement.getMoreResults();
+		return delegate().getMoreResults();
 	}
 
 	@Override
 	public void setFetchDirection(int direction) throws SQLException {
-		statement.setFetchDirection(direction);
+		modify().setFetchDirection(direction);
 	}
 
 	@Override
 	public int getFetchDirection() throws SQLException {
-		return statement.getFetchDirection();
+		return delegate().getFetchDirection();
 	}
 
 	@Override
 	public void setFetchSize(int rows) throws SQLException {
-		statement.setFetchSize(rows);
+		modify().setFetchSize(rows);
 	}
 
 	@Override
 	public int getFetchSize() throws SQLException {
-		return statement.getFetchSize();
+		return delegate().getFetchSize();
 	}
 
 	@Override
 	public int getResultSetConcurrency() throws SQLException {
-		return statement.getResultSetConcurrency();
+		return delegate().getResultSetConcurrency();
 	}
 
 	@Override
 	public int getResultSetType() throws SQLException {
-		return statement.getResultSetType();
+		return delegate().getResultSetType();
 	}
 
 	@Override
 	public void addBatch(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		statement.addBatch(transformedSql);
+		delegate().addBatch(transformedSql);
 	}
 
 	@Override
 	public void clearBatch() throws SQLException {
-		statement.clearBatch();
+		delegate().clearBatch();
 	}
 
 	@Override
 	public int[] executeBatch() throws SQLException {
-		return statement.executeBatch();
+		return connection.measure(() -> delegate().executeBatch());
 	}
 
 	@Override
@@ -457,87 +516,87 @@ public class ProxyPreparedStatement implements PreparedStatement {
 
 	@Override
 	public boolean getMoreResults(int current) throws SQLException {
-		return statement.getMoreResults(current);
+		return delegate().getMoreResults(current);
 	}
 
 	@Override
 	public ResultSet getGeneratedKeys() throws SQLException {
-		return statement.getGeneratedKeys();
+		return delegate().getGeneratedKeys();
 	}
 
 	@Override
 	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnNames);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnNames));
 	}
 
 	@Override
 	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().execute(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().execute(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public boolean execute(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnNames);
+		return connection.measure(() -> delegate().execute(transformedSql, columnNames));
 	}
 
 	@Override
 	public int getResultSetHoldability() throws SQLException {
-		return statement.getResultSetHoldability();
+		return delegate().getResultSetHoldability();
 	}
 
 	@Override
 	public boolean isClosed() throws SQLException {
-		return statement.isClosed();
+		return closed || statement.isClosed();
 	}
 
 	@Override
 	public void setPoolable(boolean poolable) throws SQLException {
-		statement.setPoolable(poolable);
+		modify().setPoolable(poolable);
 	}
 
 	@Override
 	public boolean isPoolable() throws SQLException {
-		return statement.isPoolable();
+		return delegate().isPoolable();
 	}
 
 	@Override
 	public void closeOnCompletion() throws SQLException {
-		statement.closeOnCompletion();
+		modify().closeOnCompletion();
 	}
 
 	@Override
 	public boolean isCloseOnCompletion() throws SQLException {
-		return statement.isCloseOnCompletion();
+		return delegate().isCloseOnCompletion();
 	}
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
-		return statement.unwrap(iface);
+		return delegate().unwrap(iface);
 	}
 
 	@Override
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
-		return statement.isWrapperFor(iface);
+		return delegate().isWrapperFor(iface);
 	}
 }
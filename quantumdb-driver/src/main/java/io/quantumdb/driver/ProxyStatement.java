@@ -11,6 +11,7 @@ public class ProxyStatement implements Statement {
 	private final ProxyConnection connection;
 	private final Statement statement;
 	private final Transformer transformer;
+	private volatile boolean closed;
 
 	ProxyStatement(ProxyConnection connection, Statement statement, Transformer transformer) {
 		this.connection = connection;
@@ -21,140 +22,145 @@ public class ProxyStatement implements Statement {
 	@Override
 	public ResultSet executeQuery(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeQuery(transformedSql);
+		return connection.measure(() -> delegate().executeQuery(transformedSql));
 	}
 
 	@Override
 	public int executeUpdate(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql));
 	}
 
 	@Override
 	public void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		connection.untrack(this);
 		statement.close();
 	}
 
 	@Override
 	public int getMaxFieldSize() throws SQLException {
-		return statement.getMaxFieldSize();
+		return delegate().getMaxFieldSize();
 	}
 
 	@Override
 	public void setMaxFieldSize(int max) throws SQLException {
-		statement.setMaxFieldSize(max);
+		delegate().setMaxFieldSize(max);
 	}
 
 	@Override
 	public int getMaxRows() throws SQLException {
-		return statement.getMaxRows();
+		return delegate().getMaxRows();
 	}
 
 	@Override
 	public void setMaxRows(int max) throws SQLException {
-		statement.setMaxRows(max);
+		delegate().setMaxRows(max);
 	}
 
 	@Override
 	public void setEscapeProcessing(boolean enable) throws SQLException {
-		statement.setEscapeProcessing(enable);
+		delegate().setEscapeProcessing(enable);
 	}
 
 	@Override
 	public int getQueryTimeout() throws SQLException {
-		return statement.getQueryTimeout();
+		return delegate().getQueryTimeout();
 	}
 
 	@Override
 	public void setQueryTimeout(int seconds) throws SQLException {
-		statement.getQueryTimeout();
+		delegate().getQueryTimeout();
 	}
 
 	@Override
 	public void cancel() throws SQLException {
-		statement.cancel();
+		delegate().cancel();
 	}
 
 	@Override
 	public SQLWarning getWarnings() throws SQLException {
-		return statement.getWarnings();
+		return delegate().getWarnings();
 	}
 
 	@Override
 	public void clearWarnings() throws SQLException {
-		statement.clearWarnings();
+		delegate().clearWarnings();
 	}
 
 	@Override
 	public void setCursorName(String name) throws SQLException {
-		statement.setCursorName(name);
+		delegate().setCursorName(name);
 	}
 
 	@Override
 	public boolean execute(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql);
+		return connection.measure(() -> delegate().execute(transformedSql));
 	}
 
 	@Override
 	public ResultSet getResultSet() throws SQLException {
-		return statement.getResultSet();
+		return delegate().getResultSet();
 	}
 
 	@Override
 	public int getUpdateCount() throws SQLException {
-		return statement.getUpdateCount();
+		return delegate().getUpdateCount();
 	}
 
 	@Override
 	public boolean getMoreResults() throws SQLException {
-		return statement.getMoreResults();
+		return delegate().getMoreResults();
 	}
 
 	@Override
 	public void setFetchDirection(int direction) throws SQLException {
-		statement.setFetchDirection(direction);
+		delegate().setFetchDirection(direction);
 	}
 
 	@Override
 	public int getFetchDirection() throws SQLException {
-		return statement.getFetchDirection();
+		return delegate().getFetchDirection();
 	}
 
 	@Override
 	public void setFetchSize(int rows) throws SQLException {
-		statement.setFetchSize(rows);
+		delegate().setFetchSize(rows);
 	}
 
 	@Override
 	public int getFetchSize() throws SQLException {
-		return statement.getFetchSize();
+		return delegate().getFetchSize();
 	}
 
 	@Override
 	public int getResultSetConcurrency() throws SQLException {
-		return statement.getResultSetConcurrency();
+		return delegate().getResultSetConcurrency();
 	}
 
 	@Override
 	public int getResultSetType() throws SQLException {
-		return statement.getResultSetType();
+		return delegate().getResultSetType();
 	}
 
 	@Override
 	public void addBatch(String sql) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		statement.addBatch(transformedSql);
+		delegate().addBatch(transformedSql);
 	}
 
 	@Override
 	public void clearBatch() throws SQLException {
-		statement.clearBatch();
+		delegate().clearBatch();
 	}
 
 	@Override
 	public int[] executeBatch() throws SQLException {
-		return statement.executeBatch();
+		return connection.measure(() -> delegate().executeBatch());
 	}
 
 	@Override
@@ -164,88 +170,95 @@ public class ProxyStatement implements Statement {
 
 	@Override
 	public boolean getMoreResults(int current) throws SQLException {
-		return statement.getMoreResults(current);
+		return delegate().getMoreResults(current);
 	}
 
 	@Override
 	public ResultSet getGeneratedKeys() throws SQLException {
-		return statement.getGeneratedKeys();
+		return delegate().getGeneratedKeys();
 	}
 
 	@Override
 	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.executeUpdate(transformedSql, columnNames);
+		return connection.measure(() -> delegate().executeUpdate(transformedSql, columnNames));
 	}
 
 	@Override
 	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, autoGeneratedKeys);
+		return connection.measure(() -> delegate().execute(transformedSql, autoGeneratedKeys));
 	}
 
 	@Override
 	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnIndexes);
+		return connection.measure(() -> delegate().execute(transformedSql, columnIndexes));
 	}
 
 	@Override
 	public boolean execute(String sql, String[] columnNames) throws SQLException {
 		String transformedSql = transformer.rewriteQuery(sql);
-		return statement.execute(transformedSql, columnNames);
+		return connection.measure(() -> delegate().execute(transformedSql, columnNames));
 	}
 
 	@Override
 	public int getResultSetHoldability() throws SQLException {
-		return statement.getResultSetHoldability();
+		return delegate().getResultSetHoldability();
 	}
 
 	@Override
 	public boolean isClosed() throws SQLException {
-		return statement.isClosed();
+		return closed || statement.isClosed();
 	}
 
 	@Override
 	public void setPoolable(boolean poolable) throws SQLException {
-		statement.setPoolable(poolable);
+		delegate().setPoolable(poolable);
 	}
 
 	@Override
 	public boolean isPoolable() throws SQLException {
-		return statement.isPoolable();
+		return delegate().isPoolable();
 	}
 
 	@Override
 	public void closeOnCompletion() throws SQLException {
-		statement.closeOnCompletion();
+		delegate().closeOnCompletion();
 	}
 
 	@Override
 	public boolean isCloseOnCompletion() throws SQLException {
-		return statement.isCloseOnCompletion();
+		return delegate().isCloseOnCompletion();
 	}
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
-		return statement.unwrap(iface);
+		return delegate().unwrap(iface);
 	}
 
 	@Override
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
-		return statement.isWrapperFor(iface);
+		return delegate().isWrapperFor(iface);
+	}
+
+	private Statement delegate() throws SQLException {
+		if (closed || connection.isReleased()) {
+			throw new SQLException("This statement has already been closed.");
+		}
+		return statement;
 	}
 
 }
@@ -0,0 +1,28 @@
+package io.quantumdb.driver;
+
+import java.sql.SQLException;
+
+/**
+ * Exposes QuantumDB specific operations on connections obtained through the QuantumDB driver. Use
+ * {@link java.sql.Connection#unwrap(Class)} to obtain this interface from such a connection.
+ */
+public interface QuantumConnection {
+
+	/**
+	 * @return The version of the database schema this connection currently uses, or NULL if it's not bound to a
+	 * specific version.
+	 */
+	String getSchemaVersion();
+
+	/**
+	 * Switches this connection to another version of the database schema, without reconnecting. All statements created
+	 * by this connection will use the new version from their next execution onwards. Individual queries can also
+	 * target another version by starting with a comment like: "/* quantumdb:version=abc *&#47;".
+	 *
+	 * @param version The version to switch to.
+	 * @throws SQLException When a transaction is currently open on this connection, or the version could not be
+	 * loaded.
+	 */
+	void setSchemaVersion(String version) throws SQLException;
+
+}
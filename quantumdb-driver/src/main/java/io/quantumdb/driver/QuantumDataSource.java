@@ -0,0 +1,259 @@
+package io.quantumdb.driver;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import io.quantumdb.driver.ConnectionPool.PhysicalConnection;
+import io.quantumdb.driver.ProxyConnection.Lease;
+
+/**
+ * A DataSource which manages a single pool of physical connections to a PostgreSQL database, and hands out connections
+ * bound to a particular version of the database schema. Since physical connections are not tied to a version, they
+ * are reused for whichever version is requested next. This allows application instances running on different versions
+ * (for instance during a blue/green deployment) to share the same physical connections.
+ *
+ * Use {@link #getConnection()} to obtain a connection for the default version, or {@link #forVersion(String)} to
+ * obtain a DataSource which hands out connections for another version from the same pool.
+ */
+public class QuantumDataSource implements DataSource, AutoCloseable {
+
+	private static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+	private static final long DEFAULT_CONNECTION_TIMEOUT_MILLIS = 30_000;
+
+	private String url;
+	private String user;
+	private String password;
+	private String version;
+	private int maximumPoolSize = DEFAULT_MAXIMUM_POOL_SIZE;
+	private long connectionTimeoutMillis = DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+	private int loginTimeout;
+	private PrintWriter logWriter;
+
+	private volatile ConnectionPool pool;
+
+	/**
+	 * @param url The JDBC URL of the database, either as a "jdbc:quantumdb:postgresql:" or as a "jdbc:postgresql:"
+	 * URL. If the URL specifies a version, it is used as the default version.
+	 */
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUser(String user) {
+		this.user = user;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	/**
+	 * @param version The version of the database schema which connections obtained through
+	 * {@link #getConnection()} are bound to.
+	 */
+	public void setVersion(String version) {
+		this.version = version;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		if (maximumPoolSize < 1) {
+			throw new IllegalArgumentException("The maximum pool size must be at least 1.");
+		}
+		this.maximumPoolSize = maximumPoolSize;
+	}
+
+	public int getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+		this.connectionTimeoutMillis = connectionTimeoutMillis;
+	}
+
+	public long getConnectionTimeoutMillis() {
+		return connectionTimeoutMillis;
+	}
+
+	/**
+	 * Creates a DataSource which hands out connections bound to the specified version, using the same pool of
+	 * physical connections as this DataSource.
+	 *
+	 * @param version The version of the database schema to bind connections to.
+	 * @return A DataSource for the specified version.
+	 */
+	public DataSource forVersion(String version) {
+		return new VersionedDataSource(this, version);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		String defaultVersion = version;
+		if (defaultVersion == null && url != null) {
+			defaultVersion = Driver.parseVersion(url);
+		}
+		return getConnection(defaultVersion);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("All pooled connections use the same credentials, "
+				+ "use getConnection() instead.");
+	}
+
+	Connection getConnection(String version) throws SQLException {
+		ConnectionPool pool = getPool();
+		PhysicalConnection physicalConnection = pool.lease();
+		try {
+			Connection connection = physicalConnection.getConnection();
+			String databaseUrl = Driver.stripVersion(Driver.toDelegateUrl(url));
+
+			VersionMappingCache cache = VersionMappingCache.getInstance();
+			Properties info = createConnectionProperties();
+			boolean searchPathRouting = SearchPath.isEnabled(databaseUrl);
+			AtomicReference<VersionMapping> versionMapping;
+			if (searchPathRouting) {
+				versionMapping = cache.get(connection, databaseUrl, null);
+			}
+			else {
+				versionMapping = cache.get(connection, databaseUrl, version);
+				if (version != null && !version.isEmpty()) {
+					cache.listen(databaseUrl, databaseUrl, info);
+				}
+			}
+			physicalConnection.bindTo(null, version);
+
+			ProxyConnection proxy = new ProxyConnection(connection, databaseUrl, info, versionMapping, new Lease() {
+				@Override
+				public void release() throws SQLException {
+					pool.release(physicalConnection);
+				}
+
+				@Override
+				public void bindTo(String version) throws SQLException {
+					physicalConnection.bindTo(null, version);
+				}
+
+				@Override
+				public StatementCache getStatementCache() {
+					return physicalConnection.getStatementCache();
+				}
+			});
+
+			if (searchPathRouting) {
+				proxy.routeThroughSearchPath(version);
+			}
+			return proxy;
+		}
+		catch (SQLException | RuntimeException e) {
+			pool.release(physicalConnection);
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		ConnectionPool pool = this.pool;
+		if (pool != null) {
+			pool.close();
+			this.pool = null;
+		}
+	}
+
+	private ConnectionPool getPool() throws SQLException {
+		ConnectionPool pool = this.pool;
+		if (pool == null) {
+			synchronized (this) {
+				pool = this.pool;
+				if (pool == null) {
+					if (url == null) {
+						throw new SQLException("You have not specified a JDBC URL.");
+					}
+					try {
+						Class.forName("org.postgresql.Driver");
+					}
+					catch (ClassNotFoundException e) {
+						throw new SQLException("Could not locate delegate driver.", e);
+					}
+
+					String databaseUrl = Driver.stripVersion(Driver.toDelegateUrl(url));
+					pool = new ConnectionPool(databaseUrl, createConnectionProperties(), maximumPoolSize,
+							connectionTimeoutMillis);
+					this.pool = pool;
+				}
+			}
+		}
+		return pool;
+	}
+
+	private Properties createConnectionProperties() {
+		Properties info = new Properties();
+		if (user != null) {
+			info.setProperty("user", user);
+		}
+		if (password != null) {
+			info.setProperty("password", password);
+		}
+		if (loginTimeout > 0) {
+			info.setProperty("loginTimeout", Integer.toString(loginTimeout));
+		}
+		return info;
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return logWriter;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		this.logWriter = out;
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		this.loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Cannot unwrap to: " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+}
@@ -0,0 +1,50 @@
+package io.quantumdb.driver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Routes connections to a version by pointing their "search_path" at the schema which the migrator maintains for
+ * that version (when its "versionSchemas" setting is enabled), instead of rewriting their queries. This routing mode
+ * is enabled by adding "routing=search_path" to the JDBC URL.
+ */
+class SearchPath {
+
+	static final String SCHEMA_PREFIX = "qdb_v_";
+
+	private static final String ROUTING_PARAMETER = "routing";
+	private static final String ROUTING_MODE = "search_path";
+	private static final Pattern VERSION_ID = Pattern.compile("[A-Za-z0-9_]+");
+
+	private SearchPath() {
+		// Prevent instantiation.
+	}
+
+	static boolean isEnabled(String url) {
+		return url != null && ROUTING_MODE.equals(Driver.parseParameter(url, ROUTING_PARAMETER));
+	}
+
+	/**
+	 * Sets the "search_path" of the specified connection to the schema of the specified version, followed by the
+	 * "public" schema. If no version is specified, the "search_path" is reset to its default.
+	 */
+	static void apply(Connection connection, String version) throws SQLException {
+		String query;
+		if (version == null || version.isEmpty()) {
+			query = "RESET search_path;";
+		}
+		else if (VERSION_ID.matcher(version).matches()) {
+			query = "SET search_path TO \"" + SCHEMA_PREFIX + version + "\", public;";
+		}
+		else {
+			throw new SQLException("Invalid version: " + version);
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(query);
+		}
+	}
+
+}
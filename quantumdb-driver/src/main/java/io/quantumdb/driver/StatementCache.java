@@ -0,0 +1,96 @@
+package io.quantumdb.driver;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A cache of prepared statements of a single physical connection, keyed by the version and the rewritten query. A
+ * statement is taken out of the cache while it's in use, and returned to the cache when the ProxyPreparedStatement
+ * using it is closed. This allows the (server-side) parsing and planning of a statement to be reused, even though
+ * every request prepares it anew. When the cache is full, the least recently used statement is closed.
+ */
+@Slf4j
+class StatementCache {
+
+	static final int DEFAULT_SIZE = 256;
+
+	/**
+	 * @return The size of the statement cache, as configured by the "statementCacheSize" parameter of the JDBC URL,
+	 * or {@link #DEFAULT_SIZE} if not specified.
+	 */
+	static int parseSize(String url) {
+		String size = url == null ? null : Driver.parseParameter(url, "statementCacheSize");
+		return size == null ? DEFAULT_SIZE : Integer.parseInt(size);
+	}
+
+	/**
+	 * @return A new cache with the specified maximum size, or NULL if caching is disabled.
+	 */
+	static StatementCache create(int maximumSize) {
+		return maximumSize > 0 ? new StatementCache(maximumSize) : null;
+	}
+
+	static String createKey(String version, String query) {
+		return version == null ? query : version + '\u0000' + query;
+	}
+
+	private final Map<String, PreparedStatement> statements;
+
+	private StatementCache(int maximumSize) {
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > maximumSize) {
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return The cached statement for the specified key (which is removed from the cache until it's returned), or
+	 * NULL if no such statement is cached.
+	 */
+	synchronized PreparedStatement take(String key) {
+		return statements.remove(key);
+	}
+
+	/**
+	 * Returns a statement to the cache. If another statement is already cached for the same key, the returned
+	 * statement is closed instead.
+	 */
+	void put(String key, PreparedStatement statement) {
+		boolean cached;
+		synchronized (this) {
+			cached = statements.putIfAbsent(key, statement) == null;
+		}
+		if (!cached) {
+			closeQuietly(statement);
+		}
+	}
+
+	synchronized int size() {
+		return statements.size();
+	}
+
+	synchronized void clear() {
+		statements.values().forEach(StatementCache::closeQuietly);
+		statements.clear();
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		}
+		catch (SQLException e) {
+			log.debug("Could not close cached statement.", e);
+		}
+	}
+
+}
@@ -1,58 +1,100 @@
 package io.quantumdb.driver;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
-
-import io.quantumdb.query.rewriter.QueryRewriter;
+import java.util.concurrent.atomic.AtomicReference;
 
 class Transformer {
 
-	private final QueryRewriter queryRewriter;
-	private final Map<String, String> tableMapping;
-
-	Transformer(Connection connection, QueryRewriter queryRewriter, String version) throws SQLException {
-		this.tableMapping = new HashMap<>();
-		this.queryRewriter = queryRewriter;
-
-		if (version != null && !version.isEmpty()) {
-			String query = new StringBuilder()
-					.append("SELECT ref_id, table_name ")
-					.append("FROM quantumdb.ref_versions ")
-					.append("WHERE version_id = ?;")
-					.toString();
-
-			try (PreparedStatement statement = connection.prepareStatement(query)) {
-				statement.setString(1, version);
-
-				try (ResultSet resultSet = statement.executeQuery()) {
-					while (resultSet.next()) {
-						String refId = resultSet.getString("ref_id");
-						String tableName = resultSet.getString("table_name");
-						tableMapping.put(tableName, refId);
-					}
-				}
-			}
-		}
+	private static final String HINT_PREFIX = "quantumdb:version=";
+
+	/**
+	 * Resolves the (shared) mapping of another version, when switching versions, or for a single hinted query.
+	 */
+	interface VersionResolver {
+		AtomicReference<VersionMapping> resolve(String version) throws SQLException;
+	}
+
+	private final VersionResolver resolver;
+	private final VersionResolver hintResolver;
+	private volatile AtomicReference<VersionMapping> versionMapping;
+
+	Transformer(AtomicReference<VersionMapping> versionMapping, VersionResolver resolver) {
+		this(versionMapping, resolver, resolver);
+	}
+
+	Transformer(AtomicReference<VersionMapping> versionMapping, VersionResolver resolver,
+			VersionResolver hintResolver) {
+
+		this.versionMapping = versionMapping;
+		this.resolver = resolver;
+		this.hintResolver = hintResolver;
+	}
+
+	VersionMapping getVersionMapping() {
+		return versionMapping.get();
+	}
+
+	String getVersion() {
+		return versionMapping.get().getVersion();
+	}
 
-		queryRewriter.setTableMapping(tableMapping);
+	void setVersion(String version) throws SQLException {
+		this.versionMapping = resolver.resolve(version);
 	}
 
 	Map<String, String> getTableMappings() {
-		Map<String, String> result = new HashMap<>(tableMapping.size());
-		result.putAll(tableMapping);
-		return result;
+		return new HashMap<>(versionMapping.get().getTableMapping());
 	}
 
 	String getRefId(String tableName) {
-		return tableMapping.get(tableName);
+		return versionMapping.get().getTableMapping().get(tableName);
 	}
 
+	/**
+	 * Rewrites the specified query using the mapping of the current version, or the version specified by a hint in a
+	 * comment at the start of the query, like: "/* quantumdb:version=abc *&#47; SELECT * FROM users".
+	 */
 	String rewriteQuery(String query) throws SQLException {
-		return queryRewriter.rewrite(query);
+		VersionMapping mapping = versionMapping.get();
+		String hintedVersion = parseVersionHint(query);
+		if (hintedVersion != null && !hintedVersion.equals(mapping.getVersion())) {
+			mapping = hintResolver.resolve(hintedVersion).get();
+		}
+		return mapping.rewrite(query);
+	}
+
+	static String parseVersionHint(String query) {
+		if (query == null) {
+			return null;
+		}
+
+		int start = 0;
+		int length = query.length();
+		while (start < length && Character.isWhitespace(query.charAt(start))) {
+			start++;
+		}
+		if (!query.startsWith("/*", start)) {
+			return null;
+		}
+
+		int end = query.indexOf("*/", start + 2);
+		if (end == -1) {
+			return null;
+		}
+
+		int hint = query.indexOf(HINT_PREFIX, start + 2);
+		if (hint == -1 || hint > end) {
+			return null;
+		}
+
+		int versionStart = hint + HINT_PREFIX.length();
+		int versionEnd = versionStart;
+		while (versionEnd < end && !Character.isWhitespace(query.charAt(versionEnd))) {
+			versionEnd++;
+		}
+		return versionEnd > versionStart ? query.substring(versionStart, versionEnd) : null;
 	}
 
 }
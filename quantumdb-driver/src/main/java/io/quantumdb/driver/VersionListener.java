@@ -0,0 +1,79 @@
+package io.quantumdb.driver;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Keeps a single connection per database open, which LISTENs on the channel that QuantumDB notifies whenever it has
+ * persisted changes to its meta-info tables. On every notification the cached {@link VersionMapping}s of that database
+ * are refreshed, so connections pick up the changes within milliseconds instead of only after reconnecting.
+ */
+@Slf4j
+class VersionListener implements Runnable {
+
+	static final String CHANNEL = "quantumdb_versions";
+
+	private static final int POLL_TIMEOUT_MILLIS = 10_000;
+	private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+	private final VersionMappingCache cache;
+	private final String databaseUrl;
+	private final String connectionUrl;
+	private final Properties info;
+	private final Thread thread;
+
+	VersionListener(VersionMappingCache cache, String databaseUrl, String connectionUrl, Properties info) {
+		this.cache = cache;
+		this.databaseUrl = databaseUrl;
+		this.connectionUrl = connectionUrl;
+		this.info = new Properties();
+		this.info.putAll(info);
+		this.info.setProperty("ApplicationName", "QuantumDB version listener");
+
+		this.thread = new Thread(this, "quantumdb-version-listener");
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try (Connection connection = DriverManager.getConnection(connectionUrl, info)) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + CHANNEL + ";");
+				}
+
+				// We might have missed notifications while we were not listening.
+				cache.refresh(connection, databaseUrl);
+
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (!Thread.currentThread().isInterrupted()) {
+					PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+					if (notifications != null && notifications.length > 0) {
+						cache.refresh(connection, databaseUrl);
+					}
+				}
+			}
+			catch (SQLException | RuntimeException e) {
+				log.warn("Lost connection for version notifications, reconnecting...", e);
+				try {
+					Thread.sleep(RECONNECT_DELAY_MILLIS);
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package io.quantumdb.driver;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.quantumdb.client.VersionProtocol;
+
+/**
+ * Registers which version a session is using, by holding a shared session-level advisory lock for that version.
+ * PostgreSQL releases such locks automatically when the session ends, so the migrator can accurately count the
+ * sessions which are still using a version (see PostgresqlBackend.countClientsPerVersion), even if clients crash.
+ */
+class VersionLock {
+
+	private VersionLock() {
+		// Prevent instantiation.
+	}
+
+	/**
+	 * Releases the lock of the previous version (if any), and acquires the lock of the next version (if any), in a
+	 * single round trip.
+	 */
+	static void switchVersion(Connection connection, String previousVersion, String nextVersion)
+			throws SQLException {
+
+		boolean release = previousVersion != null && !previousVersion.isEmpty();
+		boolean acquire = nextVersion != null && !nextVersion.isEmpty();
+		if (!release && !acquire) {
+			return;
+		}
+
+		StringBuilder query = new StringBuilder("SELECT ");
+		if (release) {
+			query.append("pg_advisory_unlock_shared(?, ?)");
+		}
+		if (acquire) {
+			query.append(release ? ", " : "").append("pg_try_advisory_lock_shared(?, ?)");
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(query.append(";").toString())) {
+			int index = 1;
+			if (release) {
+				statement.setInt(index++, VersionProtocol.VERSION_LOCK_NAMESPACE);
+				statement.setInt(index++, VersionProtocol.getVersionLockKey(previousVersion));
+			}
+			if (acquire) {
+				statement.setInt(index++, VersionProtocol.VERSION_LOCK_NAMESPACE);
+				statement.setInt(index, VersionProtocol.getVersionLockKey(nextVersion));
+			}
+			statement.execute();
+		}
+	}
+
+}
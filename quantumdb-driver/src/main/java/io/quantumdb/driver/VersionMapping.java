@@ -0,0 +1,121 @@
+package io.quantumdb.driver;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.quantumdb.client.TableMapping;
+import io.quantumdb.query.rewriter.QueryRewriter;
+
+/**
+ * The {@link TableMapping} of one particular version of the database schema, as used by the driver. Next to rewriting
+ * queries, it maps ref ids back onto table names, and records the time spent rewriting queries in the
+ * {@link DriverMetrics}.
+ *
+ * Since a mapping never changes, database metadata (like the columns of a table) can be cached per mapping, and is
+ * discarded together with the mapping when the mapping is reloaded.
+ */
+class VersionMapping extends TableMapping {
+
+	private static final int METADATA_CACHE_SIZE = 1_000;
+
+	/**
+	 * Produces rows for database metadata, which are only requested when they are not yet cached.
+	 */
+	interface MetadataLoader {
+		ResultSet load() throws SQLException;
+	}
+
+	private final Map<String, String> reverseTableMapping;
+	private final Cache<String, CachedRowSet> metadata;
+
+	VersionMapping(String version, Long generation, Map<String, String> tableMapping, QueryRewriter queryRewriter) {
+		super(version, generation, tableMapping, queryRewriter);
+
+		Map<String, String> reverseTableMapping = new HashMap<>();
+		getTableMapping().forEach((tableName, refId) -> reverseTableMapping.putIfAbsent(refId, tableName));
+		this.reverseTableMapping = Collections.unmodifiableMap(reverseTableMapping);
+
+		this.metadata = CacheBuilder.newBuilder()
+				.maximumSize(METADATA_CACHE_SIZE)
+				.build();
+	}
+
+	/**
+	 * @return The name of the table in this version which is backed by the specified ref id, or NULL if none is.
+	 */
+	String getTableName(String refId) {
+		return reverseTableMapping.get(refId);
+	}
+
+	/**
+	 * @return True if the specified physical table is part of this version.
+	 */
+	boolean containsRefId(String refId) {
+		String mappedRefId = getTableMapping().get(refId);
+		if (mappedRefId == null) {
+			return reverseTableMapping.containsKey(refId);
+		}
+		return mappedRefId.equals(refId);
+	}
+
+	@Override
+	protected void onRewrite(long nanos, boolean cached) {
+		DriverMetrics.getInstance().recordRewrite(nanos, cached);
+	}
+
+	/**
+	 * Retrieves cached database metadata, or loads and caches it if it's not cached yet.
+	 *
+	 * @param key A key uniquely identifying the requested metadata, including all the arguments of the request.
+	 * @param loader Loads the metadata from the database, if it's not cached yet.
+	 * @return A private cursor over the cached rows. It must not be closed, since that discards the cached rows.
+	 * @throws SQLException In case the metadata could not be loaded.
+	 */
+	ResultSet getMetadata(String key, MetadataLoader loader) throws SQLException {
+		try {
+			CachedRowSet rows = metadata.get(key, () -> {
+				try (ResultSet resultSet = loader.load()) {
+					CachedRowSet cachedRowSet = RowSetFactoryHolder.FACTORY.createCachedRowSet();
+					cachedRowSet.populate(resultSet);
+					return cachedRowSet;
+				}
+			});
+			return rows.createShared();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new SQLException("Could not load metadata.", e.getCause());
+		}
+	}
+
+	/**
+	 * Lazily creates the RowSetFactory, since looking up the RowSet implementation is relatively expensive.
+	 */
+	private static class RowSetFactoryHolder {
+
+		private static final RowSetFactory FACTORY = createFactory();
+
+		private static RowSetFactory createFactory() {
+			try {
+				return RowSetProvider.newFactory();
+			}
+			catch (SQLException e) {
+				throw new IllegalStateException("Could not create RowSetFactory.", e);
+			}
+		}
+
+	}
+
+}
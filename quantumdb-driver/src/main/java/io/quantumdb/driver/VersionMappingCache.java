@@ -0,0 +1,159 @@
+package io.quantumdb.driver;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.quantumdb.client.TableMappingCache;
+import io.quantumdb.client.VersionProtocol;
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+
+/**
+ * A driver-wide cache of {@link VersionMapping}s, which keeps a {@link TableMappingCache} for every database, shared
+ * by all connections to that database. Connecting only requires a primary key lookup of the current generation of the
+ * QuantumDB meta-info tables, and the mapping itself is only (re)loaded when the generation has changed since it was
+ * cached.
+ *
+ * Open connections pick up changes to their version (for instance when tables are renamed during a cleanup) without
+ * having to reconnect. Such reloads are triggered by a {@link VersionListener}.
+ */
+class VersionMappingCache {
+
+	private static final VersionMappingCache INSTANCE = new VersionMappingCache();
+
+	private static final VersionMapping UNVERSIONED = new VersionMapping(null, null, new HashMap<>(),
+			new PostgresqlQueryRewriter());
+
+	static VersionMappingCache getInstance() {
+		return INSTANCE;
+	}
+
+	private final ConcurrentMap<String, TableMappingCache<VersionMapping>> mappings;
+	private final ConcurrentMap<String, VersionListener> listeners;
+
+	VersionMappingCache() {
+		this.mappings = new ConcurrentHashMap<>();
+		this.listeners = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Retrieves the mapping for the specified version of the specified database.
+	 *
+	 * @param connection The connection to load the mapping with, if it's not cached, or stale.
+	 * @param databaseUrl The JDBC URL of the database, without any version parameter.
+	 * @param version The version for which to retrieve the mapping. Can be NULL.
+	 * @return A reference to the mapping, which is kept up-to-date if the mapping is cached.
+	 * @throws SQLException In case the mapping could not be loaded.
+	 */
+	AtomicReference<VersionMapping> get(Connection connection, String databaseUrl, String version)
+			throws SQLException {
+
+		if (version == null || version.isEmpty()) {
+			return new AtomicReference<>(UNVERSIONED);
+		}
+
+		Long generation = loadGeneration(connection);
+		TableMappingCache<VersionMapping> versions =
+				mappings.computeIfAbsent(databaseUrl, key -> new TableMappingCache<>());
+
+		AtomicReference<VersionMapping> cached = versions.getCurrent(version, generation);
+		if (cached != null) {
+			return cached;
+		}
+		return versions.put(load(connection, version, generation));
+	}
+
+	/**
+	 * Retrieves the cached mapping for the specified version of the specified database, without checking whether it's
+	 * stale. Cached mappings are kept up-to-date by a {@link VersionListener}.
+	 *
+	 * @param databaseUrl The JDBC URL of the database, without any version parameter.
+	 * @param version The version for which to retrieve the mapping.
+	 * @return A reference to the cached mapping, or NULL if the mapping is not cached.
+	 */
+	AtomicReference<VersionMapping> getCached(String databaseUrl, String version) {
+		TableMappingCache<VersionMapping> versions = mappings.get(databaseUrl);
+		return versions == null ? null : versions.getCached(version);
+	}
+
+	/**
+	 * Ensures that a {@link VersionListener} is running for the specified database.
+	 *
+	 * @param databaseUrl The JDBC URL of the database, without any version parameter.
+	 * @param connectionUrl The JDBC URL which the listener should use to connect to the database.
+	 * @param info The connection properties which the listener should use to connect to the database.
+	 */
+	void listen(String databaseUrl, String connectionUrl, Properties info) {
+		listeners.computeIfAbsent(databaseUrl, key -> {
+			VersionListener listener = new VersionListener(this, databaseUrl, connectionUrl, info);
+			listener.start();
+			return listener;
+		});
+	}
+
+	/**
+	 * Reloads all cached mappings of the specified database whose generation differs from the current generation.
+	 *
+	 * @param connection The connection to reload the mappings with.
+	 * @param databaseUrl The JDBC URL of the database, without any version parameter.
+	 * @throws SQLException In case the mappings could not be reloaded.
+	 */
+	void refresh(Connection connection, String databaseUrl) throws SQLException {
+		TableMappingCache<VersionMapping> versions = mappings.get(databaseUrl);
+		if (versions == null) {
+			return;
+		}
+
+		Long generation = loadGeneration(connection);
+		for (String version : versions.getStaleVersions(generation)) {
+			versions.put(load(connection, version, generation));
+		}
+	}
+
+	private VersionMapping load(Connection connection, String version, Long generation) throws SQLException {
+		return new VersionMapping(version, generation, loadTableMapping(connection, version),
+				new PostgresqlQueryRewriter());
+	}
+
+	private Long loadGeneration(Connection connection) throws SQLException {
+		String query = VersionProtocol.selectGeneration("?");
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, VersionProtocol.GENERATION_KEY);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					return VersionProtocol.parseGeneration(resultSet.getString("value"));
+				}
+			}
+		}
+
+		// The meta-info tables predate generation tracking, so we cannot tell if a cached mapping is stale.
+		return null;
+	}
+
+	private Map<String, String> loadTableMapping(Connection connection, String version) throws SQLException {
+		Map<String, String> tableMapping = new HashMap<>();
+		String query = VersionProtocol.selectTableMapping("?");
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, version);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					String refId = resultSet.getString("ref_id");
+					String tableName = resultSet.getString("table_name");
+					tableMapping.put(tableName, refId);
+				}
+			}
+		}
+		return tableMapping;
+	}
+
+}
@@ -0,0 +1,72 @@
+package io.quantumdb.driver;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class VersionMetrics implements VersionMetricsMXBean {
+
+	private final String version;
+	private final LongAdder activeConnections;
+	private final LatencyHistogram executions;
+	private final LongAccumulator lastExecutionTime;
+
+	VersionMetrics(String version) {
+		this.version = version;
+		this.activeConnections = new LongAdder();
+		this.executions = new LatencyHistogram();
+		this.lastExecutionTime = new LongAccumulator(Math::max, 0);
+	}
+
+	void connectionOpened() {
+		activeConnections.increment();
+	}
+
+	void connectionClosed() {
+		activeConnections.decrement();
+	}
+
+	void recordExecution(long nanos) {
+		executions.record(nanos);
+		lastExecutionTime.accumulate(System.currentTimeMillis());
+	}
+
+	LatencyHistogram getExecutionHistogram() {
+		return executions;
+	}
+
+	@Override
+	public String getVersion() {
+		return version;
+	}
+
+	@Override
+	public long getActiveConnections() {
+		return activeConnections.sum();
+	}
+
+	@Override
+	public long getExecutions() {
+		return executions.getCount();
+	}
+
+	@Override
+	public double getMeanExecutionMicros() {
+		return executions.getMeanMicros();
+	}
+
+	@Override
+	public long get50thPercentileExecutionMicros() {
+		return executions.getPercentileMicros(50);
+	}
+
+	@Override
+	public long get99thPercentileExecutionMicros() {
+		return executions.getPercentileMicros(99);
+	}
+
+	@Override
+	public long getLastExecutionTime() {
+		return lastExecutionTime.get();
+	}
+
+}
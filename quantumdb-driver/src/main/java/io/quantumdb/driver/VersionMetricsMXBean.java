@@ -0,0 +1,28 @@
+package io.quantumdb.driver;
+
+/**
+ * Metrics of the traffic to one version of the database schema, registered as
+ * "io.quantumdb.driver:type=Version,version=&lt;id&gt;". A version which has no active connections, and has not
+ * executed any statements for a while, is likely safe to drop.
+ */
+public interface VersionMetricsMXBean {
+
+	String getVersion();
+
+	long getActiveConnections();
+
+	long getExecutions();
+
+	double getMeanExecutionMicros();
+
+	long get50thPercentileExecutionMicros();
+
+	long get99thPercentileExecutionMicros();
+
+	/**
+	 * @return The time (in milliseconds since the epoch) at which the last statement for this version was executed,
+	 * or 0 if none has been executed yet.
+	 */
+	long getLastExecutionTime();
+
+}
@@ -0,0 +1,73 @@
+package io.quantumdb.driver;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * A view on a {@link QuantumDataSource} which hands out connections bound to one particular version, using the pool
+ * of physical connections owned by that QuantumDataSource.
+ */
+class VersionedDataSource implements DataSource {
+
+	private final QuantumDataSource parent;
+	private final String version;
+
+	VersionedDataSource(QuantumDataSource parent, String version) {
+		this.parent = parent;
+		this.version = version;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return parent.getConnection(version);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return parent.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return parent.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		parent.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		parent.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return parent.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return parent.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return parent.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this) || parent.isWrapperFor(iface);
+	}
+
+}
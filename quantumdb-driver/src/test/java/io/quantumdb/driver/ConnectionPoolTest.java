@@ -0,0 +1,99 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import io.quantumdb.client.VersionProtocol;
+import io.quantumdb.driver.ConnectionPool.PhysicalConnection;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionPoolTest {
+
+	private Connection connection;
+	private PreparedStatement acquire;
+	private PreparedStatement release;
+	private Statement statement;
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp() throws SQLException {
+		this.connection = mock(Connection.class);
+		this.acquire = mock(PreparedStatement.class);
+		this.release = mock(PreparedStatement.class);
+		this.statement = mock(Statement.class);
+		when(connection.getAutoCommit()).thenReturn(true);
+		when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		when(connection.getHoldability()).thenReturn(ResultSet.HOLD_CURSORS_OVER_COMMIT);
+		when(connection.createStatement()).thenReturn(statement);
+		when(connection.prepareStatement("SELECT pg_try_advisory_lock_shared(?, ?);")).thenReturn(acquire);
+		when(connection.prepareStatement("SELECT pg_advisory_unlock_shared(?, ?);")).thenReturn(release);
+
+		this.pool = new ConnectionPool("jdbc:postgresql://localhost/test", new Properties(), 1, 1_000) {
+			@Override
+			Connection connect() {
+				return connection;
+			}
+		};
+	}
+
+	@Test
+	public void testThatIdleConnectionsAreNotCountedAsClientsOfTheirLastVersion() throws SQLException {
+		PhysicalConnection physicalConnection = pool.lease();
+		physicalConnection.bindTo(null, "abc");
+		verify(acquire).execute();
+		verify(connection).setClientInfo("ApplicationName", Driver.createApplicationName(null, "abc"));
+
+		pool.release(physicalConnection);
+
+		// Both the advisory lock and the "application_name" are what PostgresqlBackend counts clients by.
+		verify(release).setInt(2, VersionProtocol.getVersionLockKey("abc"));
+		verify(release).execute();
+		verify(connection).setClientInfo("ApplicationName", "QuantumDB driver");
+	}
+
+	@Test
+	public void testThatReleasedConnectionsAreReusedAndBoundAgain() throws SQLException {
+		PhysicalConnection physicalConnection = pool.lease();
+		physicalConnection.bindTo(null, "abc");
+		pool.release(physicalConnection);
+
+		PhysicalConnection reused = pool.lease();
+		assertSame(physicalConnection, reused);
+		reused.bindTo(null, "abc");
+
+		verify(connection, never()).close();
+		verify(acquire, times(2)).execute();
+	}
+
+	@Test
+	public void testThatReleasedConnectionsAreResetToTheirDefaults() throws SQLException {
+		PhysicalConnection physicalConnection = pool.lease();
+		when(connection.isReadOnly()).thenReturn(true);
+		when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_SERIALIZABLE);
+
+		pool.release(physicalConnection);
+
+		verify(connection).setReadOnly(false);
+		verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		verify(connection, never()).setHoldability(anyInt());
+		verify(connection, never()).setNetworkTimeout(any(), anyInt());
+		verify(statement).execute("RESET ALL;");
+		verify(connection).setClientInfo("ApplicationName", "QuantumDB driver");
+		verify(connection, never()).close();
+	}
+
+}
@@ -0,0 +1,87 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+
+import javax.management.ObjectName;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+public class DriverMetricsTest {
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentileMicros(99));
+
+		for (int i = 0; i < 99; i++) {
+			histogram.record(3_000);
+		}
+		histogram.record(1_000_000);
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(4, histogram.getPercentileMicros(50));
+		assertEquals(4, histogram.getPercentileMicros(99));
+		assertEquals(1024, histogram.getPercentileMicros(100));
+		assertEquals(12.97, histogram.getMeanMicros(), 0.001);
+	}
+
+	@Test
+	public void testRecordingTrafficPerVersion() throws SQLException {
+		DriverMetrics metrics = new DriverMetrics(false);
+		metrics.connectionOpened("v1");
+		metrics.connectionOpened(null);
+		metrics.connectionSwitched(null, "v2");
+
+		assertEquals("result", metrics.measure("v2", () -> "result"));
+		metrics.connectionClosed("v1");
+
+		assertEquals(2, metrics.getOpenedConnections());
+		assertEquals(1, metrics.getActiveConnections());
+		assertArrayEquals(new String[] { "unversioned", "v1", "v2" }, metrics.getVersions());
+		assertEquals(0, metrics.getVersionMetrics("v1").getActiveConnections());
+		assertEquals(1, metrics.getVersionMetrics("v2").getActiveConnections());
+		assertEquals(1, metrics.getVersionMetrics("v2").getExecutions());
+		assertTrue(metrics.getVersionMetrics("v2").getLastExecutionTime() > 0);
+	}
+
+	@Test
+	public void testRewriteCacheHitRatio() {
+		DriverMetrics metrics = new DriverMetrics(false);
+		metrics.recordRewrite(1_000, false);
+		metrics.recordRewrite(100, true);
+		metrics.recordRewrite(100, true);
+		metrics.recordRewrite(100, true);
+
+		assertEquals(4, metrics.getRewrites());
+		assertEquals(0.75, metrics.getRewriteCacheHitRatio(), 0.001);
+	}
+
+	@Test
+	public void testThatMetricsAreRegisteredWithJmx() throws Exception {
+		DriverMetrics.getInstance().getVersionMetrics("jmx_test");
+		assertTrue(ManagementFactory.getPlatformMBeanServer()
+				.isRegistered(new ObjectName("io.quantumdb.driver:type=Driver")));
+		assertTrue(ManagementFactory.getPlatformMBeanServer()
+				.isRegistered(new ObjectName("io.quantumdb.driver:type=Version,version=\"jmx_test\"")));
+	}
+
+	@Test
+	public void testMicrometerBinding() throws SQLException {
+		DriverMetrics metrics = new DriverMetrics(false);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new DriverMeterBinder(metrics).bindTo(registry);
+
+		metrics.connectionOpened("v1");
+		metrics.measure("v1", () -> null);
+
+		assertEquals(1, registry.get("quantumdb.driver.connections.active").tag("version", "v1").gauge().value(), 0);
+		assertEquals(1, registry.get("quantumdb.driver.executions").tag("version", "v1").functionTimer().count(), 0);
+	}
+
+}
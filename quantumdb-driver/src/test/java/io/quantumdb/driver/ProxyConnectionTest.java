@@ -0,0 +1,162 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.quantumdb.client.VersionProtocol;
+import io.quantumdb.driver.ProxyConnection.Lease;
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class ProxyConnectionTest {
+
+	private static final String DATABASE_URL = "jdbc:postgresql://localhost/proxy-connection-test";
+	private static final String HINTED_QUERY = "/* quantumdb:version=v2 */ SELECT * FROM users";
+
+	private Connection connection;
+	private PreparedStatement lock;
+	private PreparedStatement unlock;
+	private Lease lease;
+	private ProxyConnection proxy;
+
+	@Before
+	public void setUp() throws SQLException {
+		cacheMapping("v2", "users_v2");
+
+		this.connection = mock(Connection.class);
+		this.lock = mock(PreparedStatement.class);
+		this.unlock = mock(PreparedStatement.class);
+		when(connection.getAutoCommit()).thenReturn(false);
+		when(connection.nativeSQL(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(connection.prepareStatement("SELECT pg_try_advisory_lock_shared(?, ?);")).thenReturn(lock);
+		when(connection.prepareStatement("SELECT pg_advisory_unlock_shared(?, ?);")).thenReturn(unlock);
+
+		HashMap<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users_v1");
+		VersionMapping mapping = new VersionMapping("v1", 1L, tableMapping, new PostgresqlQueryRewriter());
+
+		this.lease = mock(Lease.class);
+		this.proxy = new ProxyConnection(connection, DATABASE_URL, new Properties(), new AtomicReference<>(mapping),
+				lease);
+	}
+
+	/**
+	 * Loads the mapping of the specified version into the shared cache, as another connection would have done.
+	 */
+	private void cacheMapping(String version, String refId) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(true, true, false);
+		when(resultSet.getString("value")).thenReturn("1");
+		when(resultSet.getString("ref_id")).thenReturn(refId);
+		when(resultSet.getString("table_name")).thenReturn("users");
+
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(statement.executeQuery()).thenReturn(resultSet);
+
+		Connection other = mock(Connection.class);
+		when(other.prepareStatement(anyString())).thenReturn(statement);
+		VersionMappingCache.getInstance().get(other, DATABASE_URL, version);
+	}
+
+	@Test
+	public void testThatHintsAreResolvedFromCacheWithinTransactions() throws SQLException {
+		assertEquals("/* quantumdb:version=v2 */ SELECT * FROM users_v2", proxy.nativeSQL(HINTED_QUERY));
+		assertEquals("/* quantumdb:version=v2 */ SELECT * FROM users_v2", proxy.nativeSQL(HINTED_QUERY));
+
+		// Only the lock is acquired (once), the mapping itself is not loaded using this connection.
+		verify(connection, times(1)).prepareStatement(anyString());
+		verify(lock).setInt(2, VersionProtocol.getVersionLockKey("v2"));
+		verify(lock, times(1)).execute();
+		assertEquals("v1", proxy.getSchemaVersion());
+	}
+
+	@Test
+	public void testThatHintedVersionsAreTrackedUntilClosed() throws SQLException {
+		VersionMetrics metrics = DriverMetrics.getInstance().getVersionMetrics("v2");
+		long active = metrics.getActiveConnections();
+
+		proxy.nativeSQL(HINTED_QUERY);
+		assertEquals(active + 1, metrics.getActiveConnections());
+
+		proxy.close();
+		assertEquals(active, metrics.getActiveConnections());
+		verify(connection).rollback();
+		verify(unlock).setInt(2, VersionProtocol.getVersionLockKey("v2"));
+		verify(unlock).execute();
+		verify(lease).release();
+	}
+
+	@Test
+	public void testThatUnhintedConnectionsReleaseNothing() throws SQLException {
+		proxy.nativeSQL("SELECT * FROM users");
+		proxy.close();
+
+		verify(connection, never()).prepareStatement(anyString());
+		verify(lease).release();
+	}
+
+	@Test
+	public void testThatStatementsAreClosedWithPooledConnections() throws SQLException {
+		StatementCache cache = StatementCache.create(16);
+		when(lease.getStatementCache()).thenReturn(cache);
+		ProxyConnection pooled = new ProxyConnection(connection, DATABASE_URL, new Properties(),
+				VersionMappingCache.getInstance().getCached(DATABASE_URL, "v2"), lease);
+
+		Statement physicalStatement = mock(Statement.class);
+		PreparedStatement physicalPreparedStatement = mock(PreparedStatement.class);
+		when(connection.createStatement()).thenReturn(physicalStatement);
+		when(connection.prepareStatement("SELECT * FROM users_v2")).thenReturn(physicalPreparedStatement);
+
+		Statement statement = pooled.createStatement();
+		PreparedStatement preparedStatement = pooled.prepareStatement("SELECT * FROM users");
+		pooled.close();
+
+		assertTrue(statement.isClosed());
+		assertTrue(preparedStatement.isClosed());
+		assertEquals(1, cache.size());
+
+		InOrder order = inOrder(physicalStatement, lease);
+		order.verify(physicalStatement).close();
+		order.verify(lease).release();
+		verify(physicalPreparedStatement, never()).close();
+
+		// Closing the handle again must not return the statement to the cache a second time.
+		preparedStatement.close();
+		assertEquals(1, cache.size());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testThatStatementsCannotBeUsedAfterPooledConnectionsAreClosed() throws SQLException {
+		Statement physicalStatement = mock(Statement.class);
+		when(connection.createStatement()).thenReturn(physicalStatement);
+
+		Statement statement = proxy.createStatement();
+		proxy.close();
+
+		try {
+			statement.executeQuery("SELECT * FROM users");
+		}
+		finally {
+			verify(physicalStatement, never()).executeQuery(anyString());
+		}
+	}
+
+}
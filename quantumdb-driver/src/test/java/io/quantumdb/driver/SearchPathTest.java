@@ -0,0 +1,50 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+public class SearchPathTest {
+
+	@Test
+	public void testThatRoutingModeIsReadFromUrl() {
+		assertTrue(SearchPath.isEnabled("jdbc:postgresql://localhost/db?routing=search_path"));
+		assertTrue(SearchPath.isEnabled("jdbc:postgresql://localhost/db?version=abc&routing=search_path&ssl=true"));
+		assertFalse(SearchPath.isEnabled("jdbc:postgresql://localhost/db?version=abc"));
+		assertFalse(SearchPath.isEnabled("jdbc:postgresql://localhost/db?routing=rewrite"));
+	}
+
+	@Test
+	public void testSettingSearchPath() throws SQLException {
+		Connection connection = mock(Connection.class);
+		Statement statement = mock(Statement.class);
+		when(connection.createStatement()).thenReturn(statement);
+
+		SearchPath.apply(connection, "abc123");
+		verify(statement).execute("SET search_path TO \"qdb_v_abc123\", public;");
+
+		SearchPath.apply(connection, null);
+		verify(statement).execute("RESET search_path;");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testThatInvalidVersionsAreRejected() throws SQLException {
+		Connection connection = mock(Connection.class);
+		try {
+			SearchPath.apply(connection, "abc\"; DROP TABLE users; --");
+		}
+		finally {
+			verifyNoInteractions(connection);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatementCacheTest {
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws SQLException {
+		this.connection = mock(Connection.class);
+		when(connection.prepareStatement("SELECT * FROM users_v2")).then(invocation -> mock(PreparedStatement.class));
+	}
+
+	@Test
+	public void testThatClosedStatementsAreReused() throws SQLException {
+		ProxyConnection proxy = createConnection("jdbc:postgresql://localhost/db");
+
+		PreparedStatement first = proxy.prepareStatement("SELECT * FROM users");
+		first.setInt(1, 1);
+		first.close();
+		assertTrue(first.isClosed());
+
+		PreparedStatement second = proxy.prepareStatement("SELECT * FROM users");
+		second.close();
+
+		verify(connection, times(1)).prepareStatement("SELECT * FROM users_v2");
+	}
+
+	@Test
+	public void testThatStatementsInUseAreNotShared() throws SQLException {
+		ProxyConnection proxy = createConnection("jdbc:postgresql://localhost/db");
+
+		PreparedStatement first = proxy.prepareStatement("SELECT * FROM users");
+		PreparedStatement second = proxy.prepareStatement("SELECT * FROM users");
+		first.close();
+		second.close();
+
+		verify(connection, times(2)).prepareStatement("SELECT * FROM users_v2");
+	}
+
+	@Test
+	public void testThatModifiedStatementsAreNotReused() throws SQLException {
+		ProxyConnection proxy = createConnection("jdbc:postgresql://localhost/db");
+
+		PreparedStatement first = proxy.prepareStatement("SELECT * FROM users");
+		first.setMaxRows(10);
+		first.close();
+		proxy.prepareStatement("SELECT * FROM users").close();
+
+		verify(connection, times(2)).prepareStatement("SELECT * FROM users_v2");
+	}
+
+	@Test
+	public void testThatCachingCanBeDisabled() throws SQLException {
+		ProxyConnection proxy = createConnection("jdbc:postgresql://localhost/db?statementCacheSize=0");
+		proxy.prepareStatement("SELECT * FROM users").close();
+		proxy.prepareStatement("SELECT * FROM users").close();
+
+		verify(connection, times(2)).prepareStatement("SELECT * FROM users_v2");
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws SQLException {
+		StatementCache cache = StatementCache.create(2);
+		PreparedStatement first = mock(PreparedStatement.class);
+		PreparedStatement second = mock(PreparedStatement.class);
+		PreparedStatement third = mock(PreparedStatement.class);
+
+		cache.put("first", first);
+		cache.put("second", second);
+		cache.put("third", third);
+
+		assertEquals(2, cache.size());
+		verify(first).close();
+		verify(second, never()).close();
+		assertEquals(second, cache.take("second"));
+	}
+
+	private ProxyConnection createConnection(String url) {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users_v2");
+		VersionMapping mapping = new VersionMapping("v2", 1L, tableMapping, new PostgresqlQueryRewriter());
+		return new ProxyConnection(connection, url, new Properties(), new AtomicReference<>(mapping));
+	}
+
+}
@@ -0,0 +1,73 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransformerTest {
+
+	private Map<String, AtomicReference<VersionMapping>> versions;
+	private Transformer transformer;
+
+	@Before
+	public void setUp() {
+		this.versions = new HashMap<>();
+		versions.put("v1", createMapping("v1", "users_v1"));
+		versions.put("v2", createMapping("v2", "users_v2"));
+
+		this.transformer = new Transformer(versions.get("v1"), version -> {
+			AtomicReference<VersionMapping> mapping = versions.get(version);
+			if (mapping == null) {
+				throw new SQLException("Unknown version: " + version);
+			}
+			return mapping;
+		});
+	}
+
+	@Test
+	public void testSwitchingVersions() throws SQLException {
+		assertEquals("SELECT * FROM users_v1", transformer.rewriteQuery("SELECT * FROM users"));
+
+		transformer.setVersion("v2");
+		assertEquals("v2", transformer.getVersion());
+		assertEquals("SELECT * FROM users_v2", transformer.rewriteQuery("SELECT * FROM users"));
+	}
+
+	@Test
+	public void testThatVersionHintOnlyAppliesToSingleQuery() throws SQLException {
+		assertEquals("/* quantumdb:version=v2 */ SELECT * FROM users_v2",
+				transformer.rewriteQuery("/* quantumdb:version=v2 */ SELECT * FROM users"));
+
+		assertEquals("v1", transformer.getVersion());
+		assertEquals("SELECT * FROM users_v1", transformer.rewriteQuery("SELECT * FROM users"));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testThatSwitchingToUnknownVersionFails() throws SQLException {
+		transformer.setVersion("v3");
+	}
+
+	@Test
+	public void testParsingVersionHints() {
+		assertEquals("abc", Transformer.parseVersionHint("/*quantumdb:version=abc*/ SELECT 1"));
+		assertEquals("abc", Transformer.parseVersionHint("\n /* quantumdb:version=abc */ SELECT 1"));
+		assertNull(Transformer.parseVersionHint("SELECT 1 /* quantumdb:version=abc */"));
+		assertNull(Transformer.parseVersionHint("/* other */ SELECT 'quantumdb:version=abc'"));
+		assertNull(Transformer.parseVersionHint("/* quantumdb:version=abc"));
+	}
+
+	private AtomicReference<VersionMapping> createMapping(String version, String refId) {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", refId);
+		return new AtomicReference<>(new VersionMapping(version, 1L, tableMapping, new PostgresqlQueryRewriter()));
+	}
+
+}
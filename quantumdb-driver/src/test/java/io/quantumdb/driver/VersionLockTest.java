@@ -0,0 +1,53 @@
+package io.quantumdb.driver;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.quantumdb.client.VersionProtocol;
+import org.junit.Test;
+
+public class VersionLockTest {
+
+	@Test
+	public void testSwitchingVersionsInSingleRoundTrip() throws SQLException {
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(connection.prepareStatement(
+				"SELECT pg_advisory_unlock_shared(?, ?), pg_try_advisory_lock_shared(?, ?);")).thenReturn(statement);
+
+		VersionLock.switchVersion(connection, "abc", "def");
+
+		verify(statement).setInt(1, VersionProtocol.VERSION_LOCK_NAMESPACE);
+		verify(statement).setInt(2, "abc".hashCode());
+		verify(statement).setInt(3, VersionProtocol.VERSION_LOCK_NAMESPACE);
+		verify(statement).setInt(4, "def".hashCode());
+		verify(statement).execute();
+	}
+
+	@Test
+	public void testAcquiringFirstVersion() throws SQLException {
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(connection.prepareStatement("SELECT pg_try_advisory_lock_shared(?, ?);")).thenReturn(statement);
+
+		VersionLock.switchVersion(connection, null, "def");
+
+		verify(statement).setInt(1, VersionProtocol.VERSION_LOCK_NAMESPACE);
+		verify(statement).setInt(2, "def".hashCode());
+		verify(statement).execute();
+	}
+
+	@Test
+	public void testThatUnversionedConnectionsHoldNoLocks() throws SQLException {
+		Connection connection = mock(Connection.class);
+		VersionLock.switchVersion(connection, null, null);
+		verifyNoInteractions(connection);
+	}
+
+}
@@ -0,0 +1,108 @@
+package io.quantumdb.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
+import org.junit.Test;
+
+public class VersionMappingTest {
+
+	@Test
+	public void testThatRewrittenQueriesAreCached() throws SQLException {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users_v2");
+
+		VersionMapping mapping = new VersionMapping("v2", 1L, tableMapping, new PostgresqlQueryRewriter());
+		assertFalse(mapping.isIdentity());
+
+		assertEquals("SELECT * FROM users_v2", mapping.rewrite("SELECT * FROM users"));
+		assertEquals("SELECT * FROM users_v2", mapping.rewrite("SELECT * FROM users"));
+
+		assertEquals(1, mapping.getRewriteCacheStats().missCount());
+		assertEquals(1, mapping.getRewriteCacheStats().hitCount());
+	}
+
+	@Test
+	public void testThatIdentityMappingSkipsRewriting() throws SQLException {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users");
+
+		VersionMapping mapping = new VersionMapping("v1", 1L, tableMapping, new PostgresqlQueryRewriter());
+		assertTrue(mapping.isIdentity());
+
+		assertEquals("SELECT * FROM users", mapping.rewrite("SELECT * FROM users"));
+		assertEquals(0, mapping.getRewriteCacheStats().requestCount());
+	}
+
+	@Test
+	public void testReverseTableMapping() {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "table_a");
+		tableMapping.put("accounts", "accounts");
+
+		VersionMapping mapping = new VersionMapping("v2", 1L, tableMapping, new PostgresqlQueryRewriter());
+		assertEquals("users", mapping.getTableName("table_a"));
+		assertEquals("accounts", mapping.getTableName("accounts"));
+
+		assertTrue(mapping.containsRefId("table_a"));
+		assertTrue(mapping.containsRefId("accounts"));
+		assertFalse(mapping.containsRefId("users"));
+		assertFalse(mapping.containsRefId("table_b"));
+	}
+
+	@Test
+	public void testThatMetadataIsCachedAndFilteredPerResultSet() throws SQLException {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "table_a");
+		VersionMapping mapping = new VersionMapping("v2", 1L, tableMapping, new PostgresqlQueryRewriter());
+
+		AtomicInteger loads = new AtomicInteger();
+		VersionMapping.MetadataLoader loader = () -> {
+			loads.incrementAndGet();
+			return createColumns("users", "table_a", "table_b");
+		};
+
+		for (int i = 0; i < 2; i++) {
+			try (ResultSet resultSet = new MetaResultSet(mapping.getMetadata("getColumns", loader), mapping, true)) {
+				assertTrue(resultSet.next());
+				assertEquals("users", resultSet.getString("TABLE_NAME"));
+				assertEquals("users", resultSet.getString(1));
+				assertFalse(resultSet.next());
+			}
+		}
+		assertEquals(1, loads.get());
+	}
+
+	private ResultSet createColumns(String... tableNames) throws SQLException {
+		RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+		metaData.setColumnCount(1);
+		metaData.setColumnName(1, "TABLE_NAME");
+		metaData.setColumnLabel(1, "TABLE_NAME");
+		metaData.setColumnType(1, Types.VARCHAR);
+
+		CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+		rowSet.setMetaData(metaData);
+		for (String tableName : tableNames) {
+			rowSet.moveToInsertRow();
+			rowSet.updateString(1, tableName);
+			rowSet.insertRow();
+		}
+		rowSet.moveToCurrentRow();
+		rowSet.beforeFirst();
+		return rowSet;
+	}
+
+}
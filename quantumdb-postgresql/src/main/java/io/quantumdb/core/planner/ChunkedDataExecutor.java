@@ -0,0 +1,255 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.planner.QueryUtils.quoted;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Optional;
+
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.utils.OutputFile;
+import io.quantumdb.core.versioning.Version;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes data changes in separate transactions, recording the progress of every data change as a checkpoint in the
+ * "quantumdb.config" table, in the same transaction as the changes themselves. When the migration is interrupted, and
+ * executed again, data changes which were already completed are skipped, and chunked data changes continue with the
+ * first chunk which was not yet committed.
+ *
+ * Chunked data changes are executed once for every range of the values of their key column, pausing between chunks
+ * to limit the impact on regular traffic. Every chunk only holds its locks and snapshot for as long as it takes to
+ * change the rows in that range.
+ *
+ * Data changes are executed with the {@link SessionProfile#dataChanges(Config)} session profile.
+ */
+@Slf4j
+class ChunkedDataExecutor {
+
+	static final String CHECKPOINT_PREFIX = "data_checkpoint_";
+	static final String COMPLETED = "completed";
+
+	private final Config config;
+	private final SessionProfile sessionProfile;
+
+	ChunkedDataExecutor(Config config) {
+		this.config = config;
+		this.sessionProfile = SessionProfile.dataChanges(config);
+	}
+
+	/**
+	 * Executes the specified query in a single transaction, unless it was already completed before.
+	 *
+	 * @param connection The connection to use, which must not be in auto-commit mode.
+	 * @param version The version which introduced the data change.
+	 * @param query The (rewritten) query to execute.
+	 * @throws SQLException In case the query could not be executed, in which case the changes are rolled back.
+	 */
+	void execute(Connection connection, Version version, String query) throws SQLException {
+		String checkpoint = getCheckpointName(version);
+		if (!config.isDryRun() && isCompleted(connection, checkpoint)) {
+			log.info("Data changes of version: {} were already completed, skipping...", version.getId());
+			return;
+		}
+
+		try {
+			if (!config.isDryRun()) {
+				sessionProfile.apply(connection);
+			}
+			QueryUtils.execute(connection, config, query);
+			writeCheckpoint(connection, checkpoint, COMPLETED);
+			connection.commit();
+		}
+		catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		}
+	}
+
+	/**
+	 * Executes the specified query once for every chunk of the key range of the specified table, committing every
+	 * chunk in its own transaction. The query is bound to the lower (inclusive) and upper (exclusive) bound of every
+	 * chunk. Rows which are inserted while the query is executed are processed as well, as long as their key is higher
+	 * than the keys which were already processed. Chunks never extend past the highest key, and since the upper bound
+	 * is exclusive, a row whose key is the largest possible value (Long.MAX_VALUE) cannot be processed.
+	 *
+	 * @param connection The connection to use, which must not be in auto-commit mode.
+	 * @param version The version which introduced the data change.
+	 * @param query The (rewritten) query to execute.
+	 * @param tableName The name of the table whose key range is divided into chunks.
+	 * @param key The integer column of that table whose values are divided into chunks.
+	 * @param chunkSize The number of key values in every chunk.
+	 * @throws SQLException In case a chunk could not be processed, in which case that chunk is rolled back.
+	 * @throws InterruptedException In case the thread was interrupted while pausing between chunks.
+	 */
+	void execute(Connection connection, Version version, String query, String tableName, String key, int chunkSize)
+			throws SQLException, InterruptedException {
+
+		if (config.isDryRun()) {
+			OutputFile.append(config.getOutputFile(), "-- Executed in chunks of " + chunkSize + " values of: "
+					+ tableName + "." + key);
+			OutputFile.append(config.getOutputFile(), query);
+			return;
+		}
+
+		String checkpoint = getCheckpointName(version);
+		Optional<String> progress = readCheckpoint(connection, checkpoint);
+		if (progress.isPresent() && progress.get().equals(COMPLETED)) {
+			log.info("Data changes of version: {} were already completed, skipping...", version.getId());
+			return;
+		}
+
+		sessionProfile.apply(connection);
+
+		Long lower = progress.map(Long::parseLong).orElse(queryKey(connection, "MIN", tableName, key));
+		Long highest = queryKey(connection, "MAX", tableName, key);
+		long start = System.currentTimeMillis();
+		long rows = 0;
+		boolean exhausted = false;
+
+		try {
+			while (!exhausted && lower != null && highest != null && lower <= highest) {
+				while (lower <= highest) {
+					long innerStart = System.currentTimeMillis();
+					long upper = getUpperBound(lower, highest, chunkSize);
+
+					try (PreparedStatement statement = connection.prepareStatement(query)) {
+						statement.setLong(1, lower);
+						statement.setLong(2, upper);
+						statement.execute();
+						rows += Math.max(0, statement.getUpdateCount());
+					}
+
+					writeCheckpoint(connection, checkpoint, Long.toString(upper));
+					connection.commit();
+
+					log.info("Executed data changes of version: {} on: {} up to key: {}, took: {} ms", version.getId(),
+							tableName, upper, System.currentTimeMillis() - innerStart);
+
+					lower = upper;
+					if (upper == Long.MAX_VALUE) {
+						// There are no higher keys to process, and the highest possible key cannot be processed.
+						exhausted = true;
+						break;
+					}
+					Thread.sleep(config.getDataChunkDelayMillis());
+				}
+
+				// Rows might have been inserted while processing the chunks.
+				if (!exhausted) {
+					highest = queryKey(connection, "MAX", tableName, key);
+				}
+			}
+
+			if (exhausted && highest == Long.MAX_VALUE) {
+				log.warn("Data changes of version: {} could not be executed for the row of: {} whose key is: {}",
+						version.getId(), tableName, Long.MAX_VALUE);
+			}
+
+			writeCheckpoint(connection, checkpoint, COMPLETED);
+			connection.commit();
+		}
+		catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		}
+
+		log.info("Executing data changes of version: {} on: {} changed {} rows, took: {} ms", version.getId(),
+				tableName, rows, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Removes the checkpoints of the specified versions, once their data changes have been recorded as executed.
+	 *
+	 * @param connection The connection to use, which must not be in auto-commit mode.
+	 * @param versions The versions whose checkpoints to remove.
+	 * @throws SQLException In case the checkpoints could not be removed.
+	 */
+	void clearCheckpoints(Connection connection, Collection<Version> versions) throws SQLException {
+		if (config.isDryRun()) {
+			return;
+		}
+
+		String query = "DELETE FROM quantumdb.config WHERE name = ?;";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			for (Version version : versions) {
+				statement.setString(1, getCheckpointName(version));
+				statement.executeUpdate();
+			}
+		}
+		connection.commit();
+	}
+
+	/**
+	 * @return The exclusive upper bound of the chunk starting at the specified lower bound, which is at most one more
+	 * than the highest key, and never overflows.
+	 */
+	static long getUpperBound(long lower, long highest, int chunkSize) {
+		boolean lastChunk = lower > Long.MAX_VALUE - chunkSize || lower + chunkSize > highest;
+		if (!lastChunk) {
+			return lower + chunkSize;
+		}
+		return highest == Long.MAX_VALUE ? Long.MAX_VALUE : highest + 1;
+	}
+
+	static String getCheckpointName(Version version) {
+		return CHECKPOINT_PREFIX + version.getId();
+	}
+
+	private boolean isCompleted(Connection connection, String checkpoint) throws SQLException {
+		return readCheckpoint(connection, checkpoint)
+				.map(COMPLETED::equals)
+				.orElse(false);
+	}
+
+	private Long queryKey(Connection connection, String function, String tableName, String key) throws SQLException {
+		String query = "SELECT " + function + "(" + quoted(key) + ") FROM " + quoted(tableName) + ";";
+		try (Statement statement = connection.createStatement()) {
+			ResultSet resultSet = statement.executeQuery(query);
+			if (resultSet.next()) {
+				long value = resultSet.getLong(1);
+				return resultSet.wasNull() ? null : value;
+			}
+			return null;
+		}
+	}
+
+	private Optional<String> readCheckpoint(Connection connection, String checkpoint) throws SQLException {
+		String query = "SELECT value FROM quantumdb.config WHERE name = ?;";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, checkpoint);
+			ResultSet resultSet = statement.executeQuery();
+			if (resultSet.next()) {
+				return Optional.of(resultSet.getString("value"));
+			}
+			return Optional.empty();
+		}
+	}
+
+	private void writeCheckpoint(Connection connection, String checkpoint, String value) throws SQLException {
+		if (config.isDryRun()) {
+			return;
+		}
+
+		String query = "UPDATE quantumdb.config SET value = ? WHERE name = ?;";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, value);
+			statement.setString(2, checkpoint);
+			if (statement.executeUpdate() > 0) {
+				return;
+			}
+		}
+
+		query = "INSERT INTO quantumdb.config (name, value) VALUES (?, ?);";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, checkpoint);
+			statement.setString(2, value);
+			statement.executeUpdate();
+		}
+	}
+
+}
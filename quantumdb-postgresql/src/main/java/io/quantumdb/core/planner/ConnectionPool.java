@@ -0,0 +1,242 @@
+package io.quantumdb.core.planner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A small pool of connections used by the {@link PostgresqlBackend}. A single fork connects to the database dozens
+ * of times (for every ghost table, copy, sync function, null record, and to persist the state), so reusing connections
+ * avoids paying for a connection handshake (and session initialization) every time.
+ *
+ * The pool never blocks: when no idle connection is available, a new connection is opened. At most 'size' connections
+ * are kept idle, any surplus connections are closed when released. Connections which have been idle for a while are
+ * validated before being handed out again. Released connections are rolled back, and their session settings are reset
+ * and re-initialized, so changes made by one user of a connection never leak to the next.
+ */
+@Slf4j
+class ConnectionPool implements AutoCloseable {
+
+	private static final long VALIDATION_INTERVAL_MILLIS = 30_000;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	/**
+	 * Opens new physical connections to the database.
+	 */
+	interface ConnectionFactory {
+		Connection create() throws SQLException;
+	}
+
+	private static class PhysicalConnection {
+
+		private final Connection connection;
+		private long lastReleased;
+
+		private PhysicalConnection(Connection connection) {
+			this.connection = connection;
+			this.lastReleased = System.currentTimeMillis();
+		}
+
+	}
+
+	private final ConnectionFactory factory;
+	private final String sessionInitialization;
+	private final int size;
+	private final Deque<PhysicalConnection> idle;
+	private final AtomicInteger opened;
+	private volatile boolean closed;
+
+	/**
+	 * @param factory Opens new physical connections.
+	 * @param sessionInitialization The SQL statement(s) to execute on every new connection, and after resetting a
+	 * released connection. Can be NULL.
+	 * @param size The maximum number of idle connections to keep. When 0, connections are never reused.
+	 */
+	ConnectionPool(ConnectionFactory factory, String sessionInitialization, int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size of the connection pool cannot be negative.");
+		}
+		this.factory = factory;
+		this.sessionInitialization = sessionInitialization;
+		this.size = size;
+		this.idle = new ConcurrentLinkedDeque<>();
+		this.opened = new AtomicInteger();
+	}
+
+	/**
+	 * Opens connections up front, so that they need not be opened when they're first needed.
+	 *
+	 * @param connections The number of connections to open. This is capped at the size of the pool.
+	 * @throws SQLException In case a connection could not be opened.
+	 */
+	void warmUp(int connections) throws SQLException {
+		int missing = Math.min(connections, size) - idle.size();
+		for (int i = 0; i < missing; i++) {
+			idle.offerLast(new PhysicalConnection(open()));
+		}
+	}
+
+	/**
+	 * @return A connection which is returned to the pool (instead of being closed) when it's closed.
+	 * @throws SQLException In case no connection could be opened.
+	 */
+	Connection lease() throws SQLException {
+		if (closed) {
+			throw new SQLException("The connection pool has been closed.");
+		}
+
+		PhysicalConnection physicalConnection;
+		while ((physicalConnection = idle.pollFirst()) != null) {
+			if (isUsable(physicalConnection)) {
+				return wrap(physicalConnection);
+			}
+			closeQuietly(physicalConnection.connection);
+		}
+		return wrap(new PhysicalConnection(open()));
+	}
+
+	/**
+	 * @return The number of physical connections which have been opened by this pool.
+	 */
+	int getOpenedConnections() {
+		return opened.get();
+	}
+
+	/**
+	 * @return The number of connections currently idling in this pool.
+	 */
+	int getIdleConnections() {
+		return idle.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		PhysicalConnection physicalConnection;
+		while ((physicalConnection = idle.pollFirst()) != null) {
+			closeQuietly(physicalConnection.connection);
+		}
+	}
+
+	private Connection open() throws SQLException {
+		Connection connection = factory.create();
+		opened.incrementAndGet();
+		try {
+			initialize(connection);
+			return connection;
+		}
+		catch (SQLException | RuntimeException e) {
+			closeQuietly(connection);
+			throw e;
+		}
+	}
+
+	private void initialize(Connection connection) throws SQLException {
+		if (sessionInitialization == null || sessionInitialization.isEmpty()) {
+			return;
+		}
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sessionInitialization);
+		}
+	}
+
+	private void release(PhysicalConnection physicalConnection) {
+		Connection connection = physicalConnection.connection;
+		try {
+			if (closed || connection.isClosed() || idle.size() >= size) {
+				closeQuietly(connection);
+				return;
+			}
+
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("RESET ALL;");
+			}
+			initialize(connection);
+			connection.clearWarnings();
+
+			physicalConnection.lastReleased = System.currentTimeMillis();
+			idle.offerFirst(physicalConnection);
+		}
+		catch (SQLException e) {
+			log.warn("Could not reset connection, discarding it.", e);
+			closeQuietly(connection);
+		}
+	}
+
+	private boolean isUsable(PhysicalConnection physicalConnection) {
+		try {
+			Connection connection = physicalConnection.connection;
+			if (connection.isClosed()) {
+				return false;
+			}
+			long idleMillis = System.currentTimeMillis() - physicalConnection.lastReleased;
+			return idleMillis < VALIDATION_INTERVAL_MILLIS || connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		}
+		catch (SQLException e) {
+			log.debug("Could not validate connection.", e);
+			return false;
+		}
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		}
+		catch (SQLException e) {
+			log.debug("Could not close connection.", e);
+		}
+	}
+
+	private Connection wrap(PhysicalConnection physicalConnection) {
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean released;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+					case "close":
+						if (!released) {
+							released = true;
+							release(physicalConnection);
+						}
+						return null;
+					case "isClosed":
+						return released || physicalConnection.connection.isClosed();
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "toString":
+						return "Pooled" + physicalConnection.connection;
+					default:
+						if (released) {
+							throw new SQLException("The connection has been closed.");
+						}
+						try {
+							return method.invoke(physicalConnection.connection, args);
+						}
+						catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+				}
+			}
+		};
+
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+}
@@ -0,0 +1,242 @@
+package io.quantumdb.core.planner;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.utils.OutputFile;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes DDL statements while limiting how long they may wait for locks. A DDL statement which has to wait for a
+ * lock (for instance a CREATE TRIGGER queued behind a long-running query) blocks every subsequent query on the same
+ * table for as long as it waits. Every group of statements is therefore executed with a "lock_timeout", and retried
+ * with a jittered exponential backoff when it times out while waiting for a lock, giving the application's queries
+ * the chance to proceed in the meantime.
+ *
+ * Statements which are executed together are sent to the database as a single batch (one round trip), and are applied
+ * atomically. When the connection is already in a transaction, the batch is wrapped in a savepoint, so only the batch
+ * needs to be retried, and the "lock_timeout" of the transaction is restored once the batch has been executed. Note
+ * that while such a batch is retried, the transaction still holds the locks taken by earlier statements, which may
+ * block the application's queries for as long as the retries take. Callers executing DDL on many tables should
+ * therefore prefer auto-commit mode, unless the statements must be applied atomically. The time spent executing every
+ * batch, and the number of attempts it took, is recorded.
+ */
+@Slf4j
+class DdlExecutor {
+
+	private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+	private static final long INITIAL_BACKOFF_MILLIS = 100;
+	private static final long MAXIMUM_BACKOFF_MILLIS = 10_000;
+
+	@Data
+	@AllArgsConstructor
+	static class Timing {
+		private final List<String> statements;
+		private final long nanos;
+		private final int attempts;
+	}
+
+	private final Config config;
+	private final List<Timing> timings;
+
+	DdlExecutor(Config config) {
+		this.config = config;
+		this.timings = Collections.synchronizedList(Lists.newArrayList());
+	}
+
+	/**
+	 * Executes the specified statements in a single round trip, retrying them when they time out while waiting for a
+	 * lock.
+	 *
+	 * @param connection The connection to execute the statements with.
+	 * @param statements The statements to execute.
+	 * @throws SQLException In case the statements failed, or still timed out after the configured number of retries.
+	 */
+	void execute(Connection connection, String... statements) throws SQLException {
+		execute(connection, Arrays.asList(statements));
+	}
+
+	/**
+	 * @see #execute(Connection, String...)
+	 */
+	void execute(Connection connection, List<String> statements) throws SQLException {
+		if (statements.isEmpty()) {
+			return;
+		}
+		if (config.isDryRun()) {
+			statements.forEach(statement -> OutputFile.append(config.getOutputFile(), statement));
+			return;
+		}
+
+		long lockTimeout = config.getDdlLockTimeoutMillis();
+		int maximumRetries = config.getDdlMaximumRetries();
+		boolean autoCommit = connection.getAutoCommit();
+		String previousLockTimeout = !autoCommit && lockTimeout > 0 ? getLockTimeout(connection) : null;
+
+		long start = System.nanoTime();
+		for (int attempt = 1; ; attempt++) {
+			Savepoint savepoint = null;
+			try {
+				// SET LOCAL only has effect within a transaction block, so statements executed in auto-commit mode are
+				// executed in a transaction of their own (PostgreSQL's JDBC driver sends the BEGIN along with the batch).
+				if (autoCommit) {
+					connection.setAutoCommit(false);
+				}
+				else {
+					savepoint = connection.setSavepoint();
+				}
+
+				try (Statement statement = connection.createStatement()) {
+					if (lockTimeout > 0) {
+						statement.addBatch("SET LOCAL lock_timeout = '" + lockTimeout + "ms';");
+					}
+					for (String query : statements) {
+						log.debug("Executing: " + query);
+						statement.addBatch(query);
+					}
+					if (previousLockTimeout != null) {
+						statement.addBatch("SET LOCAL lock_timeout = '" + previousLockTimeout.replace("'", "''") + "';");
+					}
+					statement.executeBatch();
+				}
+
+				if (autoCommit) {
+					connection.commit();
+				}
+				else {
+					connection.releaseSavepoint(savepoint);
+				}
+				record(statements, System.nanoTime() - start, attempt);
+				return;
+			}
+			catch (SQLException e) {
+				if (autoCommit) {
+					connection.rollback();
+				}
+				else if (savepoint != null) {
+					connection.rollback(savepoint);
+				}
+				if (!isLockTimeout(e) || attempt > maximumRetries) {
+					throw e;
+				}
+
+				long backoff = getBackoffMillis(attempt);
+				log.warn("Timed out waiting for a lock after {} ms, retrying in {} ms (attempt {} of {}): {}",
+						lockTimeout, backoff, attempt, maximumRetries + 1, statements.get(0));
+				sleep(backoff);
+			}
+			finally {
+				if (autoCommit) {
+					connection.setAutoCommit(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes a statement which cannot run inside a transaction block, like CREATE INDEX CONCURRENTLY. Such statements
+	 * only take locks which do not conflict with reads and writes, and cannot simply be retried when they fail halfway
+	 * (leaving an invalid index behind), so they are executed on their own without a lock timeout.
+	 *
+	 * @param connection The connection to execute the statement with.
+	 * @param query The statement to execute.
+	 * @throws SQLException In case the statement failed.
+	 */
+	void executeConcurrently(Connection connection, String query) throws SQLException {
+		if (config.isDryRun()) {
+			OutputFile.append(config.getOutputFile(), query);
+			return;
+		}
+
+		long start = System.nanoTime();
+		try (Statement statement = connection.createStatement()) {
+			log.debug("Executing: " + query);
+			statement.execute(query);
+		}
+		record(Collections.singletonList(query), System.nanoTime() - start, 1);
+	}
+
+	/**
+	 * @return The timings of all statements executed by this executor, in order of execution.
+	 */
+	List<Timing> getTimings() {
+		synchronized (timings) {
+			return Lists.newArrayList(timings);
+		}
+	}
+
+	/**
+	 * Logs the total time spent executing statements, and the slowest batch of statements.
+	 */
+	void logSummary() {
+		List<Timing> timings = getTimings();
+		if (timings.isEmpty()) {
+			return;
+		}
+
+		long totalNanos = timings.stream().mapToLong(Timing::getNanos).sum();
+		long retried = timings.stream().filter(timing -> timing.getAttempts() > 1).count();
+		Timing slowest = timings.stream().max(Comparator.comparingLong(Timing::getNanos)).get();
+		log.info("Executed {} DDL batch(es) in {} ms, of which {} had to be retried. Slowest batch took {} ms: {}",
+				timings.size(), TimeUnit.NANOSECONDS.toMillis(totalNanos), retried,
+				TimeUnit.NANOSECONDS.toMillis(slowest.getNanos()), slowest.getStatements().get(0));
+	}
+
+	private void record(List<String> statements, long nanos, int attempts) {
+		Timing timing = new Timing(statements, nanos, attempts);
+		timings.add(timing);
+		log.debug("Executed {} statement(s) in {} ms ({} attempt(s))", statements.size(),
+				TimeUnit.NANOSECONDS.toMillis(nanos), attempts);
+	}
+
+	private static String getLockTimeout(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SHOW lock_timeout;")) {
+			resultSet.next();
+			return resultSet.getString(1);
+		}
+	}
+
+	static long getBackoffMillis(int attempt) {
+		long ceiling = Math.min(MAXIMUM_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	static boolean isLockTimeout(SQLException e) {
+		for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+			if (LOCK_NOT_AVAILABLE.equals(cause.getSQLState())) {
+				return true;
+			}
+			if (cause.getCause() instanceof SQLException
+					&& LOCK_NOT_AVAILABLE.equals(((SQLException) cause.getCause()).getSQLState())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void sleep(long millis) throws SQLException {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting to retry DDL statement(s).", e);
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package io.quantumdb.core.planner;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.ForeignKey;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.RefLog.ColumnRef;
+import io.quantumdb.core.versioning.RefLog.TableRef;
+import io.quantumdb.core.versioning.Version;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-points the foreign keys of tables which are shared by two versions to the ghost tables of the tables they refer
+ * to. When planning with lazy foreign key mirroring (see {@link Config#isLazyForeignKeyMirroringEnabled()}), tables
+ * which refer to a ghosted table are left in place, and keep referring to the original table. A second foreign key,
+ * referring to the ghost table, keeps the new version consistent after the original table (and with it, the original
+ * foreign key) has been dropped.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class ForeignKeyRepointer {
+
+	/**
+	 * Adds a foreign key referring to the ghost table to the catalog, for every foreign key of a table shared by both
+	 * versions which refers to a ghosted table.
+	 *
+	 * @param catalog The catalog containing the tables of both versions.
+	 * @param refLog The RefLog describing both versions.
+	 * @param from The version the migration starts from.
+	 * @param to The version the migration ends at.
+	 * @return The foreign keys which were added to the catalog, and have yet to be created in the database.
+	 */
+	static List<ForeignKey> repoint(Catalog catalog, RefLog refLog, Version from, Version to) {
+		Map<String, TableRef> sources = Maps.newHashMap();
+		Map<String, TableRef> ghosts = Maps.newHashMap();
+
+		Multimap<TableRef, TableRef> tableMapping = refLog.getTableMapping(from, to);
+		for (TableRef source : tableMapping.keySet()) {
+			Optional<TableRef> ghost = getGhost(source, tableMapping.get(source));
+			if (ghost.isPresent()) {
+				sources.put(source.getRefId(), source);
+				ghosts.put(source.getRefId(), ghost.get());
+			}
+		}
+
+		if (ghosts.isEmpty()) {
+			return Lists.newArrayList();
+		}
+
+		Set<String> refIdsAtOrigin = refLog.getTableRefs(from).stream()
+				.map(TableRef::getRefId)
+				.collect(Collectors.toSet());
+
+		List<ForeignKey> repointed = Lists.newArrayList();
+		for (TableRef tableRef : refLog.getTableRefs(to)) {
+			if (!refIdsAtOrigin.contains(tableRef.getRefId())) {
+				continue;
+			}
+
+			Table table = catalog.getTable(tableRef.getRefId());
+			for (ForeignKey foreignKey : Lists.newArrayList(table.getForeignKeys())) {
+				String referredRefId = foreignKey.getReferredTableName();
+				TableRef ghost = ghosts.get(referredRefId);
+				if (ghost == null || isReferring(table, foreignKey.getReferencingColumns(), ghost.getRefId())) {
+					continue;
+				}
+
+				TableRef source = sources.get(referredRefId);
+				List<String> referredColumns = mapColumns(refLog, source, ghost, foreignKey.getReferredColumns());
+
+				ForeignKey repointedForeignKey = table.addForeignKey(foreignKey.getReferencingColumns())
+						.onUpdate(foreignKey.getOnUpdate())
+						.onDelete(foreignKey.getOnDelete())
+						.referencing(catalog.getTable(ghost.getRefId()), referredColumns);
+
+				log.info("Re-pointing foreign key: {} of table: {} from: {} to: {} as: {}",
+						foreignKey.getForeignKeyName(), tableRef.getName(), referredRefId, ghost.getRefId(),
+						repointedForeignKey.getForeignKeyName());
+
+				repointed.add(repointedForeignKey);
+			}
+		}
+		return repointed;
+	}
+
+	private static Optional<TableRef> getGhost(TableRef source, Collection<TableRef> targets) {
+		if (targets.size() == 1) {
+			return Optional.of(targets.iterator().next());
+		}
+		return targets.stream()
+				.filter(target -> target.getName().equals(source.getName()))
+				.findFirst();
+	}
+
+	private static boolean isReferring(Table table, List<String> referencingColumns, String referredRefId) {
+		return table.getForeignKeys().stream()
+				.anyMatch(foreignKey -> foreignKey.getReferredTableName().equals(referredRefId)
+						&& foreignKey.getReferencingColumns().equals(referencingColumns));
+	}
+
+	private static List<String> mapColumns(RefLog refLog, TableRef source, TableRef ghost, List<String> columns) {
+		Map<ColumnRef, ColumnRef> columnMapping = refLog.getColumnMapping(source, ghost);
+		return columns.stream()
+				.map(column -> {
+					ColumnRef mapped = columnMapping.get(source.getColumns().get(column));
+					if (mapped == null) {
+						throw new IllegalStateException("Cannot re-point foreign key to: " + ghost.getName()
+								+ ", since its column: " + column + " no longer exists.");
+					}
+					return mapped.getName();
+				})
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,98 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.planner.QueryUtils.quoted;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.utils.OutputFile;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Analyzes (and optionally vacuums) ghost tables after they have been filled, before the new version becomes active.
+ * Without this, a freshly activated version has no planner statistics and no visibility map until autovacuum catches
+ * up, and all copied rows eventually need an anti-wraparound vacuum.
+ *
+ * Tables are processed in parallel (see {@link Config#getGhostTableMaintenanceConnections()}), and throttled through
+ * "vacuum_cost_delay" (see {@link Config#getGhostTableMaintenanceCostDelayMillis()}). Failing to analyze or vacuum a
+ * table does not fail the migration, as autovacuum will eventually process the table anyway.
+ */
+@Slf4j
+class GhostTableMaintenance {
+
+	private static final String VACUUM_COST_DELAY = "vacuum_cost_delay";
+
+	private final PostgresqlBackend backend;
+	private final Config config;
+
+	GhostTableMaintenance(PostgresqlBackend backend, Config config) {
+		this.backend = backend;
+		this.config = config;
+	}
+
+	/**
+	 * @param tables The ghost tables to analyze or vacuum.
+	 * @throws SQLException In case no connection could be opened to the database.
+	 */
+	void run(Collection<Table> tables) throws SQLException {
+		boolean vacuum = config.isGhostTableVacuumEnabled();
+		if (tables.isEmpty() || (!vacuum && !config.isGhostTableAnalyzeEnabled())) {
+			return;
+		}
+
+		String operation = vacuum ? "VACUUM (FREEZE, ANALYZE)" : "ANALYZE";
+		if (config.isDryRun()) {
+			for (Table table : tables) {
+				OutputFile.append(config.getOutputFile(), operation + " " + quoted(table.getName()) + ";");
+			}
+			return;
+		}
+
+		int connections = Math.min(config.getGhostTableMaintenanceConnections(), tables.size());
+		log.info("Running {} on {} ghost tables using {} connection(s)...", operation, tables.size(), connections);
+
+		AtomicLong totalNanos = new AtomicLong();
+		AtomicInteger failures = new AtomicInteger();
+		long start = System.nanoTime();
+
+		ParallelTableProcessor processor = new ParallelTableProcessor(backend, "maintenance");
+		processor.process(tables, connections, this::configureSession, (connection, table) -> {
+			long tableStart = System.nanoTime();
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(operation + " " + quoted(table.getName()) + ";");
+
+				long nanos = System.nanoTime() - tableStart;
+				totalNanos.addAndGet(nanos);
+				log.info("{} of ghost table: {} took: {} ms", operation, table.getName(),
+						TimeUnit.NANOSECONDS.toMillis(nanos));
+			}
+			catch (SQLException e) {
+				failures.incrementAndGet();
+				log.warn("Could not run " + operation + " on ghost table: " + table.getName() + ", leaving it to "
+						+ "autovacuum: " + e.getMessage(), e);
+			}
+		});
+
+		log.info("{} of {} ghost tables took: {} ms ({} ms in total over all connections, {} failed)", operation,
+				tables.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+				TimeUnit.NANOSECONDS.toMillis(totalNanos.get()), failures.get());
+	}
+
+	private void configureSession(Connection connection) throws SQLException {
+		Integer costDelay = config.getGhostTableMaintenanceCostDelayMillis();
+
+		// Like index builds, maintenance can take long on large tables, and aborting it only wastes the work done.
+		SessionProfile.backfill(config)
+				.without(SessionProfile.STATEMENT_TIMEOUT)
+				.with(VACUUM_COST_DELAY, costDelay == null ? null : costDelay + "ms")
+				.apply(connection);
+	}
+
+}
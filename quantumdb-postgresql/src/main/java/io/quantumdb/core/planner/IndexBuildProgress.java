@@ -0,0 +1,96 @@
+package io.quantumdb.core.planner;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically reports the progress of the indexes which are being built by a set of sessions, as reported by
+ * PostgreSQL's "pg_stat_progress_create_index" view (available since PostgreSQL 12). On older servers this reports
+ * nothing.
+ */
+@Slf4j
+class IndexBuildProgress implements Runnable {
+
+	private static final String UNDEFINED_TABLE = "42P01";
+
+	private static final String QUERY = "SELECT t.relname AS table_name, i.relname AS index_name, p.phase, "
+			+ "p.blocks_done, p.blocks_total, p.tuples_done, p.tuples_total "
+			+ "FROM pg_stat_progress_create_index p "
+			+ "JOIN pg_class t ON t.oid = p.relid "
+			+ "LEFT JOIN pg_class i ON i.oid = p.index_relid "
+			+ "WHERE p.pid = ANY(?) "
+			+ "ORDER BY t.relname;";
+
+	private final PostgresqlBackend backend;
+	private final Set<Integer> sessions;
+	private volatile boolean available;
+
+	IndexBuildProgress(PostgresqlBackend backend) {
+		this.backend = backend;
+		this.sessions = Sets.newConcurrentHashSet();
+		this.available = true;
+	}
+
+	/**
+	 * Registers a session whose index builds should be reported.
+	 *
+	 * @param connection The connection of the session.
+	 * @throws SQLException In case the process ID of the session could not be determined.
+	 */
+	void register(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT pg_backend_pid();");
+				ResultSet resultSet = statement.executeQuery()) {
+			if (resultSet.next()) {
+				sessions.add(resultSet.getInt(1));
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		if (!available || sessions.isEmpty()) {
+			return;
+		}
+
+		try (Connection connection = backend.connect();
+				PreparedStatement statement = connection.prepareStatement(QUERY)) {
+
+			Array pids = connection.createArrayOf("int4", sessions.toArray());
+			statement.setArray(1, pids);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					long blocksTotal = resultSet.getLong("blocks_total");
+					long tuplesTotal = resultSet.getLong("tuples_total");
+					log.info("Building index: {} on: {} ({}): {} of blocks, {} of {} tuples",
+							resultSet.getString("index_name"), resultSet.getString("table_name"),
+							resultSet.getString("phase"), percentage(resultSet.getLong("blocks_done"), blocksTotal),
+							resultSet.getLong("tuples_done"), tuplesTotal);
+				}
+			}
+		}
+		catch (SQLException e) {
+			if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+				log.debug("Progress of index builds cannot be reported by this server.");
+				available = false;
+			}
+			else {
+				log.warn("Could not determine progress of index builds: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	private static String percentage(long done, long total) {
+		if (total <= 0) {
+			return "?%";
+		}
+		return (done * 100 / total) + "%";
+	}
+
+}
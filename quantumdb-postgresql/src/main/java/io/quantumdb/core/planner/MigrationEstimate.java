@@ -0,0 +1,144 @@
+package io.quantumdb.core.planner;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.gson.GsonBuilder;
+import lombok.Data;
+
+/**
+ * The estimated cost of a migration, broken down per step. Estimates are derived from the database's planner
+ * statistics, and are only as accurate as those statistics, and the assumed (or calibrated) copy throughput.
+ */
+@Data
+public class MigrationEstimate {
+
+	@Data
+	public static class StepEstimate {
+		private final String operation;
+		private final String table;
+		private final long rows;
+		private final long bytes;
+		private final long walBytes;
+		private final long indexBytes;
+		private final long wallMillis;
+
+		StepEstimate plus(StepEstimate other) {
+			return new StepEstimate(operation, table, rows + other.rows, bytes + other.bytes,
+					walBytes + other.walBytes, indexBytes + other.indexBytes, wallMillis + other.wallMillis);
+		}
+	}
+
+	private static final String[] HEADERS = { "Operation", "Table", "Rows", "Data", "WAL", "Indexes", "Time" };
+
+	private final String from;
+	private final String to;
+	private final long copyBytesPerSecond;
+	private final boolean calibrated;
+	private final ImmutableList<StepEstimate> steps;
+	private final StepEstimate total;
+
+	MigrationEstimate(String from, String to, long copyBytesPerSecond, boolean calibrated, List<StepEstimate> steps) {
+		this.from = from;
+		this.to = to;
+		this.copyBytesPerSecond = copyBytesPerSecond;
+		this.calibrated = calibrated;
+		this.steps = ImmutableList.copyOf(steps);
+		this.total = steps.stream()
+				.reduce(new StepEstimate("TOTAL", "", 0, 0, 0, 0, 0), StepEstimate::plus);
+	}
+
+	/**
+	 * @return This estimate as a JSON document.
+	 */
+	public String toJson() {
+		return new GsonBuilder()
+				.setPrettyPrinting()
+				.create()
+				.toJson(this);
+	}
+
+	/**
+	 * @return This estimate as a human readable table.
+	 */
+	public String toTable() {
+		List<String[]> rows = Lists.newArrayList();
+		rows.add(HEADERS);
+		steps.forEach(step -> rows.add(toRow(step)));
+		rows.add(toRow(total));
+
+		int[] widths = new int[HEADERS.length];
+		for (String[] row : rows) {
+			for (int i = 0; i < row.length; i++) {
+				widths[i] = Math.max(widths[i], row[i].length());
+			}
+		}
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("Estimated cost of migrating from: ").append(from).append(" to: ").append(to)
+				.append(" (copying at ").append(formatBytes(copyBytesPerSecond)).append("/s")
+				.append(calibrated ? ", calibrated" : ", not calibrated").append(")\n");
+
+		for (int i = 0; i < rows.size(); i++) {
+			if (i == 1 || i == rows.size() - 1) {
+				appendSeparator(builder, widths);
+			}
+			String[] row = rows.get(i);
+			for (int column = 0; column < row.length; column++) {
+				String value = row[column];
+				builder.append(column < 2 ? Strings.padEnd(value, widths[column], ' ')
+						: Strings.padStart(value, widths[column], ' '));
+				builder.append(column < row.length - 1 ? " | " : "\n");
+			}
+		}
+		return builder.toString();
+	}
+
+	private static void appendSeparator(StringBuilder builder, int[] widths) {
+		for (int column = 0; column < widths.length; column++) {
+			builder.append(Strings.repeat("-", widths[column]));
+			builder.append(column < widths.length - 1 ? "-+-" : "\n");
+		}
+	}
+
+	private static String[] toRow(StepEstimate step) {
+		return new String[] {
+				step.getOperation(),
+				step.getTable(),
+				Long.toString(step.getRows()),
+				formatBytes(step.getBytes()),
+				formatBytes(step.getWalBytes()),
+				formatBytes(step.getIndexBytes()),
+				formatMillis(step.getWallMillis())
+		};
+	}
+
+	static String formatBytes(long bytes) {
+		String[] units = { "B", "kB", "MB", "GB", "TB" };
+		double value = bytes;
+		int unit = 0;
+		while (value >= 1024 && unit < units.length - 1) {
+			value /= 1024;
+			unit++;
+		}
+		return unit == 0 ? bytes + " B" : String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+	}
+
+	static String formatMillis(long millis) {
+		if (millis < 1_000) {
+			return millis + " ms";
+		}
+		long seconds = millis / 1_000;
+		if (seconds < 60) {
+			return seconds + " s";
+		}
+		if (seconds < 3_600) {
+			return String.format(Locale.ROOT, "%dm %02ds", seconds / 60, seconds % 60);
+		}
+		return String.format(Locale.ROOT, "%dh %02dm", seconds / 3_600, (seconds % 3_600) / 60);
+	}
+
+}
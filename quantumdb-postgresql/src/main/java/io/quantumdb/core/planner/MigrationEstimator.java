@@ -0,0 +1,228 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.planner.QueryUtils.quoted;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import io.quantumdb.core.backends.planner.Operation;
+import io.quantumdb.core.backends.planner.Operation.Type;
+import io.quantumdb.core.backends.planner.Plan;
+import io.quantumdb.core.backends.planner.StatisticsProvider;
+import io.quantumdb.core.backends.planner.Step;
+import io.quantumdb.core.backends.planner.TableStatistics;
+import io.quantumdb.core.planner.MigrationEstimate.StepEstimate;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Index;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.Version;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estimates the cost of executing a migration {@link Plan}: the number of rows and bytes every step copies, the WAL
+ * it generates, the size of the indexes built on every ghost table, and how long all of that takes.
+ *
+ * The duration of copying data is estimated using an assumed copy throughput, which can be calibrated by copying a
+ * sample of the largest table into a scratch table (in a transaction which is rolled back).
+ */
+@Slf4j
+class MigrationEstimator {
+
+	static final long DEFAULT_COPY_BYTES_PER_SECOND = 32L * 1024 * 1024;
+	static final long DEFAULT_INDEX_BYTES_PER_SECOND = 64L * 1024 * 1024;
+
+	/**
+	 * The estimated WAL overhead (in bytes) of every inserted or updated row: the record header and block reference.
+	 */
+	static final int WAL_RECORD_OVERHEAD = 48;
+
+	/**
+	 * The estimated overhead (in bytes) of every index entry: the index tuple header and line pointer.
+	 */
+	static final int INDEX_TUPLE_OVERHEAD = 16;
+
+	/**
+	 * The default fill factor of B-tree indexes.
+	 */
+	static final double INDEX_FILL_FACTOR = 0.9;
+
+	private final StatisticsProvider statistics;
+	private final RefLog refLog;
+	private final Version from;
+	private final Version to;
+	private final Map<String, String> sourceRefIds;
+
+	/**
+	 * @param statistics The statistics of the existing tables.
+	 * @param refLog The RefLog containing the planned ghost tables.
+	 * @param from The version the migration starts from.
+	 * @param to The version the migration ends at.
+	 */
+	MigrationEstimator(StatisticsProvider statistics, RefLog refLog, Version from, Version to) {
+		this.statistics = statistics;
+		this.refLog = refLog;
+		this.from = from;
+		this.to = to;
+		this.sourceRefIds = refLog.getTableMapping(from, to).entries().stream()
+				.collect(Collectors.toMap(entry -> entry.getValue().getRefId(), entry -> entry.getKey().getRefId(),
+						(left, right) -> left));
+	}
+
+	/**
+	 * @param plan The plan to estimate.
+	 * @param copyBytesPerSecond The (calibrated) throughput of copying data into ghost tables.
+	 * @param calibrated Whether the throughput was calibrated.
+	 * @return The estimated cost of every step of the plan, and of building the indexes of every ghost table.
+	 */
+	MigrationEstimate estimate(Plan plan, long copyBytesPerSecond, boolean calibrated) {
+		List<StepEstimate> estimates = Lists.newArrayList();
+		for (Step step : plan.getSteps()) {
+			estimates.add(estimate(step, copyBytesPerSecond));
+		}
+
+		for (Table ghostTable : plan.getGhostTables()) {
+			List<Index> indexes = ghostTable.getIndexes();
+			if (indexes.isEmpty()) {
+				continue;
+			}
+
+			long rows = getRows(ghostTable);
+			long indexBytes = indexes.stream()
+					.mapToLong(index -> estimateIndexSize(ghostTable, index.getColumns()))
+					.sum();
+
+			estimates.add(new StepEstimate("CREATE INDEX", describe(ghostTable), rows, 0, indexBytes, indexBytes,
+					indexBytes * 1_000 / DEFAULT_INDEX_BYTES_PER_SECOND));
+		}
+
+		return new MigrationEstimate(from.getId(), to.getId(), copyBytesPerSecond, calibrated, estimates);
+	}
+
+	/**
+	 * @return The refId of the largest existing table which is copied by the migration, if statistics are known.
+	 */
+	Optional<String> getLargestSourceTable() {
+		return sourceRefIds.values().stream()
+				.distinct()
+				.filter(refId -> statistics.getStatistics(refId).isPresent())
+				.max(Comparator.comparingLong(refId -> statistics.getStatistics(refId).get().getBytes()));
+	}
+
+	private StepEstimate estimate(Step step, long copyBytesPerSecond) {
+		Operation operation = step.getOperation();
+		String tables = operation.getTables().stream()
+				.map(this::describe)
+				.sorted()
+				.collect(Collectors.joining(", "));
+
+		if (operation.getType() != Type.COPY) {
+			int rows = operation.getTables().size();
+			return new StepEstimate(operation.getType().name(), tables, rows, 0, rows * WAL_RECORD_OVERHEAD, 0, 0);
+		}
+
+		Table table = operation.getTables().iterator().next();
+		Optional<TableStatistics> tableStatistics = getStatistics(table);
+		long rows = tableStatistics.map(TableStatistics::getRows).orElse(0L);
+		long bytes = tableStatistics.map(stats -> stats.getBytes(operation.getColumns())).orElse(0L);
+
+		// The primary key (and unique constraints) exist while copying, so they are maintained for every new row.
+		List<String> primaryKeyColumns = table.getPrimaryKeyColumns().stream()
+				.map(Column::getName)
+				.collect(Collectors.toList());
+
+		long indexBytes = 0;
+		if (!primaryKeyColumns.isEmpty() && operation.getColumns().containsAll(primaryKeyColumns)) {
+			indexBytes = estimateIndexSize(table, primaryKeyColumns);
+		}
+
+		long walBytes = bytes + rows * WAL_RECORD_OVERHEAD + indexBytes;
+		long batches = (rows + TableDataMigrator.BATCH_SIZE - 1) / TableDataMigrator.BATCH_SIZE;
+		long wallMillis = (bytes + indexBytes) * 1_000 / copyBytesPerSecond + batches * TableDataMigrator.WAIT_TIME;
+
+		return new StepEstimate(operation.getType().name(), tables, rows, bytes, walBytes, indexBytes, wallMillis);
+	}
+
+	private long estimateIndexSize(Table table, Collection<String> columns) {
+		Optional<TableStatistics> tableStatistics = getStatistics(table);
+		if (!tableStatistics.isPresent()) {
+			return 0;
+		}
+
+		TableStatistics stats = tableStatistics.get();
+		long width = INDEX_TUPLE_OVERHEAD;
+		for (String column : columns) {
+			width += stats.getColumnWidths().getOrDefault(column, TableStatistics.DEFAULT_COLUMN_WIDTH);
+		}
+		return (long) (stats.getRows() * width / INDEX_FILL_FACTOR);
+	}
+
+	private long getRows(Table table) {
+		return getStatistics(table).map(TableStatistics::getRows).orElse(0L);
+	}
+
+	private Optional<TableStatistics> getStatistics(Table table) {
+		String refId = table.getName();
+		return statistics.getStatistics(sourceRefIds.getOrDefault(refId, refId));
+	}
+
+	private String describe(Table table) {
+		String refId = table.getName();
+		try {
+			return refLog.getTableRefById(refId).getName() + " (" + refId + ")";
+		}
+		catch (IllegalArgumentException e) {
+			return refId;
+		}
+	}
+
+	/**
+	 * Measures how fast rows of the specified table can be copied, by copying a sample of its rows into a scratch table
+	 * in a transaction which is rolled back afterwards.
+	 *
+	 * @param connection The connection to use.
+	 * @param table The table to copy a sample of.
+	 * @param tableStatistics The statistics of the table.
+	 * @param sampleRows The maximum number of rows to copy.
+	 * @return The measured throughput in bytes per second, or an empty Optional if nothing could be measured.
+	 * @throws SQLException In case the sample could not be copied.
+	 */
+	static Optional<Long> calibrate(Connection connection, String table, TableStatistics tableStatistics,
+			int sampleRows) throws SQLException {
+
+		String scratchTable = "quantumdb_calibration_" + Long.toHexString(System.nanoTime());
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE " + quoted(scratchTable) + " (LIKE " + quoted(table) + " INCLUDING ALL);");
+
+			long start = System.nanoTime();
+			int copied = statement.executeUpdate("INSERT INTO " + quoted(scratchTable)
+					+ " SELECT * FROM " + quoted(table) + " LIMIT " + sampleRows + ";");
+			long nanos = System.nanoTime() - start;
+
+			if (copied == 0 || nanos == 0) {
+				return Optional.empty();
+			}
+
+			long bytes = copied * tableStatistics.getAverageRowWidth();
+			long bytesPerSecond = bytes * 1_000_000_000L / nanos;
+			log.info("Copied {} sample rows of: {} in {} ms: {}/s", copied, table, nanos / 1_000_000,
+					MigrationEstimate.formatBytes(bytesPerSecond));
+			return Optional.of(Math.max(1, bytesPerSecond));
+		}
+		finally {
+			connection.rollback();
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+}
@@ -44,6 +44,7 @@ public class NullRecords {
 		Map<Table, Identity> persisted = Maps.newHashMap();
 
 		try (Connection connection = backend.connect()) {
+			SessionProfile.backfill(config).apply(connection);
 			connection.setAutoCommit(false);
 
 			ensureDeferredConstraints(connection);
@@ -74,6 +75,7 @@ public class NullRecords {
 		}
 
 		try (Connection connection = backend.connect()) {
+			SessionProfile.backfill(config).apply(connection);
 			connection.setAutoCommit(false);
 
 			ensureDeferredConstraints(connection);
@@ -0,0 +1,179 @@
+package io.quantumdb.core.planner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.quantumdb.core.schema.definitions.Table;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Processes tables using several connections in parallel. Every connection processes one table at a time, and the
+ * largest tables are processed first, so that processing a single large table does not end up running on its own
+ * after all smaller tables have been processed. When processing a table fails, no new tables are picked up, and the
+ * failure is rethrown once all tables which are still being processed are done.
+ */
+@Slf4j
+class ParallelTableProcessor {
+
+	/**
+	 * Prepares the session of a connection, before it's used to process tables.
+	 */
+	interface SessionSetup {
+		void apply(Connection connection) throws SQLException;
+	}
+
+	/**
+	 * Processes a single table.
+	 */
+	interface TableTask {
+		void process(Connection connection, Table table) throws SQLException;
+	}
+
+	private final PostgresqlBackend backend;
+	private final ThreadFactory threadFactory;
+
+	/**
+	 * @param backend The backend to open the connections with.
+	 * @param name The name of this processor, used to name its threads.
+	 */
+	ParallelTableProcessor(PostgresqlBackend backend, String name) {
+		this.backend = backend;
+		this.threadFactory = new ThreadFactoryBuilder()
+				.setNameFormat("quantumdb-" + name + "-%d")
+				.setDaemon(true)
+				.build();
+	}
+
+	ThreadFactory getThreadFactory() {
+		return threadFactory;
+	}
+
+	/**
+	 * @param tables The tables to process.
+	 * @param connections The maximum number of connections to process the tables with.
+	 * @param setup Prepares the session of every connection.
+	 * @param task Processes a single table.
+	 * @throws SQLException In case one or more tables could not be processed.
+	 */
+	void process(Collection<Table> tables, int connections, SessionSetup setup, TableTask task) throws SQLException {
+		connections = Math.min(connections, tables.size());
+		if (connections <= 1) {
+			try (Connection connection = backend.connect()) {
+				setup.apply(connection);
+				for (Table table : tables) {
+					task.process(connection, table);
+				}
+			}
+			return;
+		}
+
+		Map<String, Long> sizes;
+		try (Connection connection = backend.connect()) {
+			sizes = getTableSizes(connection, tables);
+		}
+
+		List<Table> ordered = Lists.newArrayList(tables);
+		ordered.sort(Comparator.comparing((Table table) -> sizes.getOrDefault(table.getName(), 0L)).reversed());
+
+		Queue<Table> queue = new ConcurrentLinkedQueue<>(ordered);
+		AtomicBoolean failed = new AtomicBoolean();
+		ExecutorService workers = Executors.newFixedThreadPool(connections, threadFactory);
+
+		try {
+			List<Future<Void>> futures = Lists.newArrayList();
+			for (int i = 0; i < connections; i++) {
+				futures.add(workers.submit(() -> {
+					try (Connection connection = backend.connect()) {
+						setup.apply(connection);
+
+						Table table;
+						while (!failed.get() && (table = queue.poll()) != null) {
+							task.process(connection, table);
+						}
+						return null;
+					}
+					catch (SQLException | RuntimeException e) {
+						failed.set(true);
+						throw e;
+					}
+				}));
+			}
+
+			awaitAll(futures);
+		}
+		finally {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param connection The connection to query the sizes of the tables with.
+	 * @param tables The tables to determine the size of.
+	 * @return The size (in bytes) of the main fork of each of the specified tables, by table name.
+	 * @throws SQLException In case the sizes could not be determined.
+	 */
+	static Map<String, Long> getTableSizes(Connection connection, Collection<Table> tables) throws SQLException {
+		String query = "SELECT name, pg_relation_size(quote_ident(name)::regclass) AS size "
+				+ "FROM unnest(?::text[]) AS name;";
+
+		Map<String, Long> sizes = Maps.newHashMap();
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			Object[] names = tables.stream().map(Table::getName).toArray();
+			statement.setArray(1, connection.createArrayOf("text", names));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					sizes.put(resultSet.getString("name"), resultSet.getLong("size"));
+				}
+			}
+		}
+		return sizes;
+	}
+
+	private void awaitAll(List<Future<Void>> futures) throws SQLException {
+		SQLException failure = null;
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while processing tables.", e);
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				SQLException exception = cause instanceof SQLException
+						? (SQLException) cause
+						: new SQLException("Could not process tables.", cause);
+
+				if (failure == null) {
+					failure = exception;
+				}
+				else {
+					failure.addSuppressed(exception);
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+}
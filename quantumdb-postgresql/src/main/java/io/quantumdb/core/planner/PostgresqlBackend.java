@@ -6,7 +6,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.quantumdb.client.VersionProtocol;
 import io.quantumdb.core.backends.Config;
 import io.quantumdb.core.migration.Migrator.Stage;
 import io.quantumdb.core.schema.definitions.Catalog;
@@ -20,8 +27,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class PostgresqlBackend implements io.quantumdb.core.backends.Backend {
 
+	private static final String VERSIONS_CHANNEL = "quantumdb_versions";
+
+	private static final String DEFAULT_SESSION_INITIALIZATION = "SET SCHEMA 'public';";
+
 	private final Backend backend;
 	private final Config config;
+	private volatile ConnectionPool pool;
 
 	public PostgresqlBackend(Config config) {
 		this.config = config;
@@ -49,6 +61,14 @@ public class PostgresqlBackend implements io.quantumdb.core.backends.Backend {
 		try (Connection connection = connect()) {
 			connection.setAutoCommit(false);
 			backend.persist(connection, state, stage);
+			if (config.isVersionSchemasEnabled()) {
+				new VersionSchemas().synchronize(connection, state.getRefLog());
+			}
+
+			// Informs connected QuantumDB drivers that they should reload their version mappings, once committed.
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("NOTIFY " + VERSIONS_CHANNEL + ";");
+			}
 			connection.commit();
 		}
 	}
@@ -65,28 +85,100 @@ public class PostgresqlBackend implements io.quantumdb.core.backends.Backend {
 
 	@Override
 	public int countClientsConnectedToVersion(Version version) throws SQLException {
-		try (Connection connection = connect()) {
-			String query = "SELECT COUNT(*) AS cnt FROM pg_stat_activity WHERE application_name LIKE ?;";
-			PreparedStatement statement = connection.prepareStatement(query);
-			statement.setString(1, " - " + version.getId());
+		return countClientsPerVersion(Collections.singleton(version)).get(version);
+	}
+
+	/**
+	 * Counts the sessions using each version. The QuantumDB driver holds a shared advisory lock (keyed by
+	 * {@link VersionProtocol#VERSION_LOCK_NAMESPACE} and {@link VersionProtocol#getVersionLockKey(String)}) in every session for as long as it uses
+	 * a version, which PostgreSQL releases automatically when the session ends. Sessions of older drivers are
+	 * recognized by their "application_name", which ends with " - " followed by the version's id.
+	 */
+	@Override
+	public Map<Version, Integer> countClientsPerVersion(Collection<Version> versions) throws SQLException {
+		String query = "SELECT pid, CAST(objid AS BIGINT) AS lock_key, NULL AS application_name FROM pg_locks "
+				+ "WHERE locktype = 'advisory' AND objsubid = 2 AND granted AND CAST(classid AS BIGINT) = ? "
+				+ "AND database = (SELECT oid FROM pg_database WHERE datname = current_database()) "
+				+ "UNION ALL "
+				+ "SELECT pid, NULL, application_name FROM pg_stat_activity "
+				+ "WHERE datname = current_database() AND application_name LIKE '% - %';";
+
+		Map<Long, Version> versionsByLockKey = Maps.newHashMap();
+		Map<String, Version> versionsBySuffix = Maps.newHashMap();
+		Map<Version, Set<Integer>> sessions = Maps.newLinkedHashMap();
+		for (Version version : versions) {
+			versionsByLockKey.put(VersionProtocol.getVersionLockObjectId(version.getId()), version);
+			versionsBySuffix.put(" - " + version.getId(), version);
+			sessions.put(version, Sets.newHashSet());
+		}
+
+		try (Connection connection = connect();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setLong(1, VersionProtocol.VERSION_LOCK_NAMESPACE);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					int pid = resultSet.getInt("pid");
+					long lockKey = resultSet.getLong("lock_key");
+					Version version = resultSet.wasNull() ? null : versionsByLockKey.get(lockKey);
 
-			ResultSet resultSet = statement.executeQuery();
-			if (resultSet.next()) {
-				return resultSet.getInt("cnt");
+					String applicationName = resultSet.getString("application_name");
+					if (version == null && applicationName != null) {
+						int index = applicationName.lastIndexOf(" - ");
+						version = versionsBySuffix.get(applicationName.substring(index));
+					}
+					if (version != null) {
+						sessions.get(version).add(pid);
+					}
+				}
 			}
-			throw new SQLException("Query produced 0 rows!");
 		}
+
+		Map<Version, Integer> counts = Maps.newLinkedHashMap();
+		sessions.forEach((version, pids) -> counts.put(version, pids.size()));
+		return counts;
 	}
 
+	/**
+	 * Leases a connection from the backend's connection pool. Closing the connection returns it to the pool. The pool
+	 * is created (and warmed up) when the first connection is requested.
+	 */
 	@Override
-	@SneakyThrows(ClassNotFoundException.class)
 	public Connection connect() throws SQLException {
-		Class.forName(config.getDriver());
-		Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
-		try (Statement statement = connection.createStatement()) {
-			statement.execute("SET SCHEMA 'public';");
+		return getPool().lease();
+	}
+
+	@Override
+	public void close() {
+		ConnectionPool pool = this.pool;
+		if (pool != null) {
+			pool.close();
+			this.pool = null;
+		}
+	}
+
+	@SneakyThrows(ClassNotFoundException.class)
+	private ConnectionPool getPool() throws SQLException {
+		ConnectionPool pool = this.pool;
+		if (pool == null) {
+			synchronized (this) {
+				pool = this.pool;
+				if (pool == null) {
+					Class.forName(config.getDriver());
+
+					String sessionInitialization = DEFAULT_SESSION_INITIALIZATION;
+					if (config.getSessionInitialization() != null) {
+						sessionInitialization += " " + config.getSessionInitialization();
+					}
+
+					pool = new ConnectionPool(() -> DriverManager.getConnection(config.getUrl(), config.getUser(),
+							config.getPassword()), sessionInitialization, config.getConnectionPoolSize());
+					pool.warmUp(config.getConnectionPoolWarmUp());
+					this.pool = pool;
+				}
+			}
 		}
-		return connection;
+		return pool;
 	}
 
 }
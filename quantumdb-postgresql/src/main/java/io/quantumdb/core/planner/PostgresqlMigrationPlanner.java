@@ -11,6 +11,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
@@ -23,8 +24,10 @@ import io.quantumdb.core.backends.planner.Operation;
 import io.quantumdb.core.backends.planner.Operation.Type;
 import io.quantumdb.core.backends.planner.Plan;
 import io.quantumdb.core.backends.planner.Plan.Builder;
+import io.quantumdb.core.backends.planner.StatisticsProvider;
 import io.quantumdb.core.backends.planner.Step;
 import io.quantumdb.core.backends.planner.TableNode;
+import io.quantumdb.core.backends.planner.TableStatistics;
 import io.quantumdb.core.migration.VersionTraverser;
 import io.quantumdb.core.migration.operations.SchemaOperationsMigrator;
 import io.quantumdb.core.schema.definitions.Catalog;
@@ -32,6 +35,7 @@ import io.quantumdb.core.schema.definitions.Column;
 import io.quantumdb.core.schema.definitions.ForeignKey;
 import io.quantumdb.core.schema.definitions.Table;
 import io.quantumdb.core.schema.definitions.View;
+import io.quantumdb.core.schema.operations.DataOperation;
 import io.quantumdb.core.schema.operations.SchemaOperation;
 import io.quantumdb.core.utils.RandomHasher;
 import io.quantumdb.core.versioning.RefLog;
@@ -49,12 +53,37 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 		}
 	}
 
+	private final StatisticsProvider statistics;
+	private final boolean lazyForeignKeyMirroring;
+
+	public PostgresqlMigrationPlanner() {
+		this(StatisticsProvider.NONE);
+	}
+
+	/**
+	 * @param statistics Provides the statistics of the existing tables. These are used to estimate the cost of every
+	 * step, and to decide where to break cycles of foreign keys.
+	 */
+	public PostgresqlMigrationPlanner(StatisticsProvider statistics) {
+		this(statistics, false);
+	}
+
+	/**
+	 * @param statistics Provides the statistics of the existing tables.
+	 * @param lazyForeignKeyMirroring When true, tables which refer to a ghosted table are left in place, instead of
+	 * being ghosted as well. Their foreign keys are re-pointed to the ghost table when the plan is executed.
+	 */
+	public PostgresqlMigrationPlanner(StatisticsProvider statistics, boolean lazyForeignKeyMirroring) {
+		this.statistics = statistics;
+		this.lazyForeignKeyMirroring = lazyForeignKeyMirroring;
+	}
+
 	public Plan createPlan(io.quantumdb.core.versioning.State state, Version from, Version to) {
 		log.debug("Creating migration plan for migration from version: {} to: {}", from, to);
 
 		Catalog catalog = state.getCatalog();
 		RefLog refLog = state.getRefLog();
-		SchemaOperationsMigrator migrator = new SchemaOperationsMigrator(catalog, refLog);
+		SchemaOperationsMigrator migrator = new SchemaOperationsMigrator(catalog, refLog, lazyForeignKeyMirroring);
 
 		List<Version> migrationPath = VersionTraverser.findChildPath(from, to)
 				.orElseThrow(() -> new IllegalStateException("No path from " + from.getId() + " to " + to.getId()));
@@ -63,7 +92,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 		log.debug("Planning the execution of the following operations:");
 		for (Version version : migrationPath) {
-			if (version.getOperation() instanceof SchemaOperation) {
+			if (version.getOperation() instanceof SchemaOperation || version.getOperation() instanceof DataOperation) {
 				log.debug("\t{} - {}", version.getId(), version.getOperation());
 			}
 			else {
@@ -74,7 +103,15 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 		migrationPath.stream()
 				.filter(version -> version.getParent() != null)
-				.forEachOrdered(version -> migrator.migrate(version, (SchemaOperation) version.getOperation()));
+				.forEachOrdered(version -> {
+					// Data operations (of fused stages) are executed on the resulting ghost tables by the migrator.
+					if (version.getOperation() instanceof DataOperation) {
+						refLog.fork(version);
+					}
+					else {
+						migrator.migrate(version, (SchemaOperation) version.getOperation());
+					}
+				});
 
 		Set<String> preTableRefIds = refLog.getTableRefs(from).stream()
 				.map(TableRef::getRefId)
@@ -115,13 +152,16 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 //				.collect(Collectors.toSet())
 //				.forEach(catalog::removeView);
 
-		log.debug("The following ghost tables will be created: " + newTableRefIds.stream()
-				.collect(Collectors.toMap(Function.identity(), (id) -> refLog.getTableRefById(id).getName())));
+		if (log.isDebugEnabled()) {
+			log.debug("The following ghost tables will be created: " + newTableRefIds.stream()
+					.collect(Collectors.toMap(Function.identity(), (id) -> refLog.getTableRefById(id).getName())));
 
-		log.debug("The following views will be created: " + newViewRefIds.stream()
-				.collect(Collectors.toMap(Function.identity(), (id) -> refLog.getViewRefById(id).getName())));
+			log.debug("The following views will be created: " + newViewRefIds.stream()
+					.collect(Collectors.toMap(Function.identity(), (id) -> refLog.getViewRefById(id).getName())));
+		}
 
-		return new Planner(state, from, to, newTableRefIds, newViewRefIds, migrator.getRefLog()).createPlan();
+		return new Planner(state, from, to, newTableRefIds, newViewRefIds, migrator.getRefLog(), statistics,
+				lazyForeignKeyMirroring).createPlan();
 	}
 
 	private static class Planner {
@@ -132,14 +172,17 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 		private final Set<String> newTableRefIds;
 		private final Set<String> newViewRefIds;
 		private final RefLog refLog;
+		private final StatisticsProvider statistics;
+		private final boolean lazyForeignKeyMirroring;
 
+		private Map<String, String> sourceRefIds;
 		private Set<String> refIdsWithNullRecords;
 		private Builder plan;
 		private MigrationState migrationState;
 		private Graph graph;
 
 		public Planner(State state, Version from, Version to, Set<String> newTableRefIds, Set<String> newViewRefIds,
-				RefLog refLog) {
+				RefLog refLog, StatisticsProvider statistics, boolean lazyForeignKeyMirroring) {
 
 			this.catalog = state.getCatalog();
 			this.from = from;
@@ -147,14 +190,17 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 			this.newTableRefIds = Sets.newHashSet(newTableRefIds);
 			this.newViewRefIds = Sets.newHashSet(newViewRefIds);
 			this.refLog = refLog;
+			this.statistics = statistics;
+			this.lazyForeignKeyMirroring = lazyForeignKeyMirroring;
 
-			this.refIdsWithNullRecords = Sets.newHashSet();
-			this.graph = Graph.fromCatalog(catalog, newTableRefIds, newViewRefIds);
-			this.migrationState = new MigrationState(catalog);
-			this.plan = Plan.builder(migrationState);
+			reset();
 		}
 
 		private void reset() {
+			this.sourceRefIds = refLog.getTableMapping(from, to, true).entries().stream()
+					.collect(Collectors.toMap(entry -> entry.getValue().getRefId(), entry -> entry.getKey().getRefId(),
+							(left, right) -> left));
+
 			this.refIdsWithNullRecords = Sets.newHashSet();
 			this.graph = Graph.fromCatalog(catalog, newTableRefIds, newViewRefIds);
 			this.migrationState = new MigrationState(catalog);
@@ -178,6 +224,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 				}
 			}
 			addDropNullsStep();
+			estimateCosts();
 
 			Set<Table> ghostTables = newTableRefIds.stream()
 					.map(catalog::getTable)
@@ -198,7 +245,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 		private Set<Step> migrateCoreTables(Set<String> refIds) {
 			GraphResult most = graph.mostIncomingForeignKeys(refIds).get();
-			List<String> toMigrate = Lists.newArrayList(most.getTableNames());
+			List<String> toMigrate = Lists.newArrayList(selectCycleBreakers(most));
 			log.debug("Migrating tables: " + toMigrate);
 
 			Set<Step> newSteps = Sets.newHashSet();
@@ -265,7 +312,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 					Entry<Step, Set<Step>> entry = crucial.get();
 					Step step = entry.getKey();
-					dependentOnSteps.removeAll(step.getTransitiveDependencies());
+					dependentOnSteps.removeAll(entry.getValue());
 					mapping.remove(step);
 				}
 
@@ -278,6 +325,63 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 			return newSteps;
 		}
 
+		/**
+		 * Tables which are part of a cycle of foreign keys are copied in two passes: first without the columns that
+		 * refer to tables which have yet to be copied, and then those columns (rewriting every row once more). When the
+		 * sizes of the candidates are known, only the candidate whose rows are cheapest to rewrite is copied in two
+		 * passes, which may allow the other candidates to be copied in a single pass later on.
+		 */
+		private Set<String> selectCycleBreakers(GraphResult most) {
+			Set<String> candidates = most.getTableNames();
+			if (most.getCount() == 0 || candidates.size() <= 1) {
+				return candidates;
+			}
+
+			Map<String, Long> costs = Maps.newHashMap();
+			for (String refId : candidates) {
+				Optional<TableStatistics> tableStatistics = getStatistics(refId);
+				if (!tableStatistics.isPresent()) {
+					return candidates;
+				}
+				costs.put(refId, tableStatistics.get().getBytes());
+			}
+
+			String cheapest = candidates.stream()
+					.min(Comparator.comparing((String refId) -> costs.get(refId)).thenComparing(Function.identity()))
+					.get();
+
+			log.debug("Breaking foreign key cycle at: {} (estimated {} bytes) out of: {}", cheapest,
+					costs.get(cheapest), candidates);
+			return Sets.newHashSet(cheapest);
+		}
+
+		private Optional<TableStatistics> getStatistics(String refId) {
+			return statistics.getStatistics(sourceRefIds.getOrDefault(refId, refId));
+		}
+
+		private void estimateCosts() {
+			long total = 0;
+			for (Step step : plan.getSteps()) {
+				Operation operation = step.getOperation();
+				if (operation.getType() != Type.COPY) {
+					continue;
+				}
+
+				Table table = operation.getTables().iterator().next();
+				long cost = getStatistics(table.getName())
+						.map(tableStatistics -> tableStatistics.getBytes(operation.getColumns()))
+						.orElse(0L);
+
+				step.setEstimatedCost(cost);
+				total += cost;
+			}
+
+			if (total > 0) {
+				log.info("Estimated that the migration will write: {} MB of data into ghost tables",
+						total / (1024 * 1024));
+			}
+		}
+
 		private Set<Step> migrateTables(Set<String> refIds) {
 			List<String> toMigrate = Lists.newArrayList(refIds);
 			log.debug("Migrating tables: " + toMigrate);
@@ -344,7 +448,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 					Entry<Step, Set<Step>> entry = crucial.get();
 					Step step = entry.getKey();
-					dependentOnSteps.removeAll(step.getTransitiveDependencies());
+					dependentOnSteps.removeAll(entry.getValue());
 					mapping.remove(step);
 				}
 
@@ -466,7 +570,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 						Entry<Step, Set<Step>> entry = crucial.get();
 						Step key = entry.getKey();
-						dependentOnSteps.removeAll(key.getTransitiveDependencies());
+						dependentOnSteps.removeAll(entry.getValue());
 						mapping.remove(key);
 					}
 
@@ -484,10 +588,17 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 			Multimap<TableRef, TableRef> ghostedRefIds = refLog.getTableMapping(from, to, true);
 			Set<String> createdGhostRefIds = Sets.newHashSet();
 
+			Set<String> refIdsAtOrigin = refLog.getTableRefs(from).stream()
+					.map(TableRef::getRefId)
+					.collect(Collectors.toSet());
+
+			Set<String> ghostedSourceRefIds = ghostedRefIds.keySet().stream()
+					.map(TableRef::getRefId)
+					.collect(Collectors.toSet());
+
 			while (!refIdsToMirror.isEmpty()) {
 				String refId = refIdsToMirror.remove(0);
-				if (ghostedRefIds.entries().stream()
-						.anyMatch(entry -> entry.getKey().getRefId().equals(refId))) {
+				if (!ghostedSourceRefIds.add(refId)) {
 					continue;
 				}
 
@@ -504,21 +615,24 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 				ghostedRefIds.put(tableRef, ghostTableRef);
 
 				log.debug("Planned creation of ghost table: {} for source table: {}", newRefId, tableRef.getName());
+				if (lazyForeignKeyMirroring) {
+					continue;
+				}
 
 				// Traverse incoming foreign keys
 				TableRef oldTableRef = refLog.getTableRef(from, tableRef.getName());
-				Set<String> refIdsAtOrigin = refLog.getTableRefs(from).stream()
-						.map(TableRef::getRefId)
-						.collect(Collectors.toSet());
-
 				catalog.getTablesReferencingTable(oldTableRef.getRefId()).stream()
 						.filter(refIdsAtOrigin::contains)
-						.filter(referencingRefId -> !ghostedRefIds.containsKey(referencingRefId)
+						.filter(referencingRefId -> !ghostedSourceRefIds.contains(referencingRefId)
 								&& !refIdsToMirror.contains(referencingRefId))
 						.distinct()
 						.forEach(refIdsToMirror::add);
 			}
 
+			Set<String> refIdsAsTarget = refLog.getTableRefs(to).stream()
+					.map(TableRef::getRefId)
+					.collect(Collectors.toSet());
+
 			// Copying foreign keys for each affected table.
 			for (Entry<TableRef, TableRef> entry : ghostedRefIds.entries()) {
 				TableRef oldTableRef = entry.getKey();
@@ -529,14 +643,7 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 
 				if (newTableRefIds.contains(newTableRef.getRefId())) {
 					List<ForeignKey> foreignKeysToFix = newTable.getForeignKeys().stream()
-							.filter(fk -> {
-								String referredRefId = fk.getReferredTableName();
-								Set<String> refIdsAsTarget = refLog.getTableRefs(to).stream()
-										.map(TableRef::getRefId)
-										.collect(Collectors.toSet());
-
-								return !refIdsAsTarget.contains(referredRefId);
-							})
+							.filter(fk -> !refIdsAsTarget.contains(fk.getReferredTableName()))
 							.collect(Collectors.toList());
 
 					foreignKeysToFix.forEach(fk -> {
@@ -557,6 +664,10 @@ public class PostgresqlMigrationPlanner implements MigrationPlanner {
 					List<ForeignKey> outgoingForeignKeys = Lists.newArrayList(oldTable.getForeignKeys());
 					for (ForeignKey foreignKey : outgoingForeignKeys) {
 						String oldReferredRefId = foreignKey.getReferredTableName();
+						if (!refIdsAtOrigin.contains(oldReferredRefId)) {
+							continue;
+						}
+
 						TableRef oldReferredTableRef = refLog.getTableRefById(oldReferredRefId);
 						TableRef newReferredTableRef = refLog.getTableRef(to, oldReferredTableRef.getName());
 
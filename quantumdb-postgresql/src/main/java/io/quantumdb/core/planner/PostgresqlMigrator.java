@@ -5,6 +5,7 @@ import static io.quantumdb.core.planner.QueryUtils.quoted;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,9 +25,11 @@ import io.quantumdb.core.backends.DatabaseMigrator;
 import io.quantumdb.core.backends.planner.Operation;
 import io.quantumdb.core.backends.planner.Plan;
 import io.quantumdb.core.backends.planner.PlanValidator;
+import io.quantumdb.core.backends.planner.StatisticsProvider;
 import io.quantumdb.core.backends.planner.Step;
 import io.quantumdb.core.backends.postgresql.migrator.ViewCreator;
 import io.quantumdb.core.migration.Migrator.Stage;
+import io.quantumdb.core.migration.VersionTraverser;
 import io.quantumdb.core.migration.VersionTraverser.Direction;
 import io.quantumdb.core.schema.definitions.Catalog;
 import io.quantumdb.core.schema.definitions.Column;
@@ -40,6 +43,7 @@ import io.quantumdb.core.versioning.RefLog.ColumnRef;
 import io.quantumdb.core.versioning.RefLog.SyncRef;
 import io.quantumdb.core.versioning.RefLog.TableRef;
 import io.quantumdb.core.versioning.State;
+import io.quantumdb.core.utils.OutputFile;
 import io.quantumdb.core.versioning.Version;
 import io.quantumdb.query.rewriter.PostgresqlQueryRewriter;
 import lombok.extern.slf4j.Slf4j;
@@ -49,24 +53,99 @@ class PostgresqlMigrator implements DatabaseMigrator {
 
 	private final PostgresqlBackend backend;
 	private final Config config;
+	private final DdlExecutor ddlExecutor;
 
 	PostgresqlMigrator(PostgresqlBackend backend, Config config) {
 		this.backend = backend;
 		this.config = config;
+		this.ddlExecutor = new DdlExecutor(config);
 	}
 
 	@Override
 	public void applySchemaChanges(State state, Version from, Version to) throws MigrationException {
 		RefLog refLog = state.getRefLog();
 		Set<Version> preMigration = refLog.getVersions();
-		Plan plan = new PostgresqlMigrationPlanner().createPlan(state, from, to);
+		StatisticsProvider statistics = loadStatistics();
+		Plan plan = new PostgresqlMigrationPlanner(config.isCostBasedPlanningEnabled() ? statistics : StatisticsProvider.NONE,
+				config.isLazyForeignKeyMirroringEnabled()).createPlan(state, from, to);
 
 		PlanValidator.validate(plan);
+		if (config.isDryRun()) {
+			estimate(plan, statistics, refLog, from, to);
+		}
+
 		Set<Version> postMigration = refLog.getVersions();
 		Set<Version> intermediateVersions = Sets.newHashSet(Sets.difference(postMigration, preMigration));
 		intermediateVersions.remove(to);
 
-		new InternalPlanner(backend, config, plan, state, from, to, intermediateVersions).migrate();
+		// Data changes of fused stages, which are applied to the ghost tables before the new version becomes active.
+		Map<Version, DataOperation> dataOperations = Maps.newLinkedHashMap();
+		VersionTraverser.findChildPath(from, to)
+				.orElseThrow(() -> new IllegalStateException("No path from " + from.getId() + " to " + to.getId()))
+				.stream()
+				.filter(version -> !version.equals(from))
+				.filter(version -> version.getOperation() instanceof DataOperation)
+				.forEachOrdered(version -> dataOperations.put(version, (DataOperation) version.getOperation()));
+
+		new InternalPlanner(backend, config, plan, state, from, to, intermediateVersions, dataOperations).migrate();
+	}
+
+	private StatisticsProvider loadStatistics() {
+		if (!config.isCostBasedPlanningEnabled() && !config.isDryRun()) {
+			return StatisticsProvider.NONE;
+		}
+		try (Connection connection = backend.connect()) {
+			return PostgresqlStatisticsProvider.load(connection);
+		}
+		catch (SQLException e) {
+			log.warn("Could not load table statistics, planning without them: " + e.getMessage(), e);
+			return StatisticsProvider.NONE;
+		}
+	}
+
+	/**
+	 * Estimates the cost of every step of the plan, and writes the estimate to the output file of the dry run (as SQL
+	 * comments), and to a JSON file next to it.
+	 */
+	private void estimate(Plan plan, StatisticsProvider statistics, RefLog refLog, Version from, Version to) {
+		MigrationEstimator estimator = new MigrationEstimator(statistics, refLog, from, to);
+		long copyBytesPerSecond = MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND;
+		boolean calibrated = false;
+
+		Optional<String> largestTable = estimator.getLargestSourceTable();
+		if (config.getDryRunCalibrationRows() > 0 && largestTable.isPresent()) {
+			String tableName = largestTable.get();
+			try (Connection connection = backend.connect()) {
+				Optional<Long> measured = MigrationEstimator.calibrate(connection, tableName,
+						statistics.getStatistics(tableName).get(), config.getDryRunCalibrationRows());
+
+				if (measured.isPresent()) {
+					copyBytesPerSecond = measured.get();
+					calibrated = true;
+				}
+			}
+			catch (SQLException e) {
+				log.warn("Could not calibrate the copy throughput using: " + tableName + ": " + e.getMessage(), e);
+			}
+		}
+
+		MigrationEstimate estimate = estimator.estimate(plan, copyBytesPerSecond, calibrated);
+		String table = estimate.toTable();
+		log.info("\n" + table);
+
+		String outputFile = config.getOutputFile();
+		if (outputFile != null) {
+			OutputFile.append(outputFile, Arrays.stream(table.split("\n"))
+					.map(line -> "-- " + line)
+					.collect(Collectors.joining("\n")));
+
+			OutputFile.write(outputFile + ".estimate.json", estimate.toJson());
+		}
+	}
+
+	@Override
+	public boolean isStageFusionEnabled() {
+		return config.isStageFusionEnabled();
 	}
 
 	@Override
@@ -84,32 +163,86 @@ class PostgresqlMigrator implements DatabaseMigrator {
 		}
 
 		RefLog refLog = state.getRefLog();
+		try (Connection connection = backend.connect()) {
+			executeDataOperations(connection, config, refLog, stage.getParent(), operations);
+			operations.keySet().forEach(refLog::fork);
+			backend.persistState(state, stage);
+			new ChunkedDataExecutor(config).clearCheckpoints(connection, operations.keySet());
+		}
+		catch (SQLException e) {
+			throw new MigrationException("Exception happened while performing data changes.", e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MigrationException(e);
+		}
+	}
+
+	/**
+	 * Executes the specified data operations against the tables of the specified version. When none of them are
+	 * chunked, they are executed in a single transaction. Otherwise every data operation (and every chunk) is committed
+	 * separately, recording its progress as a checkpoint, so that the data operations can be resumed when interrupted.
+	 * This includes the data operations which are not chunked, so when a stage mixes both kinds, its data operations
+	 * are no longer applied atomically, which is logged as a warning. Either way, the data operations are executed with
+	 * the {@link SessionProfile#dataChanges(Config)} session profile.
+	 *
+	 * @param connection The connection to use.
+	 * @param config The configuration to use.
+	 * @param refLog The RefLog describing which tables make up the specified version.
+	 * @param version The version whose tables the queries should be executed against.
+	 * @param operations The data operations to execute, and the versions which introduced them.
+	 * @throws SQLException In case one of the queries failed, in which case the uncommitted changes are rolled back.
+	 * @throws InterruptedException In case the thread was interrupted while executing chunked data operations.
+	 */
+	static void executeDataOperations(Connection connection, Config config, RefLog refLog, Version version,
+			Map<Version, DataOperation> operations) throws SQLException, InterruptedException {
 
 		PostgresqlQueryRewriter rewriter = new PostgresqlQueryRewriter();
-		Map<String, String> mapping = refLog.getTableRefs(stage.getParent()).stream()
+		Map<String, String> mapping = refLog.getTableRefs(version).stream()
 				.collect(Collectors.toMap(TableRef::getName, TableRef::getRefId));
 		rewriter.setTableMapping(mapping);
 
-		try (Connection connection = backend.connect()) {
-			connection.setAutoCommit(false);
-			for (Entry<Version, DataOperation> entry : operations.entrySet()) {
-				try {
-					DataOperation dataOperation = entry.getValue();
-					String query = dataOperation.getQuery();
-					String rewrittenQuery = rewriter.rewrite(query);
-					QueryUtils.execute(connection, config, rewrittenQuery);
-					refLog.fork(entry.getKey());
+		connection.setAutoCommit(false);
+		if (operations.values().stream().noneMatch(DataOperation::isChunked)) {
+			try {
+				if (!config.isDryRun()) {
+					SessionProfile.dataChanges(config).apply(connection);
 				}
-				catch (SQLException e) {
-					connection.rollback();
-					throw e;
+				for (DataOperation operation : operations.values()) {
+					String rewrittenQuery = rewriter.rewrite(operation.getQuery());
+					QueryUtils.execute(connection, config, rewrittenQuery);
 				}
 			}
+			catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			}
 			connection.commit();
-			backend.persistState(state, stage);
+			return;
 		}
-		catch (SQLException e) {
-			throw new MigrationException("Exception happened while performing data changes.", e);
+
+		if (operations.values().stream().anyMatch(operation -> !operation.isChunked())) {
+			log.warn("Data changes of versions: {} mix chunked and non-chunked queries, every query will be committed "
+					+ "separately instead of in a single transaction.", operations.keySet().stream()
+					.map(Version::getId)
+					.collect(Collectors.toList()));
+		}
+
+		ChunkedDataExecutor executor = new ChunkedDataExecutor(config);
+		for (Entry<Version, DataOperation> entry : operations.entrySet()) {
+			DataOperation operation = entry.getValue();
+			String rewrittenQuery = rewriter.rewrite(operation.getQuery());
+			if (!operation.isChunked()) {
+				executor.execute(connection, entry.getKey(), rewrittenQuery);
+				continue;
+			}
+
+			String tableName = mapping.get(operation.getChunkTableName());
+			checkArgument(tableName != null, "No table named: " + operation.getChunkTableName()
+					+ " exists in version: " + version.getId());
+
+			executor.execute(connection, entry.getKey(), rewrittenQuery, tableName, operation.getChunkKey(),
+					operation.getChunkSize());
 		}
 	}
 
@@ -193,8 +326,8 @@ class PostgresqlMigrator implements DatabaseMigrator {
 
 			dropSynchronizers(connection, state.getRefLog(), tablesToDrop);
 			for (SyncFunction syncFunction : newSyncFunctions.values()) {
-				QueryUtils.execute(connection, config, syncFunction.createFunctionStatement().toString());
-				QueryUtils.execute(connection, config, syncFunction.createTriggerStatement().toString());
+				ddlExecutor.execute(connection, syncFunction.createFunctionStatement().toString(),
+						syncFunction.createTriggerStatement().toString());
 			}
 			dropTables(connection, refLog, catalog, tablesToDrop);
 			refLog.setVersionState(version, false);
@@ -209,7 +342,9 @@ class PostgresqlMigrator implements DatabaseMigrator {
 	private void dropSynchronizers(Connection connection, RefLog refLog, List<TableRef> tablesToDrop)
 			throws SQLException {
 
-		connection.setAutoCommit(false);
+		// Every synchronizer is dropped in a transaction of its own, so that retrying one which is waiting for a lock
+		// doesn't hold on to the locks taken when dropping the others.
+		connection.setAutoCommit(true);
 
 		for (TableRef table : tablesToDrop) {
 			String refId = table.getRefId();
@@ -223,7 +358,7 @@ class PostgresqlMigrator implements DatabaseMigrator {
 			}
 		}
 
-		connection.commit();
+		connection.setAutoCommit(false);
 	}
 
 	private void dropSynchronizer(Connection connection, SyncRef sync) throws SQLException {
@@ -232,8 +367,8 @@ class PostgresqlMigrator implements DatabaseMigrator {
 		String sourceRefId = sync.getSource().getRefId();
 		String targetRefId = sync.getTarget().getRefId();
 
-		QueryUtils.execute(connection, config, "DROP TRIGGER " + quoted(triggerName) + " ON " + quoted(sourceRefId) + ";");
-		QueryUtils.execute(connection, config, "DROP FUNCTION " + quoted(functionName) + "();");
+		ddlExecutor.execute(connection, "DROP TRIGGER " + quoted(triggerName) + " ON " + quoted(sourceRefId) + ";",
+				"DROP FUNCTION " + quoted(functionName) + "();");
 		sync.drop();
 		log.info("Dropped synchronizer: {}/{} for: {} -> {}", triggerName, functionName, sourceRefId, targetRefId);
 	}
@@ -241,7 +376,9 @@ class PostgresqlMigrator implements DatabaseMigrator {
 	private void dropTables(Connection connection, RefLog refLog, Catalog catalog, List<TableRef> tablesToDrop)
 			throws SQLException {
 
-		connection.setAutoCommit(false);
+		// Every table is dropped in a transaction of its own, so that retrying a table which is waiting for a lock
+		// doesn't hold on to the locks taken when dropping the others.
+		connection.setAutoCommit(true);
 
 		Set<String> refIdsToDrop = tablesToDrop.stream()
 				.map(TableRef::getRefId)
@@ -250,6 +387,7 @@ class PostgresqlMigrator implements DatabaseMigrator {
 		for (TableRef tableRef : tablesToDrop) {
 			String refId = tableRef.getRefId();
 			Table table = catalog.getTable(refId);
+			List<String> statements = Lists.newArrayList();
 
 			Set<Sequence> usedSequences = table.getColumns().stream()
 					.map(Column::getSequence)
@@ -268,7 +406,7 @@ class PostgresqlMigrator implements DatabaseMigrator {
 						String sequenceName = sequence.getName();
 						String target = quoted(otherTable.getName()) + "." + quoted(column.getName());
 						log.info("Reassigning sequence: {} to: {}", sequenceName, target);
-						QueryUtils.execute(connection, config, "ALTER SEQUENCE " + quoted(sequenceName) + " OWNED BY " + target + ";");
+						statements.add("ALTER SEQUENCE " + quoted(sequenceName) + " OWNED BY " + target + ";");
 						usedSequences.remove(sequence);
 						reassigned = true;
 						break;
@@ -280,21 +418,22 @@ class PostgresqlMigrator implements DatabaseMigrator {
 				}
 			}
 
-			QueryUtils.execute(connection, config, "DROP TABLE " + quoted(refId) + " CASCADE;");
+			statements.add("DROP TABLE " + quoted(refId) + " CASCADE;");
+			ddlExecutor.execute(connection, statements);
 		}
 
-		connection.commit();
+		connection.setAutoCommit(false);
 
 		// Drop tables from the reflog.
 		tablesToDrop.forEach(refLog::dropTable);
 
-		// Drop all FKs connected to any table that is to be dropped.
-		tablesToDrop.forEach(tableRef -> {
-			Table table = catalog.getTable(tableRef.getRefId());
-			// Defensive copy to avoid concurrent modification
-			List<ForeignKey> foreignKeys = Lists.newArrayList(table.getForeignKeys());
-			foreignKeys.forEach(ForeignKey::drop);
-		});
+		// Drop all FKs connected to any table that is to be dropped. Tables which were left in place by a lazy mirror
+		// still refer to the tables they were re-pointed from.
+		catalog.getForeignKeys().stream()
+				.filter(foreignKey -> refIdsToDrop.contains(foreignKey.getReferencingTableName())
+						|| refIdsToDrop.contains(foreignKey.getReferredTableName()))
+				.collect(Collectors.toList())
+				.forEach(ForeignKey::drop);
 
 		// Drop tables from the catalog.
 		tablesToDrop.forEach(tableRef -> catalog.removeTable(tableRef.getRefId()));
@@ -310,17 +449,20 @@ class PostgresqlMigrator implements DatabaseMigrator {
 		private final Multimap<Table, String> migratedColumns;
 		private final PostgresqlBackend backend;
 		private final Config config;
+		private final DdlExecutor ddlExecutor;
 		private final Version from;
 		private final Version to;
 
 		private final com.google.common.collect.Table<String, String, SyncFunction> syncFunctions;
-
+		private final Map<Version, DataOperation> dataOperations;
+		private List<ForeignKey> repointedForeignKeys;
 
 		public InternalPlanner(PostgresqlBackend backend, Config config, Plan plan, State state,
-				Version from, Version to, Set<Version> intermediateVersions) {
+				Version from, Version to, Set<Version> intermediateVersions, Map<Version, DataOperation> dataOperations) {
 
 			this.backend = backend;
 			this.config = config;
+			this.ddlExecutor = new DdlExecutor(config);
 			this.plan = plan;
 			this.intermediateVersions = intermediateVersions;
 			this.refLog = plan.getRefLog();
@@ -330,9 +472,12 @@ class PostgresqlMigrator implements DatabaseMigrator {
 			this.syncFunctions = HashBasedTable.create();
 			this.from = from;
 			this.to = to;
+			this.dataOperations = dataOperations;
 		}
 
 		public void migrate() throws MigrationException {
+			log.info("Filling ghost tables with session profile: {}", SessionProfile.backfill(config));
+			repointedForeignKeys = ForeignKeyRepointer.repoint(state.getCatalog(), refLog, from, to);
 			createGhostTables();
 
 			Optional<Step> nextStep;
@@ -350,13 +495,23 @@ class PostgresqlMigrator implements DatabaseMigrator {
 
 			createIndexes();
 
+			repointForeignKeys();
+
 			synchronizeBackwards();
 
+			applyDataChanges();
+
+			maintainGhostTables();
+
 			refLog.setVersionState(to, true);
 
 			createViews(to);
 
 			persistState();
+
+			clearDataCheckpoints();
+
+			ddlExecutor.logSummary();
 		}
 
 		private void persistState() throws MigrationException {
@@ -409,7 +564,7 @@ class PostgresqlMigrator implements DatabaseMigrator {
 
 		private void createGhostTables() throws MigrationException {
 			try (Connection connection = backend.connect()) {
-				TableCreator creator = new TableCreator(config);
+				TableCreator creator = new TableCreator(config, ddlExecutor);
 				creator.createTables(connection, plan.getGhostTables());
 				creator.createForeignKeys(connection, plan.getGhostTables());
 			}
@@ -419,9 +574,38 @@ class PostgresqlMigrator implements DatabaseMigrator {
 		}
 
 		private void createIndexes() throws MigrationException {
+			try {
+				TableCreator creator = new TableCreator(config, ddlExecutor);
+				creator.createIndexes(backend, plan.getGhostTables());
+			}
+			catch (SQLException e) {
+				throw new MigrationException(e);
+			}
+		}
+
+		/**
+		 * Creates the foreign keys of tables which were left in place, referring to the ghost tables. These are only
+		 * created once the ghost tables have been filled (and indexed), as new rows in the referencing tables would
+		 * otherwise violate them.
+		 */
+		private void repointForeignKeys() throws MigrationException {
+			if (repointedForeignKeys.isEmpty()) {
+				return;
+			}
+
 			try (Connection connection = backend.connect()) {
-				TableCreator creator = new TableCreator(config);
-				creator.createIndexes(connection, plan.getGhostTables());
+				TableCreator creator = new TableCreator(config, ddlExecutor);
+				creator.createAndValidateForeignKeys(connection, repointedForeignKeys);
+			}
+			catch (SQLException e) {
+				throw new MigrationException(e);
+			}
+		}
+
+		private void maintainGhostTables() throws MigrationException {
+			try {
+				GhostTableMaintenance maintenance = new GhostTableMaintenance(backend, config);
+				maintenance.run(plan.getGhostTables());
 			}
 			catch (SQLException e) {
 				throw new MigrationException(e);
@@ -481,6 +665,41 @@ class PostgresqlMigrator implements DatabaseMigrator {
 			}
 		}
 
+		private void applyDataChanges() throws MigrationException {
+			if (dataOperations.isEmpty()) {
+				return;
+			}
+
+			// The ghost tables were just created, so the progress of any earlier attempt no longer applies.
+			clearDataCheckpoints();
+
+			log.info("Executing {} data changes on the ghost tables...", dataOperations.size());
+			try (Connection connection = backend.connect()) {
+				executeDataOperations(connection, config, refLog, to, dataOperations);
+			}
+			catch (SQLException e) {
+				throw new MigrationException("Exception happened while performing data changes.", e);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MigrationException(e);
+			}
+		}
+
+		private void clearDataCheckpoints() throws MigrationException {
+			if (dataOperations.isEmpty()) {
+				return;
+			}
+
+			try (Connection connection = backend.connect()) {
+				connection.setAutoCommit(false);
+				new ChunkedDataExecutor(config).clearCheckpoints(connection, dataOperations.keySet());
+			}
+			catch (SQLException e) {
+				throw new MigrationException(e);
+			}
+		}
+
 		void ensureSyncFunctionExists(Connection connection, RefLog refLog, TableRef source,
 				TableRef target, Catalog catalog, Set<String> columns) throws SQLException {
 
@@ -494,11 +713,10 @@ class PostgresqlMigrator implements DatabaseMigrator {
 				syncFunction.setColumnsToMigrate(columns);
 				syncFunctions.put(sourceRefId, targetRefId, syncFunction);
 
-				log.info("Creating sync function: {} for table: {}", syncFunction.getFunctionName(), sourceRefId);
-				QueryUtils.execute(connection, config, syncFunction.createFunctionStatement().toString());
-
-				log.info("Creating trigger: {} for table: {}", syncFunction.getTriggerName(), sourceRefId);
-				QueryUtils.execute(connection, config, syncFunction.createTriggerStatement().toString());
+				log.info("Creating sync function: {} and trigger: {} for table: {}", syncFunction.getFunctionName(),
+						syncFunction.getTriggerName(), sourceRefId);
+				ddlExecutor.execute(connection, syncFunction.createFunctionStatement().toString(),
+						syncFunction.createTriggerStatement().toString());
 
 				Map<ColumnRef, ColumnRef> columnMapping = refLog.getColumnMapping(source, target);
 				refLog.addSync(syncFunction.getTriggerName(), syncFunction.getFunctionName(), columnMapping);
@@ -507,7 +725,7 @@ class PostgresqlMigrator implements DatabaseMigrator {
 				syncFunction.setColumnsToMigrate(columns);
 
 				log.info("Updating sync function: {} for table: {}", syncFunction.getFunctionName(), sourceRefId);
-				QueryUtils.execute(connection, config, syncFunction.createFunctionStatement().toString());
+				ddlExecutor.execute(connection, syncFunction.createFunctionStatement().toString());
 
 				TableRef sourceTable = refLog.getTableRefById(sourceRefId);
 				sourceTable.getOutboundSyncs().stream()
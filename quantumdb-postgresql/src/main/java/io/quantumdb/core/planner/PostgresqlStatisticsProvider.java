@@ -0,0 +1,92 @@
+package io.quantumdb.core.planner;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import io.quantumdb.core.backends.planner.StatisticsProvider;
+import io.quantumdb.core.backends.planner.TableStatistics;
+
+/**
+ * Provides the statistics PostgreSQL's own planner keeps on the tables in the "public" schema: the estimated number of
+ * rows ("reltuples"), the number of pages ("relpages"), and the average width of every column ("pg_stats"). These are
+ * only as accurate as the last ANALYZE (or autovacuum) of every table.
+ */
+class PostgresqlStatisticsProvider implements StatisticsProvider {
+
+	private static final String QUERY = "SELECT c.relname, c.reltuples, c.relpages, s.attname, s.avg_width "
+			+ "FROM pg_class c "
+			+ "JOIN pg_namespace n ON n.oid = c.relnamespace "
+			+ "LEFT JOIN pg_stats s ON s.schemaname = n.nspname AND s.tablename = c.relname "
+			+ "WHERE n.nspname = 'public' AND c.relkind = 'r';";
+
+	private static final long PAGE_SIZE = 8192;
+
+	/**
+	 * Loads the statistics of all tables in the "public" schema.
+	 *
+	 * @param connection The connection to load the statistics with.
+	 * @return The loaded statistics.
+	 * @throws SQLException In case the statistics could not be loaded.
+	 */
+	static PostgresqlStatisticsProvider load(Connection connection) throws SQLException {
+		Map<String, Double> tuples = Maps.newHashMap();
+		Map<String, Long> pages = Maps.newHashMap();
+		Map<String, Map<String, Integer>> widths = Maps.newHashMap();
+
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(QUERY)) {
+
+			while (resultSet.next()) {
+				String tableName = resultSet.getString("relname");
+				tuples.put(tableName, resultSet.getDouble("reltuples"));
+				pages.put(tableName, resultSet.getLong("relpages"));
+
+				Map<String, Integer> columnWidths = widths.computeIfAbsent(tableName, key -> Maps.newHashMap());
+				String columnName = resultSet.getString("attname");
+				if (columnName != null) {
+					columnWidths.put(columnName, resultSet.getInt("avg_width"));
+				}
+			}
+		}
+
+		ImmutableMap.Builder<String, TableStatistics> statistics = ImmutableMap.builder();
+		for (String tableName : tuples.keySet()) {
+			Map<String, Integer> columnWidths = widths.get(tableName);
+			long rows = estimateRows(tuples.get(tableName), pages.get(tableName), columnWidths);
+			statistics.put(tableName, new TableStatistics(rows, pages.get(tableName), columnWidths));
+		}
+		return new PostgresqlStatisticsProvider(statistics.build());
+	}
+
+	/**
+	 * Tables which have never been analyzed report -1 (or 0 on older versions) tuples, in which case the number of
+	 * rows is estimated from the number of pages the table occupies.
+	 */
+	private static long estimateRows(double tuples, long pages, Map<String, Integer> columnWidths) {
+		if (tuples > 0) {
+			return (long) tuples;
+		}
+		long width = TableStatistics.ROW_OVERHEAD + (columnWidths.isEmpty()
+				? TableStatistics.DEFAULT_COLUMN_WIDTH
+				: columnWidths.values().stream().mapToLong(Integer::longValue).sum());
+		return pages * PAGE_SIZE / width;
+	}
+
+	private final ImmutableMap<String, TableStatistics> statistics;
+
+	private PostgresqlStatisticsProvider(ImmutableMap<String, TableStatistics> statistics) {
+		this.statistics = statistics;
+	}
+
+	@Override
+	public Optional<TableStatistics> getStatistics(String refId) {
+		return Optional.ofNullable(statistics.get(refId));
+	}
+
+}
@@ -0,0 +1,142 @@
+package io.quantumdb.core.planner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.quantumdb.core.backends.Config;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A set of session settings which is applied to the connections used to fill ghost tables: copying data, inserting
+ * NULL records, and building indexes. The settings are applied to the session (using set_config), and are reset when
+ * the connection is returned to the {@link ConnectionPool}. The values are bound as parameters rather than validated
+ * here: the {@link Config} only validates values set through its setters, not values loaded from a configuration file.
+ */
+@Slf4j
+class SessionProfile {
+
+	static final String SYNCHRONOUS_COMMIT = "synchronous_commit";
+	static final String WORK_MEM = "work_mem";
+	static final String MAINTENANCE_WORK_MEM = "maintenance_work_mem";
+	static final String STATEMENT_TIMEOUT = "statement_timeout";
+	static final String IDLE_IN_TRANSACTION_SESSION_TIMEOUT = "idle_in_transaction_session_timeout";
+	static final String APPLICATION_NAME = "application_name";
+
+	/**
+	 * @param config The configuration to create the profile from.
+	 * @return The session profile to use when filling ghost tables.
+	 */
+	static SessionProfile backfill(Config config) {
+		Map<String, String> settings = new LinkedHashMap<>();
+		if (!config.isBackfillSynchronousCommit()) {
+			settings.put(SYNCHRONOUS_COMMIT, "off");
+		}
+		if (config.getBackfillWorkMem() != null) {
+			settings.put(WORK_MEM, config.getBackfillWorkMem());
+		}
+		if (config.getBackfillMaintenanceWorkMem() != null) {
+			settings.put(MAINTENANCE_WORK_MEM, config.getBackfillMaintenanceWorkMem());
+		}
+		if (config.getBackfillStatementTimeoutMillis() != null) {
+			settings.put(STATEMENT_TIMEOUT, config.getBackfillStatementTimeoutMillis() + "ms");
+		}
+		if (config.getBackfillIdleInTransactionTimeoutMillis() != null) {
+			settings.put(IDLE_IN_TRANSACTION_SESSION_TIMEOUT, config.getBackfillIdleInTransactionTimeoutMillis() + "ms");
+		}
+		if (config.getBackfillApplicationName() != null) {
+			settings.put(APPLICATION_NAME, config.getBackfillApplicationName());
+		}
+		return new SessionProfile(settings);
+	}
+
+	/**
+	 * Data changes modify the contents of the tables themselves, so unlike filling ghost tables, their commits must
+	 * not be asynchronous: a lost commit would also lose the checkpoint recording its progress. They are also not
+	 * subject to the statement timeout of the backfill, which is sized for copying ghost tables, and would abort data
+	 * changes which are not executed in chunks.
+	 *
+	 * @param config The configuration to create the profile from.
+	 * @return The session profile to use when executing data changes.
+	 */
+	static SessionProfile dataChanges(Config config) {
+		return backfill(config)
+				.without(SYNCHRONOUS_COMMIT)
+				.without(STATEMENT_TIMEOUT);
+	}
+
+	private final Map<String, String> settings;
+
+	private SessionProfile(Map<String, String> settings) {
+		this.settings = Collections.unmodifiableMap(settings);
+	}
+
+	/**
+	 * @param setting The name of the setting.
+	 * @param value The value of the setting. When NULL, the value of this profile is kept.
+	 * @return A copy of this profile, in which the specified setting is overridden.
+	 */
+	SessionProfile with(String setting, String value) {
+		if (value == null) {
+			return this;
+		}
+		Map<String, String> copy = new LinkedHashMap<>(settings);
+		copy.put(setting, value);
+		return new SessionProfile(copy);
+	}
+
+	/**
+	 * @param setting The name of the setting.
+	 * @return A copy of this profile, which leaves the specified setting at the server's default.
+	 */
+	SessionProfile without(String setting) {
+		Map<String, String> copy = new LinkedHashMap<>(settings);
+		copy.remove(setting);
+		return new SessionProfile(copy);
+	}
+
+	Map<String, String> getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Applies the settings of this profile to the session of the specified connection.
+	 *
+	 * @param connection The connection to apply the settings to.
+	 * @throws SQLException In case the settings could not be applied.
+	 */
+	void apply(Connection connection) throws SQLException {
+		if (settings.isEmpty()) {
+			return;
+		}
+
+		String query = settings.keySet().stream()
+				.map(setting -> "set_config(?, ?, false)")
+				.collect(Collectors.joining(", ", "SELECT ", ";"));
+
+		log.debug("Applying session profile: {}", this);
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			int index = 1;
+			for (Map.Entry<String, String> entry : settings.entrySet()) {
+				statement.setString(index++, entry.getKey());
+				statement.setString(index++, entry.getValue());
+			}
+			statement.execute();
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (settings.isEmpty()) {
+			return "server defaults";
+		}
+		return settings.entrySet().stream()
+				.map(entry -> entry.getKey() + "=" + entry.getValue())
+				.collect(Collectors.joining(", "));
+	}
+
+}
@@ -1,6 +1,5 @@
 package io.quantumdb.core.planner;
 
-import static io.quantumdb.core.planner.QueryUtils.execute;
 import static io.quantumdb.core.planner.QueryUtils.quoted;
 
 import java.sql.Connection;
@@ -8,9 +7,13 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.quantumdb.core.backends.Config;
 import io.quantumdb.core.schema.definitions.Column;
@@ -20,14 +23,25 @@ import io.quantumdb.core.schema.definitions.Index;
 import io.quantumdb.core.schema.definitions.Sequence;
 import io.quantumdb.core.schema.definitions.Table;
 import io.quantumdb.core.utils.QueryBuilder;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@RequiredArgsConstructor
 public class TableCreator {
 
+	private static final long PROGRESS_INTERVAL_SECONDS = 30;
+	private static final String MAX_PARALLEL_MAINTENANCE_WORKERS = "max_parallel_maintenance_workers";
+
 	private final Config config;
+	private final DdlExecutor executor;
+
+	public TableCreator(Config config) {
+		this(config, new DdlExecutor(config));
+	}
+
+	TableCreator(Config config, DdlExecutor executor) {
+		this.config = config;
+		this.executor = executor;
+	}
 
 	public void create(Connection connection, Collection<Table> tables) throws SQLException {
 		createTables(connection, tables);
@@ -53,9 +67,65 @@ public class TableCreator {
 		}
 	}
 
+	/**
+	 * Creates the indexes of the specified tables using several connections in parallel (see
+	 * {@link Config#getIndexBuildConnections()}), largest table first. The indexes of a single table are built one
+	 * after another, as concurrent index builds on the same table block each other.
+	 *
+	 * @param backend The backend to open the connections with.
+	 * @param tables The tables whose indexes to create.
+	 * @throws SQLException In case one or more indexes could not be created.
+	 */
+	void createIndexes(PostgresqlBackend backend, Collection<Table> tables) throws SQLException {
+		List<Table> tablesWithIndexes = tables.stream()
+				.filter(table -> !table.getIndexes().isEmpty())
+				.collect(Collectors.toList());
+
+		if (tablesWithIndexes.isEmpty()) {
+			return;
+		}
+		if (config.isDryRun()) {
+			try (Connection connection = backend.connect()) {
+				createIndexes(connection, tablesWithIndexes);
+			}
+			return;
+		}
+
+		int connections = Math.min(config.getIndexBuildConnections(), tablesWithIndexes.size());
+		log.info("Creating indexes of {} tables using {} connection(s)...", tablesWithIndexes.size(), connections);
+
+		ParallelTableProcessor processor = new ParallelTableProcessor(backend, "index-builder");
+		IndexBuildProgress progress = new IndexBuildProgress(backend);
+		ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(processor.getThreadFactory());
+		monitor.scheduleWithFixedDelay(progress, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+
+		try {
+			processor.process(tablesWithIndexes, connections, connection -> {
+				configureIndexSession(connection);
+				progress.register(connection);
+			}, this::createIndexes);
+		}
+		finally {
+			monitor.shutdownNow();
+		}
+	}
+
+	private void configureIndexSession(Connection connection) throws SQLException {
+		Integer maxParallelWorkers = config.getIndexMaxParallelWorkers();
+
+		// An aborted concurrent index build leaves an invalid index behind, so don't apply the statement timeout.
+		SessionProfile.backfill(config)
+				.without(SessionProfile.STATEMENT_TIMEOUT)
+				.with(SessionProfile.MAINTENANCE_WORK_MEM, config.getIndexMaintenanceWorkMem())
+				.with(MAX_PARALLEL_MAINTENANCE_WORKERS, maxParallelWorkers == null ? null : maxParallelWorkers.toString())
+				.apply(connection);
+	}
+
 	private void createTable(Connection connection, Table table) throws SQLException {
 		log.info("Creating table: {}", table.getName());
 		Map<String, String> sequences = Maps.newHashMap();
+		List<String> statements = Lists.newArrayList();
 
 		QueryBuilder queryBuilder = new QueryBuilder();
 		queryBuilder.append("CREATE TABLE " + quoted(table.getName()) + " (");
@@ -81,7 +151,7 @@ public class TableCreator {
 					column.modifyDefaultValue(sequence);
 
 					shouldOwnSequence = true;
-					execute(connection, config, "CREATE SEQUENCE " + quoted(sequenceName) + ";");
+					statements.add("CREATE SEQUENCE " + quoted(sequenceName) + ";");
 				}
 
 				sequences.put(sequence.getName(), column.getName());
@@ -104,33 +174,65 @@ public class TableCreator {
 
 		queryBuilder.append(");");
 
-		execute(connection, config, queryBuilder.toString());
+		statements.add(queryBuilder.toString());
 
 		if (shouldOwnSequence) {
 			for (Map.Entry<String, String> sequence : sequences.entrySet()) {
-				execute(connection, config, new QueryBuilder()
+				statements.add(new QueryBuilder()
 						.append("ALTER SEQUENCE " + quoted(sequence.getKey()))
 						.append("OWNED BY " + quoted(table.getName()) + "." + quoted(sequence.getValue()) + ";")
 						.toString());
 			}
 		}
+
+		executor.execute(connection, statements);
+	}
+
+	/**
+	 * Adds the specified foreign keys as NOT VALID, and then validates them. Adding a foreign key as NOT VALID only
+	 * briefly locks the referencing and referred tables, as existing rows are not checked. Validating it scans the
+	 * referencing table, but only takes a lock which does not block writes to it. Every foreign key is added and
+	 * validated in a transaction of its own.
+	 *
+	 * @param connection The connection to execute the statements with.
+	 * @param foreignKeys The foreign keys to create.
+	 * @throws SQLException In case a foreign key could not be created, or is violated by existing rows.
+	 */
+	void createAndValidateForeignKeys(Connection connection, Collection<ForeignKey> foreignKeys) throws SQLException {
+		for (ForeignKey foreignKey : foreignKeys) {
+			log.info("Creating foreign key: {} from: {} to: {} (not valid)", foreignKey.getForeignKeyName(),
+					foreignKey.getReferencingTableName(), foreignKey.getReferredTableName());
+
+			executor.execute(connection, createForeignKeyStatement(foreignKey) + " NOT VALID");
+		}
+
+		for (ForeignKey foreignKey : foreignKeys) {
+			log.info("Validating foreign key: {}", foreignKey.getForeignKeyName());
+			executor.execute(connection, "ALTER TABLE " + quoted(foreignKey.getReferencingTableName())
+					+ " VALIDATE CONSTRAINT " + quoted(foreignKey.getForeignKeyName()) + ";");
+		}
 	}
 
 	private void createForeignKeys(Connection connection, Table table) throws SQLException {
+		List<String> statements = Lists.newArrayList();
 		for (ForeignKey foreignKey : table.getForeignKeys()) {
-			QueryBuilder queryBuilder = new QueryBuilder();
-			queryBuilder.append("ALTER TABLE " + quoted(table.getName()));
-			queryBuilder.append("ADD CONSTRAINT " + quoted(foreignKey.getForeignKeyName()));
-			queryBuilder.append("FOREIGN KEY (" + foreignKey.getReferencingColumns().stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")) + ")");
-			queryBuilder.append("REFERENCES " + quoted(foreignKey.getReferredTableName()));
-			queryBuilder.append("(" + foreignKey.getReferredColumns().stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")) + ")");
-			queryBuilder.append("ON UPDATE " + valueOf(foreignKey.getOnUpdate()));
-			queryBuilder.append("ON DELETE " + valueOf(foreignKey.getOnDelete()));
-			queryBuilder.append("DEFERRABLE");
-
 			log.info("Creating foreign key: {}", foreignKey.getForeignKeyName());
-			execute(connection, config, queryBuilder.toString());
+			statements.add(createForeignKeyStatement(foreignKey));
 		}
+		executor.execute(connection, statements);
+	}
+
+	private String createForeignKeyStatement(ForeignKey foreignKey) {
+		QueryBuilder queryBuilder = new QueryBuilder();
+		queryBuilder.append("ALTER TABLE " + quoted(foreignKey.getReferencingTableName()));
+		queryBuilder.append("ADD CONSTRAINT " + quoted(foreignKey.getForeignKeyName()));
+		queryBuilder.append("FOREIGN KEY (" + foreignKey.getReferencingColumns().stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")) + ")");
+		queryBuilder.append("REFERENCES " + quoted(foreignKey.getReferredTableName()));
+		queryBuilder.append("(" + foreignKey.getReferredColumns().stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")) + ")");
+		queryBuilder.append("ON UPDATE " + valueOf(foreignKey.getOnUpdate()));
+		queryBuilder.append("ON DELETE " + valueOf(foreignKey.getOnDelete()));
+		queryBuilder.append("DEFERRABLE");
+		return queryBuilder.toString();
 	}
 
 	private void createIndexes(Connection connection, Table table) throws SQLException {
@@ -145,7 +247,7 @@ public class TableCreator {
 			queryBuilder.append("(" + index.getColumns().stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")) + ");");
 
 			log.info("Creating index key: {} ({})", index.getIndexName(), index.getColumns());
-			execute(connection, config, queryBuilder.toString());
+			executor.executeConcurrently(connection, queryBuilder.toString());
 		}
 	}
 
@@ -34,17 +34,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 class TableDataMigrator {
 
-	private static final long BATCH_SIZE = 2_000;
-	private static final long WAIT_TIME = 50;
+	static final long BATCH_SIZE = 2_000;
+	static final long WAIT_TIME = 50;
 
 	private final Backend backend;
 	private final Config config;
 	private final RefLog refLog;
+	private final SessionProfile sessionProfile;
 
 	TableDataMigrator(Backend backend, Config config, RefLog refLog) {
 		this.backend = backend;
 		this.config = config;
 		this.refLog = refLog;
+		this.sessionProfile = SessionProfile.backfill(config);
 	}
 
 	void migrateData(NullRecords nullRecords, Table source, Table target, Version from, Version to,
@@ -67,6 +69,7 @@ class TableDataMigrator {
 		}
 
 		try (Connection connection = backend.connect()) {
+			sessionProfile.apply(connection);
 			execute(connection, config, initialMigrator.getCreateStatement());
 			execute(connection, config, successiveMigrator.getCreateStatement());
 
@@ -145,6 +148,7 @@ class TableDataMigrator {
 				.collect(Collectors.toList());
 
 		try (Connection connection = backend.connect()) {
+			sessionProfile.apply(connection);
 			try (Statement statement = connection.createStatement()) {
 				String query = new QueryBuilder()
 						.append("SELECT " + primaryKeyColumns.stream().map(QueryUtils::quoted).collect(Collectors.joining(", ")))
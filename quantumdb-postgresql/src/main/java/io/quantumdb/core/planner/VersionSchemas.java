@@ -0,0 +1,93 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.planner.QueryUtils.quoted;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Sets;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.RefLog.TableRef;
+import io.quantumdb.core.versioning.Version;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains a schema per active version (named "qdb_v_" followed by the version's id), containing a view for every
+ * table in that version. Each view has the table's logical name and selects all columns from the ghost table which
+ * backs that table in that version. Since these views are simple enough to be automatically updatable by PostgreSQL,
+ * clients can use a version by putting its schema in front of their "search_path", without any query rewriting.
+ */
+@Slf4j
+class VersionSchemas {
+
+	static final String SCHEMA_PREFIX = "qdb_v_";
+
+	static String getSchemaName(Version version) {
+		return SCHEMA_PREFIX + version.getId();
+	}
+
+	/**
+	 * Creates the schemas of active versions which don't have one yet, and drops the schemas of versions which are no
+	 * longer active. This should be called in the same transaction which persists the state of the RefLog.
+	 *
+	 * @param connection The connection to create and drop the schemas with.
+	 * @param refLog The RefLog describing the active versions.
+	 * @throws SQLException In case the schemas could not be created or dropped.
+	 */
+	void synchronize(Connection connection, RefLog refLog) throws SQLException {
+		Set<String> existing = listSchemas(connection);
+		Set<String> expected = Sets.newHashSet();
+
+		for (Version version : refLog.getVersions()) {
+			String schemaName = getSchemaName(version);
+			expected.add(schemaName);
+			if (!existing.contains(schemaName)) {
+				create(connection, refLog, version);
+			}
+		}
+
+		for (String schemaName : Sets.difference(existing, expected)) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("DROP SCHEMA " + quoted(schemaName) + " CASCADE;");
+			}
+			log.info("Dropped version schema: {}", schemaName);
+		}
+	}
+
+	private void create(Connection connection, RefLog refLog, Version version) throws SQLException {
+		String schemaName = getSchemaName(version);
+		List<TableRef> tableRefs = refLog.getTableRefs(version).stream()
+				.sorted(Comparator.comparing(TableRef::getName))
+				.collect(Collectors.toList());
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE SCHEMA " + quoted(schemaName) + ";");
+			for (TableRef tableRef : tableRefs) {
+				statement.execute("CREATE VIEW " + quoted(schemaName) + "." + quoted(tableRef.getName())
+						+ " AS SELECT * FROM public." + quoted(tableRef.getRefId()) + ";");
+			}
+		}
+		log.info("Created version schema: {} with {} views", schemaName, tableRefs.size());
+	}
+
+	private Set<String> listSchemas(Connection connection) throws SQLException {
+		String query = "SELECT nspname FROM pg_namespace WHERE nspname LIKE '" + SCHEMA_PREFIX.replace("_", "\\_")
+				+ "%';";
+
+		Set<String> schemaNames = Sets.newHashSet();
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			while (resultSet.next()) {
+				schemaNames.add(resultSet.getString("nspname"));
+			}
+		}
+		return schemaNames;
+	}
+
+}
@@ -9,12 +9,14 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -42,6 +44,13 @@ import io.quantumdb.core.utils.RandomHasher;
 import io.quantumdb.core.versioning.RefLog.ColumnRef;
 import io.quantumdb.core.versioning.RefLog.SyncRef;
 import io.quantumdb.core.versioning.RefLog.TableRef;
+import io.quantumdb.core.versioning.StateSnapshot.ChangeSetRow;
+import io.quantumdb.core.versioning.StateSnapshot.ChangelogRow;
+import io.quantumdb.core.versioning.StateSnapshot.ColumnMappingRow;
+import io.quantumdb.core.versioning.StateSnapshot.RefVersionRow;
+import io.quantumdb.core.versioning.StateSnapshot.SynchronizerColumnRow;
+import io.quantumdb.core.versioning.StateSnapshot.SynchronizerRow;
+import io.quantumdb.core.versioning.StateSnapshot.TableColumnRow;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
@@ -87,23 +96,6 @@ public class Backend {
 		private final TableColumn target;
 	}
 
-	@Data
-	private static class RawChangelogEntry {
-		private final String versionId;
-		private final String operationType;
-		private final String operation;
-		private final String parentVersionId;
-	}
-
-	@Data
-	private static class RawChangeSet {
-		private final String id;
-		private final String versionId;
-		private final String description;
-		private final String author;
-		private final Date created;
-	}
-
 	private final Gson gson;
 
 	public Backend() {
@@ -119,11 +111,22 @@ public class Backend {
 	}
 
 	public State load(Connection connection, Catalog catalog) throws SQLException {
-		Changelog changelog = loadChangelog(connection);
-		Map<String, RefId> refIds = listRefIds(connection);
-		Table<RefId, Version, String> tableVersions = listTableVersions(connection, refIds, changelog);
-		List<TableColumn> tableColumns = listTableColumns(connection, refIds);
-		List<TableColumnMapping> columnMappings = listTableColumnMappings(connection, tableColumns);
+		Optional<StateSnapshot> storedSnapshot = StateSnapshot.read(connection);
+		if (storedSnapshot.isPresent()) {
+			log.debug("Loading state from snapshot...");
+			return load(storedSnapshot.get(), catalog);
+		}
+
+		log.debug("No up-to-date state snapshot found, loading state from meta-info tables...");
+		return load(StateSnapshot.collect(connection), catalog);
+	}
+
+	private State load(StateSnapshot snapshot, Catalog catalog) {
+		Changelog changelog = loadChangelog(snapshot);
+		Map<String, RefId> refIds = listRefIds(snapshot);
+		Table<RefId, Version, String> tableVersions = listTableVersions(snapshot, refIds, changelog);
+		List<TableColumn> tableColumns = listTableColumns(snapshot, refIds);
+		List<TableColumnMapping> columnMappings = listTableColumnMappings(snapshot, tableColumns);
 
 		Multimap<RefId, TableColumn> columnsPerTable = LinkedHashMultimap.create();
 		tableColumns.forEach(column -> columnsPerTable.put(column.getRefId(), column));
@@ -171,8 +174,8 @@ public class Backend {
 			}
 		}
 
-		addSynchronizers(connection, refLog, columnMappings);
-		setActiveVersions(connection, changelog, refLog);
+		addSynchronizers(snapshot, refLog, columnMappings);
+		setActiveVersions(snapshot, changelog, refLog);
 
 		return new State(catalog, refLog, changelog);
 	}
@@ -186,23 +189,29 @@ public class Backend {
 		if (stage != null) {
 			lastActive = stage.getLast();
 		}
-		persistChangelog(connection, state.getChangelog(), lastActive);
-
-		persistRefs(connection, refLog);
-		persistRefVersions(connection, refLog);
-		Collection<RawTableColumn> columns = persistTableColumns(connection, refLog);
-		Map<Long, RawColumnMapping> columnMapping = persistColumnMappings(connection, refLog, columns);
-		Map<Long, SyncRef> syncRefs = persistTableSynchronizers(connection, refLog);
-		persistSynchronizerColumns(connection, syncRefs, columnMapping);
-		persistActiveVersions(connection, refLog);
+		// Every persist method records the rows it leaves in its table, so the snapshot need not be read back.
+		StateSnapshot snapshot = new StateSnapshot();
+		persistChangelog(connection, state.getChangelog(), lastActive, snapshot);
+
+		persistRefs(connection, refLog, snapshot);
+		persistRefVersions(connection, refLog, snapshot);
+		Collection<RawTableColumn> columns = persistTableColumns(connection, refLog, snapshot);
+		Map<Long, RawColumnMapping> columnMapping = persistColumnMappings(connection, refLog, columns, snapshot);
+		Map<Long, SyncRef> syncRefs = persistTableSynchronizers(connection, refLog, snapshot);
+		persistSynchronizerColumns(connection, syncRefs, columnMapping, snapshot);
+		persistActiveVersions(connection, refLog, snapshot);
+
+		snapshot.write(connection);
 	}
 
-	private void persistChangelog(Connection connection, Changelog changelog, Version lastActive) throws SQLException {
-		persistChangelogEntries(connection, changelog, lastActive);
-		persistChangesets(connection, changelog, lastActive);
+	private void persistChangelog(Connection connection, Changelog changelog, Version lastActive,
+			StateSnapshot snapshot) throws SQLException {
+		persistChangelogEntries(connection, changelog, lastActive, snapshot);
+		persistChangesets(connection, changelog, lastActive, snapshot);
 	}
 
-	private void persistChangelogEntries(Connection connection, Changelog changelog, Version lastActive) throws SQLException {
+	private void persistChangelogEntries(Connection connection, Changelog changelog, Version lastActive,
+			StateSnapshot snapshot) throws SQLException {
 		Map<String, Version> mapping = Maps.newLinkedHashMap();
 		List<Version> versions = Lists.newLinkedList();
 		versions.add(changelog.getRoot());
@@ -216,6 +225,19 @@ public class Backend {
 		}
 
 		Operations operations = new Operations();
+		for (Version version : mapping.values()) {
+			Operation operation = version.getOperation();
+			String operationType = null;
+			String serializedOperation = null;
+			if (operation != null) {
+				operationType = operations.getOperationType(operation.getClass()).orElseThrow(
+						() -> new IllegalArgumentException("There's no such operation as: " + operation.getClass()));
+				serializedOperation = gson.toJson(operation);
+			}
+			String parentVersionId = version.getParent() == null ? null : version.getParent().getId();
+			snapshot.getChangelog().add(new ChangelogRow(version.getId(), operationType, serializedOperation,
+					parentVersionId));
+		}
 
 		try (Statement statement = connection.createStatement()) {
 			String query = "SELECT * FROM quantumdb.changelog;";
@@ -297,7 +319,8 @@ public class Backend {
 		}
 	}
 
-	private void persistChangesets(Connection connection, Changelog changelog, Version lastActive) throws SQLException {
+	private void persistChangesets(Connection connection, Changelog changelog, Version lastActive,
+			StateSnapshot snapshot) throws SQLException {
 		Map<String, ChangeSet> mapping = Maps.newHashMap();
 		List<Version> versions = Lists.newLinkedList();
 		versions.add(changelog.getRoot());
@@ -338,6 +361,8 @@ public class Backend {
 						update.execute();
 						log.debug("Updated entry for changeset id: {}", versionId);
 					}
+					snapshot.getChangeSets().add(new ChangeSetRow(resultSet.getString("id"), versionId,
+							changeSet.getDescription(), changeSet.getAuthor(), changeSet.getCreated().getTime()));
 				}
 				else {
 					try (PreparedStatement delete = connection.prepareStatement(deleteQuery)) {
@@ -360,6 +385,8 @@ public class Backend {
 						insert.setString(3, changeSet.getAuthor());
 						insert.setString(4, changeSet.getDescription());
 						insert.setTimestamp(5, new Timestamp(changeSet.getCreated().getTime()));
+						snapshot.getChangeSets().add(new ChangeSetRow(changeSet.getId(), versionId,
+								changeSet.getDescription(), changeSet.getAuthor(), changeSet.getCreated().getTime()));
 					}
 					else {
 						insert.setString(1, versionId);
@@ -377,10 +404,11 @@ public class Backend {
 		}
 	}
 
-	private void persistRefs(Connection connection, RefLog refLog) throws SQLException {
+	private void persistRefs(Connection connection, RefLog refLog, StateSnapshot snapshot) throws SQLException {
 		Set<String> refIds = Sets.newHashSet();
 		refLog.getTableRefs().forEach(ref -> refIds.add(ref.getRefId()));
 		refLog.getViewRefs().forEach(ref -> refIds.add(ref.getRefId()));
+		refIds.stream().sorted().forEach(snapshot.getRefs()::add);
 
 		try (Statement statement = connection.createStatement()) {
 			String query = "SELECT * FROM quantumdb.refs ORDER BY ref_id ASC;";
@@ -430,7 +458,7 @@ public class Backend {
 		}
 	}
 
-	private void persistRefVersions(Connection connection, RefLog refLog) throws SQLException {
+	private void persistRefVersions(Connection connection, RefLog refLog, StateSnapshot snapshot) throws SQLException {
 		Table<String, String, String> mapping = HashBasedTable.create();
 		refLog.getTableRefs().forEach(tableRef -> {
 			String refId = tableRef.getRefId();
@@ -452,6 +480,11 @@ public class Backend {
 			versionIds.forEach(versionId -> mapping.put(refId, versionId, viewName));
 		});
 
+		mapping.cellSet().stream()
+				.map(cell -> new RefVersionRow(cell.getRowKey(), cell.getColumnKey(), cell.getValue()))
+				.sorted(Comparator.comparing(RefVersionRow::getRefId))
+				.forEach(snapshot.getRefVersions()::add);
+
 		try (Statement statement = connection.createStatement()) {
 			String query = "SELECT * FROM quantumdb.ref_versions ORDER BY ref_id ASC;";
 			String deleteQuery = "DELETE FROM quantumdb.ref_versions WHERE ref_id = ? AND version_id = ?;";
@@ -505,7 +538,8 @@ public class Backend {
 		}
 	}
 
-	private Collection<RawTableColumn> persistTableColumns(Connection connection, RefLog refLog) throws SQLException {
+	private Collection<RawTableColumn> persistTableColumns(Connection connection, RefLog refLog, StateSnapshot snapshot)
+			throws SQLException {
 		Multimap<String, String> columnMapping = LinkedHashMultimap.create();
 		refLog.getTableRefs()
 				.forEach(tableRef -> columnMapping.putAll(tableRef.getRefId(), tableRef.getColumns().keySet()));
@@ -564,10 +598,17 @@ public class Backend {
 
 			resultSet.close();
 		}
+
+		columns.stream()
+				.map(column -> new TableColumnRow(column.getId(), column.getTable(), column.getColumn()))
+				.sorted(Comparator.comparingLong(TableColumnRow::getId))
+				.forEach(snapshot.getTableColumns()::add);
+
 		return columns;
 	}
 
-	private Map<Long, RawColumnMapping> persistColumnMappings(Connection connection, RefLog refLog, Collection<RawTableColumn> columns) throws SQLException {
+	private Map<Long, RawColumnMapping> persistColumnMappings(Connection connection, RefLog refLog,
+			Collection<RawTableColumn> columns, StateSnapshot snapshot) throws SQLException {
 		Map<Long, RawColumn> index = columns.stream()
 				.collect(Collectors.toMap(RawTableColumn::getId, column -> new RawColumn(column.getTable(), column.getColumn())));
 
@@ -640,10 +681,14 @@ public class Backend {
 			resultSet.close();
 		}
 
+		results.forEach((id, mapping) -> snapshot.getColumnMappings().add(new ColumnMappingRow(id,
+				reverseIndex.get(mapping.getSource()), reverseIndex.get(mapping.getTarget()))));
+
 		return results;
 	}
 
-	private Map<Long, SyncRef> persistTableSynchronizers(Connection connection, RefLog refLog) throws SQLException {
+	private Map<Long, SyncRef> persistTableSynchronizers(Connection connection, RefLog refLog, StateSnapshot snapshot)
+			throws SQLException {
 		Table<String, String, SyncRef> syncMapping = HashBasedTable.create();
 		for (TableRef tableRef : refLog.getTableRefs()) {
 			for (SyncRef syncRef : tableRef.getInboundSyncs()) {
@@ -709,11 +754,16 @@ public class Backend {
 
 			resultSet.close();
 		}
+
+		mapping.forEach((id, syncRef) -> snapshot.getSynchronizers().add(new SynchronizerRow(id,
+				syncRef.getSource().getRefId(), syncRef.getTarget().getRefId(), syncRef.getName(),
+				syncRef.getFunctionName())));
+
 		return mapping;
 	}
 
 	private void persistSynchronizerColumns(Connection connection, Map<Long, SyncRef> syncRefs,
-											Map<Long, RawColumnMapping> columnMapping) throws SQLException {
+											Map<Long, RawColumnMapping> columnMapping, StateSnapshot snapshot) throws SQLException {
 
 		Table<String, String, Long> syncIndex = HashBasedTable.create();
 		syncRefs.forEach((id, ref) -> syncIndex.put(ref.getSource().getRefId(), ref.getTarget().getRefId(), id));
@@ -728,6 +778,9 @@ public class Backend {
 			}
 		});
 
+		idMapping.forEach((synchronizerId, columnMappingId) -> snapshot.getSynchronizerColumns()
+				.add(new SynchronizerColumnRow(synchronizerId, columnMappingId)));
+
 		try (Statement statement = connection.createStatement()) {
 			String query = "SELECT * FROM quantumdb.synchronizer_columns;";
 			String deleteQuery = "DELETE FROM quantumdb.synchronizer_columns WHERE synchronizer_id = ? AND column_mapping = ?;";
@@ -767,7 +820,7 @@ public class Backend {
 		}
 	}
 
-	private void persistActiveVersions(Connection connection, RefLog refLog) throws SQLException {
+	private void persistActiveVersions(Connection connection, RefLog refLog, StateSnapshot snapshot) throws SQLException {
 		try (Statement statement = connection.createStatement()) {
 			String query = "SELECT * FROM quantumdb.active_versions;";
 			String deleteQuery = "DELETE FROM quantumdb.active_versions WHERE version_id = ?;";
@@ -777,6 +830,7 @@ public class Backend {
 			Set<String> versions = refLog.getVersions().stream()
 					.map(Version::getId)
 					.collect(Collectors.toSet());
+			snapshot.getActiveVersions().addAll(versions);
 
 			while (resultSet.next()) {
 				String versionId = resultSet.getString("version_id");
@@ -805,16 +859,16 @@ public class Backend {
 		}
 	}
 
-	private Changelog loadChangelog(Connection connection) throws SQLException {
-		List<RawChangelogEntry> entries = loadChangelogEntries(connection);
-		Map<String, RawChangeSet> changeSets = loadChangesets(connection, entries);
+	private Changelog loadChangelog(StateSnapshot snapshot) {
+		List<ChangelogRow> entries = loadChangelogEntries(snapshot);
+		Map<String, ChangeSetRow> changeSets = loadChangesets(snapshot, entries);
 
 		Changelog changelog = null;
-		List<RawChangelogEntry> changeSetContents = Lists.newArrayList();
+		List<ChangelogRow> changeSetContents = Lists.newArrayList();
 		Operations operations = new Operations();
 
 		while (!entries.isEmpty()) {
-			RawChangelogEntry entry = entries.remove(0);
+			ChangelogRow entry = entries.remove(0);
 			changeSetContents.add(entry);
 			boolean finalizeChangeSet = changeSets.containsKey(entry.getVersionId());
 
@@ -823,11 +877,12 @@ public class Backend {
 			}
 
 			if (finalizeChangeSet) {
-				RawChangelogEntry lastEntry = changeSetContents.get(changeSetContents.size() - 1);
-				RawChangeSet rawChangeSet = changeSets.get(lastEntry.getVersionId());
-				ChangeSet changeSet = new ChangeSet(rawChangeSet.getId(), rawChangeSet.getAuthor(), rawChangeSet.getCreated(), rawChangeSet.getDescription());
+				ChangelogRow lastEntry = changeSetContents.get(changeSetContents.size() - 1);
+				ChangeSetRow rawChangeSet = changeSets.get(lastEntry.getVersionId());
+				ChangeSet changeSet = new ChangeSet(rawChangeSet.getId(), rawChangeSet.getAuthor(),
+						new Date(rawChangeSet.getCreated()), rawChangeSet.getDescription());
 
-				for (RawChangelogEntry entryInSet : changeSetContents) {
+				for (ChangelogRow entryInSet : changeSetContents) {
 					String operationType = entryInSet.getOperationType();
 					Operation operation = null;
 					if (operationType != null) {
@@ -853,38 +908,27 @@ public class Backend {
 		return changelog;
 	}
 
-	private List<RawChangelogEntry> loadChangelogEntries(Connection connection) throws SQLException {
-		RawChangelogEntry root = null;
-		Multimap<String, RawChangelogEntry> entries = HashMultimap.create();
-		try (Statement statement = connection.createStatement()) {
-			String query = "SELECT * FROM quantumdb.changelog;";
-			ResultSet resultSet = statement.executeQuery(query);
-			while (resultSet.next()) {
-				String versionId = resultSet.getString("version_id");
-				String operationType = resultSet.getString("operation_type");
-				String operation = resultSet.getString("operation");
-				String parentVersionId = resultSet.getString("parent_version_id");
-
-				RawChangelogEntry entry = new RawChangelogEntry(versionId, operationType, operation, parentVersionId);
-				if (parentVersionId == null) {
-					root = entry;
-				}
-				else {
-					entries.put(parentVersionId, entry);
-				}
+	private List<ChangelogRow> loadChangelogEntries(StateSnapshot snapshot) {
+		ChangelogRow root = null;
+		Multimap<String, ChangelogRow> entries = HashMultimap.create();
+		for (ChangelogRow entry : snapshot.getChangelog()) {
+			String parentVersionId = entry.getParentVersionId();
+			if (parentVersionId == null) {
+				root = entry;
+			}
+			else {
+				entries.put(parentVersionId, entry);
 			}
-
-			resultSet.close();
 		}
 
 		if (root == null) {
-			root = new RawChangelogEntry(RandomHasher.generateHash(), null, null, null);
+			root = new ChangelogRow(RandomHasher.generateHash(), null, null, null);
 		}
 
-		List<RawChangelogEntry> pointer = Lists.newArrayList(root);
-		List<RawChangelogEntry> sorted = Lists.newArrayList();
+		List<ChangelogRow> pointer = Lists.newArrayList(root);
+		List<ChangelogRow> sorted = Lists.newArrayList();
 		while (!pointer.isEmpty()) {
-			RawChangelogEntry entry = pointer.remove(0);
+			ChangelogRow entry = pointer.remove(0);
 			sorted.add(entry);
 
 			String versionId = entry.getVersionId();
@@ -894,183 +938,125 @@ public class Backend {
 		return sorted;
 	}
 
-	private Map<String, RawChangeSet> loadChangesets(Connection connection, List<RawChangelogEntry> entries)
-			throws SQLException {
-
-		Map<String, RawChangeSet> changeSets = Maps.newHashMap();
-		try (Statement statement = connection.createStatement()) {
-			String query = "SELECT * FROM quantumdb.changesets;";
-			ResultSet resultSet = statement.executeQuery(query);
-			while (resultSet.next()) {
-				String id = resultSet.getString("id");
-				String versionId = resultSet.getString("version_id");
-				String description = resultSet.getString("description");
-				String author = resultSet.getString("author");
-				Date created = resultSet.getTimestamp("created");
-
-				RawChangeSet changeSet = new RawChangeSet(id, versionId, description, author, created);
-				changeSets.put(versionId, changeSet);
-
-			}
-			resultSet.close();
+	private Map<String, ChangeSetRow> loadChangesets(StateSnapshot snapshot, List<ChangelogRow> entries) {
+		Map<String, ChangeSetRow> changeSets = Maps.newHashMap();
+		for (ChangeSetRow changeSet : snapshot.getChangeSets()) {
+			changeSets.put(changeSet.getVersionId(), changeSet);
 		}
 
 		if (changeSets.isEmpty()) {
-			RawChangelogEntry rootEntry = entries.get(0);
+			ChangelogRow rootEntry = entries.get(0);
 			String versionId = rootEntry.getVersionId();
-			RawChangeSet changeSet = new RawChangeSet("initial", versionId, "Initial state of the database.", "QuantumDB", new Date());
+			ChangeSetRow changeSet = new ChangeSetRow("initial", versionId, "Initial state of the database.",
+					"QuantumDB", System.currentTimeMillis());
 			changeSets.put(versionId, changeSet);
 		}
 
 		return changeSets;
 	}
 
-	private Map<String, RefId> listRefIds(Connection connection) throws SQLException {
+	private Map<String, RefId> listRefIds(StateSnapshot snapshot) {
 		Map<String, RefId> refIds = Maps.newHashMap();
-		try (Statement statement = connection.createStatement()) {
-			ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.refs ORDER BY ref_id ASC;");
-			while (resultSet.next()) {
-				String refId = resultSet.getString("ref_id");
-				refIds.put(refId, new RefId(refId));
-			}
+		for (String refId : snapshot.getRefs()) {
+			refIds.put(refId, new RefId(refId));
 		}
 		return refIds;
 	}
 
-	private Table<RefId, Version, String> listTableVersions(Connection connection, Map<String, RefId> refIds, Changelog changelog) throws SQLException {
+	private Table<RefId, Version, String> listTableVersions(StateSnapshot snapshot, Map<String, RefId> refIds,
+			Changelog changelog) {
+
 		Table<RefId, Version, String> mapping = HashBasedTable.create();
-		try (Statement statement = connection.createStatement()) {
-			ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.ref_versions ORDER BY ref_id ASC;");
-			while (resultSet.next()) {
-				String refId = resultSet.getString("ref_id");
-				String tableName = resultSet.getString("table_name");
-				String versionId = resultSet.getString("version_id");
-				Version version = changelog.getVersion(versionId);
-				RefId refIdRef = refIds.get(refId);
-				mapping.put(refIdRef, version, tableName);
-			}
+		for (RefVersionRow row : snapshot.getRefVersions()) {
+			Version version = changelog.getVersion(row.getVersionId());
+			RefId refIdRef = refIds.get(row.getRefId());
+			mapping.put(refIdRef, version, row.getTableName());
 		}
 		return mapping;
 	}
 
-	private List<TableColumn> listTableColumns(Connection connection, Map<String, RefId> refIds) throws SQLException {
+	private List<TableColumn> listTableColumns(StateSnapshot snapshot, Map<String, RefId> refIds) {
 		List<TableColumn> results = Lists.newArrayList();
-		try (Statement statement = connection.createStatement()) {
-			ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.table_columns ORDER BY id ASC;");
-			while (resultSet.next()) {
-				long id = resultSet.getLong("id");
-				String refId = resultSet.getString("ref_id");
-				String column = resultSet.getString("column_name");
-				RefId refIdRef = refIds.get(refId);
-				results.add(new TableColumn(id, refIdRef, column));
-			}
+		for (TableColumnRow row : snapshot.getTableColumns()) {
+			RefId refIdRef = refIds.get(row.getRefId());
+			results.add(new TableColumn(row.getId(), refIdRef, row.getColumn()));
 		}
 		return results;
 	}
 
-	private List<TableColumnMapping> listTableColumnMappings(Connection connection, List<TableColumn> tableColumns) throws SQLException {
+	private List<TableColumnMapping> listTableColumnMappings(StateSnapshot snapshot, List<TableColumn> tableColumns) {
 		Map<Long, TableColumn> columnById = tableColumns.stream()
 				.collect(Collectors.toMap(TableColumn::getId, Function.identity()));
 
 		List<TableColumnMapping> results = Lists.newArrayList();
-		try (Statement statement = connection.createStatement()) {
-			ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.column_mappings;");
-			while (resultSet.next()) {
-				long id = resultSet.getLong("id");
-				long sourceColumnId = resultSet.getLong("source_column_id");
-				long targetColumnId = resultSet.getLong("target_column_id");
-				TableColumn source = columnById.get(sourceColumnId);
-				TableColumn target = columnById.get(targetColumnId);
-				results.add(new TableColumnMapping(id, source, target));
-			}
+		for (ColumnMappingRow row : snapshot.getColumnMappings()) {
+			TableColumn source = columnById.get(row.getSourceColumnId());
+			TableColumn target = columnById.get(row.getTargetColumnId());
+			results.add(new TableColumnMapping(row.getId(), source, target));
 		}
 		return results;
 	}
 
-	private void addSynchronizers(Connection connection, RefLog refLog, List<TableColumnMapping> columnMappings) throws SQLException {
+	private void addSynchronizers(StateSnapshot snapshot, RefLog refLog, List<TableColumnMapping> columnMappings) {
 		Map<Long, TableColumnMapping> columnMapping = columnMappings.stream()
 				.collect(Collectors.toMap(TableColumnMapping::getId, Function.identity()));
 
 		Multimap<Long, Long> syncColumnMappings = HashMultimap.create();
-		try (Statement statement = connection.createStatement()) {
-			String query = "SELECT * FROM quantumdb.synchronizer_columns;";
-
-			ResultSet resultSet = statement.executeQuery(query);
-			while (resultSet.next()) {
-				long synchronizerId = resultSet.getLong("synchronizer_id");
-				long columnMappingId = resultSet.getLong("column_mapping_id");
-				syncColumnMappings.put(synchronizerId, columnMappingId);
-			}
+		for (SynchronizerColumnRow row : snapshot.getSynchronizerColumns()) {
+			syncColumnMappings.put(row.getSynchronizerId(), row.getColumnMappingId());
 		}
 
-		try (Statement statement = connection.createStatement()) {
-			String query = "SELECT * FROM quantumdb.synchronizers;";
+		for (SynchronizerRow row : snapshot.getSynchronizers()) {
+			long id = row.getId();
+			String sourceRefId = row.getSourceRefId();
+			String targetRefId = row.getTargetRefId();
+
+			Map<ColumnRef, ColumnRef> mappingsForSynchronizer = syncColumnMappings.get(id).stream()
+					.map(columnMapping::get)
+					.collect(Collectors.toMap(entry -> {
+						TableColumn source = entry.getSource();
+						if (!source.getRefId().getRefId().equals(sourceRefId)) {
+							throw new IllegalStateException("The column mapping of synchronizer: " + id
+									+ " originates to a table: " + source.getRefId().getRefId()
+									+ " other than the source table: " + sourceRefId);
+						}
+						TableRef ref = refLog.getTableRefById(source.getRefId().getRefId());
+						return ref.getColumns().get(source.getColumn());
+					}, entry -> {
+						TableColumn target = entry.getTarget();
+						if (!target.getRefId().getRefId().equals(targetRefId)) {
+							throw new IllegalStateException("The column mapping of synchronizer: " + id
+									+ " targets into a table: " + target.getRefId().getRefId()
+									+ " other than the target table: " + targetRefId);
+						}
+						TableRef ref = refLog.getTableRefById(target.getRefId().getRefId());
+						return ref.getColumns().get(target.getColumn());
+					}));
 
-			ResultSet resultSet = statement.executeQuery(query);
-			while (resultSet.next()) {
-				long id = resultSet.getLong("id");
-				String sourceRefId = resultSet.getString("source_ref_id");
-				String targetRefId = resultSet.getString("target_ref_id");
-				String triggerName = resultSet.getString("trigger_name");
-				String functionName = resultSet.getString("function_name");
-
-				Map<ColumnRef, ColumnRef> mappingsForSynchronizer = syncColumnMappings.get(id).stream()
-						.map(columnMapping::get)
-						.collect(Collectors.toMap(entry -> {
-							TableColumn source = entry.getSource();
-							if (!source.getRefId().getRefId().equals(sourceRefId)) {
-								throw new IllegalStateException("The column mapping of synchronizer: " + id
-										+ " originates to a table: " + source.getRefId().getRefId()
-										+ " other than the source table: " + sourceRefId);
-							}
-							TableRef ref = refLog.getTableRefById(source.getRefId().getRefId());
-							return ref.getColumns().get(source.getColumn());
-						}, entry -> {
-							TableColumn target = entry.getTarget();
-							if (!target.getRefId().getRefId().equals(targetRefId)) {
-								throw new IllegalStateException("The column mapping of synchronizer: " + id
-										+ " targets into a table: " + target.getRefId().getRefId()
-										+ " other than the target table: " + targetRefId);
-							}
-							TableRef ref = refLog.getTableRefById(target.getRefId().getRefId());
-							return ref.getColumns().get(target.getColumn());
-						}));
-
-				if (!mappingsForSynchronizer.isEmpty()) {
-					refLog.addSync(triggerName, functionName, mappingsForSynchronizer);
-				}
+			if (!mappingsForSynchronizer.isEmpty()) {
+				refLog.addSync(row.getTriggerName(), row.getFunctionName(), mappingsForSynchronizer);
 			}
 		}
 	}
 
-	private void setActiveVersions(Connection connection, Changelog changelog, RefLog refLog) throws SQLException {
-		try (Statement statement = connection.createStatement()) {
-			String query = "SELECT * FROM quantumdb.active_versions;";
-
-			Set<String> activeVersions = Sets.newHashSet();
-			ResultSet resultSet = statement.executeQuery(query);
-			while (resultSet.next()) {
-				String versionId = resultSet.getString("version_id");
-				activeVersions.add(versionId);
-			}
+	private void setActiveVersions(StateSnapshot snapshot, Changelog changelog, RefLog refLog) {
+		Set<String> activeVersions = Sets.newHashSet(snapshot.getActiveVersions());
 
-			Version pointer = changelog.getRoot();
-			while (pointer != null) {
-				String versionId = pointer.getId();
-				if (activeVersions.contains(versionId)) {
-					activeVersions.remove(versionId);
-					Version version = changelog.getVersion(versionId);
-					refLog.setVersionState(version, true);
-				}
-				pointer = pointer.getChild();
-			}
-
-			if (!activeVersions.isEmpty()) {
-				throw new IllegalStateException("There's are active versions defined which are not present or " +
-						"reachable in the changelog: " + activeVersions.stream().collect(Collectors.joining(",")));
+		Version pointer = changelog.getRoot();
+		while (pointer != null) {
+			String versionId = pointer.getId();
+			if (activeVersions.contains(versionId)) {
+				activeVersions.remove(versionId);
+				Version version = changelog.getVersion(versionId);
+				refLog.setVersionState(version, true);
 			}
+			pointer = pointer.getChild();
 		}
 
+		if (!activeVersions.isEmpty()) {
+			throw new IllegalStateException("There's are active versions defined which are not present or " +
+					"reachable in the changelog: " + activeVersions.stream().collect(Collectors.joining(",")));
+		}
 	}
 
 }
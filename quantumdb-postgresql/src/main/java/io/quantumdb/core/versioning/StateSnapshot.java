@@ -0,0 +1,259 @@
+package io.quantumdb.core.versioning;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.quantumdb.client.VersionProtocol;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A compact, denormalized copy of all the rows stored in the relational meta-info tables of QuantumDB. The snapshot
+ * is stored as a single gzipped JSON blob in the "quantumdb.state_snapshot" table, tagged with the generation of the
+ * meta-info tables it was taken from. Every write to those tables bumps the generation (see {@link QuantumTables}),
+ * so a snapshot can only be used when nothing has modified the meta-info tables since it was written.
+ */
+@Data
+@Slf4j
+class StateSnapshot {
+
+	/**
+	 * Should be incremented whenever the layout of this class changes, which invalidates all stored snapshots.
+	 */
+	static final int FORMAT = 1;
+
+	@Data
+	static class ChangelogRow {
+		private final String versionId;
+		private final String operationType;
+		private final String operation;
+		private final String parentVersionId;
+	}
+
+	@Data
+	static class ChangeSetRow {
+		private final String id;
+		private final String versionId;
+		private final String description;
+		private final String author;
+		private final long created;
+	}
+
+	@Data
+	static class RefVersionRow {
+		private final String refId;
+		private final String versionId;
+		private final String tableName;
+	}
+
+	@Data
+	static class TableColumnRow {
+		private final long id;
+		private final String refId;
+		private final String column;
+	}
+
+	@Data
+	static class ColumnMappingRow {
+		private final long id;
+		private final long sourceColumnId;
+		private final long targetColumnId;
+	}
+
+	@Data
+	static class SynchronizerRow {
+		private final long id;
+		private final String sourceRefId;
+		private final String targetRefId;
+		private final String triggerName;
+		private final String functionName;
+	}
+
+	@Data
+	static class SynchronizerColumnRow {
+		private final long synchronizerId;
+		private final long columnMappingId;
+	}
+
+	private static final Gson GSON = new Gson();
+
+	private final List<ChangelogRow> changelog = Lists.newArrayList();
+	private final List<ChangeSetRow> changeSets = Lists.newArrayList();
+	private final List<String> refs = Lists.newArrayList();
+	private final List<RefVersionRow> refVersions = Lists.newArrayList();
+	private final List<TableColumnRow> tableColumns = Lists.newArrayList();
+	private final List<ColumnMappingRow> columnMappings = Lists.newArrayList();
+	private final List<SynchronizerRow> synchronizers = Lists.newArrayList();
+	private final List<SynchronizerColumnRow> synchronizerColumns = Lists.newArrayList();
+	private final List<String> activeVersions = Lists.newArrayList();
+
+	/**
+	 * Reads the snapshot from the "quantumdb.state_snapshot" table, if one exists which was taken at the current
+	 * generation of the meta-info tables, and was written using the current format.
+	 *
+	 * @param connection The connection to read the snapshot with.
+	 * @return The stored snapshot, or an empty Optional if there is no usable snapshot.
+	 * @throws SQLException In case the snapshot could not be read.
+	 */
+	static Optional<StateSnapshot> read(Connection connection) throws SQLException {
+		String query = "SELECT s.data FROM quantumdb.state_snapshot s, quantumdb.config c "
+				+ "WHERE c.name = ? AND s.generation = CAST(c.value AS BIGINT) AND s.format = ?;";
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, VersionProtocol.GENERATION_KEY);
+			statement.setInt(2, FORMAT);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (!resultSet.next()) {
+					return Optional.empty();
+				}
+				return Optional.of(decode(resultSet.getBytes("data")));
+			}
+		}
+		catch (IOException | JsonParseException e) {
+			log.warn("Could not decode state snapshot, falling back to meta-info tables.", e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Collects all the rows from the relational meta-info tables.
+	 *
+	 * @param connection The connection to query the meta-info tables with.
+	 * @return A snapshot of the current contents of the meta-info tables.
+	 * @throws SQLException In case the meta-info tables could not be queried.
+	 */
+	static StateSnapshot collect(Connection connection) throws SQLException {
+		StateSnapshot snapshot = new StateSnapshot();
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.changelog;")) {
+				while (resultSet.next()) {
+					snapshot.changelog.add(new ChangelogRow(resultSet.getString("version_id"),
+							resultSet.getString("operation_type"), resultSet.getString("operation"),
+							resultSet.getString("parent_version_id")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.changesets;")) {
+				while (resultSet.next()) {
+					Timestamp created = resultSet.getTimestamp("created");
+					snapshot.changeSets.add(new ChangeSetRow(resultSet.getString("id"),
+							resultSet.getString("version_id"), resultSet.getString("description"),
+							resultSet.getString("author"), created.getTime()));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.refs ORDER BY ref_id ASC;")) {
+				while (resultSet.next()) {
+					snapshot.refs.add(resultSet.getString("ref_id"));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.ref_versions ORDER BY ref_id ASC;")) {
+				while (resultSet.next()) {
+					snapshot.refVersions.add(new RefVersionRow(resultSet.getString("ref_id"),
+							resultSet.getString("version_id"), resultSet.getString("table_name")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.table_columns ORDER BY id ASC;")) {
+				while (resultSet.next()) {
+					snapshot.tableColumns.add(new TableColumnRow(resultSet.getLong("id"),
+							resultSet.getString("ref_id"), resultSet.getString("column_name")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.column_mappings;")) {
+				while (resultSet.next()) {
+					snapshot.columnMappings.add(new ColumnMappingRow(resultSet.getLong("id"),
+							resultSet.getLong("source_column_id"), resultSet.getLong("target_column_id")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.synchronizers;")) {
+				while (resultSet.next()) {
+					snapshot.synchronizers.add(new SynchronizerRow(resultSet.getLong("id"),
+							resultSet.getString("source_ref_id"), resultSet.getString("target_ref_id"),
+							resultSet.getString("trigger_name"), resultSet.getString("function_name")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.synchronizer_columns;")) {
+				while (resultSet.next()) {
+					snapshot.synchronizerColumns.add(new SynchronizerColumnRow(resultSet.getLong("synchronizer_id"),
+							resultSet.getLong("column_mapping_id")));
+				}
+			}
+
+			try (ResultSet resultSet = statement.executeQuery("SELECT * FROM quantumdb.active_versions;")) {
+				while (resultSet.next()) {
+					snapshot.activeVersions.add(resultSet.getString("version_id"));
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Stores this snapshot in the "quantumdb.state_snapshot" table, tagged with the current generation of the
+	 * meta-info tables. This should be called in the same transaction which modified the meta-info tables.
+	 *
+	 * @param connection The connection to write the snapshot with.
+	 * @throws SQLException In case the snapshot could not be written.
+	 */
+	void write(Connection connection) throws SQLException {
+		byte[] data = encode();
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("DELETE FROM quantumdb.state_snapshot;");
+		}
+
+		String query = "INSERT INTO quantumdb.state_snapshot (id, generation, format, data) "
+				+ "SELECT 1, CAST(value AS BIGINT), ?, ? FROM quantumdb.config WHERE name = ?;";
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setInt(1, FORMAT);
+			statement.setBytes(2, data);
+			statement.setString(3, VersionProtocol.GENERATION_KEY);
+			statement.executeUpdate();
+		}
+		log.debug("Stored state snapshot of {} bytes", data.length);
+	}
+
+	byte[] encode() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(output), StandardCharsets.UTF_8)) {
+			GSON.toJson(this, writer);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not encode state snapshot.", e);
+		}
+		return output.toByteArray();
+	}
+
+	static StateSnapshot decode(byte[] data) throws IOException {
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(data)),
+				StandardCharsets.UTF_8)) {
+			return GSON.fromJson(reader, StateSnapshot.class);
+		}
+	}
+
+}
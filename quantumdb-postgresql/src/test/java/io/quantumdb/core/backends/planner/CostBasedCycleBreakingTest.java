@@ -0,0 +1,98 @@
+package io.quantumdb.core.backends.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.AUTO_INCREMENT;
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.bigint;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.date;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.varchar;
+import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+import io.quantumdb.core.backends.planner.Operation.Type;
+import io.quantumdb.core.planner.PostgresqlMigrationPlanner;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.State;
+import io.quantumdb.core.versioning.Version;
+import org.junit.Test;
+
+/**
+ * Verifies that a cycle of foreign keys is broken at the table which is cheapest to copy in two passes.
+ */
+public class CostBasedCycleBreakingTest {
+
+	@Test
+	public void testThatCycleIsBrokenAtTheSmallestTable() {
+		Map<String, Long> copies = countCopies(ImmutableMap.of("stores", 1_000_000L, "staff", 10L));
+
+		assertEquals(Long.valueOf(1), copies.get("stores"));
+		assertEquals(Long.valueOf(2), copies.get("staff"));
+	}
+
+	@Test
+	public void testThatCycleIsBrokenAtTheOtherTableWhenSizesAreReversed() {
+		Map<String, Long> copies = countCopies(ImmutableMap.of("stores", 10L, "staff", 1_000_000L));
+
+		assertEquals(Long.valueOf(2), copies.get("stores"));
+		assertEquals(Long.valueOf(1), copies.get("staff"));
+	}
+
+	/**
+	 * Plans adding a column to "stores", which refers to "staff" through a not nullable foreign key, and vice versa.
+	 *
+	 * @param rows The number of rows of every table.
+	 * @return The number of COPY steps of the ghost table of every table.
+	 */
+	private Map<String, Long> countCopies(Map<String, Long> rows) {
+		Table stores = new Table("stores")
+				.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+				.addColumn(new Column("name", varchar(255), NOT_NULL))
+				.addColumn(new Column("manager_id", bigint(), NOT_NULL));
+
+		Table staff = new Table("staff")
+				.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+				.addColumn(new Column("name", varchar(255), NOT_NULL))
+				.addColumn(new Column("store_id", bigint(), NOT_NULL));
+
+		stores.addForeignKey("manager_id").referencing(staff, "id");
+		staff.addForeignKey("store_id").referencing(stores, "id");
+
+		Catalog catalog = new Catalog("cycle")
+				.addTable(stores)
+				.addTable(staff);
+
+		Changelog changelog = new Changelog();
+		RefLog refLog = RefLog.init(catalog, changelog.getRoot());
+		State state = new State(catalog, refLog, changelog);
+		changelog.addChangeSet("test", "Michael de Jong", addColumn("stores", "opened", date()));
+		Version version = changelog.getLastAdded();
+
+		PostgresqlMigrationPlanner planner = new PostgresqlMigrationPlanner(refId ->
+				Optional.ofNullable(rows.get(refId))
+						.map(count -> new TableStatistics(count, count / 50, ImmutableMap.of("id", 8))));
+
+		Plan plan = planner.createPlan(state, changelog.getRoot(), version);
+		PlanValidator.validate(plan);
+
+		return ImmutableMap.of(
+				"stores", countCopies(plan, refLog.getTableRef(version, "stores").getRefId()),
+				"staff", countCopies(plan, refLog.getTableRef(version, "staff").getRefId()));
+	}
+
+	private long countCopies(Plan plan, String refId) {
+		return plan.getSteps().stream()
+				.map(Step::getOperation)
+				.filter(operation -> operation.getType() == Type.COPY)
+				.filter(operation -> operation.getTables().iterator().next().getName().equals(refId))
+				.count();
+	}
+
+}
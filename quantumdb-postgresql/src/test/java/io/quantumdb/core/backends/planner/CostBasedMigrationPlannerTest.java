@@ -0,0 +1,125 @@
+package io.quantumdb.core.backends.planner;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import io.quantumdb.core.backends.planner.Operation.Type;
+import io.quantumdb.core.planner.PostgresqlMigrationPlanner;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.operations.SchemaOperation;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.RefLog.TableRef;
+import io.quantumdb.core.versioning.State;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ErrorCollector;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Verifies that plans created using table statistics (with widely varying table sizes) are still valid, and that their
+ * steps are executed in order of the most expensive chain of steps depending on them.
+ */
+@Slf4j
+@RunWith(Parameterized.class)
+public class CostBasedMigrationPlannerTest {
+
+	@Rule
+	public ErrorCollector collector = new ErrorCollector();
+
+	@Parameters(name = "{1}")
+	public static Collection<Object[]> data() {
+		return GreedyMigrationPlannerTest.data();
+	}
+
+	private final Plan plan;
+
+	public CostBasedMigrationPlannerTest(Supplier<Catalog> scenario, SchemaOperation operation,
+			int expectedPlanSize, int expectedGhostTables) {
+
+		Changelog changelog = new Changelog();
+		Catalog catalog = scenario.get();
+
+		RefLog refLog = RefLog.init(catalog, changelog.getRoot());
+		State state = new State(catalog, refLog, changelog);
+
+		// Only the existing tables have statistics, and those are referred to by their (fixed) ref IDs.
+		Map<String, String> tableNames = refLog.getTableRefs().stream()
+				.collect(Collectors.toMap(TableRef::getRefId, TableRef::getName));
+
+		changelog.addChangeSet("test", "Michael de Jong", operation);
+
+		PostgresqlMigrationPlanner planner = new PostgresqlMigrationPlanner(refId ->
+				Optional.ofNullable(tableNames.get(refId)).map(CostBasedMigrationPlannerTest::statistics));
+
+		this.plan = planner.createPlan(state, changelog.getRoot(), changelog.getLastAdded());
+		log.info("Constructed migration plan: \n" + plan);
+	}
+
+	/**
+	 * Skews the sizes of tables by several orders of magnitude, depending on their name.
+	 */
+	private static TableStatistics statistics(String tableName) {
+		long rows = (long) Math.pow(10, Math.abs(tableName.hashCode()) % 8);
+		return new TableStatistics(rows, rows / 50, ImmutableMap.of("id", 8));
+	}
+
+	@Test
+	public void testThatPlanIsValid() {
+		PlanValidator.validate(plan);
+	}
+
+	@Test
+	public void testThatCopyStepsHaveCostEstimates() {
+		plan.getSteps().stream()
+				.filter(step -> step.getOperation().getType() == Type.COPY)
+				.forEach(step -> collector.checkThat("No estimate for: " + step, step.getEstimatedCost(),
+						greaterThan(0L)));
+	}
+
+	@Test
+	public void testThatAllStepsAreExecutedAfterTheirDependencies() {
+		Set<Step> executed = Sets.newHashSet();
+		Optional<Step> next;
+		while ((next = plan.nextStep()).isPresent()) {
+			Step step = next.get();
+			collector.checkThat("Dependencies of: " + step + " were not executed",
+					executed.containsAll(step.getDependencies()), is(true));
+
+			step.markAsExecuted();
+			executed.add(step);
+		}
+		collector.checkThat(plan.isExecuted(), is(true));
+	}
+
+	@Test
+	public void testThatTheMostExpensiveChainOfStepsIsExecutedFirst() {
+		Set<Step> executed = Sets.newHashSet();
+		Optional<Step> next;
+		while ((next = plan.nextStep()).isPresent()) {
+			Step step = next.get();
+			long criticalPath = plan.getCriticalPath(step);
+			plan.getSteps().stream()
+					.filter(other -> !executed.contains(other) && executed.containsAll(other.getDependencies()))
+					.forEach(other -> collector.checkThat("Executed: " + step + " before: " + other, criticalPath,
+							greaterThanOrEqualTo(plan.getCriticalPath(other))));
+
+			step.markAsExecuted();
+			executed.add(step);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package io.quantumdb.core.backends.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.AUTO_INCREMENT;
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.bigint;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.date;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.varchar;
+import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.collect.Lists;
+import io.quantumdb.core.planner.PostgresqlMigrationPlanner;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.State;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * A synthetic benchmark which plans a fork touching a large number of interlinked tables. Every table refers to a
+ * "parent" table (forming a tree rooted at the first table), and to a "related" table (interlinking the branches of the
+ * tree). Adding a column to the root table therefore requires every table to be ghosted.
+ *
+ * The number of tables can be changed using the "quantumdb.benchmark.tables" system property.
+ */
+@Slf4j
+public class PlannerScalabilityTest {
+
+	private static final int TABLES = Integer.getInteger("quantumdb.benchmark.tables", 2_000);
+
+	@Test(timeout = 60_000)
+	public void testPlanningForkTouchingThousandsOfTables() {
+		Catalog catalog = createCatalog(TABLES);
+		Changelog changelog = new Changelog();
+		RefLog refLog = RefLog.init(catalog, changelog.getRoot());
+		State state = new State(catalog, refLog, changelog);
+		changelog.addChangeSet("test", "Michael de Jong", addColumn("table_0", "archived", date()));
+
+		long start = System.nanoTime();
+		Plan plan = new PostgresqlMigrationPlanner().createPlan(state, changelog.getRoot(), changelog.getLastAdded());
+		long planned = System.nanoTime();
+		PlanValidator.validate(plan);
+		long validated = System.nanoTime();
+
+		int executed = 0;
+		Optional<Step> next;
+		while ((next = plan.nextStep()).isPresent()) {
+			next.get().markAsExecuted();
+			executed++;
+		}
+		long finished = System.nanoTime();
+
+		log.info("Planned fork touching {} tables into {} steps in {} ms (validated in {} ms, executed in {} ms)",
+				TABLES, plan.getSteps().size(), (planned - start) / 1_000_000, (validated - planned) / 1_000_000,
+				(finished - validated) / 1_000_000);
+
+		assertEquals(TABLES, plan.getGhostTables().size());
+		assertEquals(plan.getSteps().size(), executed);
+		assertTrue(plan.isExecuted());
+	}
+
+	private static Catalog createCatalog(int size) {
+		Catalog catalog = new Catalog("benchmark");
+		List<Table> tables = Lists.newArrayList();
+		for (int i = 0; i < size; i++) {
+			Table table = new Table("table_" + i)
+					.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+					.addColumn(new Column("name", varchar(255), NOT_NULL));
+
+			if (i > 0) {
+				table.addColumn(new Column("parent_id", bigint(), NOT_NULL));
+				table.addColumn(new Column("related_id", bigint()));
+			}
+
+			catalog.addTable(table);
+			tables.add(table);
+		}
+
+		for (int i = 1; i < size; i++) {
+			Table table = tables.get(i);
+			table.addForeignKey("parent_id").referencing(tables.get((i - 1) / 2), "id");
+			table.addForeignKey("related_id").referencing(tables.get(i / 3), "id");
+		}
+
+		return catalog;
+	}
+
+}
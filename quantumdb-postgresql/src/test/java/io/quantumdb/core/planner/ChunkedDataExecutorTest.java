@@ -0,0 +1,217 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.bigint;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.text;
+import static io.quantumdb.core.schema.operations.SchemaOperations.execute;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.schema.operations.DataOperation;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedDataExecutorTest {
+
+	private static final String QUERY = "UPDATE \"users_a1\" SET name = 'Unknown' WHERE id >= ? AND id < ?;";
+	private static final String SESSION_PROFILE = "SELECT set_config(?, ?, false), set_config(?, ?, false);";
+
+	private Connection connection;
+	private PreparedStatement chunk;
+	private PreparedStatement readCheckpoint;
+	private PreparedStatement writeCheckpoint;
+	private Statement statement;
+	private PreparedStatement profile;
+	private ChunkedDataExecutor executor;
+	private Version version;
+
+	@Before
+	public void setUp() throws SQLException {
+		this.connection = mock(Connection.class);
+		this.chunk = mock(PreparedStatement.class);
+		this.readCheckpoint = mock(PreparedStatement.class);
+		this.writeCheckpoint = mock(PreparedStatement.class);
+
+		when(connection.prepareStatement(QUERY)).thenReturn(chunk);
+		when(connection.prepareStatement("SELECT value FROM quantumdb.config WHERE name = ?;"))
+				.thenReturn(readCheckpoint);
+		when(connection.prepareStatement("UPDATE quantumdb.config SET value = ? WHERE name = ?;"))
+				.thenReturn(writeCheckpoint);
+		when(writeCheckpoint.executeUpdate()).thenReturn(1);
+		this.profile = mock(PreparedStatement.class);
+		when(connection.prepareStatement(startsWith("SELECT set_config("))).thenReturn(profile);
+
+		ResultSet lowest = key(1);
+		ResultSet highest = key(25);
+		this.statement = mock(Statement.class);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery("SELECT MIN(\"id\") FROM \"users_a1\";")).thenReturn(lowest);
+		when(statement.executeQuery("SELECT MAX(\"id\") FROM \"users_a1\";")).thenReturn(highest);
+
+		this.executor = new ChunkedDataExecutor(new Config().setDataChunkDelayMillis(0));
+		this.version = new Version("a1b2c3d4e5", null);
+	}
+
+	private ResultSet key(long value) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(true);
+		when(resultSet.getLong(1)).thenReturn(value);
+		return resultSet;
+	}
+
+	private void checkpoint(String value) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(value != null);
+		when(resultSet.getString("value")).thenReturn(value);
+		when(readCheckpoint.executeQuery()).thenReturn(resultSet);
+	}
+
+	@Test
+	public void testThatEveryChunkIsCommittedWithItsCheckpoint() throws SQLException, InterruptedException {
+		checkpoint(null);
+		executor.execute(connection, version, QUERY, "users_a1", "id", 10);
+
+		verify(chunk).setLong(1, 1);
+		verify(chunk).setLong(2, 11);
+		verify(chunk).setLong(1, 11);
+		verify(chunk).setLong(2, 21);
+		verify(chunk).setLong(1, 21);
+		verify(chunk).setLong(2, 26);
+		verify(chunk, times(3)).execute();
+
+		verify(writeCheckpoint).setString(1, "11");
+		verify(writeCheckpoint).setString(1, "21");
+		verify(writeCheckpoint).setString(1, "26");
+		verify(writeCheckpoint).setString(1, ChunkedDataExecutor.COMPLETED);
+		verify(writeCheckpoint, times(4)).setString(2, "data_checkpoint_a1b2c3d4e5");
+		verify(connection, times(4)).commit();
+	}
+
+	@Test
+	public void testThatExecutionResumesFromCheckpoint() throws SQLException, InterruptedException {
+		checkpoint("21");
+		executor.execute(connection, version, QUERY, "users_a1", "id", 10);
+
+		verify(chunk, never()).setLong(1, 1);
+		verify(chunk).setLong(1, 21);
+		verify(chunk).setLong(2, 26);
+		verify(chunk, times(1)).execute();
+	}
+
+	@Test
+	public void testThatCompletedDataChangesAreSkipped() throws SQLException, InterruptedException {
+		checkpoint(ChunkedDataExecutor.COMPLETED);
+		executor.execute(connection, version, QUERY, "users_a1", "id", 10);
+		executor.execute(connection, version, QUERY);
+
+		verify(connection, never()).prepareStatement(QUERY);
+		verify(connection, never()).commit();
+	}
+
+	@Test
+	public void testThatChunksDoNotOverflowNearTheLargestKey() throws SQLException, InterruptedException {
+		checkpoint(Long.toString(Long.MAX_VALUE - 15));
+		ResultSet highest = key(Long.MAX_VALUE);
+		when(connection.createStatement().executeQuery("SELECT MAX(\"id\") FROM \"users_a1\";")).thenReturn(highest);
+
+		executor.execute(connection, version, QUERY, "users_a1", "id", 10);
+
+		verify(chunk).setLong(1, Long.MAX_VALUE - 15);
+		verify(chunk).setLong(2, Long.MAX_VALUE - 5);
+		verify(chunk).setLong(1, Long.MAX_VALUE - 5);
+		verify(chunk).setLong(2, Long.MAX_VALUE);
+		verify(chunk, times(2)).execute();
+		verify(writeCheckpoint).setString(1, ChunkedDataExecutor.COMPLETED);
+	}
+
+	@Test
+	public void testThatChunksEndAtTheHighestKey() {
+		assertEquals(11, ChunkedDataExecutor.getUpperBound(1, 25, 10));
+		assertEquals(26, ChunkedDataExecutor.getUpperBound(21, 25, 10));
+		assertEquals(Long.MAX_VALUE, ChunkedDataExecutor.getUpperBound(Long.MAX_VALUE - 5, Long.MAX_VALUE, 10));
+		assertEquals(Long.MIN_VALUE + 10, ChunkedDataExecutor.getUpperBound(Long.MIN_VALUE, Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	public void testThatFailingChunkIsRolledBack() throws SQLException, InterruptedException {
+		checkpoint("11");
+		when(chunk.execute()).thenThrow(new SQLException("canceling statement", "57014"));
+
+		try {
+			executor.execute(connection, version, QUERY, "users_a1", "id", 10);
+			fail("Expected a SQLException");
+		}
+		catch (SQLException e) {
+			verify(connection).rollback();
+			verify(connection, never()).commit();
+		}
+	}
+
+	@Test
+	public void testThatDataChangesInASingleTransactionUseTheSessionProfile() throws SQLException,
+			InterruptedException {
+
+		Map<Version, DataOperation> operations = new LinkedHashMap<>();
+		operations.put(version, execute("UPDATE users_a1 SET name = 'Unknown' WHERE name IS NULL;"));
+		executeDataOperations(operations);
+
+		verify(connection).prepareStatement(SESSION_PROFILE);
+		verify(profile).setString(2, "64MB");
+		verify(profile).execute();
+		verify(connection, times(1)).commit();
+	}
+
+	@Test
+	public void testThatMixedDataChangesUseTheSessionProfile() throws SQLException, InterruptedException {
+		checkpoint(null);
+
+		Map<Version, DataOperation> operations = new LinkedHashMap<>();
+		operations.put(version, execute("UPDATE users_a1 SET name = 'Unknown' WHERE name IS NULL;"));
+		operations.put(new Version("f6e5d4c3b2", null), execute(QUERY).chunkedBy("users_a1", "id", 10));
+		executeDataOperations(operations);
+
+		verify(connection, times(2)).prepareStatement(SESSION_PROFILE);
+		verify(profile, times(2)).setString(2, "64MB");
+		verify(profile, times(2)).execute();
+	}
+
+	private void executeDataOperations(Map<Version, DataOperation> operations) throws SQLException,
+			InterruptedException {
+
+		Catalog catalog = new Catalog("test-db")
+				.addTable(new Table("users_a1")
+						.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY))
+						.addColumn(new Column("name", text())));
+
+		Changelog changelog = new Changelog();
+		RefLog refLog = RefLog.init(catalog, changelog.getRoot());
+		Config config = new Config()
+				.setDataChunkDelayMillis(0)
+				.setBackfillWorkMem("64MB");
+
+		PostgresqlMigrator.executeDataOperations(connection, config, refLog, changelog.getRoot(), operations);
+	}
+
+}
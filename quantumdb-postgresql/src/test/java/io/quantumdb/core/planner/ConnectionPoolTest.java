@@ -0,0 +1,112 @@
+package io.quantumdb.core.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionPoolTest {
+
+	private List<Connection> connections;
+	private Statement statement;
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp() {
+		this.connections = Lists.newArrayList();
+		this.statement = mock(Statement.class);
+		this.pool = new ConnectionPool(() -> {
+			Connection connection = mock(Connection.class);
+			when(connection.createStatement()).thenReturn(statement);
+			when(connection.getAutoCommit()).thenReturn(true);
+			connections.add(connection);
+			return connection;
+		}, "SET SCHEMA 'public';", 2);
+	}
+
+	@Test
+	public void testThatReleasedConnectionsAreReused() throws SQLException {
+		Connection first = pool.lease();
+		first.close();
+		assertTrue(first.isClosed());
+
+		Connection second = pool.lease();
+		second.close();
+
+		assertEquals(1, pool.getOpenedConnections());
+		verify(connections.get(0), never()).close();
+	}
+
+	@Test
+	public void testThatSessionsAreInitializedAndReset() throws SQLException {
+		Connection connection = pool.lease();
+		verify(statement).execute("SET SCHEMA 'public';");
+
+		connection.close();
+		verify(statement).execute("RESET ALL;");
+		verify(statement, times(2)).execute("SET SCHEMA 'public';");
+	}
+
+	@Test
+	public void testThatOpenTransactionsAreRolledBackOnRelease() throws SQLException {
+		Connection connection = pool.lease();
+		Connection physicalConnection = connections.get(0);
+		when(physicalConnection.getAutoCommit()).thenReturn(false);
+
+		connection.close();
+
+		verify(physicalConnection).rollback();
+		verify(physicalConnection).setAutoCommit(true);
+	}
+
+	@Test
+	public void testThatSurplusConnectionsAreClosed() throws SQLException {
+		Connection first = pool.lease();
+		Connection second = pool.lease();
+		Connection third = pool.lease();
+		first.close();
+		second.close();
+		third.close();
+
+		assertEquals(3, pool.getOpenedConnections());
+		assertEquals(2, pool.getIdleConnections());
+		verify(connections.get(2)).close();
+	}
+
+	@Test
+	public void testThatWarmUpOpensConnectionsUpFront() throws SQLException {
+		pool.warmUp(5);
+
+		assertEquals(2, pool.getOpenedConnections());
+		assertEquals(2, pool.getIdleConnections());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testThatClosedConnectionsCannotBeUsed() throws SQLException {
+		Connection connection = pool.lease();
+		connection.close();
+		connection.createStatement();
+	}
+
+	@Test
+	public void testThatClosingThePoolClosesIdleConnections() throws SQLException {
+		pool.warmUp(2);
+		pool.close();
+
+		verify(connections.get(0)).close();
+		verify(connections.get(1)).close();
+	}
+
+}
@@ -0,0 +1,175 @@
+package io.quantumdb.core.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+import io.quantumdb.core.backends.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class DdlExecutorTest {
+
+	private Connection connection;
+	private Statement statement;
+	private DdlExecutor executor;
+
+	@Before
+	public void setUp() throws SQLException {
+		Config config = new Config();
+		config.setDdlLockTimeoutMillis(500);
+		config.setDdlMaximumRetries(2);
+
+		this.statement = mock(Statement.class);
+		this.connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		when(connection.getAutoCommit()).thenReturn(true);
+
+		this.executor = new DdlExecutor(config);
+	}
+
+	@Test
+	public void testThatStatementsAreBatchedWithLockTimeout() throws SQLException {
+		executor.execute(connection, "DROP TRIGGER a ON b;", "DROP FUNCTION a();");
+
+		InOrder inOrder = inOrder(connection, statement);
+		inOrder.verify(connection).setAutoCommit(false);
+		inOrder.verify(statement).addBatch("SET LOCAL lock_timeout = '500ms';");
+		inOrder.verify(statement).addBatch("DROP TRIGGER a ON b;");
+		inOrder.verify(statement).addBatch("DROP FUNCTION a();");
+		inOrder.verify(statement).executeBatch();
+		inOrder.verify(connection).commit();
+		inOrder.verify(connection).setAutoCommit(true);
+
+		assertEquals(1, executor.getTimings().size());
+		assertEquals(1, executor.getTimings().get(0).getAttempts());
+	}
+
+	@Test
+	public void testThatLockTimeoutsAreRetried() throws SQLException {
+		when(statement.executeBatch())
+				.thenThrow(new BatchUpdateException("canceling statement due to lock timeout", "55P03", new int[0]))
+				.thenReturn(new int[0]);
+
+		executor.execute(connection, "DROP TABLE a CASCADE;");
+
+		verify(statement, times(2)).executeBatch();
+		verify(connection).rollback();
+		verify(connection).commit();
+		assertEquals(2, executor.getTimings().get(0).getAttempts());
+	}
+
+	@Test
+	public void testThatRetriesAreLimited() throws SQLException {
+		when(statement.executeBatch())
+				.thenThrow(new BatchUpdateException("canceling statement due to lock timeout", "55P03", new int[0]));
+
+		try {
+			executor.execute(connection, "DROP TABLE a CASCADE;");
+		}
+		catch (SQLException e) {
+			verify(statement, times(3)).executeBatch();
+			verify(connection, never()).commit();
+			assertTrue(executor.getTimings().isEmpty());
+			return;
+		}
+		throw new AssertionError("Expected a SQLException");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testThatOtherErrorsAreNotRetried() throws SQLException {
+		when(statement.executeBatch()).thenThrow(new SQLException("syntax error", "42601"));
+
+		try {
+			executor.execute(connection, "DROP TABEL a;");
+		}
+		finally {
+			verify(statement, times(1)).executeBatch();
+			verify(connection).rollback();
+		}
+	}
+
+	@Test
+	public void testThatOnlyTheBatchIsRolledBackWithinATransaction() throws SQLException {
+		Savepoint savepoint = mock(Savepoint.class);
+		when(connection.getAutoCommit()).thenReturn(false);
+		when(connection.setSavepoint()).thenReturn(savepoint);
+		lockTimeout("0");
+		when(statement.executeBatch())
+				.thenThrow(new BatchUpdateException("canceling statement due to lock timeout", "55P03", new int[0]))
+				.thenReturn(new int[0]);
+
+		executor.execute(connection, "DROP TABLE a CASCADE;");
+
+		verify(connection).rollback(savepoint);
+		verify(connection).releaseSavepoint(savepoint);
+		verify(connection, never()).rollback();
+		verify(connection, never()).commit();
+		verify(connection, never()).setAutoCommit(true);
+	}
+
+	@Test
+	public void testThatTheLockTimeoutIsRestoredWithinATransaction() throws SQLException {
+		when(connection.getAutoCommit()).thenReturn(false);
+		when(connection.setSavepoint()).thenReturn(mock(Savepoint.class));
+		lockTimeout("1min");
+
+		executor.execute(connection, "DROP TABLE a CASCADE;");
+
+		InOrder inOrder = inOrder(statement);
+		inOrder.verify(statement).addBatch("SET LOCAL lock_timeout = '500ms';");
+		inOrder.verify(statement).addBatch("DROP TABLE a CASCADE;");
+		inOrder.verify(statement).addBatch("SET LOCAL lock_timeout = '1min';");
+		inOrder.verify(statement).executeBatch();
+	}
+
+	@Test
+	public void testThatConcurrentStatementsAreExecutedOnTheirOwn() throws SQLException {
+		executor.executeConcurrently(connection, "CREATE INDEX CONCURRENTLY a ON b (c);");
+
+		verify(statement).execute("CREATE INDEX CONCURRENTLY a ON b (c);");
+		verify(statement, never()).executeBatch();
+		verify(connection, never()).setAutoCommit(false);
+	}
+
+	@Test
+	public void testThatBackoffIsJitteredAndBounded() {
+		for (int attempt = 1; attempt < 40; attempt++) {
+			long ceiling = Math.min(10_000, 100L << Math.min(attempt - 1, 16));
+			long backoff = DdlExecutor.getBackoffMillis(attempt);
+			assertTrue(backoff >= ceiling / 2);
+			assertTrue(backoff <= ceiling);
+		}
+	}
+
+	@Test
+	public void testThatChainedLockTimeoutsAreDetected() {
+		SQLException e = new BatchUpdateException("Batch entry 1 was aborted", "", new int[0]);
+		e.setNextException(new SQLException("canceling statement due to lock timeout", "55P03"));
+
+		assertTrue(DdlExecutor.isLockTimeout(e));
+		assertFalse(DdlExecutor.isLockTimeout(new SQLException("deadlock detected", "40P01")));
+	}
+
+	private void lockTimeout(String value) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(true);
+		when(resultSet.getString(1)).thenReturn(value);
+		when(statement.executeQuery("SHOW lock_timeout;")).thenReturn(resultSet);
+	}
+
+}
@@ -0,0 +1,126 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.AUTO_INCREMENT;
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.bigint;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.date;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.text;
+import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
+import static io.quantumdb.core.schema.operations.SchemaOperations.alterColumn;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import io.quantumdb.core.backends.planner.Plan;
+import io.quantumdb.core.backends.planner.PlanValidator;
+import io.quantumdb.core.backends.planner.StatisticsProvider;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.ForeignKey;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.schema.operations.SchemaOperation;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.State;
+import io.quantumdb.core.versioning.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForeignKeyRepointerTest {
+
+	private Catalog catalog;
+	private Changelog changelog;
+	private RefLog refLog;
+	private State state;
+
+	@Before
+	public void setUp() {
+		Table customers = new Table("customers")
+				.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+				.addColumn(new Column("name", text(), NOT_NULL));
+
+		Table payments = new Table("payments")
+				.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+				.addColumn(new Column("customer_id", bigint(), NOT_NULL));
+
+		Table rentals = new Table("rentals")
+				.addColumn(new Column("id", bigint(), NOT_NULL, PRIMARY_KEY, AUTO_INCREMENT))
+				.addColumn(new Column("payment_id", bigint(), NOT_NULL));
+
+		catalog = new Catalog("test-db")
+				.addTable(customers)
+				.addTable(payments)
+				.addTable(rentals);
+
+		payments.addForeignKey("customer_id").referencing(customers, "id");
+		rentals.addForeignKey("payment_id").referencing(payments, "id");
+
+		changelog = new Changelog();
+		refLog = RefLog.init(catalog, changelog.getRoot());
+		state = new State(catalog, refLog, changelog);
+	}
+
+	private Plan plan(boolean lazyForeignKeyMirroring, SchemaOperation operation) {
+		changelog.addChangeSet("test", "Michael de Jong", operation);
+		Plan plan = new PostgresqlMigrationPlanner(StatisticsProvider.NONE, lazyForeignKeyMirroring)
+				.createPlan(state, changelog.getRoot(), changelog.getLastAdded());
+
+		PlanValidator.validate(plan);
+		return plan;
+	}
+
+	@Test
+	public void testThatOnlyChangedTableIsGhostedWhenMirroringLazily() {
+		Plan plan = plan(true, addColumn("customers", "registered", date()));
+		Version to = changelog.getLastAdded();
+
+		assertEquals(1, plan.getGhostTables().size());
+		assertEquals("payments", refLog.getTableRef(to, "payments").getRefId());
+		assertEquals("rentals", refLog.getTableRef(to, "rentals").getRefId());
+	}
+
+	@Test
+	public void testThatForeignKeysOfSharedTablesArePointedToGhostTable() {
+		plan(true, addColumn("customers", "registered", date()));
+		Version from = changelog.getRoot();
+		Version to = changelog.getLastAdded();
+
+		List<ForeignKey> repointed = ForeignKeyRepointer.repoint(catalog, refLog, from, to);
+		String ghostRefId = refLog.getTableRef(to, "customers").getRefId();
+
+		assertEquals(1, repointed.size());
+		ForeignKey foreignKey = repointed.get(0);
+		assertEquals("payments", foreignKey.getReferencingTableName());
+		assertEquals(ghostRefId, foreignKey.getReferredTableName());
+		assertEquals(Lists.newArrayList("customer_id"), foreignKey.getReferencingColumns());
+		assertEquals(Lists.newArrayList("id"), foreignKey.getReferredColumns());
+
+		// The original foreign key remains in place until the original table is dropped.
+		assertEquals(2, catalog.getTable("payments").getForeignKeys().size());
+		assertTrue(ForeignKeyRepointer.repoint(catalog, refLog, from, to).isEmpty());
+	}
+
+	@Test
+	public void testThatRenamedReferredColumnsAreMapped() {
+		plan(true, alterColumn("customers", "id").rename("customer_id"));
+
+		List<ForeignKey> repointed = ForeignKeyRepointer.repoint(catalog, refLog, changelog.getRoot(),
+				changelog.getLastAdded());
+
+		assertEquals(1, repointed.size());
+		assertEquals(Lists.newArrayList("customer_id"), repointed.get(0).getReferredColumns());
+	}
+
+	@Test
+	public void testThatNothingIsRepointedWhenMirroringTransitively() {
+		Plan plan = plan(false, addColumn("customers", "registered", date()));
+
+		assertEquals(3, plan.getGhostTables().size());
+		assertTrue(ForeignKeyRepointer.repoint(catalog, refLog, changelog.getRoot(), changelog.getLastAdded())
+				.isEmpty());
+	}
+
+}
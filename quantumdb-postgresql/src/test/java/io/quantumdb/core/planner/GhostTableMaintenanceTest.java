@@ -0,0 +1,89 @@
+package io.quantumdb.core.planner;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import io.quantumdb.core.backends.Config;
+import io.quantumdb.core.schema.definitions.Table;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GhostTableMaintenanceTest {
+
+	private PostgresqlBackend backend;
+	private Statement statement;
+	private PreparedStatement profile;
+	private List<Table> tables;
+
+	@Before
+	public void setUp() throws SQLException {
+		this.statement = mock(Statement.class);
+		Connection connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		this.profile = mock(PreparedStatement.class);
+		when(connection.prepareStatement(startsWith("SELECT set_config("))).thenReturn(profile);
+
+		this.backend = mock(PostgresqlBackend.class);
+		when(backend.connect()).thenReturn(connection);
+
+		this.tables = Lists.newArrayList(new Table("table_a"), new Table("table_b"));
+	}
+
+	@Test
+	public void testThatGhostTablesAreAnalyzedByDefault() throws SQLException {
+		Config config = new Config().setGhostTableMaintenanceConnections(1);
+		new GhostTableMaintenance(backend, config).run(tables);
+
+		verify(statement).execute("ANALYZE \"table_a\";");
+		verify(statement).execute("ANALYZE \"table_b\";");
+	}
+
+	@Test
+	public void testThatGhostTablesCanBeVacuumed() throws SQLException {
+		Config config = new Config()
+				.setGhostTableMaintenanceConnections(1)
+				.setGhostTableMaintenanceCostDelayMillis(2)
+				.setGhostTableVacuumEnabled(true);
+
+		new GhostTableMaintenance(backend, config).run(tables);
+
+		verify(profile).setString(5, "vacuum_cost_delay");
+		verify(profile).setString(6, "2ms");
+		verify(profile).execute();
+		verify(statement).execute("VACUUM (FREEZE, ANALYZE) \"table_a\";");
+		verify(statement).execute("VACUUM (FREEZE, ANALYZE) \"table_b\";");
+		verify(statement, never()).execute("ANALYZE \"table_a\";");
+	}
+
+	@Test
+	public void testThatFailuresDoNotAbortMaintenance() throws SQLException {
+		when(statement.execute("ANALYZE \"table_a\";")).thenThrow(new SQLException("canceling statement", "57014"));
+
+		Config config = new Config().setGhostTableMaintenanceConnections(1);
+		new GhostTableMaintenance(backend, config).run(tables);
+
+		verify(statement).execute("ANALYZE \"table_b\";");
+	}
+
+	@Test
+	public void testThatMaintenanceCanBeDisabled() throws SQLException {
+		Config config = new Config().setGhostTableAnalyzeEnabled(false);
+		new GhostTableMaintenance(backend, config).run(tables);
+
+		verifyNoInteractions(backend);
+		verify(statement, never()).execute(anyString());
+	}
+
+}
@@ -0,0 +1,140 @@
+package io.quantumdb.core.planner;
+
+import static io.quantumdb.core.schema.definitions.Column.Hint.AUTO_INCREMENT;
+import static io.quantumdb.core.schema.definitions.Column.Hint.NOT_NULL;
+import static io.quantumdb.core.schema.definitions.Column.Hint.PRIMARY_KEY;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.bigint;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.date;
+import static io.quantumdb.core.schema.definitions.PostgresTypes.text;
+import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.quantumdb.core.backends.planner.Plan;
+import io.quantumdb.core.backends.planner.TableStatistics;
+import io.quantumdb.core.planner.MigrationEstimate.StepEstimate;
+import io.quantumdb.core.schema.definitions.Catalog;
+import io.quantumdb.core.schema.definitions.Column;
+import io.quantumdb.core.schema.definitions.Index;
+import io.quantumdb.core.schema.definitions.Table;
+import io.quantumdb.core.versioning.Changelog;
+import io.quantumdb.core.versioning.RefLog;
+import io.quantumdb.core.versioning.State;
+import io.quantumdb.core.versioning.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MigrationEstimatorTest {
+
+	private static final TableStatistics USERS = new TableStatistics(1_000_000, 20_000,
+			ImmutableMap.of("id", 8, "name", 20));
+
+	private RefLog refLog;
+	private Version from;
+	private Version to;
+	private Plan plan;
+
+	@Before
+	public void setUp() {
+		Catalog catalog = new Catalog("test-db")
+				.addTable(new Table("users")
+						.addColumn(new Column("id", bigint(), PRIMARY_KEY, AUTO_INCREMENT))
+						.addColumn(new Column("name", text(), NOT_NULL))
+						.addIndex(new Index("users_name_idx", Lists.newArrayList("name"), false)));
+
+		Changelog changelog = new Changelog();
+		refLog = RefLog.init(catalog, changelog.getRoot());
+		State state = new State(catalog, refLog, changelog);
+		changelog.addChangeSet("test", "Michael de Jong", addColumn("users", "registered", date()));
+
+		from = changelog.getRoot();
+		to = changelog.getLastAdded();
+		plan = new PostgresqlMigrationPlanner().createPlan(state, from, to);
+	}
+
+	private MigrationEstimate estimate(long copyBytesPerSecond) {
+		MigrationEstimator estimator = new MigrationEstimator(
+				refId -> "users".equals(refId) ? Optional.of(USERS) : Optional.empty(), refLog, from, to);
+
+		return estimator.estimate(plan, copyBytesPerSecond, false);
+	}
+
+	@Test
+	public void testThatCopiedRowsAndBytesAreEstimatedFromStatistics() {
+		MigrationEstimate estimate = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND);
+		StepEstimate copy = estimate.getSteps().stream()
+				.filter(step -> step.getOperation().equals("COPY"))
+				.findFirst()
+				.get();
+
+		long copiedWidth = TableStatistics.ROW_OVERHEAD + 8 + 20 + TableStatistics.DEFAULT_COLUMN_WIDTH;
+		assertEquals(1_000_000, copy.getRows());
+		assertEquals(1_000_000 * copiedWidth, copy.getBytes());
+		assertTrue(copy.getWalBytes() > copy.getBytes());
+		assertTrue(copy.getIndexBytes() > 0);
+		assertTrue(copy.getWallMillis() > 0);
+	}
+
+	@Test
+	public void testThatIndexBuildsAreEstimated() {
+		MigrationEstimate estimate = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND);
+		StepEstimate index = estimate.getSteps().stream()
+				.filter(step -> step.getOperation().equals("CREATE INDEX"))
+				.findFirst()
+				.get();
+
+		long expected = (long) (1_000_000 * (MigrationEstimator.INDEX_TUPLE_OVERHEAD + 20)
+				/ MigrationEstimator.INDEX_FILL_FACTOR);
+
+		assertEquals(expected, index.getIndexBytes());
+		assertThat(index.getTable(), containsString("users"));
+	}
+
+	@Test
+	public void testThatDurationScalesWithThroughput() {
+		long slow = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND / 4).getTotal().getWallMillis();
+		long fast = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND).getTotal().getWallMillis();
+		assertTrue(slow > fast);
+	}
+
+	@Test
+	public void testThatTotalSumsAllSteps() {
+		MigrationEstimate estimate = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND);
+		long bytes = estimate.getSteps().stream().mapToLong(StepEstimate::getBytes).sum();
+		assertEquals(bytes, estimate.getTotal().getBytes());
+	}
+
+	@Test
+	public void testRenderingAsTableAndJson() {
+		MigrationEstimate estimate = estimate(MigrationEstimator.DEFAULT_COPY_BYTES_PER_SECOND);
+
+		String table = estimate.toTable();
+		assertThat(table, containsString("Operation"));
+		assertThat(table, containsString("TOTAL"));
+		assertThat(table, containsString("not calibrated"));
+
+		JsonObject json = new JsonParser().parse(estimate.toJson()).getAsJsonObject();
+		assertEquals(estimate.getSteps().size(), json.getAsJsonArray("steps").size());
+		assertEquals(estimate.getTotal().getBytes(), json.getAsJsonObject("total").get("bytes").getAsLong());
+	}
+
+	@Test
+	public void testFormatting() {
+		assertEquals("512 B", MigrationEstimate.formatBytes(512));
+		assertEquals("1.5 kB", MigrationEstimate.formatBytes(1_536));
+		assertEquals("2.0 GB", MigrationEstimate.formatBytes(2L * 1024 * 1024 * 1024));
+		assertEquals("250 ms", MigrationEstimate.formatMillis(250));
+		assertEquals("42 s", MigrationEstimate.formatMillis(42_000));
+		assertEquals("2m 05s", MigrationEstimate.formatMillis(125_000));
+		assertEquals("1h 01m", MigrationEstimate.formatMillis(3_660_000));
+	}
+
+}
@@ -0,0 +1,125 @@
+package io.quantumdb.core.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.quantumdb.core.backends.Config;
+import org.junit.Test;
+
+public class SessionProfileTest {
+
+	@Test
+	public void testDefaultProfile() {
+		SessionProfile profile = SessionProfile.backfill(new Config());
+		assertEquals("synchronous_commit=off, application_name=quantumdb-backfill", profile.toString());
+	}
+
+	@Test
+	public void testConfiguredProfile() {
+		Config config = new Config()
+				.setBackfillSynchronousCommit(true)
+				.setBackfillWorkMem("64MB")
+				.setBackfillMaintenanceWorkMem("1GB")
+				.setBackfillStatementTimeoutMillis(60_000L)
+				.setBackfillIdleInTransactionTimeoutMillis(10_000L)
+				.setBackfillApplicationName(null);
+
+		SessionProfile profile = SessionProfile.backfill(config);
+		assertEquals("work_mem=64MB, maintenance_work_mem=1GB, statement_timeout=60000ms, "
+				+ "idle_in_transaction_session_timeout=10000ms", profile.toString());
+	}
+
+	@Test
+	public void testOverridingSettings() {
+		Config config = new Config()
+				.setBackfillMaintenanceWorkMem("1GB")
+				.setBackfillStatementTimeoutMillis(60_000L);
+
+		SessionProfile profile = SessionProfile.backfill(config)
+				.without(SessionProfile.STATEMENT_TIMEOUT)
+				.with(SessionProfile.MAINTENANCE_WORK_MEM, "2GB")
+				.with(SessionProfile.WORK_MEM, null);
+
+		assertEquals("synchronous_commit=off, maintenance_work_mem=2GB, application_name=quantumdb-backfill",
+				profile.toString());
+	}
+
+	@Test
+	public void testDataChangesProfile() {
+		Config config = new Config()
+				.setBackfillWorkMem("64MB")
+				.setBackfillStatementTimeoutMillis(60_000L);
+
+		SessionProfile profile = SessionProfile.dataChanges(config);
+		assertEquals("work_mem=64MB, application_name=quantumdb-backfill", profile.toString());
+	}
+
+	@Test
+	public void testApplyingProfile() throws SQLException {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement("SELECT set_config(?, ?, false), set_config(?, ?, false), "
+				+ "set_config(?, ?, false);")).thenReturn(statement);
+
+		Config config = new Config().setBackfillWorkMem("64MB");
+		SessionProfile.backfill(config).apply(connection);
+
+		verify(statement).setString(1, "synchronous_commit");
+		verify(statement).setString(2, "off");
+		verify(statement).setString(3, "work_mem");
+		verify(statement).setString(4, "64MB");
+		verify(statement).setString(5, "application_name");
+		verify(statement).setString(6, "quantumdb-backfill");
+		verify(statement).execute();
+	}
+
+	@Test
+	public void testThatValuesAreBoundAsParameters() throws SQLException {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement("SELECT set_config(?, ?, false);")).thenReturn(statement);
+
+		Config config = new Config()
+				.setBackfillSynchronousCommit(true)
+				.setBackfillApplicationName(null);
+
+		// Values loaded from a configuration file are not validated by the Config.
+		SessionProfile.backfill(config)
+				.with(SessionProfile.WORK_MEM, "64MB'; DROP TABLE users; --")
+				.apply(connection);
+
+		verify(statement).setString(1, "work_mem");
+		verify(statement).setString(2, "64MB'; DROP TABLE users; --");
+		verify(statement).execute();
+	}
+
+	@Test
+	public void testApplyingEmptyProfile() throws SQLException {
+		Connection connection = mock(Connection.class);
+
+		Config config = new Config()
+				.setBackfillSynchronousCommit(true)
+				.setBackfillApplicationName(null);
+
+		SessionProfile.backfill(config).apply(connection);
+		verifyNoInteractions(connection);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThatInvalidMemorySettingsAreRejected() {
+		new Config().setBackfillWorkMem("64MB'; DROP TABLE users; --");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThatInvalidApplicationNamesAreRejected() {
+		new Config().setBackfillApplicationName("it's");
+	}
+
+}
@@ -6,9 +6,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import io.quantumdb.core.backends.Config;
 import io.quantumdb.core.backends.PostgresqlDatabase;
 import io.quantumdb.core.schema.definitions.Catalog;
 import io.quantumdb.core.schema.definitions.Column;
@@ -167,6 +169,41 @@ public class TableCreatorTest {
 		}
 	}
 
+	@Test
+	public void testCreatingIndicesInParallel() throws SQLException {
+		Config config = database.getConfig()
+				.setIndexBuildConnections(2)
+				.setIndexMaintenanceWorkMem("64MB")
+				.setIndexMaxParallelWorkers(0);
+
+		List<Table> tables = Lists.newArrayList();
+		for (String name : Lists.newArrayList("users", "posts", "comments")) {
+			tables.add(new Table(name)
+					.addColumn(new Column("id", PostgresTypes.bigint(), Hint.PRIMARY_KEY, Hint.AUTO_INCREMENT))
+					.addColumn(new Column("title", PostgresTypes.text(), Hint.NOT_NULL))
+					.addIndex(new Index(name + "_title_idx", Lists.newArrayList("title"), false))
+					.addIndex(new Index(name + "_id_title_idx", Lists.newArrayList("id", "title"), true)));
+		}
+
+		TableCreator tableCreator = new TableCreator(config);
+		try (Connection connection = database.createConnection()) {
+			tableCreator.createTables(connection, tables);
+		}
+
+		try (PostgresqlBackend backend = new PostgresqlBackend(config)) {
+			tableCreator.createIndexes(backend, tables);
+		}
+
+		try (Connection connection = database.createConnection()) {
+			Catalog catalog = CatalogLoader.load(connection, database.getCatalogName());
+			for (Table table : tables) {
+				Table loaded = catalog.getTable(table.getName());
+				assertEquals(table.getName() + "_title_idx", loaded.getIndex("title").getIndexName());
+				assertTrue(loaded.getIndex("id", "title").isUnique());
+			}
+		}
+	}
+
 	@Test
 	public void testCreatingTableWithForeignKeys() throws SQLException {
 		try (Connection connection = database.createConnection()) {
@@ -8,10 +8,18 @@ import static io.quantumdb.core.schema.definitions.PostgresTypes.bool;
 import static io.quantumdb.core.schema.definitions.PostgresTypes.text;
 import static io.quantumdb.core.schema.operations.SchemaOperations.addColumn;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import io.quantumdb.client.VersionProtocol;
 import io.quantumdb.core.backends.PostgresqlDatabase;
 import io.quantumdb.core.schema.definitions.Catalog;
 import io.quantumdb.core.schema.definitions.Column;
@@ -84,4 +92,106 @@ public class BackendTest {
 		assertEquals(expectedState, actualState);
 	}
 
+	@Test
+	public void testLoadingFromSnapshotAndFallingBackWhenStale() throws SQLException {
+		Catalog catalog = new Catalog("public")
+				.addTable(new Table("table_1")
+						.addColumn(new Column("id", bigint(), PRIMARY_KEY))
+						.addColumn(new Column("name", text(), NOT_NULL)));
+
+		Changelog changelog = new Changelog(RandomHasher.generateHash(), new ChangeSet("init", "QuantumDB", "Initial import"));
+
+		RefLog refLog = new RefLog();
+		refLog.addTable("table", "table_1", changelog.getRoot(),
+				new ColumnRef("id"),
+				new ColumnRef("name"));
+		refLog.setVersionState(changelog.getRoot(), true);
+
+		Backend backend = new Backend();
+		State expectedState = new State(catalog, refLog, changelog);
+		try (Connection connection = database.createConnection()) {
+			connection.setAutoCommit(false);
+			backend.persist(connection, expectedState, null);
+			connection.commit();
+		}
+
+		assertTrue(StateSnapshot.read(database.getConnection()).isPresent());
+		assertEquals(expectedState, backend.load(database.getConnection(), catalog));
+
+		try (Statement statement = database.getConnection().createStatement()) {
+			statement.execute("DELETE FROM quantumdb.active_versions;");
+		}
+
+		assertFalse(StateSnapshot.read(database.getConnection()).isPresent());
+		State actualState = backend.load(database.getConnection(), catalog);
+		assertTrue(actualState.getRefLog().getVersions().isEmpty());
+	}
+
+	@Test
+	public void testThatPersistingBumpsGenerationOnceAndStoresPersistedRowsAsSnapshot() throws SQLException {
+		Catalog catalog = new Catalog("public")
+				.addTable(new Table("table_1")
+						.addColumn(new Column("id", bigint(), PRIMARY_KEY))
+						.addColumn(new Column("name", text(), NOT_NULL)))
+				.addTable(new Table("table_2")
+						.addColumn(new Column("id", bigint(), PRIMARY_KEY))
+						.addColumn(new Column("name", text(), NOT_NULL))
+						.addColumn(new Column("admin", bool(), "false", NOT_NULL)));
+
+		Changelog changelog = new Changelog(RandomHasher.generateHash(), new ChangeSet("init", "QuantumDB", "Initial import"))
+				.addChangeSet("add_table", "Michael de Jong", addColumn("table", "admin", bool(), "false", NOT_NULL));
+
+		RefLog refLog = new RefLog();
+		TableRef table1 = refLog.addTable("table", "table_1", changelog.getRoot(),
+				new ColumnRef("id"),
+				new ColumnRef("name"));
+
+		TableRef table2 = refLog.addTable("table", "table_2", changelog.getLastAdded(),
+				new ColumnRef("id", table1.getColumn("id")),
+				new ColumnRef("name", table1.getColumn("name")),
+				new ColumnRef("admin"));
+
+		refLog.addSync("trigger_1", "sync_1", ImmutableMap.<ColumnRef, ColumnRef>builder()
+				.put(table1.getColumn("id"), table2.getColumn("id"))
+				.put(table1.getColumn("name"), table2.getColumn("name"))
+				.build());
+
+		refLog.setVersionState(changelog.getRoot(), true);
+
+		long generation = getGeneration();
+		try (Connection connection = database.createConnection()) {
+			connection.setAutoCommit(false);
+			new Backend().persist(connection, new State(catalog, refLog, changelog), null);
+			connection.commit();
+		}
+
+		assertEquals(generation + 1, getGeneration());
+
+		StateSnapshot stored = StateSnapshot.read(database.getConnection()).get();
+		StateSnapshot collected = StateSnapshot.collect(database.getConnection());
+		assertSameRows(collected.getChangelog(), stored.getChangelog());
+		assertSameRows(collected.getChangeSets(), stored.getChangeSets());
+		assertSameRows(collected.getRefs(), stored.getRefs());
+		assertSameRows(collected.getRefVersions(), stored.getRefVersions());
+		assertSameRows(collected.getTableColumns(), stored.getTableColumns());
+		assertSameRows(collected.getColumnMappings(), stored.getColumnMappings());
+		assertSameRows(collected.getSynchronizers(), stored.getSynchronizers());
+		assertSameRows(collected.getSynchronizerColumns(), stored.getSynchronizerColumns());
+		assertSameRows(collected.getActiveVersions(), stored.getActiveVersions());
+	}
+
+	private long getGeneration() throws SQLException {
+		try (Statement statement = database.getConnection().createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT value FROM quantumdb.config WHERE name = '"
+						+ VersionProtocol.GENERATION_KEY + "';")) {
+			resultSet.next();
+			return Long.parseLong(resultSet.getString("value"));
+		}
+	}
+
+	private static <T> void assertSameRows(List<T> expected, List<T> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(Sets.newHashSet(expected), Sets.newHashSet(actual));
+	}
+
 }
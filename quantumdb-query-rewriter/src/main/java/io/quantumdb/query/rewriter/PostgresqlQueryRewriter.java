@@ -1,45 +1,45 @@
 package io.quantumdb.query.rewriter;
 
 import java.sql.SQLException;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Locale;
 import java.util.Map;
 
+/**
+ * Rewrites table names in PostgreSQL queries. Queries are parsed into a {@link QueryTemplate}, which records where
+ * the table identifiers are in the query, after which rewriting is a matter of splicing the ref IDs of those tables
+ * into the query. Callers which rewrite the same query for several versions can parse it once, and pass the template
+ * to {@link #rewrite(QueryTemplate)} instead.
+ *
+ * The output is only built when something actually has to be replaced, otherwise the original query is returned as-is.
+ */
 @Experimental
 public class PostgresqlQueryRewriter implements QueryRewriter {
 
-	private static class State {
+	private static class Mapping {
 
-		private StringBuilder output;
-		private String query;
-		private int lastProcessedCursor;
-		private int cursor;
-		private String previousWord;
-		private Deque<Character> stack;
+		private final Map<String, String> exact;
+		private final Map<String, String> lowerCase;
 
-		private State(String query) {
-			this.query = query;
-			this.output = new StringBuilder();
-			this.cursor = 0;
-			this.lastProcessedCursor = 0;
-			this.previousWord = "";
-			this.stack = new LinkedList<>();
+		private Mapping(Map<String, String> exact, Map<String, String> lowerCase) {
+			this.exact = exact;
+			this.lowerCase = lowerCase;
 		}
 
 	}
 
-	private static final String DEFAULT_SCHEMA = "public";
-
-	private final Map<String, String> tableMapping;
+	private volatile Mapping mapping;
 
 	public PostgresqlQueryRewriter() {
-		this.tableMapping = new HashMap<>();
+		this.mapping = new Mapping(Collections.emptyMap(), Collections.emptyMap());
 	}
 
 	public void setTableMapping(Map<String, String> newTableMapping) {
-		tableMapping.clear();
-		tableMapping.putAll(newTableMapping);
+		Map<String, String> exact = new HashMap<>(newTableMapping);
+		Map<String, String> lowerCase = new HashMap<>();
+		newTableMapping.forEach((tableName, refId) -> lowerCase.putIfAbsent(tableName.toLowerCase(Locale.ROOT), refId));
+		this.mapping = new Mapping(exact, lowerCase);
 	}
 
 	public String rewrite(String query) throws SQLException {
@@ -47,120 +47,19 @@ public class PostgresqlQueryRewriter implements QueryRewriter {
 			throw new IllegalArgumentException("You must specify specify a 'query'.");
 		}
 
-		State state = new State(query);
-		for (state.cursor = 0; state.cursor < query.length(); state.cursor++) {
-			char currentCharacter = query.charAt(state.cursor);
-
-			switch (currentCharacter) {
-				case '\'':
-				case '\"':
-				case '`':
-					Character onStack = state.stack.peekFirst();
-					if (onStack != null && onStack.equals(currentCharacter)) {
-						state.stack.removeFirst();
-					}
-					else {
-						state.stack.addFirst(currentCharacter);
-					}
-					processWordStartOrMiddle(state);
-					break;
-				case ' ':
-				case '\t':
-				case ',':
-				case ';':
-					if (state.stack.isEmpty()) {
-						processWordEnding(state);
-					}
-					processWordStartOrMiddle(state);
-					break;
-				default:
-					processWordStartOrMiddle(state);
-					break;
-			}
-		}
-
-		processWordEnding(state);
-
-		return state.output.toString();
-	}
-
-	private void processWordEnding(State state) throws SQLException {
-		String word = state.query.substring(state.lastProcessedCursor, state.cursor);
-
-		if (word.trim().isEmpty()) {
-			state.output.append(word);
-		}
-		else {
-			state.output.append(processWord(state, word));
+		if (mapping.exact.isEmpty()) {
+			return query;
 		}
-
-		state.lastProcessedCursor = state.cursor;
+		return rewrite(QueryTemplate.parse(query));
 	}
 
-	private void processWordStartOrMiddle(State state) {
-		String word = state.query.substring(state.lastProcessedCursor, state.cursor);
-
-		if (word.trim().isEmpty()) {
-			state.output.append(word);
-			state.lastProcessedCursor = state.cursor;
+	@Override
+	public String rewrite(QueryTemplate template) throws SQLException {
+		Mapping mapping = this.mapping;
+		if (mapping.exact.isEmpty()) {
+			return template.getQuery();
 		}
-	}
-
-	private String processWord(State state, String word) throws SQLException {
-		if (state.previousWord.equalsIgnoreCase("from") || state.previousWord.equalsIgnoreCase("join") ||
-				state.previousWord.equalsIgnoreCase("update") || state.previousWord.equalsIgnoreCase("into")) {
-
-			boolean isQuoted = isQuoted(word);
-			if (isQuoted) {
-				word = word.substring(1, word.length() - 1);
-			}
-
-			String schema = null;
-			if (word.startsWith(DEFAULT_SCHEMA + ".")) {
-				schema = DEFAULT_SCHEMA;
-				word = word.substring(DEFAULT_SCHEMA.length() + 1, word.length());
-			}
-
-			String tableName = tableMapping.get(word);
-
-			if (!isQuoted && tableName == null) {
-				for (Map.Entry<String, String> entry : tableMapping.entrySet()) {
-					if (entry.getKey().equalsIgnoreCase(word)) {
-						tableName = entry.getValue();
-						break;
-					}
-				}
-			}
-
-			if (tableName != null) {
-				word = tableName;
-			}
-//			else {
-//				throw new SQLException("No table with name: '" + word + "' exists.");
-//			}
-
-			if (schema != null) {
-				word = schema + "." + word;
-			}
-
-			if (isQuoted) {
-				word = "\"" + word + "\"";
-			}
-		}
-
-		state.previousWord = word;
-		return word;
-	}
-
-	private boolean isQuoted(String word) {
-		char first = word.charAt(0);
-		char last = word.charAt(word.length() - 1);
-
-		if (first != last) {
-			return false;
-		}
-
-		return first == '\"';
+		return template.render(mapping.exact, mapping.lowerCase);
 	}
 
 }
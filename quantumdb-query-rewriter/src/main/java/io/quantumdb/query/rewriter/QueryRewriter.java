@@ -22,4 +22,16 @@ public interface QueryRewriter {
 	 */
 	String rewrite(String query) throws SQLException;
 
+	/**
+	 * Rewrites a query which has already been parsed into a {@link QueryTemplate}. Since templates do not depend on
+	 * the table mapping, a template can be parsed once and then be rewritten for any number of table mappings.
+	 *
+	 * @param template The template of the query to rewrite.
+	 * @return The rewritten query.
+	 * @throws SQLException In case the specified query could not be rewritten.
+	 */
+	default String rewrite(QueryTemplate template) throws SQLException {
+		return rewrite(template.getQuery());
+	}
+
 }
@@ -0,0 +1,667 @@
+package io.quantumdb.query.rewriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A PostgreSQL query which has been parsed once into the fragments of the query, and the table identifiers in between
+ * those fragments. Rendering the template for a particular table mapping only requires looking up each identifier and
+ * splicing the fragments and the mapped identifiers together, so a single template can cheaply be rendered for any
+ * number of versions, without lexing the query again.
+ *
+ * The lexer understands whitespace, comments (including nested block comments), string literals (including escape
+ * strings like E'...' and dollar-quoted strings like $tag$...$tag$), quoted identifiers and schema-qualified names.
+ * Identifiers are considered to be table names when they directly follow FROM, JOIN, UPDATE, INTO, USING or ONLY, or
+ * when they follow a comma in the list of tables of a FROM clause. Names of common table expressions (WITH name AS
+ * (...)) are not treated as table names from the end of their definition (or from its start, for WITH RECURSIVE) up
+ * to the end of the statement or subquery which declares them. Column qualifiers (like "users" in "users.id") are treated as table names
+ * when they refer to a table which appears without an alias in the query, and don't match any alias.
+ */
+@Experimental
+public final class QueryTemplate {
+
+	private static final String DEFAULT_SCHEMA = "public";
+
+	private static final String[] TABLE_KEYWORDS = { "from", "join", "update", "into", "using", "only" };
+
+	private static final String[] TABLE_LIST_KEYWORDS = { "from", "using" };
+
+	/**
+	 * Keywords which may directly follow a table name, and therefore cannot be an alias of that table.
+	 */
+	private static final String[] NON_ALIAS_KEYWORDS = {
+			"as", "where", "join", "inner", "outer", "left", "right", "full", "cross", "natural", "on", "using",
+			"group", "order", "having", "limit", "offset", "fetch", "window", "union", "intersect", "except", "for",
+			"set", "returning", "values", "select", "default", "overriding", "tablesample", "with", "do" };
+
+	private static final int WORD = 0;
+	private static final int SYMBOL = 1;
+	private static final int OTHER = 2;
+
+	/**
+	 * The lexical tokens of the query, stored as offsets into the query in parallel arrays, so that lexing does not
+	 * allocate an object per token. Comments and whitespace are not tokens.
+	 */
+	private static class Tokens {
+
+		private int size;
+		private int[] types = new int[16];
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private int[] parts = new int[16];
+		private int[] firstPartEnds = new int[16];
+		private int[] lastPartStarts = new int[16];
+
+		private void add(int type, int start, int end, int partCount, int firstPartEnd, int lastPartStart) {
+			if (size == types.length) {
+				int capacity = size * 2;
+				types = Arrays.copyOf(types, capacity);
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				parts = Arrays.copyOf(parts, capacity);
+				firstPartEnds = Arrays.copyOf(firstPartEnds, capacity);
+				lastPartStarts = Arrays.copyOf(lastPartStarts, capacity);
+			}
+			types[size] = type;
+			starts[size] = start;
+			ends[size] = end;
+			parts[size] = partCount;
+			firstPartEnds[size] = firstPartEnd;
+			lastPartStarts[size] = lastPartStart;
+			size++;
+		}
+
+	}
+
+	/**
+	 * The name of a common table expression, and the range of the query in which that name refers to it.
+	 */
+	private static class CommonTableExpression {
+
+		private final String name;
+		private final int scopeStart;
+		private final int scopeEnd;
+
+		private CommonTableExpression(String name, int scopeStart, int scopeEnd) {
+			this.name = name;
+			this.scopeStart = scopeStart;
+			this.scopeEnd = scopeEnd;
+		}
+
+	}
+
+	/**
+	 * An identifier in the query which refers to a table, and should be replaced with the ref ID of that table.
+	 */
+	private static class Identifier {
+
+		private final int start;
+		private final int end;
+		private final String name;
+		private final String lowerCaseName;
+		private final boolean quoted;
+
+		private Identifier(String query, int start, int end) {
+			this.start = start;
+			this.end = end;
+			this.quoted = query.charAt(start) == '\"';
+			this.name = quoted ? unquote(query, start, end) : query.substring(start, end);
+			this.lowerCaseName = quoted ? null : name.toLowerCase(Locale.ROOT);
+		}
+
+	}
+
+	/**
+	 * A table name (or CTE name) in a position where a table is expected.
+	 */
+	private static class TableReference {
+
+		private final Identifier identifier;
+		private String alias;
+
+		private TableReference(Identifier identifier) {
+			this.identifier = identifier;
+		}
+
+	}
+
+	/**
+	 * Parses the specified query into a template.
+	 *
+	 * @param query The query to parse.
+	 * @return The template of the query.
+	 * @throws IllegalArgumentException When the specified 'query' is NULL.
+	 */
+	public static QueryTemplate parse(String query) {
+		if (query == null) {
+			throw new IllegalArgumentException("You must specify specify a 'query'.");
+		}
+
+		Tokens tokens = tokenize(query);
+		List<CommonTableExpression> commonTableExpressions = collectCommonTableExpressions(query, tokens);
+
+		List<TableReference> references = new ArrayList<>();
+		List<Identifier> qualifiers = new ArrayList<>();
+		collectTableReferences(query, tokens, references, qualifiers);
+
+		Set<String> aliases = new HashSet<>();
+		Set<String> unaliasedTables = new HashSet<>();
+		for (TableReference reference : references) {
+			if (reference.alias != null) {
+				aliases.add(reference.alias);
+			}
+			else {
+				unaliasedTables.add(normalize(reference.identifier));
+			}
+		}
+
+		List<Identifier> identifiers = new ArrayList<>();
+		for (TableReference reference : references) {
+			if (!refersToCommonTableExpression(commonTableExpressions, reference.identifier)) {
+				identifiers.add(reference.identifier);
+			}
+		}
+		for (Identifier qualifier : qualifiers) {
+			String name = normalize(qualifier);
+			if (unaliasedTables.contains(name) && !aliases.contains(name)
+					&& !refersToCommonTableExpression(commonTableExpressions, qualifier)) {
+				identifiers.add(qualifier);
+			}
+		}
+		identifiers.sort(Comparator.comparingInt(identifier -> identifier.start));
+
+		return new QueryTemplate(query, identifiers.toArray(new Identifier[0]));
+	}
+
+	private final String query;
+	private final Identifier[] identifiers;
+
+	private QueryTemplate(String query, Identifier[] identifiers) {
+		this.query = query;
+		this.identifiers = identifiers;
+	}
+
+	/**
+	 * @return The query this template was parsed from.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * @return The number of table identifiers in the query which are replaced when rendering the template.
+	 */
+	public int getIdentifierCount() {
+		return identifiers.length;
+	}
+
+	/**
+	 * @return The names of the tables the query refers to. Unquoted names are returned in lower case, as PostgreSQL
+	 * folds them to lower case as well.
+	 */
+	public Set<String> getTableNames() {
+		Set<String> tableNames = new HashSet<>();
+		for (Identifier identifier : identifiers) {
+			tableNames.add(identifier.quoted ? identifier.name : identifier.lowerCaseName);
+		}
+		return tableNames;
+	}
+
+	/**
+	 * Renders the query for the specified mapping of table names to ref IDs.
+	 *
+	 * @param exact The mapping of table names to ref IDs, used for quoted identifiers.
+	 * @param lowerCase The same mapping keyed by lower case table names, used for unquoted identifiers which do not
+	 * exactly match a table name in the exact mapping.
+	 * @return The rendered query, or the query itself if none of its identifiers had to be replaced.
+	 */
+	String render(Map<String, String> exact, Map<String, String> lowerCase) {
+		StringBuilder output = null;
+		int copied = 0;
+		for (Identifier identifier : identifiers) {
+			String refId = exact.get(identifier.name);
+			if (refId == null && !identifier.quoted) {
+				refId = lowerCase.get(identifier.lowerCaseName);
+			}
+			if (refId == null) {
+				continue;
+			}
+
+			if (output == null) {
+				output = new StringBuilder(query.length() + 64);
+			}
+			output.append(query, copied, identifier.start);
+			if (identifier.quoted) {
+				output.append('\"').append(refId.replace("\"", "\"\"")).append('\"');
+			}
+			else {
+				output.append(refId);
+			}
+			copied = identifier.end;
+		}
+
+		if (output == null) {
+			return query;
+		}
+		return output.append(query, copied, query.length()).toString();
+	}
+
+	/**
+	 * Finds all common table expressions, whose names follow "WITH [RECURSIVE]", or the closing parenthesis of the
+	 * previous common table expression and a comma, and which are followed by an optional column list and "AS". The
+	 * name of a common table expression refers to it from the end of its definition (or its start, if the WITH clause
+	 * is RECURSIVE), up to the end of the statement or subquery in which it is declared. Before that, the same name
+	 * still refers to a table, as in "WITH users AS (SELECT * FROM users) ...".
+	 */
+	private static List<CommonTableExpression> collectCommonTableExpressions(String query, Tokens tokens) {
+		List<CommonTableExpression> expressions = new ArrayList<>();
+		for (int index = 0; index < tokens.size; index++) {
+			if (!isKeyword(query, tokens, index, "with")) {
+				continue;
+			}
+
+			int scopeEnd = findScopeEnd(query, tokens, index);
+			int cursor = index + 1;
+			boolean recursive = cursor < tokens.size && isKeyword(query, tokens, cursor, "recursive");
+			if (recursive) {
+				cursor++;
+			}
+
+			while (cursor < tokens.size && tokens.types[cursor] == WORD && tokens.parts[cursor] == 1) {
+				int name = cursor++;
+				if (cursor < tokens.size && isSymbol(query, tokens, cursor, '(')) {
+					cursor = skipParentheses(query, tokens, cursor);
+				}
+				if (cursor >= tokens.size || !isKeyword(query, tokens, cursor, "as")) {
+					break;
+				}
+
+				cursor++;
+				if (cursor < tokens.size && isKeyword(query, tokens, cursor, "not")) {
+					cursor++;
+				}
+				if (cursor < tokens.size && isKeyword(query, tokens, cursor, "materialized")) {
+					cursor++;
+				}
+				if (cursor >= tokens.size || !isSymbol(query, tokens, cursor, '(')) {
+					break;
+				}
+				cursor = skipParentheses(query, tokens, cursor);
+
+				Identifier identifier = new Identifier(query, tokens.starts[name], tokens.ends[name]);
+				int scopeStart = recursive ? tokens.starts[name] : tokens.ends[cursor - 1];
+				expressions.add(new CommonTableExpression(normalize(identifier), scopeStart, scopeEnd));
+
+				if (cursor >= tokens.size || !isSymbol(query, tokens, cursor, ',')) {
+					break;
+				}
+				cursor++;
+			}
+		}
+		return expressions;
+	}
+
+	/**
+	 * @return The position of the parenthesis closing the subquery which contains the token at the specified index,
+	 * or of the semicolon ending its statement, or the length of the query if there is neither.
+	 */
+	private static int findScopeEnd(String query, Tokens tokens, int index) {
+		int depth = 0;
+		for (int cursor = index + 1; cursor < tokens.size; cursor++) {
+			if (isSymbol(query, tokens, cursor, '(')) {
+				depth++;
+			}
+			else if (isSymbol(query, tokens, cursor, ')') && --depth < 0) {
+				return tokens.starts[cursor];
+			}
+			else if (isSymbol(query, tokens, cursor, ';') && depth == 0) {
+				return tokens.starts[cursor];
+			}
+		}
+		return query.length();
+	}
+
+	private static boolean refersToCommonTableExpression(List<CommonTableExpression> expressions,
+			Identifier identifier) {
+
+		if (expressions.isEmpty()) {
+			return false;
+		}
+
+		String name = normalize(identifier);
+		for (CommonTableExpression expression : expressions) {
+			if (expression.scopeStart <= identifier.start && identifier.start < expression.scopeEnd
+					&& expression.name.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void collectTableReferences(String query, Tokens tokens, List<TableReference> references,
+			List<Identifier> qualifiers) {
+
+		boolean expectTable = false;
+		boolean tableList = false;
+		boolean expectAlias = false;
+		boolean afterReference = false;
+		TableReference current = null;
+
+		for (int index = 0; index < tokens.size; index++) {
+			int start = tokens.starts[index];
+			int end = tokens.ends[index];
+			int parts = tokens.parts[index];
+
+			if (tokens.types[index] == WORD) {
+				boolean tableName = parts == 1
+						|| (parts == 2 && isDefaultSchema(query, start, tokens.firstPartEnds[index]));
+
+				if (expectTable && tableName && !isKeyword(query, tokens, index, "only")) {
+					current = new TableReference(new Identifier(query, tokens.lastPartStarts[index], end));
+					references.add(current);
+					expectTable = false;
+					expectAlias = true;
+					afterReference = true;
+					continue;
+				}
+
+				if (expectAlias && parts == 1) {
+					if (isKeyword(query, tokens, index, "as")) {
+						continue;
+					}
+					if (!matchesAny(query, tokens, index, NON_ALIAS_KEYWORDS)) {
+						current.alias = normalize(new Identifier(query, start, end));
+						expectAlias = false;
+						continue;
+					}
+				}
+
+				if (parts > 1 && !expectTable) {
+					int qualifierStart = start;
+					if (parts == 3 && isDefaultSchema(query, start, tokens.firstPartEnds[index])) {
+						qualifierStart = tokens.firstPartEnds[index] + 1;
+					}
+					if (parts == 2 || qualifierStart > start) {
+						qualifiers.add(new Identifier(query, qualifierStart, skipNamePart(query, qualifierStart)));
+					}
+				}
+
+				expectAlias = false;
+				afterReference = false;
+				if (parts == 1 && matchesAny(query, tokens, index, TABLE_KEYWORDS)) {
+					expectTable = true;
+					if (!isKeyword(query, tokens, index, "only")) {
+						tableList = matchesAny(query, tokens, index, TABLE_LIST_KEYWORDS);
+					}
+				}
+				else {
+					expectTable = false;
+				}
+			}
+			else {
+				expectTable = isSymbol(query, tokens, index, ',') && tableList && afterReference;
+				expectAlias = false;
+				afterReference = false;
+			}
+		}
+	}
+
+	private static Tokens tokenize(String query) {
+		Tokens tokens = new Tokens();
+		int length = query.length();
+		int cursor = 0;
+		while (cursor < length) {
+			char current = query.charAt(cursor);
+			char next = cursor + 1 < length ? query.charAt(cursor + 1) : 0;
+			int start = cursor;
+
+			if (Character.isWhitespace(current)) {
+				cursor++;
+			}
+			else if (current == '-' && next == '-') {
+				cursor = skipLineComment(query, cursor + 2);
+			}
+			else if (current == '/' && next == '*') {
+				cursor = skipBlockComment(query, cursor + 2);
+			}
+			else if (current == '\'') {
+				cursor = skipString(query, cursor + 1, false);
+				tokens.add(OTHER, start, cursor, 0, cursor, start);
+			}
+			else if ((current == 'e' || current == 'E') && next == '\'') {
+				cursor = skipString(query, cursor + 2, true);
+				tokens.add(OTHER, start, cursor, 0, cursor, start);
+			}
+			else if (current == '$') {
+				cursor = skipDollarToken(query, cursor);
+				tokens.add(OTHER, start, cursor, 0, cursor, start);
+			}
+			else if (isNameStart(current)) {
+				int firstPartEnd = skipNamePart(query, cursor);
+				int lastPartStart = start;
+				int end = firstPartEnd;
+				int parts = 1;
+				while (end + 1 < length && query.charAt(end) == '.' && isNameStart(query.charAt(end + 1))) {
+					lastPartStart = end + 1;
+					end = skipNamePart(query, lastPartStart);
+					parts++;
+				}
+				cursor = end;
+				tokens.add(WORD, start, end, parts, firstPartEnd, lastPartStart);
+			}
+			else if (Character.isDigit(current)) {
+				cursor = skipNumber(query, cursor);
+				tokens.add(OTHER, start, cursor, 0, cursor, start);
+			}
+			else {
+				cursor++;
+				tokens.add(SYMBOL, start, cursor, 0, cursor, start);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * @return The index of the token directly after the parenthesis matching the one at the specified index.
+	 */
+	private static int skipParentheses(String query, Tokens tokens, int index) {
+		int depth = 0;
+		while (index < tokens.size) {
+			int current = index++;
+			if (isSymbol(query, tokens, current, '(')) {
+				depth++;
+			}
+			else if (isSymbol(query, tokens, current, ')') && --depth == 0) {
+				break;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return The name of the identifier as PostgreSQL resolves it: unquoted identifiers are folded to lower case.
+	 */
+	private static String normalize(Identifier identifier) {
+		return identifier.quoted ? identifier.name : identifier.lowerCaseName;
+	}
+
+	private static String unquote(String query, int start, int end) {
+		String name = query.substring(start + 1, Math.max(start + 1, end - 1));
+		if (name.indexOf('\"') > -1) {
+			name = name.replace("\"\"", "\"");
+		}
+		return name;
+	}
+
+	private static boolean isSymbol(String query, Tokens tokens, int index, char symbol) {
+		return tokens.types[index] == SYMBOL && query.charAt(tokens.starts[index]) == symbol;
+	}
+
+	private static boolean isKeyword(String query, Tokens tokens, int index, String keyword) {
+		int start = tokens.starts[index];
+		int length = tokens.ends[index] - start;
+		return tokens.types[index] == WORD && tokens.parts[index] == 1 && keyword.length() == length
+				&& query.regionMatches(true, start, keyword, 0, length);
+	}
+
+	/**
+	 * @return True if the (unquoted) word at the specified index is one of the specified keywords, compared in place.
+	 */
+	private static boolean matchesAny(String query, Tokens tokens, int index, String[] keywords) {
+		int start = tokens.starts[index];
+		int length = tokens.ends[index] - start;
+		if (query.charAt(start) == '\"') {
+			return false;
+		}
+		for (String keyword : keywords) {
+			if (keyword.length() == length && query.regionMatches(true, start, keyword, 0, length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isDefaultSchema(String query, int start, int end) {
+		int length = end - start;
+		if (query.charAt(start) == '\"') {
+			return length == DEFAULT_SCHEMA.length() + 2
+					&& query.regionMatches(start + 1, DEFAULT_SCHEMA, 0, DEFAULT_SCHEMA.length());
+		}
+		return length == DEFAULT_SCHEMA.length()
+				&& query.regionMatches(true, start, DEFAULT_SCHEMA, 0, DEFAULT_SCHEMA.length());
+	}
+
+	private static boolean isNameStart(char character) {
+		return character == '\"' || character == '_' || Character.isLetter(character);
+	}
+
+	private static boolean isNamePart(char character) {
+		return character == '_' || character == '$' || Character.isLetterOrDigit(character);
+	}
+
+	/**
+	 * @return The position directly after the quoted or unquoted identifier starting at the specified position.
+	 */
+	private static int skipNamePart(String query, int cursor) {
+		int length = query.length();
+		if (query.charAt(cursor) == '\"') {
+			cursor++;
+			while (cursor < length) {
+				if (query.charAt(cursor) == '\"') {
+					if (cursor + 1 < length && query.charAt(cursor + 1) == '\"') {
+						cursor += 2;
+						continue;
+					}
+					return cursor + 1;
+				}
+				cursor++;
+			}
+			return length;
+		}
+
+		while (cursor < length && isNamePart(query.charAt(cursor))) {
+			cursor++;
+		}
+		return cursor;
+	}
+
+	/**
+	 * @return The position directly after the string literal whose contents start at the specified position.
+	 */
+	private static int skipString(String query, int cursor, boolean backslashEscapes) {
+		int length = query.length();
+		while (cursor < length) {
+			char current = query.charAt(cursor);
+			if (backslashEscapes && current == '\\') {
+				cursor += 2;
+			}
+			else if (current == '\'') {
+				if (cursor + 1 < length && query.charAt(cursor + 1) == '\'') {
+					cursor += 2;
+				}
+				else {
+					return cursor + 1;
+				}
+			}
+			else {
+				cursor++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * @return The position directly after either a positional parameter (like $1), or a dollar-quoted string
+	 * (like $$...$$ or $tag$...$tag$), starting at the specified position.
+	 */
+	private static int skipDollarToken(String query, int cursor) {
+		int length = query.length();
+		int tagEnd = cursor + 1;
+		if (tagEnd < length && Character.isDigit(query.charAt(tagEnd))) {
+			while (tagEnd < length && Character.isDigit(query.charAt(tagEnd))) {
+				tagEnd++;
+			}
+			return tagEnd;
+		}
+
+		while (tagEnd < length && query.charAt(tagEnd) != '$' && isNamePart(query.charAt(tagEnd))) {
+			tagEnd++;
+		}
+		if (tagEnd >= length || query.charAt(tagEnd) != '$') {
+			return cursor + 1;
+		}
+
+		int tagLength = tagEnd + 1 - cursor;
+		for (int position = tagEnd + 1; position + tagLength <= length; position++) {
+			if (query.charAt(position) == '$' && query.regionMatches(position, query, cursor, tagLength)) {
+				return position + tagLength;
+			}
+		}
+		return length;
+	}
+
+	private static int skipLineComment(String query, int cursor) {
+		int length = query.length();
+		while (cursor < length && query.charAt(cursor) != '\n' && query.charAt(cursor) != '\r') {
+			cursor++;
+		}
+		return cursor;
+	}
+
+	private static int skipBlockComment(String query, int cursor) {
+		int length = query.length();
+		int depth = 1;
+		while (cursor < length && depth > 0) {
+			char current = query.charAt(cursor);
+			char next = cursor + 1 < length ? query.charAt(cursor + 1) : 0;
+			if (current == '/' && next == '*') {
+				depth++;
+				cursor += 2;
+			}
+			else if (current == '*' && next == '/') {
+				depth--;
+				cursor += 2;
+			}
+			else {
+				cursor++;
+			}
+		}
+		return cursor;
+	}
+
+	private static int skipNumber(String query, int cursor) {
+		int length = query.length();
+		while (cursor < length && (Character.isLetterOrDigit(query.charAt(cursor)) || query.charAt(cursor) == '.'
+				|| query.charAt(cursor) == '_')) {
+			cursor++;
+		}
+		return cursor;
+	}
+
+}
@@ -3,7 +3,9 @@ package io.quantumdb.query.rewriter;
 import static org.junit.Assert.assertEquals;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.junit.Before;
@@ -75,7 +77,6 @@ public class PostgresqlQueryRewriterTest {
 	}
 
 	@Test
-	@Ignore
 	public void testImplicitJoin() throws SQLException {
 		String input = "SELECT * FROM users, accounts WHERE users.id = accounts.owner_id";
 		String expected = "SELECT * FROM users_v2, accounts_v2 WHERE users_v2.id = accounts_v2.owner_id";
@@ -83,7 +84,6 @@ public class PostgresqlQueryRewriterTest {
 	}
 
 	@Test
-	@Ignore
 	public void testImplicitJoinWithShortHandAliases() throws SQLException {
 		String input = "SELECT * FROM users users, accounts accounts WHERE users.id = accounts.owner_id";
 		String expected = "SELECT * FROM users_v2 users, accounts_v2 accounts WHERE users.id = accounts.owner_id";
@@ -91,13 +91,139 @@ public class PostgresqlQueryRewriterTest {
 	}
 
 	@Test
-	@Ignore
 	public void testImplicitJoinWithAliases() throws SQLException {
 		String input = "SELECT * FROM users AS users, accounts AS accounts WHERE users.id = accounts.owner_id";
 		String expected = "SELECT * FROM users_v2 AS users, accounts_v2 AS accounts WHERE users.id = accounts.owner_id";
 		assertEquals(expected, rewrite(input));
 	}
 
+	@Test
+	public void testThatNewLinesSeparateWords() throws SQLException {
+		String input = "SELECT *\nFROM\n\tusers\nWHERE id = 1";
+		String expected = "SELECT *\nFROM\n\tusers_v2\nWHERE id = 1";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testInsertIntoTableWithColumnList() throws SQLException {
+		String input = "INSERT INTO users(id, name) VALUES (1, 'Michael');";
+		String expected = "INSERT INTO users_v2(id, name) VALUES (1, 'Michael');";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testJoinAndUpdateQueries() throws SQLException {
+		assertEquals("SELECT * FROM users_v2 u JOIN accounts_v2 a ON a.owner_id = u.id",
+				rewrite("SELECT * FROM users u JOIN accounts a ON a.owner_id = u.id"));
+
+		assertEquals("UPDATE users_v2 SET name = 'x' WHERE id IN (SELECT owner_id FROM accounts_v2);",
+				rewrite("UPDATE users SET name = 'x' WHERE id IN (SELECT owner_id FROM accounts);"));
+	}
+
+	@Test
+	public void testThatStringLiteralsAreNotRewritten() throws SQLException {
+		String input = "SELECT 'it''s FROM users', E'\\' FROM users\\' FROM users' FROM users";
+		String expected = "SELECT 'it''s FROM users', E'\\' FROM users\\' FROM users' FROM users_v2";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatDollarQuotedStringsAreNotRewritten() throws SQLException {
+		String input = "SELECT $$ FROM users $$, $body$ FROM $$ users $body$, $1 FROM users";
+		String expected = "SELECT $$ FROM users $$, $body$ FROM $$ users $body$, $1 FROM users_v2";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatCommentsAreNotRewritten() throws SQLException {
+		String input = "SELECT * -- FROM users\n/* FROM users /* nested */ FROM users */ FROM /* hint */ users";
+		String expected = "SELECT * -- FROM users\n/* FROM users /* nested */ FROM users */ FROM /* hint */ users_v2";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testQuotedTableNameWithQuotedSchema() throws SQLException {
+		String input = "SELECT * FROM \"public\".\"users\" WHERE id = 1";
+		String expected = "SELECT * FROM \"public\".\"users_v2\" WHERE id = 1";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatTablesInOtherSchemasAreNotRewritten() throws SQLException {
+		String input = "SELECT * FROM other.users";
+		assertEquals(input, rewrite(input));
+	}
+
+	@Test
+	public void testThatCommonTableExpressionsAreNotRewritten() throws SQLException {
+		String input = "WITH RECURSIVE users(id) AS (SELECT id FROM accounts), active AS NOT MATERIALIZED "
+				+ "(SELECT * FROM users) SELECT * FROM users JOIN active ON active.id = users.id";
+		String expected = "WITH RECURSIVE users(id) AS (SELECT id FROM accounts_v2), active AS NOT MATERIALIZED "
+				+ "(SELECT * FROM users) SELECT * FROM users JOIN active ON active.id = users.id";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatTablesShadowedByCommonTableExpressionsAreRewrittenInTheirDefinition() throws SQLException {
+		String input = "WITH users AS (SELECT * FROM users WHERE users.active) SELECT users.id FROM users";
+		String expected = "WITH users AS (SELECT * FROM users_v2 WHERE users_v2.active) SELECT users.id FROM users";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatCommonTableExpressionsAreScopedToTheirSubquery() throws SQLException {
+		String input = "SELECT * FROM users WHERE id IN (WITH users AS (SELECT owner_id FROM accounts) "
+				+ "SELECT owner_id FROM users)";
+		String expected = "SELECT * FROM users_v2 WHERE id IN (WITH users AS (SELECT owner_id FROM accounts_v2) "
+				+ "SELECT owner_id FROM users)";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatQualifiersOfUnaliasedTablesAreRewritten() throws SQLException {
+		String input = "SELECT users.name, a.balance FROM users JOIN accounts a "
+				+ "ON a.owner_id = public.users.id";
+		String expected = "SELECT users_v2.name, a.balance FROM users_v2 JOIN accounts_v2 a "
+				+ "ON a.owner_id = public.users_v2.id";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatTableListsInDeleteUsingAreRewritten() throws SQLException {
+		String input = "DELETE FROM users USING accounts a, transactions WHERE a.owner_id = users.id";
+		String expected = "DELETE FROM users_v2 USING accounts_v2 a, transactions WHERE a.owner_id = users_v2.id";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatCommasOutsideOfTableListsAreIgnored() throws SQLException {
+		String input = "SELECT id, users FROM accounts ORDER BY id, users";
+		String expected = "SELECT id, users FROM accounts_v2 ORDER BY id, users";
+		assertEquals(expected, rewrite(input));
+	}
+
+	@Test
+	public void testThatTemplatesListTheTablesTheyReferTo() {
+		QueryTemplate template = QueryTemplate.parse("UPDATE Users SET name = a.name FROM \"Accounts\" a "
+				+ "WHERE Users.id = a.owner_id");
+
+		assertEquals(new HashSet<>(Arrays.asList("users", "Accounts")), template.getTableNames());
+	}
+
+	@Test
+	public void testThatTemplatesCanBeRenderedForMultipleMappings() throws SQLException {
+		QueryTemplate template = QueryTemplate.parse("SELECT * FROM users u JOIN \"accounts\" ON u.id = owner_id");
+		assertEquals(2, template.getIdentifierCount());
+
+		rewriter.setTableMapping(tableMappings);
+		assertEquals("SELECT * FROM users_v2 u JOIN \"accounts_v2\" ON u.id = owner_id", rewriter.rewrite(template));
+
+		Map<String, String> otherMappings = new HashMap<>();
+		otherMappings.put("users", "users_v3");
+		rewriter.setTableMapping(otherMappings);
+		assertEquals("SELECT * FROM users_v3 u JOIN \"accounts\" ON u.id = owner_id", rewriter.rewrite(template));
+	}
+
 	private String rewrite(String query) throws SQLException {
 		rewriter.setTableMapping(tableMappings);
 		return rewriter.rewrite(query);
@@ -0,0 +1,145 @@
+package io.quantumdb.r2dbc;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+/**
+ * A connection which rewrites all SQL passed to it, such that it operates on the tables of the version of the
+ * database schema the connection was created for.
+ */
+class ProxyConnection implements Connection, Wrapped<Connection> {
+
+	private final Connection connection;
+	private final AtomicReference<VersionMapping> versionMapping;
+
+	ProxyConnection(Connection connection, AtomicReference<VersionMapping> versionMapping) {
+		this.connection = connection;
+		this.versionMapping = versionMapping;
+	}
+
+	/**
+	 * @return The version of the database schema this connection operates on, or NULL if it's unversioned.
+	 */
+	String getVersion() {
+		return versionMapping.get().getVersion();
+	}
+
+	@Override
+	public Statement createStatement(String sql) {
+		return connection.createStatement(versionMapping.get().rewrite(sql));
+	}
+
+	@Override
+	public Batch createBatch() {
+		Batch batch = connection.createBatch();
+		return new Batch() {
+			@Override
+			public Batch add(String sql) {
+				batch.add(versionMapping.get().rewrite(sql));
+				return this;
+			}
+
+			@Override
+			public Publisher<? extends Result> execute() {
+				return batch.execute();
+			}
+		};
+	}
+
+	@Override
+	public Publisher<Void> beginTransaction() {
+		return connection.beginTransaction();
+	}
+
+	@Override
+	public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+		return connection.beginTransaction(definition);
+	}
+
+	@Override
+	public Publisher<Void> close() {
+		return connection.close();
+	}
+
+	@Override
+	public Publisher<Void> commitTransaction() {
+		return connection.commitTransaction();
+	}
+
+	@Override
+	public Publisher<Void> createSavepoint(String name) {
+		return connection.createSavepoint(name);
+	}
+
+	@Override
+	public boolean isAutoCommit() {
+		return connection.isAutoCommit();
+	}
+
+	@Override
+	public ConnectionMetadata getMetadata() {
+		return connection.getMetadata();
+	}
+
+	@Override
+	public IsolationLevel getTransactionIsolationLevel() {
+		return connection.getTransactionIsolationLevel();
+	}
+
+	@Override
+	public Publisher<Void> releaseSavepoint(String name) {
+		return connection.releaseSavepoint(name);
+	}
+
+	@Override
+	public Publisher<Void> rollbackTransaction() {
+		return connection.rollbackTransaction();
+	}
+
+	@Override
+	public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+		return connection.rollbackTransactionToSavepoint(name);
+	}
+
+	@Override
+	public Publisher<Void> setAutoCommit(boolean autoCommit) {
+		return connection.setAutoCommit(autoCommit);
+	}
+
+	@Override
+	public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+		return connection.setLockWaitTimeout(timeout);
+	}
+
+	@Override
+	public Publisher<Void> setStatementTimeout(Duration timeout) {
+		return connection.setStatementTimeout(timeout);
+	}
+
+	@Override
+	public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+		return connection.setTransactionIsolationLevel(isolationLevel);
+	}
+
+	@Override
+	public Publisher<Boolean> validate(ValidationDepth depth) {
+		return connection.validate(depth);
+	}
+
+	@Override
+	public Connection unwrap() {
+		return connection;
+	}
+
+}
@@ -0,0 +1,86 @@
+package io.quantumdb.r2dbc;
+
+import io.quantumdb.client.VersionProtocol;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A ConnectionFactory which wraps the connections of another ConnectionFactory (typically one of r2dbc-postgresql),
+ * such that they operate on the tables of a particular version of the database schema. This is the reactive
+ * counterpart of the QuantumDB JDBC driver, and uses the same query rewriter and meta-info queries.
+ *
+ * Use {@link #forVersion(String)} to obtain a ConnectionFactory for another version of the same database, which shares
+ * the cached table mappings of this ConnectionFactory.
+ */
+public class QuantumConnectionFactory implements ConnectionFactory {
+
+	private final ConnectionFactory delegate;
+	private final String version;
+	private final VersionMappingCache cache;
+
+	/**
+	 * @param delegate The ConnectionFactory which creates the actual connections to the database.
+	 * @param version The version of the database schema to bind connections to. Can be NULL.
+	 */
+	public QuantumConnectionFactory(ConnectionFactory delegate, String version) {
+		this(delegate, version, new VersionMappingCache());
+	}
+
+	private QuantumConnectionFactory(ConnectionFactory delegate, String version, VersionMappingCache cache) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("You must specify a 'delegate'.");
+		}
+		this.delegate = delegate;
+		this.version = version;
+		this.cache = cache;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Creates a ConnectionFactory which creates connections bound to the specified version, using the same delegate
+	 * ConnectionFactory and cached table mappings as this ConnectionFactory.
+	 *
+	 * @param version The version of the database schema to bind connections to.
+	 * @return A ConnectionFactory for the specified version.
+	 */
+	public QuantumConnectionFactory forVersion(String version) {
+		return new QuantumConnectionFactory(delegate, version, cache);
+	}
+
+	@Override
+	public Mono<Connection> create() {
+		return Mono.from(delegate.create()).flatMap(connection -> cache.get(connection, version)
+				.flatMap(versionMapping -> lockVersion(connection)
+						.thenReturn((Connection) new ProxyConnection(connection, versionMapping)))
+				.onErrorResume(e -> Mono.from(connection.close()).then(Mono.error(e))));
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return delegate.getMetadata();
+	}
+
+	/**
+	 * Registers which version the connection is using, by holding a shared session-level advisory lock for that
+	 * version, just like the JDBC driver does. This allows the migrator to determine when a version is no longer used.
+	 */
+	private Mono<Void> lockVersion(Connection connection) {
+		if (version == null || version.isEmpty()) {
+			return Mono.empty();
+		}
+
+		return Flux.from(connection.createStatement("SELECT pg_try_advisory_lock_shared($1, $2);")
+				.bind(0, VersionProtocol.VERSION_LOCK_NAMESPACE)
+				.bind(1, VersionProtocol.getVersionLockKey(version))
+				.execute())
+				.flatMap(result -> result.map((row, metadata) -> row.get(0)))
+				.then();
+	}
+
+}
@@ -0,0 +1,55 @@
+package io.quantumdb.r2dbc;
+
+import static io.r2dbc.spi.ConnectionFactoryOptions.DRIVER;
+import static io.r2dbc.spi.ConnectionFactoryOptions.PROTOCOL;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.ConnectionFactoryProvider;
+import io.r2dbc.spi.Option;
+
+/**
+ * Creates {@link QuantumConnectionFactory}s for "r2dbc:quantumdb:" URLs, such as
+ * "r2dbc:quantumdb:postgresql://localhost:5432/database?version=abcdef1234". The remainder of the protocol selects
+ * the driver of the delegate ConnectionFactory, just like "jdbc:quantumdb:postgresql:" URLs do for the JDBC driver.
+ */
+public class QuantumConnectionFactoryProvider implements ConnectionFactoryProvider {
+
+	public static final String QUANTUMDB_DRIVER = "quantumdb";
+
+	/**
+	 * The version of the database schema to bind connections to.
+	 */
+	public static final Option<String> VERSION = Option.valueOf("version");
+
+	@Override
+	public ConnectionFactory create(ConnectionFactoryOptions options) {
+		String protocol = String.valueOf(options.getRequiredValue(PROTOCOL));
+		if (protocol.isEmpty()) {
+			throw new IllegalArgumentException("You must specify the driver to delegate to, like: "
+					+ "r2dbc:quantumdb:postgresql://...");
+		}
+
+		String[] protocols = protocol.split(":", 2);
+		ConnectionFactoryOptions delegateOptions = options.mutate()
+				.option(DRIVER, protocols[0])
+				.option(PROTOCOL, protocols.length == 2 ? protocols[1] : "")
+				.build();
+
+		Object version = options.getValue(VERSION);
+		return new QuantumConnectionFactory(ConnectionFactories.get(delegateOptions),
+				version == null ? null : version.toString());
+	}
+
+	@Override
+	public boolean supports(ConnectionFactoryOptions options) {
+		return QUANTUMDB_DRIVER.equals(options.getValue(DRIVER)) && options.hasOption(PROTOCOL);
+	}
+
+	@Override
+	public String getDriver() {
+		return QUANTUMDB_DRIVER;
+	}
+
+}
@@ -0,0 +1,29 @@
+package io.quantumdb.r2dbc;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import io.quantumdb.client.TableMapping;
+import io.r2dbc.spi.R2dbcBadGrammarException;
+
+/**
+ * The {@link TableMapping} of one particular version of the database schema, which reports queries that cannot be
+ * rewritten as R2DBC exceptions.
+ */
+class VersionMapping extends TableMapping {
+
+	VersionMapping(String version, Long generation, Map<String, String> tableMapping) {
+		super(version, generation, tableMapping);
+	}
+
+	@Override
+	public String rewrite(String sql) {
+		try {
+			return super.rewrite(sql);
+		}
+		catch (SQLException e) {
+			throw new R2dbcBadGrammarException(e.getMessage(), e.getSQLState(), e.getErrorCode(), sql, e);
+		}
+	}
+
+}
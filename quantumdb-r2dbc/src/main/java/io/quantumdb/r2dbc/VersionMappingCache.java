@@ -0,0 +1,79 @@
+package io.quantumdb.r2dbc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.quantumdb.client.TableMappingCache;
+import io.quantumdb.client.VersionProtocol;
+import io.r2dbc.spi.Connection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads {@link VersionMapping}s without blocking, and caches them in a {@link TableMappingCache} which is shared by
+ * all connections created through the same {@link QuantumConnectionFactory} (and the factories derived from it).
+ * Creating a connection only requires a primary key lookup of the current generation of the QuantumDB meta-info
+ * tables, and the mapping itself is only (re)loaded when the generation has changed.
+ *
+ * Open connections pick up a changed mapping as soon as any connection to the same version is created.
+ */
+class VersionMappingCache {
+
+	private static final VersionMapping UNVERSIONED = new VersionMapping(null, null, Collections.emptyMap());
+
+	private final TableMappingCache<VersionMapping> mappings;
+
+	VersionMappingCache() {
+		this.mappings = new TableMappingCache<>();
+	}
+
+	/**
+	 * Retrieves the mapping for the specified version.
+	 *
+	 * @param connection The connection to load the mapping with, if it's not cached, or stale.
+	 * @param version The version for which to retrieve the mapping. Can be NULL.
+	 * @return A reference to the mapping, which is kept up-to-date if the mapping is cached.
+	 */
+	Mono<AtomicReference<VersionMapping>> get(Connection connection, String version) {
+		if (version == null || version.isEmpty()) {
+			return Mono.just(new AtomicReference<>(UNVERSIONED));
+		}
+
+		return loadGeneration(connection).flatMap(generation -> {
+			AtomicReference<VersionMapping> cached = mappings.getCurrent(version, generation.orElse(null));
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+
+			return loadTableMapping(connection, version)
+					.map(tableMapping -> mappings.put(new VersionMapping(version, generation.orElse(null),
+							tableMapping)));
+		});
+	}
+
+	private Mono<Optional<Long>> loadGeneration(Connection connection) {
+		return Flux.from(connection.createStatement(VersionProtocol.selectGeneration("$1"))
+				.bind(0, VersionProtocol.GENERATION_KEY)
+				.execute())
+				.flatMap(result -> result.map((row, metadata) ->
+						VersionProtocol.parseGeneration(row.get("value", String.class))))
+				.next()
+				.map(Optional::of)
+				// The meta-info tables predate generation tracking, so we cannot tell if a cached mapping is stale.
+				.defaultIfEmpty(Optional.empty());
+	}
+
+	private Mono<Map<String, String>> loadTableMapping(Connection connection, String version) {
+		return Flux.from(connection.createStatement(VersionProtocol.selectTableMapping("$1"))
+				.bind(0, version)
+				.execute())
+				.flatMap(result -> result.map((row, metadata) -> new String[] {
+						row.get("table_name", String.class),
+						row.get("ref_id", String.class)
+				}))
+				.collectMap(entry -> entry[0], entry -> entry[1]);
+	}
+
+}
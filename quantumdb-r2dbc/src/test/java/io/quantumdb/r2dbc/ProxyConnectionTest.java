@@ -0,0 +1,84 @@
+package io.quantumdb.r2dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProxyConnectionTest {
+
+	private Connection connection;
+	private AtomicReference<VersionMapping> versionMapping;
+	private ProxyConnection proxy;
+
+	@Before
+	public void setUp() {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users_v2");
+		tableMapping.put("posts", "posts");
+
+		this.connection = mock(Connection.class);
+		this.versionMapping = new AtomicReference<>(new VersionMapping("v2", 1L, tableMapping));
+		this.proxy = new ProxyConnection(connection, versionMapping);
+	}
+
+	@Test
+	public void testThatStatementsAreRewritten() {
+		Statement statement = mock(Statement.class);
+		when(connection.createStatement("SELECT * FROM users_v2 WHERE id = $1")).thenReturn(statement);
+
+		assertSame(statement, proxy.createStatement("SELECT * FROM users WHERE id = $1"));
+	}
+
+	@Test
+	public void testThatBatchesAreRewritten() {
+		Batch batch = mock(Batch.class);
+		when(connection.createBatch()).thenReturn(batch);
+
+		proxy.createBatch()
+				.add("DELETE FROM users")
+				.add("DELETE FROM posts");
+
+		verify(batch).add("DELETE FROM users_v2");
+		verify(batch).add("DELETE FROM posts");
+	}
+
+	@Test
+	public void testThatConnectionsFollowReloadedMappings() {
+		Map<String, String> tableMapping = new HashMap<>();
+		tableMapping.put("users", "users_v3");
+		versionMapping.set(new VersionMapping("v2", 2L, tableMapping));
+
+		proxy.createStatement("SELECT * FROM users");
+
+		verify(connection).createStatement("SELECT * FROM users_v3");
+	}
+
+	@Test
+	public void testThatUnversionedConnectionsAreNotRewritten() {
+		ProxyConnection unversioned = new ProxyConnection(connection,
+				new AtomicReference<>(new VersionMapping(null, null, new HashMap<>())));
+
+		unversioned.createStatement("SELECT * FROM users");
+
+		verify(connection).createStatement("SELECT * FROM users");
+		assertEquals(null, unversioned.getVersion());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThatNullStatementsAreRejected() {
+		proxy.createStatement(null);
+	}
+
+}
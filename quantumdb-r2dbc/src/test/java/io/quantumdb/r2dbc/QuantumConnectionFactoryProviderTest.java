@@ -0,0 +1,29 @@
+package io.quantumdb.r2dbc;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.Test;
+
+public class QuantumConnectionFactoryProviderTest {
+
+	private final QuantumConnectionFactoryProvider provider = new QuantumConnectionFactoryProvider();
+
+	@Test
+	public void testThatQuantumDbUrlsAreSupported() {
+		ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+				"r2dbc:quantumdb:postgresql://localhost:5432/database?version=abcdef1234");
+
+		assertTrue(provider.supports(options));
+	}
+
+	@Test
+	public void testThatOtherUrlsAreNotSupported() {
+		ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+				"r2dbc:postgresql://localhost:5432/database");
+
+		assertFalse(provider.supports(options));
+	}
+
+}